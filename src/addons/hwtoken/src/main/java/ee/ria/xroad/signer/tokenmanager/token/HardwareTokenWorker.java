@@ -120,6 +120,9 @@ public class HardwareTokenWorker extends AbstractTokenWorker {
 
     private Session activeSession;
 
+    // true while the token is logged in for all signatures of a sign batch
+    private boolean signBatchLoggedIn;
+
     /**
      * @param tokenInfo the token info
      * @param tokenType the token type
@@ -601,8 +604,25 @@ public class HardwareTokenWorker extends AbstractTokenWorker {
         }
     }
 
+    @Override
+    protected void beginSignBatch() {
+        if (activeSession != null && tokenType.isPinVerificationPerSigning()) {
+            // log in once for all signatures of the batch
+            pinVerificationPerSigningLogin();
+            signBatchLoggedIn = true;
+        }
+    }
+
+    @Override
+    protected void endSignBatch() {
+        if (signBatchLoggedIn) {
+            signBatchLoggedIn = false;
+            pinVerificationPerSigningLogout();
+        }
+    }
+
     private void pinVerificationPerSigningLogin() {
-        if (tokenType.isPinVerificationPerSigning()) {
+        if (tokenType.isPinVerificationPerSigning() && !signBatchLoggedIn) {
             try {
                 login();
             } catch (Exception e) {
@@ -614,7 +634,7 @@ public class HardwareTokenWorker extends AbstractTokenWorker {
     }
 
     private void pinVerificationPerSigningLogout() {
-        if (tokenType.isPinVerificationPerSigning()) {
+        if (tokenType.isPinVerificationPerSigning() && !signBatchLoggedIn) {
             try {
                 logout();
             } catch (Exception e) {
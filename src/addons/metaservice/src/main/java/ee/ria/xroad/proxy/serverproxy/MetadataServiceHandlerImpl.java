@@ -63,9 +63,6 @@ import org.apache.http.HttpResponse;
 import org.apache.http.HttpStatus;
 import org.apache.http.StatusLine;
 import org.apache.http.client.HttpClient;
-import org.apache.http.client.methods.HttpGet;
-import org.apache.http.protocol.BasicHttpContext;
-import org.apache.http.protocol.HttpContext;
 import org.w3c.dom.Node;
 import org.xml.sax.InputSource;
 import org.xml.sax.SAXException;
@@ -85,8 +82,6 @@ import java.io.ByteArrayOutputStream;
 import java.io.IOException;
 import java.io.InputStream;
 import java.io.StringWriter;
-import java.net.URI;
-import java.net.URISyntaxException;
 import java.nio.charset.StandardCharsets;
 import java.util.HashMap;
 import java.util.Map;
@@ -114,13 +109,12 @@ class MetadataServiceHandlerImpl extends AbstractServiceHandler {
     private SoapMessageImpl requestMessage;
     private SoapMessageEncoder responseEncoder;
 
-    private final HttpClientCreator wsdlHttpClientCreator;
-
     private static final SAXTransformerFactory TRANSFORMER_FACTORY = createSaxTransformerFactory();
 
+    private static final ServiceDescriptionCache WSDL_CACHE = new ServiceDescriptionCache();
+
     protected MetadataServiceHandlerImpl(ServerConfProvider serverConfProvider, GlobalConfProvider globalConfProvider) {
         super(serverConfProvider, globalConfProvider);
-        wsdlHttpClientCreator = new HttpClientCreator(serverConfProvider);
     }
 
     private static SAXTransformerFactory createSaxTransformerFactory() {
@@ -264,7 +258,8 @@ class MetadataServiceHandlerImpl extends AbstractServiceHandler {
         }
 
         log.info("Downloading WSDL from URL: {}", url);
-        try (InputStream in = modifyWsdl(getWsdl(url, serviceId))) {
+        ServiceDescriptionCache.Description wsdl = WSDL_CACHE.get(serverConfProvider, serviceId, url, this::loadWsdl);
+        try (InputStream in = new ByteArrayInputStream(wsdl.content())) {
             Map<String, String> additionalHeaders = new HashMap<>();
             additionalHeaders.put("Content-Transfer-Encoding", "binary");
             additionalHeaders.put("Content-ID", "<wsdl=" + UUID.randomUUID() + "@x-road.eu>");
@@ -334,12 +329,12 @@ class MetadataServiceHandlerImpl extends AbstractServiceHandler {
     }
 
     /**
-     * reads a WSDL from input stream, modifies it and returns input stream to the result
+     * reads a WSDL from input stream, modifies it and returns the result
      *
      * @param wsdl
      * @return
      */
-    private InputStream modifyWsdl(InputStream wsdl) {
+    private byte[] modifyWsdl(InputStream wsdl) {
         try {
             TransformerHandler serializer = TRANSFORMER_FACTORY.newTransformerHandler();
             StringWriter writer = new StringWriter();
@@ -360,8 +355,7 @@ class MetadataServiceHandlerImpl extends AbstractServiceHandler {
             String resultString = writer.toString();
             log.debug("result of WSDL cleanup: {}", resultString);
 
-            // offer InputStream into processed String
-            return new ByteArrayInputStream(resultString.getBytes(StandardCharsets.UTF_8));
+            return resultString.getBytes(StandardCharsets.UTF_8);
         } catch (IOException | SAXException | TransformerConfigurationException e) {
             throw new RuntimeException(e);
         }
@@ -371,18 +365,7 @@ class MetadataServiceHandlerImpl extends AbstractServiceHandler {
         return OverwriteAttributeFilter.createOverwriteSoapAddressFilter(WSDL_ENDPOINT_ADDRESS);
     }
 
-    private InputStream getWsdl(String url, ServiceId serviceId)
-            throws HttpClientCreator.HttpClientCreatorException, URISyntaxException, IOException {
-
-        HttpClient client = wsdlHttpClientCreator.getHttpClient();
-
-        HttpContext httpContext = new BasicHttpContext();
-
-        // ServerMessageProcessor uses the same method to pass the ServiceId to CustomSSLSocketFactory
-        httpContext.setAttribute(ServiceId.class.getName(), serviceId);
-
-        HttpResponse response = client.execute(new HttpGet(new URI(url)), httpContext);
-
+    private ServiceDescriptionCache.Description loadWsdl(HttpResponse response) throws IOException {
         StatusLine statusLine = response.getStatusLine();
 
         if (HttpStatus.SC_OK != statusLine.getStatusCode()) {
@@ -390,6 +373,6 @@ class MetadataServiceHandlerImpl extends AbstractServiceHandler {
                     + statusLine.getStatusCode() + " - " + statusLine.getReasonPhrase());
         }
 
-        return response.getEntity().getContent();
+        return new ServiceDescriptionCache.Description(modifyWsdl(response.getEntity().getContent()), null);
     }
 }
@@ -51,16 +51,13 @@ import org.apache.http.HttpStatus;
 import org.apache.http.NameValuePair;
 import org.apache.http.StatusLine;
 import org.apache.http.client.HttpClient;
-import org.apache.http.client.methods.HttpGet;
 import org.apache.http.client.utils.URLEncodedUtils;
 import org.apache.http.message.BasicHeader;
-import org.apache.http.protocol.BasicHttpContext;
-import org.apache.http.protocol.HttpContext;
 
+import java.io.ByteArrayOutputStream;
 import java.io.IOException;
 import java.io.InputStream;
 import java.net.URI;
-import java.net.URISyntaxException;
 import java.nio.charset.StandardCharsets;
 import java.util.Arrays;
 import java.util.List;
@@ -90,15 +87,15 @@ public class RestMetadataServiceHandlerImpl implements RestServiceHandler {
         MAPPER = mapper;
     }
 
+    private static final ServiceDescriptionCache OPENAPI_CACHE = new ServiceDescriptionCache();
+
     private final ServerConfProvider serverConfProvider;
-    private final HttpClientCreator httpClientCreator;
 
     private RestResponse restResponse;
     private CachingStream restResponseBody;
 
     public RestMetadataServiceHandlerImpl(ServerConfProvider serverConfProvider) {
         this.serverConfProvider = serverConfProvider;
-        this.httpClientCreator = new HttpClientCreator(serverConfProvider);
     }
 
     @Override
@@ -173,8 +170,7 @@ public class RestMetadataServiceHandlerImpl implements RestServiceHandler {
         );
     }
 
-    private void handleGetOpenApi(ProxyMessage requestProxyMessage)
-            throws IOException, HttpClientCreator.HttpClientCreatorException, URISyntaxException {
+    private void handleGetOpenApi(ProxyMessage requestProxyMessage) throws Exception {
         List<NameValuePair> pairs = URLEncodedUtils.parse(requestProxyMessage.getRest().getQuery(),
                 StandardCharsets.UTF_8);
         String targetServiceCode = null;
@@ -207,47 +203,45 @@ public class RestMetadataServiceHandlerImpl implements RestServiceHandler {
 
         String serviceDescriptionURL = serverConfProvider.getServiceDescriptionURL(targetServiceId);
 
-        HttpClient client = httpClientCreator.getHttpClient();
-
-        HttpContext httpContext = new BasicHttpContext();
+        URI uri = new URI(serviceDescriptionURL);
+        ServiceDescriptionCache.Description description = OPENAPI_CACHE.get(serverConfProvider, targetServiceId,
+                serviceDescriptionURL, response -> loadOpenApi(response, uri));
 
-        // ServerMessageProcessor uses the same method to pass the ServiceId to CustomSSLSocketFactory
-        httpContext.setAttribute(ServiceId.class.getName(), targetServiceId);
+        restResponseBody.write(description.content());
+        restResponse.getHeaders().add(new BasicHeader(MimeUtils.HEADER_CONTENT_TYPE,
+                description.contentType() != null ? description.contentType() : DEFAULT_GETOPENAPI_CONTENT_TYPE));
+    }
 
-        URI uri = new URI(serviceDescriptionURL);
-        HttpResponse response = client.execute(new HttpGet(uri), httpContext);
+    private ServiceDescriptionCache.Description loadOpenApi(HttpResponse response, URI uri) throws IOException {
         StatusLine statusLine = response.getStatusLine();
 
         if (HttpStatus.SC_OK != statusLine.getStatusCode()) {
             throw new CodedException(X_INTERNAL_ERROR,
                     String.format("Failed reading service description from %s. Status: %s Reason: %s",
-                            serviceDescriptionURL, statusLine.getStatusCode(), statusLine.getReasonPhrase()));
+                            uri, statusLine.getStatusCode(), statusLine.getReasonPhrase()));
         }
 
         InputStream responseContent = response.getEntity().getContent();
+        ByteArrayOutputStream anonymised = new ByteArrayOutputStream();
 
         try {
             OpenapiDescriptionFiletype filetype = getFileType(response, uri);
             Openapi3Anonymiser anonymiser = new Openapi3Anonymiser();
             if (OpenapiDescriptionFiletype.JSON.equals(filetype)) {
-                anonymiser.anonymiseJson(responseContent, restResponseBody);
+                anonymiser.anonymiseJson(responseContent, anonymised);
             } else {
-                anonymiser.anonymiseYaml(responseContent, restResponseBody);
+                anonymiser.anonymiseYaml(responseContent, anonymised);
             }
         } catch (IOException e) {
             throw new CodedException(X_INTERNAL_ERROR,
-                    String.format("Failed overwriting origin URL for the openapi servers for %s",
-                            serviceDescriptionURL));
+                    String.format("Failed overwriting origin URL for the openapi servers for %s", uri));
         }
 
-        if (response.containsHeader(MimeUtils.HEADER_CONTENT_TYPE)) {
-            restResponse.getHeaders().add(new BasicHeader(MimeUtils.HEADER_CONTENT_TYPE,
-                    response.getFirstHeader(MimeUtils.HEADER_CONTENT_TYPE).getValue()));
-        } else {
-            restResponse.getHeaders().add(new BasicHeader(MimeUtils.HEADER_CONTENT_TYPE,
-                    DEFAULT_GETOPENAPI_CONTENT_TYPE));
-        }
+        String contentType = response.containsHeader(MimeUtils.HEADER_CONTENT_TYPE)
+                ? response.getFirstHeader(MimeUtils.HEADER_CONTENT_TYPE).getValue()
+                : null;
 
+        return new ServiceDescriptionCache.Description(anonymised.toByteArray(), contentType);
     }
 
     private OpenapiDescriptionFiletype getFileType(HttpResponse response, URI uri) {
@@ -0,0 +1,178 @@
+/*
+ * The MIT License
+ * Copyright (c) 2019- Nordic Institute for Interoperability Solutions (NIIS)
+ * Copyright (c) 2018 Estonian Information System Authority (RIA),
+ * Nordic Institute for Interoperability Solutions (NIIS), Population Register Centre (VRK)
+ * Copyright (c) 2015-2017 Estonian Information System Authority (RIA), Population Register Centre (VRK)
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package ee.ria.xroad.proxy.serverproxy;
+
+import ee.ria.xroad.common.conf.serverconf.ServerConfProvider;
+import ee.ria.xroad.common.identifier.ServiceId;
+
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+import com.google.common.cache.CacheLoader;
+import com.google.common.cache.LoadingCache;
+import lombok.extern.slf4j.Slf4j;
+import org.apache.http.Header;
+import org.apache.http.HttpHeaders;
+import org.apache.http.HttpResponse;
+import org.apache.http.HttpStatus;
+import org.apache.http.client.HttpClient;
+import org.apache.http.client.methods.HttpGet;
+import org.apache.http.protocol.BasicHttpContext;
+import org.apache.http.protocol.HttpContext;
+import org.apache.http.util.EntityUtils;
+
+import java.net.URI;
+import java.util.concurrent.ExecutionException;
+
+/**
+ * Caches service descriptions (WSDL, OpenAPI) downloaded from service providers in their already rewritten form.
+ * A cached description is revalidated with the provider on every use by a conditional request built from the
+ * ETag and Last-Modified headers of the original response, it is downloaded and rewritten again only when the
+ * provider reports a change. Descriptions served without either validator are not cached.
+ * <p>
+ * HTTP clients used for downloading the descriptions are shared by all metadata service handlers using the same
+ * server configuration, so that connections to the providers are pooled instead of opened for each request.
+ */
+@Slf4j
+final class ServiceDescriptionCache {
+
+    private static final long CACHE_MAX_BYTES = 64L * 1024 * 1024;
+
+    private static final LoadingCache<ServerConfProvider, HttpClient> HTTP_CLIENTS = CacheBuilder.newBuilder()
+            .weakKeys()
+            .build(new CacheLoader<>() {
+                @Override
+                public HttpClient load(ServerConfProvider serverConfProvider) throws Exception {
+                    return new HttpClientCreator(serverConfProvider).getHttpClient();
+                }
+            });
+
+    private final Cache<Key, Entry> entries = CacheBuilder.newBuilder()
+            .maximumWeight(CACHE_MAX_BYTES)
+            .weigher((Key key, Entry entry) -> entry.description().content().length)
+            .build();
+
+    /**
+     * Downloads and rewrites the service description from the given URL.
+     */
+    @FunctionalInterface
+    interface DescriptionLoader {
+
+        /**
+         * @param response provider response to a (possibly conditional) description request, other than 304
+         * @return rewritten description
+         * @throws Exception if the response is not acceptable or rewriting the description fails
+         */
+        Description load(HttpResponse response) throws Exception;
+    }
+
+    /**
+     * A rewritten service description.
+     * @param content description content
+     * @param contentType content type reported by the provider, may be null
+     */
+    record Description(byte[] content, String contentType) {
+    }
+
+    /**
+     * Returns the description of the given service, revalidating the cached copy if there is one.
+     * @param serverConfProvider server configuration used for setting up the connection to the provider
+     * @param serviceId service the description belongs to
+     * @param url description URL
+     * @param loader processes the provider response when the description must be (re)loaded
+     * @return the rewritten description
+     * @throws Exception if downloading or rewriting the description fails
+     */
+    Description get(ServerConfProvider serverConfProvider, ServiceId serviceId, String url,
+                    DescriptionLoader loader) throws Exception {
+        Key key = new Key(serviceId, url);
+        Entry cached = entries.getIfPresent(key);
+
+        HttpGet request = new HttpGet(new URI(url));
+        if (cached != null) {
+            cached.addConditions(request);
+        }
+
+        HttpContext httpContext = new BasicHttpContext();
+        // ServerMessageProcessor uses the same method to pass the ServiceId to CustomSSLSocketFactory
+        httpContext.setAttribute(ServiceId.class.getName(), serviceId);
+
+        HttpResponse response = getHttpClient(serverConfProvider).execute(request, httpContext);
+        try {
+            if (cached != null && response.getStatusLine().getStatusCode() == HttpStatus.SC_NOT_MODIFIED) {
+                log.debug("Service description at {} has not been modified, using cached copy", url);
+                return cached.description();
+            }
+
+            Description description = loader.load(response);
+
+            Entry entry = Entry.of(description, response);
+            if (entry != null) {
+                entries.put(key, entry);
+            } else {
+                entries.invalidate(key);
+            }
+
+            return description;
+        } finally {
+            EntityUtils.consumeQuietly(response.getEntity());
+        }
+    }
+
+    private static HttpClient getHttpClient(ServerConfProvider serverConfProvider) throws Exception {
+        try {
+            return HTTP_CLIENTS.get(serverConfProvider);
+        } catch (ExecutionException e) {
+            throw e.getCause() instanceof Exception cause ? cause : e;
+        }
+    }
+
+    private record Key(ServiceId serviceId, String url) {
+    }
+
+    private record Entry(Description description, String etag, String lastModified) {
+
+        static Entry of(Description description, HttpResponse response) {
+            String etag = headerValue(response, HttpHeaders.ETAG);
+            String lastModified = headerValue(response, HttpHeaders.LAST_MODIFIED);
+
+            return etag != null || lastModified != null ? new Entry(description, etag, lastModified) : null;
+        }
+
+        void addConditions(HttpGet request) {
+            if (etag != null) {
+                request.setHeader(HttpHeaders.IF_NONE_MATCH, etag);
+            }
+            if (lastModified != null) {
+                request.setHeader(HttpHeaders.IF_MODIFIED_SINCE, lastModified);
+            }
+        }
+
+        private static String headerValue(HttpResponse response, String name) {
+            Header header = response.getFirstHeader(name);
+            return header != null ? header.getValue() : null;
+        }
+    }
+}
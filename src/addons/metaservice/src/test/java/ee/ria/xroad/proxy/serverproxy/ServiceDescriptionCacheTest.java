@@ -0,0 +1,129 @@
+/*
+ * The MIT License
+ * Copyright (c) 2019- Nordic Institute for Interoperability Solutions (NIIS)
+ * Copyright (c) 2018 Estonian Information System Authority (RIA),
+ * Nordic Institute for Interoperability Solutions (NIIS), Population Register Centre (VRK)
+ * Copyright (c) 2015-2017 Estonian Information System Authority (RIA), Population Register Centre (VRK)
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package ee.ria.xroad.proxy.serverproxy;
+
+import ee.ria.xroad.common.conf.serverconf.ServerConfProvider;
+import ee.ria.xroad.common.identifier.ClientId;
+import ee.ria.xroad.common.identifier.ServiceId;
+
+import com.github.tomakehurst.wiremock.WireMockServer;
+import org.apache.http.util.EntityUtils;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static com.github.tomakehurst.wiremock.client.WireMock.aResponse;
+import static com.github.tomakehurst.wiremock.client.WireMock.equalTo;
+import static com.github.tomakehurst.wiremock.client.WireMock.get;
+import static com.github.tomakehurst.wiremock.client.WireMock.getRequestedFor;
+import static com.github.tomakehurst.wiremock.client.WireMock.urlPathEqualTo;
+import static com.github.tomakehurst.wiremock.core.WireMockConfiguration.options;
+import static org.junit.Assert.assertEquals;
+import static org.mockito.Mockito.mock;
+
+/**
+ * Unit test for {@link ServiceDescriptionCache}
+ */
+public class ServiceDescriptionCacheTest {
+
+    private static final ServiceId.Conf SERVICE_ID = ServiceId.Conf.create(
+            ClientId.Conf.create("EE", "GOV", "1234TEST_CLIENT", "SUBCODE5"), "someService");
+
+    private final ServerConfProvider serverConfProvider = mock(ServerConfProvider.class);
+    private final AtomicInteger loads = new AtomicInteger();
+
+    private WireMockServer mockServer;
+    private ServiceDescriptionCache cache;
+
+    @Before
+    public void init() {
+        mockServer = new WireMockServer(options().dynamicPort());
+        mockServer.start();
+        cache = new ServiceDescriptionCache();
+    }
+
+    @After
+    public void tearDown() {
+        mockServer.stop();
+    }
+
+    @Test
+    public void shouldServeCachedDescriptionWhenNotModified() throws Exception {
+        mockServer.stubFor(get(urlPathEqualTo("/etag"))
+                .willReturn(aResponse().withHeader("ETag", "\"v1\"").withBody("description")));
+        mockServer.stubFor(get(urlPathEqualTo("/etag")).atPriority(1)
+                .withHeader("If-None-Match", equalTo("\"v1\""))
+                .willReturn(aResponse().withStatus(304)));
+
+        assertEquals("DESCRIPTION", load("/etag"));
+        assertEquals("DESCRIPTION", load("/etag"));
+
+        assertEquals(1, loads.get());
+        mockServer.verify(2, getRequestedFor(urlPathEqualTo("/etag")));
+    }
+
+    @Test
+    public void shouldReloadDescriptionWhenModified() throws Exception {
+        mockServer.stubFor(get(urlPathEqualTo("/modified"))
+                .willReturn(aResponse().withHeader("Last-Modified", "Mon, 01 Jan 2024 00:00:00 GMT")
+                        .withBody("description")));
+
+        assertEquals("DESCRIPTION", load("/modified"));
+
+        mockServer.stubFor(get(urlPathEqualTo("/modified"))
+                .withHeader("If-Modified-Since", equalTo("Mon, 01 Jan 2024 00:00:00 GMT"))
+                .willReturn(aResponse().withHeader("Last-Modified", "Tue, 02 Jan 2024 00:00:00 GMT")
+                        .withBody("changed")));
+
+        assertEquals("CHANGED", load("/modified"));
+        assertEquals(2, loads.get());
+    }
+
+    @Test
+    public void shouldNotCacheDescriptionWithoutValidators() throws Exception {
+        mockServer.stubFor(get(urlPathEqualTo("/plain")).willReturn(aResponse().withBody("description")));
+
+        assertEquals("DESCRIPTION", load("/plain"));
+        assertEquals("DESCRIPTION", load("/plain"));
+
+        assertEquals(2, loads.get());
+    }
+
+    private String load(String path) throws Exception {
+        ServiceDescriptionCache.Description description = cache.get(serverConfProvider, SERVICE_ID,
+                mockServer.baseUrl() + path, response -> {
+                    loads.incrementAndGet();
+                    String content = EntityUtils.toString(response.getEntity(), StandardCharsets.UTF_8);
+                    return new ServiceDescriptionCache.Description(
+                            content.toUpperCase().getBytes(StandardCharsets.UTF_8), null);
+                });
+
+        return new String(description.content(), StandardCharsets.UTF_8);
+    }
+}
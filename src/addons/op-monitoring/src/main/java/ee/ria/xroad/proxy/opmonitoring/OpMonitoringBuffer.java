@@ -32,22 +32,34 @@ import ee.ria.xroad.common.opmonitoring.OpMonitoringSystemProperties;
 
 import lombok.extern.slf4j.Slf4j;
 
+import java.util.ArrayDeque;
 import java.util.ArrayList;
+import java.util.Deque;
 import java.util.List;
-import java.util.concurrent.BlockingDeque;
+import java.util.ListIterator;
 import java.util.concurrent.ExecutorService;
 import java.util.concurrent.Executors;
-import java.util.concurrent.LinkedBlockingDeque;
 import java.util.concurrent.ScheduledExecutorService;
 import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
 
 /**
  * Operational monitoring buffer. This buffer is used for gathering
  * operational data and for periodically sending the data to the operational
  * monitoring daemon (using OpMonitoringDaemonSender).
+ * <p>
+ * Records are stored into a lock-free ring buffer directly on the calling thread. When the buffer is full, the oldest
+ * record is dropped. Records are enriched and drained in batches on the sending thread.
+ * <p>
+ * Records of failed messages are kept for resending in front of the ring buffer and count towards the buffer size,
+ * so the oldest of them are dropped as well when the buffer is full. While there are failed records, they are resent
+ * in messages of at most max-records-in-message records and no new records are drained from the ring buffer.
  */
 @Slf4j
 public class OpMonitoringBuffer extends AbstractOpMonitoringBuffer {
+    private static final int DROPPED_RECORDS_LOG_INTERVAL = 1000;
+
     private final int maxBufferSize = OpMonitoringSystemProperties.getOpMonitorBufferSize();
     private final int maxRecordsInMessage = OpMonitoringSystemProperties.getOpMonitorBufferMaxRecordsInMessage();
 
@@ -57,7 +69,13 @@ public class OpMonitoringBuffer extends AbstractOpMonitoringBuffer {
     private final OpMonitoringDaemonSender sender;
     private final SavedServiceEndpoint savedServiceEndpoint;
 
-    final BlockingDeque<OpMonitoringData> buffer = new LinkedBlockingDeque<>();
+    final RingBuffer<OpMonitoringData> buffer;
+
+    // guarded by itself, oldest records first
+    private final Deque<OpMonitoringData> failedRecords = new ArrayDeque<>();
+    private volatile int failedRecordsCount;
+    private final AtomicBoolean sendScheduled = new AtomicBoolean(false);
+    private final AtomicLong droppedRecords = new AtomicLong();
 
     /**
      * Constructor.
@@ -74,12 +92,14 @@ public class OpMonitoringBuffer extends AbstractOpMonitoringBuffer {
             taskScheduler = null;
             opMonitoringDataProcessor = null;
             savedServiceEndpoint = null;
+            buffer = null;
         } else {
             sender = createSender(serverConfProvider);
             executorService = Executors.newSingleThreadExecutor();
             taskScheduler = Executors.newSingleThreadScheduledExecutor();
             opMonitoringDataProcessor = createDataProcessor();
             savedServiceEndpoint = new SavedServiceEndpoint(serverConfProvider);
+            buffer = new RingBuffer<>(maxBufferSize);
         }
     }
 
@@ -96,30 +116,40 @@ public class OpMonitoringBuffer extends AbstractOpMonitoringBuffer {
         if (ignoreOpMonitoringData()) {
             return;
         }
-        executorService.execute(() -> {
-            try {
-                data.setSecurityServerInternalIp(opMonitoringDataProcessor.getIpAddress());
-                data.setRestPath(savedServiceEndpoint.getPathIfExists(data));
-
-                buffer.addLast(data);
-                if (buffer.size() > maxBufferSize) {
-                    synchronized (buffer) {
-                        if (buffer.size() > maxBufferSize) {
-                            buffer.removeFirst();
-                            log.warn("Operational monitoring buffer overflow (limit: {}), removing oldest record. Current size: {}",
-                                    maxBufferSize, buffer.size());
-                        }
-                    }
-                }
-                sendInternal();
-            } catch (Exception e) {
-                log.error("Failed to process OpMonitoringData..", e);
+
+        while (!buffer.offer(data)) {
+            if (buffer.poll() != null) {
+                recordDropped();
             }
-        });
+        }
+
+        if (failedRecordsCount > 0) {
+            synchronized (failedRecords) {
+                trimFailedRecords();
+            }
+        }
+
+        if (sender.isReady()) {
+            send();
+        }
+    }
+
+    private void recordDropped() {
+        long dropped = droppedRecords.incrementAndGet();
+
+        if (dropped % DROPPED_RECORDS_LOG_INTERVAL == 1) {
+            log.warn("Operational monitoring buffer overflow (limit: {}), removing oldest record. Records dropped so far: {}",
+                    maxBufferSize, dropped);
+        }
     }
 
     private void send() {
+        if (!sendScheduled.compareAndSet(false, true)) {
+            return;
+        }
+
         executorService.execute(() -> {
+            sendScheduled.set(false);
             try {
                 this.sendInternal();
             } catch (Exception e) {
@@ -129,22 +159,71 @@ public class OpMonitoringBuffer extends AbstractOpMonitoringBuffer {
     }
 
     private void sendInternal() {
-        if (!canSend()) {
-            return;
+        while (sender.isReady()) {
+            List<OpMonitoringData> dataToProcess = pollFailedRecords();
+
+            if (dataToProcess == null) {
+                dataToProcess = new ArrayList<>(Math.min(maxRecordsInMessage, buffer.size()));
+                buffer.drainTo(dataToProcess, maxRecordsInMessage);
+                dataToProcess.forEach(this::enrich);
+            }
+
+            if (log.isDebugEnabled()) {
+                log.debug("Op monitoring remaining buffer records count {}", buffer.size());
+            }
+
+            if (dataToProcess.isEmpty()) {
+                return;
+            }
+
+            sender.sendMessage(dataToProcess);
+        }
+    }
+
+    private void enrich(OpMonitoringData data) {
+        try {
+            data.setSecurityServerInternalIp(opMonitoringDataProcessor.getIpAddress());
+            data.setRestPath(savedServiceEndpoint.getPathIfExists(data));
+        } catch (Exception e) {
+            log.error("Failed to process OpMonitoringData..", e);
+        }
+    }
+
+    private List<OpMonitoringData> pollFailedRecords() {
+        if (failedRecordsCount == 0) {
+            return null;
         }
 
-        final List<OpMonitoringData> dataToProcess = new ArrayList<>();
+        synchronized (failedRecords) {
+            if (failedRecords.isEmpty()) {
+                return null;
+            }
+
+            List<OpMonitoringData> records = new ArrayList<>(Math.min(maxRecordsInMessage, failedRecords.size()));
+            while (records.size() < maxRecordsInMessage && !failedRecords.isEmpty()) {
+                records.add(failedRecords.pollFirst());
+            }
+
+            failedRecordsCount = failedRecords.size();
+            return records;
+        }
+    }
 
-        buffer.drainTo(dataToProcess, maxRecordsInMessage);
-        if (log.isDebugEnabled()) {
-            log.debug("Op monitoring remaining buffer records count {}", buffer.size());
+    /**
+     * Drops the oldest failed records while the buffer holds more than its limit. Called while holding the
+     * failed records lock.
+     */
+    private void trimFailedRecords() {
+        while (!failedRecords.isEmpty() && failedRecords.size() + buffer.size() > maxBufferSize) {
+            failedRecords.pollFirst();
+            recordDropped();
         }
 
-        sender.sendMessage(dataToProcess);
+        failedRecordsCount = failedRecords.size();
     }
 
     private boolean canSend() {
-        return !buffer.isEmpty() && sender.isReady();
+        return (!buffer.isEmpty() || failedRecordsCount > 0) && sender.isReady();
     }
 
     void sendingSuccess(int count) {
@@ -156,7 +235,14 @@ public class OpMonitoringBuffer extends AbstractOpMonitoringBuffer {
     }
 
     void sendingFailure(List<OpMonitoringData> failedData) {
-        failedData.forEach(buffer::addFirst);
+        synchronized (failedRecords) {
+            ListIterator<OpMonitoringData> failed = failedData.listIterator(failedData.size());
+            while (failed.hasPrevious()) {
+                failedRecords.addFirst(failed.previous());
+            }
+
+            trimFailedRecords();
+        }
         // Do not worry, scheduled sending retries.
     }
 
@@ -190,7 +276,11 @@ public class OpMonitoringBuffer extends AbstractOpMonitoringBuffer {
     }
 
     int getCurrentBufferSize() {
-        return buffer.size();
+        return buffer.size() + failedRecordsCount;
+    }
+
+    long getDroppedRecordsCount() {
+        return droppedRecords.get();
     }
 
 }
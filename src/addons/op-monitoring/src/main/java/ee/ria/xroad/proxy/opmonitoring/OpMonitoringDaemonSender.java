@@ -33,8 +33,6 @@ import ee.ria.xroad.common.opmonitoring.OpMonitoringSystemProperties;
 import ee.ria.xroad.common.opmonitoring.StoreOpMonitoringDataResponse;
 import ee.ria.xroad.common.util.HttpSender;
 import ee.ria.xroad.common.util.JsonUtils;
-import ee.ria.xroad.common.util.MimeTypes;
-import ee.ria.xroad.common.util.MimeUtils;
 import ee.ria.xroad.common.util.TimeUtils;
 
 import com.fasterxml.jackson.databind.ObjectReader;
@@ -49,7 +47,7 @@ import java.net.URISyntaxException;
 import java.util.List;
 import java.util.concurrent.ExecutorService;
 import java.util.concurrent.Executors;
-import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
 
 import static ee.ria.xroad.common.opmonitoring.StoreOpMonitoringDataResponse.STATUS_ERROR;
 import static ee.ria.xroad.common.opmonitoring.StoreOpMonitoringDataResponse.STATUS_OK;
@@ -57,6 +55,9 @@ import static ee.ria.xroad.common.opmonitoring.StoreOpMonitoringDataResponse.STA
 /**
  * Actor for sending operational data to the operational monitoring daemon. This actor is used by the
  * OpMonitoringBuffer class for periodically forwarding operational data gathered in the buffer.
+ * <p>
+ * Up to {@link OpMonitoringSystemProperties#getOpMonitorBufferMaxConcurrentMessages()} messages are sent concurrently,
+ * each over its own pooled connection. Messages are serialized directly into the request body.
  */
 @Slf4j
 public class OpMonitoringDaemonSender implements DisposableBean {
@@ -73,9 +74,10 @@ public class OpMonitoringDaemonSender implements DisposableBean {
     private final ServerConfProvider serverConfProvider;
     private final OpMonitoringBuffer opMonitoringBuffer;
     private final CloseableHttpClient httpClient;
-    private final ExecutorService executorService = Executors.newSingleThreadExecutor();
+    private final int maxConcurrentMessages = OpMonitoringSystemProperties.getOpMonitorBufferMaxConcurrentMessages();
+    private final ExecutorService executorService = Executors.newFixedThreadPool(maxConcurrentMessages);
 
-    private final AtomicBoolean processing = new AtomicBoolean(false);
+    private final AtomicInteger messagesInFlight = new AtomicInteger();
 
     OpMonitoringDaemonSender(ServerConfProvider serverConfProvider, OpMonitoringBuffer opMonitoringBuffer) throws Exception {
         this.serverConfProvider = serverConfProvider;
@@ -84,42 +86,41 @@ public class OpMonitoringDaemonSender implements DisposableBean {
     }
 
     void sendMessage(final List<OpMonitoringData> dataToProcess) {
+        messagesInFlight.incrementAndGet();
+
         executorService.execute(() -> {
             try {
-                processing.set(true);
-                var json = opMonitoringDataProcessor.prepareMonitoringMessage(dataToProcess);
-                log.trace("onReceive: {}", json);
+                log.trace("Sending {} operational monitoring records", dataToProcess.size());
 
-                send(json);
+                send(dataToProcess);
 
-                processing.set(false);
+                messagesInFlight.decrementAndGet();
                 opMonitoringBuffer.sendingSuccess(dataToProcess.size());
             } catch (Exception e) {
                 log.error("Sending operational monitoring data failed", e);
-                processing.set(false);
+                messagesInFlight.decrementAndGet();
                 opMonitoringBuffer.sendingFailure(dataToProcess);
             }
         });
     }
 
     public boolean isReady() {
-        return Boolean.FALSE.equals(processing.get());
+        return messagesInFlight.get() < maxConcurrentMessages;
     }
 
-    private void send(String json) throws Exception {
+    private void send(List<OpMonitoringData> dataToProcess) throws Exception {
         try (HttpSender sender = new HttpSender(httpClient)) {
             sender.setConnectionTimeout(CONNECTION_TIMEOUT_MILLISECONDS);
             sender.setSocketTimeout(SOCKET_TIMEOUT_MILLISECONDS);
 
-            sender.doPost(getAddress(), json, MimeTypes.JSON);
+            sender.doPost(getAddress(), new OpMonitoringMessageEntity(opMonitoringDataProcessor, dataToProcess));
 
-            String responseJson = IOUtils.toString(sender.getResponseContent(), MimeUtils.UTF8);
             StoreOpMonitoringDataResponse response;
 
             try {
-                response = OBJECT_READER.readValue(responseJson, StoreOpMonitoringDataResponse.class);
+                response = OBJECT_READER.readValue(sender.getResponseContent(), StoreOpMonitoringDataResponse.class);
             } catch (Exception e) {
-                throw new Exception("Received invalid response: " + responseJson);
+                throw new Exception("Received invalid response: " + e.getMessage());
             }
 
             if (STATUS_OK.equals(response.getStatus())) {
@@ -132,7 +133,7 @@ public class OpMonitoringDaemonSender implements DisposableBean {
                 throw new Exception("Received error response" + (StringUtils.isBlank(response.getErrorMessage())
                         ? "" : ": " + response.getErrorMessage()));
             } else {
-                throw new Exception("Received invalid response: " + responseJson);
+                throw new Exception("Received invalid response status: " + response.getStatus());
             }
         }
     }
@@ -145,7 +146,7 @@ public class OpMonitoringDaemonSender implements DisposableBean {
 
     CloseableHttpClient createHttpClient() throws Exception {
         return OpMonitoringDaemonHttpClient.createHttpClient(serverConfProvider.getSSLKey(),
-                1, 1,
+                maxConcurrentMessages, maxConcurrentMessages,
                 TimeUtils.secondsToMillis(OpMonitoringSystemProperties.getOpMonitorBufferConnectionTimeoutSeconds()),
                 TimeUtils.secondsToMillis(OpMonitoringSystemProperties.getOpMonitorBufferSocketTimeoutSeconds()));
     }
@@ -29,11 +29,13 @@ import ee.ria.xroad.common.opmonitoring.OpMonitoringData;
 import ee.ria.xroad.common.opmonitoring.StoreOpMonitoringDataRequest;
 import ee.ria.xroad.common.util.JsonUtils;
 
-import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.core.JsonGenerator;
 import com.fasterxml.jackson.databind.ObjectWriter;
 import lombok.SneakyThrows;
 import lombok.extern.slf4j.Slf4j;
 
+import java.io.IOException;
+import java.io.OutputStream;
 import java.net.NetworkInterface;
 import java.util.List;
 
@@ -42,21 +44,25 @@ import static java.util.Collections.list;
 
 @Slf4j
 public class OpMonitoringDataProcessor {
-    private static final ObjectWriter OBJECT_WRITER = JsonUtils.getObjectWriter();
+    private static final ObjectWriter OBJECT_WRITER = JsonUtils.getObjectWriter()
+            .without(JsonGenerator.Feature.AUTO_CLOSE_TARGET);
 
     private static final String NO_ADDRESS_FOUND = "No suitable IP address is bound to the network interface ";
     private static final String NO_INTERFACE_FOUND = "No non-loopback network interface found";
 
     private String ipAddress;
 
-    String prepareMonitoringMessage(List<OpMonitoringData> dataToProcess) throws JsonProcessingException {
+    /**
+     * Writes the given records as a store request directly to the output stream. The stream is not closed.
+     */
+    void writeMonitoringMessage(List<OpMonitoringData> dataToProcess, OutputStream out) throws IOException {
         StoreOpMonitoringDataRequest request = new StoreOpMonitoringDataRequest();
 
         for (OpMonitoringData data : dataToProcess) {
-            request.addRecord(data.getData());
+            request.addRecord(data);
         }
 
-        return OBJECT_WRITER.writeValueAsString(request);
+        OBJECT_WRITER.writeValue(out, request);
     }
 
     String getIpAddress() {
@@ -49,6 +49,7 @@ import static ee.ria.xroad.common.ErrorCodes.X_SERVICE_FAILED_X;
 import static ee.ria.xroad.common.ErrorCodes.translateException;
 import static ee.ria.xroad.common.opmonitoring.OpMonitoringRequests.GET_SECURITY_SERVER_HEALTH_DATA;
 import static ee.ria.xroad.common.opmonitoring.OpMonitoringRequests.GET_SECURITY_SERVER_OPERATIONAL_DATA;
+import static ee.ria.xroad.common.opmonitoring.OpMonitoringRequests.GET_SECURITY_SERVER_OPERATIONAL_DATA_AGGREGATES;
 import static ee.ria.xroad.common.util.TimeUtils.getEpochMillisecond;
 
 /**
@@ -90,7 +91,8 @@ public class OpMonitoringServiceHandlerImpl extends AbstractServiceHandler {
     public boolean canHandle(ServiceId requestServiceId,
                              ProxyMessage proxyRequestMessage) {
         return switch (requestServiceId.getServiceCode()) {
-            case GET_SECURITY_SERVER_HEALTH_DATA, GET_SECURITY_SERVER_OPERATIONAL_DATA ->
+            case GET_SECURITY_SERVER_HEALTH_DATA, GET_SECURITY_SERVER_OPERATIONAL_DATA,
+                 GET_SECURITY_SERVER_OPERATIONAL_DATA_AGGREGATES ->
                     requestServiceId.getClientId().equals(serverConfProvider.getIdentifier().getOwner());
             default -> false;
         };
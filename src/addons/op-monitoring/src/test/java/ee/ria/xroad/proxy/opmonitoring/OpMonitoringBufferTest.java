@@ -46,15 +46,19 @@ import org.junit.jupiter.api.extension.ExtendWith;
 import org.mockito.Mock;
 import org.mockito.junit.jupiter.MockitoExtension;
 
+import java.io.IOException;
 import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
 import java.util.concurrent.ExecutorService;
 import java.util.concurrent.Executors;
 import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
 import java.util.stream.IntStream;
 
 import static java.nio.charset.StandardCharsets.UTF_8;
 import static org.junit.jupiter.api.Assertions.assertEquals;
-import static org.junit.jupiter.api.Assertions.assertFalse;
 import static org.junit.jupiter.api.Assertions.assertTrue;
 import static org.mockito.ArgumentMatchers.any;
 import static org.mockito.Mockito.RETURNS_DEEP_STUBS;
@@ -105,6 +109,7 @@ class OpMonitoringBufferTest {
     @AfterEach
     void cleanUp() {
         System.clearProperty("xroad.op-monitor-buffer.size");
+        System.clearProperty("xroad.op-monitor-buffer.max-records-in-message");
     }
 
     @Test
@@ -184,17 +189,62 @@ class OpMonitoringBufferTest {
         opMonitoringBuffer.store(opMonitoringData2);
         opMonitoringBuffer.store(opMonitoringData3);
 
-        Awaitility.await()
-                .atMost(Duration.ofSeconds(20))
-                .pollDelay(Duration.ofSeconds(1))
-                .untilAsserted(() -> {
-                    assertEquals(2, opMonitoringBuffer.buffer.size());
-                    assertFalse(opMonitoringBuffer.buffer.contains(opMonitoringData1));
-                    assertTrue(opMonitoringBuffer.buffer.contains(opMonitoringData2));
-                    assertTrue(opMonitoringBuffer.buffer.contains(opMonitoringData3));
+        assertEquals(2, opMonitoringBuffer.getCurrentBufferSize());
+        assertEquals(1, opMonitoringBuffer.getDroppedRecordsCount());
+
+        List<OpMonitoringData> buffered = new ArrayList<>();
+        opMonitoringBuffer.buffer.drainTo(buffered, Integer.MAX_VALUE);
+        assertEquals(List.of(opMonitoringData2, opMonitoringData3), buffered);
+    }
+
+    @Test
+    void failedRecordsStayWithinBufferSize() throws Exception {
+        when(httpClient.execute(any(HttpRequestBase.class), any(HttpContext.class)))
+                .thenThrow(new IOException("Connection refused"));
+        System.setProperty("xroad.op-monitor-buffer.size", "50");
+        System.setProperty("xroad.op-monitor-buffer.max-records-in-message", "10");
+
+        List<Integer> messageSizes = new CopyOnWriteArrayList<>();
+        AtomicReference<OpMonitoringDaemonSender> sender = new AtomicReference<>();
+
+        final TestOpMonitoringBuffer opMonitoringBuffer = new TestOpMonitoringBuffer() {
+            @Override
+            OpMonitoringDaemonSender createSender(ServerConfProvider serverConfProvider) throws Exception {
+                sender.set(new OpMonitoringDaemonSender(serverConfProvider, this) {
+                    @Override
+                    CloseableHttpClient createHttpClient() {
+                        return httpClient;
+                    }
+
+                    @Override
+                    void sendMessage(List<OpMonitoringData> dataToProcess) {
+                        messageSizes.add(dataToProcess.size());
+                        super.sendMessage(dataToProcess);
+                    }
                 });
+                return sender.get();
+            }
+        };
+
+        try {
+            for (int round = 0; round < 20; round++) {
+                for (int i = 0; i < 25; i++) {
+                    opMonitoringBuffer.store(new OpMonitoringData(OpMonitoringData.SecurityServerType.CLIENT, i));
+                }
 
-//
+                Awaitility.await()
+                        .atMost(Duration.ofSeconds(10))
+                        .until(() -> sender.get().isReady());
+
+                assertTrue(opMonitoringBuffer.getCurrentBufferSize() <= 50,
+                        "Buffer size " + opMonitoringBuffer.getCurrentBufferSize() + " exceeds the limit");
+            }
+
+            assertTrue(opMonitoringBuffer.getDroppedRecordsCount() >= 20 * 25 - 50);
+            assertTrue(messageSizes.stream().allMatch(size -> size <= 10), "Message sizes: " + messageSizes);
+        } finally {
+            opMonitoringBuffer.destroy();
+        }
     }
 
     @Test
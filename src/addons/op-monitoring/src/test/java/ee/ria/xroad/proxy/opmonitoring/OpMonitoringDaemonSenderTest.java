@@ -0,0 +1,156 @@
+/*
+ * The MIT License
+ * Copyright (c) 2019- Nordic Institute for Interoperability Solutions (NIIS)
+ * Copyright (c) 2018 Estonian Information System Authority (RIA),
+ * Nordic Institute for Interoperability Solutions (NIIS), Population Register Centre (VRK)
+ * Copyright (c) 2015-2017 Estonian Information System Authority (RIA), Population Register Centre (VRK)
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package ee.ria.xroad.proxy.opmonitoring;
+
+import ee.ria.xroad.common.conf.serverconf.ServerConfProvider;
+import ee.ria.xroad.common.opmonitoring.OpMonitoringData;
+import ee.ria.xroad.common.opmonitoring.StoreOpMonitoringDataResponse;
+import ee.ria.xroad.common.util.MimeTypes;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.apache.commons.io.IOUtils;
+import org.apache.http.Header;
+import org.apache.http.HttpEntity;
+import org.apache.http.client.methods.CloseableHttpResponse;
+import org.apache.http.client.methods.HttpEntityEnclosingRequestBase;
+import org.apache.http.client.methods.HttpRequestBase;
+import org.apache.http.impl.client.CloseableHttpClient;
+import org.apache.http.protocol.HttpContext;
+import org.apache.http.util.EntityUtils;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import java.io.ByteArrayOutputStream;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+import static java.nio.charset.StandardCharsets.UTF_8;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.RETURNS_DEEP_STUBS;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.timeout;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+/**
+ * Tests sending operational monitoring data to the operational monitoring daemon.
+ */
+@ExtendWith(MockitoExtension.class)
+class OpMonitoringDaemonSenderTest {
+    private static final long VERIFY_TIMEOUT_MILLIS = 5000;
+
+    private final ObjectMapper objectMapper = new ObjectMapper();
+    private final List<String> sentBodies = new CopyOnWriteArrayList<>();
+
+    @Mock
+    private CloseableHttpClient httpClient;
+
+    @Mock
+    private OpMonitoringBuffer opMonitoringBuffer;
+
+    private OpMonitoringDaemonSender sender;
+
+    @BeforeEach
+    void setUp() throws Exception {
+        sender = new OpMonitoringDaemonSender(mock(ServerConfProvider.class), opMonitoringBuffer) {
+            @Override
+            CloseableHttpClient createHttpClient() {
+                return httpClient;
+            }
+        };
+    }
+
+    @AfterEach
+    void tearDown() {
+        sender.destroy();
+    }
+
+    @Test
+    void sendRecordsInRequestBody() throws Exception {
+        respondWith(new StoreOpMonitoringDataResponse());
+        List<OpMonitoringData> data = List.of(
+                new OpMonitoringData(OpMonitoringData.SecurityServerType.CLIENT, 1L),
+                new OpMonitoringData(OpMonitoringData.SecurityServerType.PRODUCER, 2L));
+
+        sender.sendMessage(data);
+
+        verify(opMonitoringBuffer, timeout(VERIFY_TIMEOUT_MILLIS)).sendingSuccess(2);
+
+        JsonNode records = objectMapper.readTree(sentBodies.getFirst()).get("records");
+        assertEquals(2, records.size());
+        assertEquals(1L, records.get(0).get("requestInTs").asLong());
+        assertEquals("Producer", records.get(1).get("securityServerType").asText());
+    }
+
+    @Test
+    void failOnErrorResponse() throws Exception {
+        StoreOpMonitoringDataResponse response = new StoreOpMonitoringDataResponse();
+        response.setStatus(StoreOpMonitoringDataResponse.STATUS_ERROR);
+        respondWith(response);
+        List<OpMonitoringData> data = List.of(new OpMonitoringData(OpMonitoringData.SecurityServerType.CLIENT, 1L));
+
+        sender.sendMessage(data);
+
+        verify(opMonitoringBuffer, timeout(VERIFY_TIMEOUT_MILLIS)).sendingFailure(data);
+    }
+
+    @Test
+    void entityContentCanBeReadRepeatedly() throws Exception {
+        HttpEntity entity = new OpMonitoringMessageEntity(new OpMonitoringDataProcessor(),
+                List.of(new OpMonitoringData(OpMonitoringData.SecurityServerType.CLIENT, 1L)));
+
+        ByteArrayOutputStream written = new ByteArrayOutputStream();
+        entity.writeTo(written);
+
+        assertTrue(entity.isRepeatable());
+        assertEquals(MimeTypes.JSON, entity.getContentType().getValue());
+        assertEquals(written.toString(UTF_8), EntityUtils.toString(entity, UTF_8));
+        assertEquals(written.toString(UTF_8), EntityUtils.toString(entity, UTF_8));
+    }
+
+    private void respondWith(StoreOpMonitoringDataResponse storeResponse) throws Exception {
+        when(httpClient.execute(any(HttpRequestBase.class), any(HttpContext.class))).thenAnswer(invocation -> {
+            HttpEntity entity = invocation.<HttpEntityEnclosingRequestBase>getArgument(0).getEntity();
+
+            // the body is read the way a buffering or retrying client would read it
+            sentBodies.add(EntityUtils.toString(entity, UTF_8));
+
+            CloseableHttpResponse response = mock(CloseableHttpResponse.class, RETURNS_DEEP_STUBS);
+            when(response.getStatusLine().getStatusCode()).thenReturn(200);
+            when(response.getAllHeaders()).thenReturn(new Header[0]);
+            when(response.getEntity().getContent())
+                    .thenReturn(IOUtils.toInputStream(objectMapper.writeValueAsString(storeResponse), UTF_8));
+            return response;
+        });
+    }
+}
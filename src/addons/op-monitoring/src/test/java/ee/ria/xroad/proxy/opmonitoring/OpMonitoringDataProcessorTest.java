@@ -0,0 +1,117 @@
+/*
+ * The MIT License
+ * Copyright (c) 2019- Nordic Institute for Interoperability Solutions (NIIS)
+ * Copyright (c) 2018 Estonian Information System Authority (RIA),
+ * Nordic Institute for Interoperability Solutions (NIIS), Population Register Centre (VRK)
+ * Copyright (c) 2015-2017 Estonian Information System Authority (RIA), Population Register Centre (VRK)
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package ee.ria.xroad.proxy.opmonitoring;
+
+import ee.ria.xroad.common.CodedException;
+import ee.ria.xroad.common.identifier.ClientId;
+import ee.ria.xroad.common.identifier.ServiceId;
+import ee.ria.xroad.common.message.RepresentedParty;
+import ee.ria.xroad.common.opmonitoring.OpMonitoringData;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayOutputStream;
+import java.util.List;
+
+import static java.nio.charset.StandardCharsets.UTF_8;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+/**
+ * Pins the format of the store requests sent to the operational monitoring daemon. The expected messages are the
+ * output of the earlier map based records, which left out fields without a value.
+ */
+class OpMonitoringDataProcessorTest {
+    private static final String FULL_RECORD_MESSAGE = """
+            {"records":[{"serviceXRoadInstance":"EE","serviceType":"WSDL","clientSubsystemCode":"SUB",\
+            "serviceCode":"getData","serviceSecurityServerAddress":"service.example.org","xRequestId":"request-id",\
+            "restMethod":"GET","requestAttachmentCount":1,"serviceVersion":"v1","requestMimeSize":30,\
+            "requestOutTs":1001,"responseMimeSize":40,"faultString":"failure","serviceSubsystemCode":"SUB2",\
+            "representedPartyClass":"COM","responseAttachmentCount":2,"clientMemberCode":"CLIENT",\
+            "representedPartyCode":"PARTY","responseInTs":1002,"messageProtocolVersion":"4.0",\
+            "messageId":"message-id","responseSize":20,"clientXRoadInstance":"EE","messageUserId":"user",\
+            "clientMemberClass":"GOV","serviceMemberCode":"PROVIDER","securityServerType":"Producer",\
+            "securityServerInternalIp":"10.0.0.1","serviceMemberClass":"COM","faultCode":"Server.ServerProxy",\
+            "messageIssue":"issue","requestInTs":1000,"clientSecurityServerAddress":"client.example.org",\
+            "restPath":"/data","responseOutTs":1003,"requestSize":10,"succeeded":true,"statusCode":200}]}""";
+
+    private static final String SPARSE_RECORD_MESSAGE = """
+            {"records":[{"clientMemberCode":"CLIENT","requestInTs":2000,"clientXRoadInstance":"EE",\
+            "clientMemberClass":"GOV","responseOutTs":2001,"securityServerType":"Client","succeeded":false}]}""";
+
+    private final ObjectMapper objectMapper = new ObjectMapper();
+    private final OpMonitoringDataProcessor processor = new OpMonitoringDataProcessor();
+
+    @Test
+    void writeFullyPopulatedRecord() throws Exception {
+        OpMonitoringData data = new OpMonitoringData(OpMonitoringData.SecurityServerType.PRODUCER, 1000L);
+        data.setSecurityServerInternalIp("10.0.0.1");
+        data.setClientSecurityServerAddress("client.example.org");
+        data.setServiceSecurityServerAddress("service.example.org");
+        data.setClientId(ClientId.Conf.create("EE", "GOV", "CLIENT", "SUB"));
+        data.setServiceId(ServiceId.Conf.create("EE", "COM", "PROVIDER", "SUB2", "getData", "v1"));
+        data.setServiceType("WSDL");
+        data.setRestMethod("GET");
+        data.setRestPath("/data");
+        data.setRepresentedParty(new RepresentedParty("COM", "PARTY"));
+        data.setMessageId("message-id");
+        data.setMessageUserId("user");
+        data.setMessageIssue("issue");
+        data.setMessageProtocolVersion("4.0");
+        data.setXRequestId("request-id");
+        data.setRequestOutTs(1001L);
+        data.setResponseInTs(1002L);
+        data.setResponseOutTs(1003L, true);
+        data.setRequestSize(10L);
+        data.setResponseSize(20L);
+        data.setRequestMimeSize(30L);
+        data.setResponseMimeSize(40L);
+        data.setRequestAttachmentCount(1);
+        data.setResponseAttachmentCount(2);
+        data.setRestResponseStatusCode(200);
+        data.setSucceeded(true);
+        data.setFaultCodeAndString(new CodedException("Server.ServerProxy", "failure"));
+
+        assertMessage(FULL_RECORD_MESSAGE, data);
+    }
+
+    @Test
+    void writeSparseRecord() throws Exception {
+        OpMonitoringData data = new OpMonitoringData(OpMonitoringData.SecurityServerType.CLIENT, 2000L);
+        data.setClientId(ClientId.Conf.create("EE", "GOV", "CLIENT"));
+        data.setMessageUserId(null);
+        data.setResponseOutTs(2001L, false);
+
+        assertMessage(SPARSE_RECORD_MESSAGE, data);
+    }
+
+    private void assertMessage(String expected, OpMonitoringData data) throws Exception {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        processor.writeMonitoringMessage(List.of(data), out);
+
+        assertEquals(objectMapper.readTree(expected), objectMapper.readTree(out.toString(UTF_8)));
+    }
+}
@@ -33,13 +33,32 @@ import org.springframework.web.context.request.RequestAttributes;
 import org.springframework.web.context.request.RequestContextHolder;
 import org.springframework.web.context.request.ServletRequestAttributes;
 
+import java.util.function.Supplier;
+
 import static ee.ria.xroad.common.util.HttpHeaders.X_FORWARDED_FOR;
 import static org.apache.commons.lang3.StringUtils.isBlank;
 
 public class XForwardedForHeaderFeignInterceptor implements RequestInterceptor {
 
+    private static final ThreadLocal<String> CLIENT_ADDRESS = new ThreadLocal<>();
+
     @Override
     public void apply(RequestTemplate template) {
+        String clientIp = CLIENT_ADDRESS.get();
+        if (clientIp == null) {
+            clientIp = getCurrentRequestClientAddress();
+        }
+
+        if (clientIp != null) {
+            template.header(X_FORWARDED_FOR, clientIp);
+        }
+    }
+
+    /**
+     * Resolves the client address of the servlet request bound to the current thread.
+     * @return the client address or null if no servlet request is bound to the current thread
+     */
+    public static String getCurrentRequestClientAddress() {
         final RequestAttributes requestAttributes = RequestContextHolder.getRequestAttributes();
         if (requestAttributes instanceof ServletRequestAttributes sra) {
             var request = sra.getRequest();
@@ -48,8 +67,24 @@ public class XForwardedForHeaderFeignInterceptor implements RequestInterceptor {
             if (isBlank(clientIp)) {
                 clientIp = request.getRemoteAddr();
             }
+            return clientIp;
+        }
+        return null;
+    }
 
-            template.header(X_FORWARDED_FOR, clientIp);
+    /**
+     * Executes the action forwarding the given client address in the calls it makes on the current thread.
+     * Used when the calls are made outside the thread of the servlet request.
+     * @param clientAddress the client address, resolved on the request thread
+     * @param action the action
+     * @return result of the action
+     */
+    public static <T> T withClientAddress(String clientAddress, Supplier<T> action) {
+        CLIENT_ADDRESS.set(clientAddress);
+        try {
+            return action.get();
+        } finally {
+            CLIENT_ADDRESS.remove();
         }
     }
 
@@ -53,5 +53,20 @@ public interface ConfigurationService {
 
     Set<DistributedFile> getAllConfigurationFiles(int version);
 
+    /**
+     * Returns a fingerprint of the data the global configuration is generated from. The fingerprint changes whenever
+     * the source data or an uploaded configuration part changes.
+     *
+     * @return change fingerprint
+     */
+    String getConfigurationChangeFingerprint();
+
+    /**
+     * Marks the configuration parts of the given version generated by this node as up-to-date without rewriting them.
+     *
+     * @param version configuration version
+     */
+    void refreshConfigurationPartTimestamps(int version);
+
     void uploadConfigurationPart(ConfigurationSourceType sourceType, String contentIdentifier, String originalFileName, byte[] data);
 }
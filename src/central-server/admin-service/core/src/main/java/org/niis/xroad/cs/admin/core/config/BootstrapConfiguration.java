@@ -30,8 +30,8 @@ import ee.ria.xroad.common.conf.globalconf.GlobalConfBeanConfig;
 import ee.ria.xroad.common.conf.globalconf.GlobalConfRefreshJobConfig;
 import ee.ria.xroad.common.util.process.ExternalProcessRunner;
 
-import jakarta.servlet.Filter;
 import org.niis.xroad.common.api.throttle.IpThrottlingFilter;
+import org.niis.xroad.common.api.throttle.IpThrottlingFilterMetrics;
 import org.niis.xroad.restapi.config.AddCorrelationIdFilter;
 import org.niis.xroad.restapi.config.AllowedFilesConfig;
 import org.niis.xroad.restapi.service.FileVerifier;
@@ -61,8 +61,16 @@ public class BootstrapConfiguration {
     @ConditionalOnProperty(
             value = "xroad.admin-service.rate-limit-enabled",
             havingValue = "true", matchIfMissing = true)
-    public Filter ipThrottlingFilter(AdminServiceProperties properties) {
+    public IpThrottlingFilter ipThrottlingFilter(AdminServiceProperties properties) {
         return new IpThrottlingFilter(properties);
     }
+
+    @Bean
+    @ConditionalOnProperty(
+            value = "xroad.admin-service.rate-limit-enabled",
+            havingValue = "true", matchIfMissing = true)
+    public IpThrottlingFilterMetrics ipThrottlingFilterMetrics(IpThrottlingFilter ipThrottlingFilter) {
+        return new IpThrottlingFilterMetrics(ipThrottlingFilter);
+    }
 }
 
@@ -28,6 +28,7 @@ package org.niis.xroad.cs.admin.core.repository;
 
 import org.niis.xroad.cs.admin.core.entity.DistributedFileEntity;
 
+import java.time.Instant;
 import java.util.Optional;
 import java.util.Set;
 
@@ -40,4 +41,17 @@ public interface DistributedFileRepository extends GenericRepository<Distributed
     Set<DistributedFileEntity> findAllByContentIdentifierAndHaNodeName(String contentIdentifier, String haNodeName);
 
     Optional<DistributedFileEntity> findFirstByContentIdentifierAndHaNodeName(String contentIdentifier, String haNodeName);
+
+    /**
+     * Returns the latest identifier of the history table. The history table is filled by triggers on every change of
+     * the tables the global configuration is generated from (except distributed files), so the value changes whenever
+     * the source data of the global configuration changes.
+     *
+     * @return latest history row identifier or 0 if there is no history
+     */
+    long findLastHistoryId();
+
+    Optional<Instant> findLastFileUpdatedAtByVersion(int version);
+
+    int updateFileUpdatedAt(int version, String haNodeName, Instant fileUpdatedAt);
 }
@@ -58,6 +58,7 @@ import org.niis.xroad.cs.admin.core.validation.ConfigurationPartValidator;
 import org.niis.xroad.restapi.config.audit.AuditDataHelper;
 import org.springframework.stereotype.Service;
 
+import java.time.Instant;
 import java.util.HashSet;
 import java.util.List;
 import java.util.Map;
@@ -236,6 +237,19 @@ public class ConfigurationServiceImpl implements ConfigurationService {
                 .collect(toSet());
     }
 
+    @Override
+    public String getConfigurationChangeFingerprint() {
+        return distributedFileRepository.findLastHistoryId() + ":"
+                + distributedFileRepository.findLastFileUpdatedAtByVersion(0)
+                .map(Instant::toString)
+                .orElse("");
+    }
+
+    @Override
+    public void refreshConfigurationPartTimestamps(int version) {
+        distributedFileRepository.updateFileUpdatedAt(version, haConfigStatus.getCurrentHaNodeName(), TimeUtils.now());
+    }
+
     @Override
     public void uploadConfigurationPart(ConfigurationSourceType sourceType,
                                         String contentIdentifier, String originalFileName, byte[] data) {
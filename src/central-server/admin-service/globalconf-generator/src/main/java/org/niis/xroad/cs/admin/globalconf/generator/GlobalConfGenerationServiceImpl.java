@@ -46,9 +46,17 @@ import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.scheduling.annotation.Scheduled;
 import org.springframework.stereotype.Component;
 import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
 
 import java.nio.file.Path;
+import java.time.Instant;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.Objects;
 import java.util.Optional;
 import java.util.Set;
 
@@ -56,6 +64,7 @@ import static ee.ria.xroad.common.conf.globalconf.ConfigurationConstants.CONTENT
 import static ee.ria.xroad.common.conf.globalconf.ConfigurationConstants.CONTENT_ID_SHARED_PARAMETERS;
 import static java.nio.charset.StandardCharsets.UTF_8;
 import static java.util.concurrent.TimeUnit.SECONDS;
+import static java.util.stream.Collectors.toMap;
 import static java.util.stream.Collectors.toSet;
 import static java.util.stream.Stream.concat;
 import static org.niis.xroad.cs.admin.api.service.ConfigurationSigningKeysService.SOURCE_TYPE_EXTERNAL;
@@ -85,13 +94,19 @@ public class GlobalConfGenerationServiceImpl implements GlobalConfGenerationServ
 
     private final List<ConfigurationPartsGenerator> configurationPartsGenerators;
 
+    private final Map<Integer, GeneratedConfiguration> generatedConfigurations = new HashMap<>();
+
     @SneakyThrows
     @Override
     @Transactional
     @Scheduled(fixedRateString = "${xroad.admin-service.global-configuration-generation-rate-in-seconds}", timeUnit = SECONDS)
     public void generate() {
+        var changeFingerprint = configurationService.getConfigurationChangeFingerprint();
+        var signingKeys = new SigningKeys(
+                configurationSigningKeysService.findActiveForSource(SOURCE_TYPE_INTERNAL).orElse(null),
+                configurationSigningKeysService.findActiveForSource(SOURCE_TYPE_EXTERNAL).orElse(null));
         final var results = configurationPartsGenerators.stream()
-                .map(this::generate)
+                .map(generator -> generate(generator, changeFingerprint, signingKeys))
                 .filter(Optional::isPresent)
                 .map(Optional::get)
                 .toList();
@@ -103,23 +118,36 @@ public class GlobalConfGenerationServiceImpl implements GlobalConfGenerationServ
         if (results.stream().allMatch(Result::success)) {
             results.stream()
                     .map(Result::applier)
+                    .filter(Objects::nonNull)
                     .forEach(GlobalConfApplier::apply);
+            afterCommit(() -> results.forEach(result -> generatedConfigurations.put(result.confVersion(), result.generated())));
             eventPublisher.publishEvent(SUCCESS);
         } else {
             results.stream()
                     .map(Result::applier)
+                    .filter(Objects::nonNull)
                     .forEach(GlobalConfApplier::rollback);
+            generatedConfigurations.clear();
             eventPublisher.publishEvent(FAILURE);
         }
     }
 
-    private Optional<Result> generate(ConfigurationPartsGenerator generator) {
+    private Optional<Result> generate(ConfigurationPartsGenerator generator, String changeFingerprint, SigningKeys signingKeys) {
         int confVersion = generator.getConfigurationVersion();
         if (confVersion < SystemProperties.getMinimumCentralServerGlobalConfigurationVersion()) {
             return Optional.empty();
         }
 
         var configGenerationTime = TimeUtils.now();
+        var previous = generatedConfigurations.get(confVersion);
+        var reusable = previous != null && !previous.isRefreshDue(configGenerationTime, getRefreshIntervalSeconds())
+                && previous.signingKeyIds().equals(signingKeys.ids());
+        if (reusable && previous.changeFingerprint().equals(changeFingerprint)) {
+            log.debug("Global conf V{} source data has not changed, skipping generation", confVersion);
+            configurationService.refreshConfigurationPartTimestamps(confVersion);
+            return Optional.of(new Result(true, null, confVersion, previous));
+        }
+
         var generatedConfDir = Path.of(SystemProperties.getCenterGeneratedConfDir());
         var configDistributor = new ConfigurationDistributor(generatedConfDir, confVersion, configGenerationTime);
         var globalConfApplier = new GlobalConfApplier(confVersion, configDistributor, systemParameterService);
@@ -128,10 +156,21 @@ public class GlobalConfGenerationServiceImpl implements GlobalConfGenerationServ
             log.debug("Starting global conf V{} generation", confVersion);
 
             var configurationParts = generator.generateConfigurationParts();
-            configurationParts.forEach(gp -> configurationService
-                    .saveConfigurationPart(gp.getContentIdentifier(), gp.getFilename(), gp.getData(), confVersion));
+            configurationParts.stream()
+                    .filter(gp -> !reusable || previous.isChanged(gp))
+                    .forEach(gp -> configurationService
+                            .saveConfigurationPart(gp.getContentIdentifier(), gp.getFilename(), gp.getData(), confVersion));
+            configurationService.refreshConfigurationPartTimestamps(confVersion);
 
             var allConfigurationParts = toConfigurationParts(configurationService.getAllConfigurationFiles(confVersion));
+            var generated = new GeneratedConfiguration(changeFingerprint, signingKeys.ids(), configGenerationTime,
+                    toPartData(configurationParts), toPartData(allConfigurationParts));
+
+            if (reusable && previous.hasSameParts(generated)) {
+                log.debug("Global conf V{} parts have not changed, reusing signed directories", confVersion);
+                return Optional.of(new Result(true, null, confVersion, previous.withChangeFingerprint(changeFingerprint)));
+            }
+
             globalConfApplier.addConfigurationParts(allConfigurationParts);
 
             var internalConfigurationParts = internalConfigurationParts(allConfigurationParts);
@@ -140,20 +179,50 @@ public class GlobalConfGenerationServiceImpl implements GlobalConfGenerationServ
             configDistributor.initConfLocation();
             configDistributor.writeConfigurationFiles(allConfigurationParts);
 
-            var internalSigningKey = configurationSigningKeysService.findActiveForSource(SOURCE_TYPE_INTERNAL).orElseThrow();
-            var externalSigningKey = configurationSigningKeysService.findActiveForSource(SOURCE_TYPE_EXTERNAL).orElseThrow();
+            var internalSigningKey = Objects.requireNonNull(signingKeys.internal(), "No active internal signing key");
+            var externalSigningKey = Objects.requireNonNull(signingKeys.external(), "No active external signing key");
 
             writeDirectoryContentFile(configDistributor, internalConfigurationParts, internalSigningKey, getTmpInternalDirectory());
             writeDirectoryContentFile(configDistributor, externalConfigurationParts, externalSigningKey, getTmpExternalDirectory());
 
             log.debug("Global conf generated");
-            return Optional.of(new Result(true, globalConfApplier));
+            return Optional.of(new Result(true, globalConfApplier, confVersion, generated));
         } catch (Exception e) {
             log.error("Global conf generation failed", e);
-            return Optional.of(new Result(false, globalConfApplier));
+            return Optional.of(new Result(false, globalConfApplier, confVersion, null));
         }
     }
 
+    /**
+     * Signed directories expire after the configuration expire interval, so they are re-signed at least twice per
+     * interval even when nothing has changed.
+     */
+    private long getRefreshIntervalSeconds() {
+        return systemParameterService.getConfExpireIntervalSeconds() / 2;
+    }
+
+    /**
+     * Runs the action after the current transaction has committed, so that the state of the last generation is
+     * not updated by a generation whose changes are rolled back.
+     */
+    private static void afterCommit(Runnable action) {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            action.run();
+            return;
+        }
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                action.run();
+            }
+        });
+    }
+
+    private static Map<String, byte[]> toPartData(Collection<ConfigurationPart> configurationParts) {
+        return configurationParts.stream()
+                .collect(toMap(cp -> cp.getContentIdentifier() + "/" + cp.getFilename(), ConfigurationPart::getData));
+    }
+
     private static Set<ConfigurationPart> internalConfigurationParts(Set<ConfigurationPart> configurationParts) {
         var contentIdentifiers = getInternalSourceContentIdentifiers();
         return configurationParts.stream()
@@ -226,7 +295,52 @@ public class GlobalConfGenerationServiceImpl implements GlobalConfGenerationServ
                 .collect(toSet());
     }
 
-    private record Result(boolean success, GlobalConfApplier applier) {
+    private record Result(boolean success, GlobalConfApplier applier, int confVersion, GeneratedConfiguration generated) {
+    }
+
+    /**
+     * Active configuration signing keys, null if a source has no active key.
+     */
+    private record SigningKeys(ConfigurationSigningKey internal, ConfigurationSigningKey external) {
+
+        String ids() {
+            return keyId(internal) + "/" + keyId(external);
+        }
+
+        private static String keyId(ConfigurationSigningKey signingKey) {
+            return signingKey != null ? signingKey.getKeyIdentifier() : "";
+        }
+    }
+
+    /**
+     * State of the last successful generation of a configuration version.
+     *
+     * @param changeFingerprint source data fingerprint the configuration was generated from
+     * @param signingKeyIds     identifiers of the internal and external signing keys the directories were signed with
+     * @param signedAt          time the directories were last signed
+     * @param generatedParts    data of the generated parts
+     * @param allParts          data of all distributed parts
+     */
+    private record GeneratedConfiguration(String changeFingerprint, String signingKeyIds, Instant signedAt,
+                                          Map<String, byte[]> generatedParts, Map<String, byte[]> allParts) {
+
+        boolean isRefreshDue(Instant now, long refreshIntervalSeconds) {
+            return !signedAt.plusSeconds(refreshIntervalSeconds).isAfter(now);
+        }
+
+        boolean isChanged(ConfigurationPart part) {
+            return !Arrays.equals(generatedParts.get(part.getContentIdentifier() + "/" + part.getFilename()), part.getData());
+        }
+
+        boolean hasSameParts(GeneratedConfiguration other) {
+            return allParts.size() == other.allParts.size()
+                    && allParts.entrySet().stream()
+                    .allMatch(e -> Arrays.equals(e.getValue(), other.allParts.get(e.getKey())));
+        }
+
+        GeneratedConfiguration withChangeFingerprint(String fingerprint) {
+            return new GeneratedConfiguration(fingerprint, signingKeyIds, signedAt, generatedParts, allParts);
+        }
     }
 
 }
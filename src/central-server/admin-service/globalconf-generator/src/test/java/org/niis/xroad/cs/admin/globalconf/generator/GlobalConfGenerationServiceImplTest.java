@@ -0,0 +1,205 @@
+/*
+ * The MIT License
+ * Copyright (c) 2019- Nordic Institute for Interoperability Solutions (NIIS)
+ * Copyright (c) 2018 Estonian Information System Authority (RIA),
+ * Nordic Institute for Interoperability Solutions (NIIS), Population Register Centre (VRK)
+ * Copyright (c) 2015-2017 Estonian Information System Authority (RIA), Population Register Centre (VRK)
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package org.niis.xroad.cs.admin.globalconf.generator;
+
+import ee.ria.xroad.common.SystemProperties;
+import ee.ria.xroad.common.crypto.identifier.DigestAlgorithm;
+import ee.ria.xroad.common.crypto.identifier.SignMechanism;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.niis.xroad.cs.admin.api.domain.ConfigurationSigningKey;
+import org.niis.xroad.cs.admin.api.domain.DistributedFile;
+import org.niis.xroad.cs.admin.api.facade.SignerProxyFacade;
+import org.niis.xroad.cs.admin.api.service.ConfigurationService;
+import org.niis.xroad.cs.admin.api.service.ConfigurationSigningKeysService;
+import org.niis.xroad.cs.admin.api.service.SystemParameterService;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.nio.file.Path;
+import java.util.List;
+import java.util.Optional;
+import java.util.Set;
+
+import static ee.ria.xroad.common.conf.globalconf.ConfigurationConstants.CONTENT_ID_SHARED_PARAMETERS;
+import static java.nio.charset.StandardCharsets.UTF_8;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+import static org.niis.xroad.cs.admin.api.service.ConfigurationSigningKeysService.SOURCE_TYPE_EXTERNAL;
+import static org.niis.xroad.cs.admin.api.service.ConfigurationSigningKeysService.SOURCE_TYPE_INTERNAL;
+import static org.niis.xroad.cs.admin.globalconf.generator.GlobalConfGenerationEvent.SUCCESS;
+
+class GlobalConfGenerationServiceImplTest {
+
+    private static final String CENTER_GENERATED_CONF_DIR = SystemProperties.PREFIX + "center.generated-conf-dir";
+    private static final int CONF_VERSION = 4;
+    private static final String SHARED_PARAMETERS_FILE = "shared-params.xml";
+    private static final byte[] SHARED_PARAMETERS = "<conf/>".getBytes(UTF_8);
+
+    @TempDir
+    Path tempDir;
+
+    private final SignerProxyFacade signerProxyFacade = mock(SignerProxyFacade.class);
+    private final SystemParameterService systemParameterService = mock(SystemParameterService.class);
+    private final ConfigurationService configurationService = mock(ConfigurationService.class);
+    private final ConfigurationSigningKeysService configurationSigningKeysService =
+            mock(ConfigurationSigningKeysService.class);
+    private final ApplicationEventPublisher eventPublisher = mock(ApplicationEventPublisher.class);
+    private final ConfigurationPartsGenerator generator = mock(ConfigurationPartsGenerator.class);
+
+    private GlobalConfGenerationServiceImpl globalConfGenerationService;
+
+    @BeforeEach
+    void setup() throws Exception {
+        System.setProperty(CENTER_GENERATED_CONF_DIR, tempDir.resolve("generated").toString());
+        System.setProperty(SystemProperties.CONFIGURATION_PATH, tempDir.resolve("globalconf").toString());
+        System.setProperty(SystemProperties.CONF_PATH, tempDir.toString());
+
+        when(systemParameterService.getInstanceIdentifier()).thenReturn("CS");
+        when(systemParameterService.getConfExpireIntervalSeconds()).thenReturn(600);
+        when(systemParameterService.getConfHashAlgoUri()).thenReturn(DigestAlgorithm.SHA512);
+        when(systemParameterService.getConfSignDigestAlgoId()).thenReturn(DigestAlgorithm.SHA512);
+        when(systemParameterService.getConfSignCertHashAlgoUri()).thenReturn(DigestAlgorithm.SHA512);
+        when(signerProxyFacade.getSignMechanism(anyString())).thenReturn(SignMechanism.CKM_RSA_PKCS);
+        when(signerProxyFacade.sign(anyString(), any(), any())).thenReturn(new byte[]{1, 2, 3});
+
+        when(generator.getConfigurationVersion()).thenReturn(CONF_VERSION);
+        when(generator.generateConfigurationParts()).thenReturn(List.of(ConfigurationPart.builder()
+                .contentIdentifier(CONTENT_ID_SHARED_PARAMETERS)
+                .filename(SHARED_PARAMETERS_FILE)
+                .data(SHARED_PARAMETERS)
+                .build()));
+        when(configurationService.getConfigurationChangeFingerprint()).thenReturn("1:a");
+        var sharedParameters = new DistributedFile();
+        sharedParameters.setVersion(CONF_VERSION);
+        sharedParameters.setContentIdentifier(CONTENT_ID_SHARED_PARAMETERS);
+        sharedParameters.setFileName(SHARED_PARAMETERS_FILE);
+        sharedParameters.setFileData(SHARED_PARAMETERS);
+        when(configurationService.getAllConfigurationFiles(CONF_VERSION)).thenReturn(Set.of(sharedParameters));
+
+        activateSigningKeys("internal-key", "external-key");
+
+        globalConfGenerationService = new GlobalConfGenerationServiceImpl(signerProxyFacade, systemParameterService,
+                configurationService, configurationSigningKeysService, eventPublisher, List.of(generator));
+    }
+
+    @AfterEach
+    void cleanup() {
+        System.clearProperty(CENTER_GENERATED_CONF_DIR);
+        System.clearProperty(SystemProperties.CONFIGURATION_PATH);
+        System.clearProperty(SystemProperties.CONF_PATH);
+    }
+
+    @Test
+    void reuseSignedDirectoriesWhenNothingHasChanged() throws Exception {
+        globalConfGenerationService.generate();
+        globalConfGenerationService.generate();
+
+        verify(signerProxyFacade, times(2)).sign(anyString(), any(), any());
+        verify(eventPublisher, times(2)).publishEvent(SUCCESS);
+    }
+
+    @Test
+    void reuseSignedDirectoriesWhenPartsHaveNotChanged() throws Exception {
+        globalConfGenerationService.generate();
+        when(configurationService.getConfigurationChangeFingerprint()).thenReturn("2:a");
+        globalConfGenerationService.generate();
+
+        verify(signerProxyFacade, times(2)).sign(anyString(), any(), any());
+    }
+
+    @Test
+    void resignDirectoriesWhenSigningKeyChanges() throws Exception {
+        globalConfGenerationService.generate();
+        activateSigningKeys("new-internal-key", "external-key");
+        globalConfGenerationService.generate();
+
+        verify(signerProxyFacade).sign(eq("new-internal-key"), any(), any());
+        verify(signerProxyFacade, times(2)).sign(eq("external-key"), any(), any());
+    }
+
+    @Test
+    void resignDirectoriesWhenSigningKeyChangesAndPartsHaveNotChanged() throws Exception {
+        globalConfGenerationService.generate();
+        when(configurationService.getConfigurationChangeFingerprint()).thenReturn("2:a");
+        activateSigningKeys("internal-key", "new-external-key");
+        globalConfGenerationService.generate();
+
+        verify(signerProxyFacade, times(2)).sign(eq("internal-key"), any(), any());
+        verify(signerProxyFacade).sign(eq("new-external-key"), any(), any());
+    }
+
+    @Test
+    void doNotReuseGenerationOfRolledBackTransaction() throws Exception {
+        TransactionSynchronizationManager.initSynchronization();
+        try {
+            globalConfGenerationService.generate();
+            TransactionSynchronizationManager.getSynchronizations()
+                    .forEach(sync -> sync.afterCompletion(TransactionSynchronization.STATUS_ROLLED_BACK));
+        } finally {
+            TransactionSynchronizationManager.clearSynchronization();
+        }
+        globalConfGenerationService.generate();
+
+        verify(signerProxyFacade, times(4)).sign(anyString(), any(), any());
+    }
+
+    @Test
+    void reuseGenerationOfCommittedTransaction() throws Exception {
+        TransactionSynchronizationManager.initSynchronization();
+        try {
+            globalConfGenerationService.generate();
+            TransactionSynchronizationManager.getSynchronizations().forEach(TransactionSynchronization::afterCommit);
+        } finally {
+            TransactionSynchronizationManager.clearSynchronization();
+        }
+        globalConfGenerationService.generate();
+
+        verify(signerProxyFacade, times(2)).sign(anyString(), any(), any());
+    }
+
+    private void activateSigningKeys(String internalKeyId, String externalKeyId) {
+        when(configurationSigningKeysService.findActiveForSource(SOURCE_TYPE_INTERNAL))
+                .thenReturn(Optional.of(signingKey(internalKeyId)));
+        when(configurationSigningKeysService.findActiveForSource(SOURCE_TYPE_EXTERNAL))
+                .thenReturn(Optional.of(signingKey(externalKeyId)));
+    }
+
+    private static ConfigurationSigningKey signingKey(String keyId) {
+        return new ConfigurationSigningKey()
+                .setKeyIdentifier(keyId)
+                .setCert(keyId.getBytes(UTF_8));
+    }
+}
@@ -31,9 +31,11 @@ import org.springframework.data.domain.Example;
 import org.springframework.data.domain.ExampleMatcher;
 import org.springframework.data.domain.Sort;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.stereotype.Repository;
 
+import java.time.Instant;
 import java.util.Optional;
 import java.util.Set;
 
@@ -47,6 +49,16 @@ public interface JpaDistributedFileRepository extends JpaRepository<DistributedF
     @Query("FROM DistributedFileEntity WHERE version in (:version, 0)")
     Set<DistributedFileEntity> findAllByVersion(int version);
 
+    @Query(value = "SELECT COALESCE(MAX(id), 0) FROM history", nativeQuery = true)
+    long findLastHistoryId();
+
+    @Query("SELECT MAX(fileUpdatedAt) FROM DistributedFileEntity WHERE version = :version")
+    Optional<Instant> findLastFileUpdatedAtByVersion(int version);
+
+    @Modifying
+    @Query("UPDATE DistributedFileEntity SET fileUpdatedAt = :fileUpdatedAt WHERE version = :version AND haNodeName = :haNodeName")
+    int updateFileUpdatedAt(int version, String haNodeName, Instant fileUpdatedAt);
+
     default Optional<DistributedFileEntity> findByContentIdAndVersion(String contentIdentifier, int version, String haNodeName) {
         var exampleDistributedFile = new DistributedFileEntity(contentIdentifier, version, haNodeName);
         return findBy(Example.of(exampleDistributedFile, ExampleMatcher.matching().withIgnorePaths(ID)),
@@ -30,6 +30,7 @@ import org.eclipse.jetty.server.CustomRequestLog;
 import org.eclipse.jetty.server.Slf4jRequestLogWriter;
 import org.eclipse.jetty.server.handler.ErrorHandler;
 import org.niis.xroad.common.api.throttle.IpThrottlingFilter;
+import org.niis.xroad.common.api.throttle.IpThrottlingFilterMetrics;
 import org.niis.xroad.cs.management.core.configuration.ManagementServiceProperties;
 import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
 import org.springframework.boot.web.embedded.jetty.JettyServletWebServerFactory;
@@ -67,4 +68,12 @@ class WebServerCustomizer implements WebServerFactoryCustomizer<JettyServletWebS
         bean.addUrlPatterns("/managementservice/*");
         return bean;
     }
+
+    @Bean
+    @ConditionalOnProperty(
+            value = "xroad.management-service.rate-limit-enabled",
+            havingValue = "true", matchIfMissing = true)
+    public IpThrottlingFilterMetrics ipThrottlingFilterMetrics(FilterRegistrationBean<IpThrottlingFilter> ipThrottlingFilter) {
+        return new IpThrottlingFilterMetrics(ipThrottlingFilter.getFilter());
+    }
 }
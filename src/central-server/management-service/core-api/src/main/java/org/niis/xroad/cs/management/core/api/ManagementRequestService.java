@@ -32,10 +32,12 @@ import ee.ria.xroad.common.request.ClientRequestType;
 
 import org.niis.xroad.common.managementrequest.model.ManagementRequestType;
 
+import java.util.concurrent.CompletableFuture;
+
 public interface ManagementRequestService {
-    Integer addManagementRequest(ClientRequestType request, ManagementRequestType requestType);
+    CompletableFuture<Integer> addManagementRequest(ClientRequestType request, ManagementRequestType requestType);
 
-    Integer addManagementRequest(AuthCertDeletionRequestType request);
+    CompletableFuture<Integer> addManagementRequest(AuthCertDeletionRequestType request);
 
-    Integer addManagementRequest(AddressChangeRequestType request);
+    CompletableFuture<Integer> addManagementRequest(AddressChangeRequestType request);
 }
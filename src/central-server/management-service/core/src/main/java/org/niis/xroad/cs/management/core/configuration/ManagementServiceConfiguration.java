@@ -32,12 +32,17 @@ import ee.ria.xroad.common.conf.globalconf.GlobalConfRefreshJobConfig;
 
 import org.niis.xroad.common.managementrequest.ManagementRequestSoapExecutor;
 import org.niis.xroad.common.managementrequest.verify.ManagementRequestVerifier;
+import org.niis.xroad.cs.admin.client.FeignManagementRequestsApi;
 import org.niis.xroad.cs.admin.client.configuration.AdminServiceClientConfiguration;
+import org.niis.xroad.cs.management.core.service.ManagementRequestForwarder;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
 import org.springframework.context.annotation.Import;
 import org.springframework.scheduling.annotation.EnableScheduling;
 
+import java.time.Duration;
+
 @Import({
         AdminServiceClientConfiguration.class,
         GlobalConfBeanConfig.class,
@@ -56,4 +61,14 @@ public class ManagementServiceConfiguration {
     ManagementRequestSoapExecutor managementRequestSoapExecutor(ManagementRequestVerifier managementRequestVerifier) {
         return new ManagementRequestSoapExecutor(managementRequestVerifier);
     }
+
+    @Bean
+    ManagementRequestForwarder managementRequestForwarder(FeignManagementRequestsApi managementRequestsApi,
+                                                          ManagementServiceProperties properties,
+                                                          @Value("${spring.mvc.async.request-timeout:60s}")
+                                                          Duration requestTimeout) {
+        // queued requests are dropped once the client has received the async request timeout response
+        return new ManagementRequestForwarder(managementRequestsApi,
+                properties.getRequestForwardingThreads(), properties.getRequestForwardingQueueSize(), requestTimeout);
+    }
 }
@@ -50,6 +50,8 @@ import java.nio.file.Path;
 @Getter
 @Setter
 public class ManagementServiceProperties implements AdminServiceClientPropertyProvider, IpThrottlingFilterConfig {
+    private static final int DEFAULT_REQUEST_FORWARDING_THREADS = 8;
+    private static final int DEFAULT_REQUEST_FORWARDING_QUEUE_SIZE = 10_000;
 
     /**
      * Controls whether the built-in rate limiting is enabled.
@@ -89,6 +91,39 @@ public class ManagementServiceProperties implements AdminServiceClientPropertyPr
      */
     private int rateLimitExpireAfterAccessMinutes;
 
+    /**
+     * Controls how many requests from a single network are allowed per second in total.
+     * To disable this feature, set this value to -1.
+     */
+    private int rateLimitNetworkRequestsPerSecond = -1;
+
+    /**
+     * Controls how many requests from a single network are allowed per minute in total.
+     * To disable this feature, set this value to -1.
+     */
+    private int rateLimitNetworkRequestsPerMinute = -1;
+
+    /**
+     * Prefix length used to group IPv4 addresses into networks for the network level rate limits.
+     */
+    private int rateLimitIpv4PrefixLength = DEFAULT_IPV4_PREFIX_LENGTH;
+
+    /**
+     * Prefix length used to group IPv6 addresses into networks for the network level rate limits.
+     */
+    private int rateLimitIpv6PrefixLength = DEFAULT_IPV6_PREFIX_LENGTH;
+
+    /**
+     * Number of workers forwarding management requests to the central server admin API.
+     */
+    private int requestForwardingThreads = DEFAULT_REQUEST_FORWARDING_THREADS;
+
+    /**
+     * Maximum number of management requests waiting to be forwarded to the central server admin API.
+     * Requests exceeding the limit are rejected.
+     */
+    private int requestForwardingQueueSize = DEFAULT_REQUEST_FORWARDING_QUEUE_SIZE;
+
     /**
      * Path to a trust store containing certificates for the central server admin API
      */
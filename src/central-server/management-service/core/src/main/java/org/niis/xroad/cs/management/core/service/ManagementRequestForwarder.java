@@ -0,0 +1,129 @@
+/*
+ * The MIT License
+ * Copyright (c) 2019- Nordic Institute for Interoperability Solutions (NIIS)
+ * Copyright (c) 2018 Estonian Information System Authority (RIA),
+ * Nordic Institute for Interoperability Solutions (NIIS), Population Register Centre (VRK)
+ * Copyright (c) 2015-2017 Estonian Information System Authority (RIA), Population Register Centre (VRK)
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package org.niis.xroad.cs.management.core.service;
+
+import ee.ria.xroad.common.CodedException;
+import ee.ria.xroad.common.ErrorCodes;
+
+import lombok.extern.slf4j.Slf4j;
+import org.niis.xroad.cs.admin.client.FeignManagementRequestsApi;
+import org.niis.xroad.cs.admin.client.XForwardedForHeaderFeignInterceptor;
+import org.niis.xroad.cs.openapi.model.ManagementRequestDto;
+import org.slf4j.MDC;
+import org.springframework.beans.factory.DisposableBean;
+
+import java.time.Duration;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Forwards verified management requests to the admin service.
+ * <p>
+ * Requests are queued in a bounded queue and forwarded by a fixed number of workers, so that a burst of requests
+ * neither holds the web server threads while waiting for the admin service nor overloads the admin service.
+ * When the queue is full, new requests are rejected immediately. Requests that have waited in the queue for longer
+ * than the queue timeout are dropped without forwarding: the client has already received a timeout response and
+ * will retry, forwarding them would create duplicate management requests.
+ */
+@Slf4j
+public class ManagementRequestForwarder implements DisposableBean {
+    private static final long SHUTDOWN_TIMEOUT_SECONDS = 10;
+
+    private final FeignManagementRequestsApi managementRequestsApi;
+    private final ExecutorService executor;
+    private final long queueTimeoutNanos;
+
+    public ManagementRequestForwarder(FeignManagementRequestsApi managementRequestsApi, int threads, int queueSize,
+                                      Duration queueTimeout) {
+        this(managementRequestsApi, new ThreadPoolExecutor(threads, threads, 0L, TimeUnit.MILLISECONDS,
+                new LinkedBlockingQueue<>(queueSize),
+                Thread.ofPlatform().name("management-request-forwarder-", 0).daemon().factory()), queueTimeout);
+    }
+
+    ManagementRequestForwarder(FeignManagementRequestsApi managementRequestsApi, ExecutorService executor,
+                               Duration queueTimeout) {
+        this.managementRequestsApi = managementRequestsApi;
+        this.executor = executor;
+        this.queueTimeoutNanos = queueTimeout.toNanos();
+    }
+
+    /**
+     * Queues the request for forwarding.
+     * @return future completed with the id assigned to the request by the admin service
+     */
+    public CompletableFuture<Integer> forward(ManagementRequestDto managementRequest) {
+        final Map<String, String> context = MDC.getCopyOfContextMap();
+        final String clientAddress = XForwardedForHeaderFeignInterceptor.getCurrentRequestClientAddress();
+        final long queuedAt = System.nanoTime();
+        try {
+            return CompletableFuture.supplyAsync(() -> {
+                if (context != null) {
+                    MDC.setContextMap(context);
+                }
+                try {
+                    if (System.nanoTime() - queuedAt > queueTimeoutNanos) {
+                        log.warn("Dropping management request that waited in the queue for longer than {} ms",
+                                TimeUnit.NANOSECONDS.toMillis(queueTimeoutNanos));
+                        throw new CodedException(ErrorCodes.X_INTERNAL_ERROR,
+                                "Management request timed out in the forwarding queue");
+                    }
+                    return XForwardedForHeaderFeignInterceptor.withClientAddress(clientAddress,
+                            () -> addManagementRequest(managementRequest));
+                } finally {
+                    MDC.clear();
+                }
+            }, executor);
+        } catch (RejectedExecutionException e) {
+            throw new CodedException(ErrorCodes.X_INTERNAL_ERROR, e, "Management request queue is full");
+        }
+    }
+
+    private Integer addManagementRequest(ManagementRequestDto managementRequest) {
+        var result = managementRequestsApi.addManagementRequest(managementRequest);
+        if (!result.hasBody()) {
+            throw new CodedException(ErrorCodes.X_INTERNAL_ERROR, "Empty response");
+        } else {
+            return Optional.ofNullable(result.getBody())
+                    .map(ManagementRequestDto::getId)
+                    .orElse(null);
+        }
+    }
+
+    @Override
+    public void destroy() throws InterruptedException {
+        executor.shutdown();
+        if (!executor.awaitTermination(SHUTDOWN_TIMEOUT_SECONDS, TimeUnit.SECONDS)) {
+            log.warn("Management request forwarder did not terminate in {} seconds", SHUTDOWN_TIMEOUT_SECONDS);
+            executor.shutdownNow();
+        }
+    }
+}
@@ -27,7 +27,6 @@
 package org.niis.xroad.cs.management.core.service;
 
 import ee.ria.xroad.common.CodedException;
-import ee.ria.xroad.common.ErrorCodes;
 import ee.ria.xroad.common.request.AddressChangeRequestType;
 import ee.ria.xroad.common.request.AuthCertDeletionRequestType;
 import ee.ria.xroad.common.request.ClientRequestType;
@@ -35,7 +34,6 @@ import ee.ria.xroad.common.request.ClientRequestType;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.niis.xroad.common.managementrequest.model.ManagementRequestType;
-import org.niis.xroad.cs.admin.client.FeignManagementRequestsApi;
 import org.niis.xroad.cs.management.core.api.ManagementRequestService;
 import org.niis.xroad.cs.openapi.model.AddressChangeRequestDto;
 import org.niis.xroad.cs.openapi.model.AuthenticationCertificateDeletionRequestDto;
@@ -51,7 +49,7 @@ import org.niis.xroad.restapi.converter.ClientIdConverter;
 import org.niis.xroad.restapi.converter.SecurityServerIdConverter;
 import org.springframework.stereotype.Service;
 
-import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
 
 import static ee.ria.xroad.common.ErrorCodes.X_INVALID_REQUEST;
 
@@ -59,19 +57,19 @@ import static ee.ria.xroad.common.ErrorCodes.X_INVALID_REQUEST;
 @Service
 @RequiredArgsConstructor
 public class ManagementRequestServiceImpl implements ManagementRequestService {
-    private final FeignManagementRequestsApi managementRequestsApi;
+    private final ManagementRequestForwarder managementRequestForwarder;
     private final SecurityServerIdConverter securityServerIdConverter;
     private final ClientIdConverter clientIdConverter;
 
     @Override
-    public Integer addManagementRequest(ClientRequestType request, ManagementRequestType requestType) {
+    public CompletableFuture<Integer> addManagementRequest(ClientRequestType request, ManagementRequestType requestType) {
         var managementRequest = createRequestDto(request, requestType);
 
         return addManagementRequestInternal(managementRequest);
     }
 
     @Override
-    public Integer addManagementRequest(AuthCertDeletionRequestType request) {
+    public CompletableFuture<Integer> addManagementRequest(AuthCertDeletionRequestType request) {
         var managementRequest = new AuthenticationCertificateDeletionRequestDto()
                 .authenticationCertificate(request.getAuthCert())
                 .type(ManagementRequestTypeDto.AUTH_CERT_DELETION_REQUEST)
@@ -82,7 +80,7 @@ public class ManagementRequestServiceImpl implements ManagementRequestService {
     }
 
     @Override
-    public Integer addManagementRequest(AddressChangeRequestType request) {
+    public CompletableFuture<Integer> addManagementRequest(AddressChangeRequestType request) {
         var managementRequest = new AddressChangeRequestDto()
                 .serverAddress(request.getAddress())
                 .type(ManagementRequestTypeDto.ADDRESS_CHANGE_REQUEST)
@@ -91,15 +89,8 @@ public class ManagementRequestServiceImpl implements ManagementRequestService {
         return addManagementRequestInternal(managementRequest);
     }
 
-    private Integer addManagementRequestInternal(ManagementRequestDto managementRequest) {
-        var result = managementRequestsApi.addManagementRequest(managementRequest);
-        if (!result.hasBody()) {
-            throw new CodedException(ErrorCodes.X_INTERNAL_ERROR, "Empty response");
-        } else {
-            return Optional.ofNullable(result.getBody())
-                    .map(ManagementRequestDto::getId)
-                    .orElse(null);
-        }
+    private CompletableFuture<Integer> addManagementRequestInternal(ManagementRequestDto managementRequest) {
+        return managementRequestForwarder.forward(managementRequest);
     }
 
     private ManagementRequestDto createRequestDto(ClientRequestType request, ManagementRequestType requestType) {
@@ -0,0 +1,116 @@
+/*
+ * The MIT License
+ * Copyright (c) 2019- Nordic Institute for Interoperability Solutions (NIIS)
+ * Copyright (c) 2018 Estonian Information System Authority (RIA),
+ * Nordic Institute for Interoperability Solutions (NIIS), Population Register Centre (VRK)
+ * Copyright (c) 2015-2017 Estonian Information System Authority (RIA), Population Register Centre (VRK)
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package org.niis.xroad.cs.management.core.service;
+
+import ee.ria.xroad.common.CodedException;
+
+import feign.RequestTemplate;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.niis.xroad.cs.admin.client.FeignManagementRequestsApi;
+import org.niis.xroad.cs.admin.client.XForwardedForHeaderFeignInterceptor;
+import org.niis.xroad.cs.openapi.model.ManagementRequestDto;
+import org.springframework.http.ResponseEntity;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.web.context.request.RequestContextHolder;
+import org.springframework.web.context.request.ServletRequestAttributes;
+
+import java.time.Duration;
+import java.util.Collection;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicReference;
+
+import static ee.ria.xroad.common.util.HttpHeaders.X_FORWARDED_FOR;
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatExceptionOfType;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+@ExtendWith(MockitoExtension.class)
+class ManagementRequestForwarderTest {
+    private static final Integer REQUEST_ID = 123;
+
+    @Mock
+    private FeignManagementRequestsApi managementRequestsApi;
+
+    private final ExecutorService executor = Executors.newSingleThreadExecutor();
+
+    @AfterEach
+    void tearDown() {
+        RequestContextHolder.resetRequestAttributes();
+        executor.shutdownNow();
+    }
+
+    @Test
+    void shouldForwardClientAddressOfRequestThread() {
+        var request = new MockHttpServletRequest();
+        request.setRemoteAddr("10.0.0.1");
+        RequestContextHolder.setRequestAttributes(new ServletRequestAttributes(request));
+
+        AtomicReference<Collection<String>> forwardedFor = new AtomicReference<>();
+        when(managementRequestsApi.addManagementRequest(any())).thenAnswer(invocation -> {
+            // the feign interceptor runs on the forwarder thread
+            var template = new RequestTemplate();
+            new XForwardedForHeaderFeignInterceptor().apply(template);
+            forwardedFor.set(template.headers().get(X_FORWARDED_FOR));
+            return ResponseEntity.accepted().body(new ManagementRequestDto().id(REQUEST_ID));
+        });
+
+        var forwarder = new ManagementRequestForwarder(managementRequestsApi, executor, Duration.ofSeconds(60));
+
+        assertThat(forwarder.forward(new ManagementRequestDto()).join()).isEqualTo(REQUEST_ID);
+        assertThat(forwardedFor.get()).containsExactly("10.0.0.1");
+    }
+
+    @Test
+    void shouldDropRequestThatTimedOutInQueue() throws Exception {
+        var blocker = new CountDownLatch(1);
+        executor.submit(() -> {
+            blocker.await(10, TimeUnit.SECONDS);
+            return null;
+        });
+
+        var forwarder = new ManagementRequestForwarder(managementRequestsApi, executor, Duration.ofMillis(10));
+        var result = forwarder.forward(new ManagementRequestDto());
+
+        Thread.sleep(50);
+        blocker.countDown();
+
+        assertThatExceptionOfType(CompletionException.class)
+                .isThrownBy(result::join)
+                .withCauseInstanceOf(CodedException.class);
+        verify(managementRequestsApi, never()).addManagementRequest(any());
+    }
+}
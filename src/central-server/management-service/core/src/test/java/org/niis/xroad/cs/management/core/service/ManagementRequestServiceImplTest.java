@@ -30,9 +30,10 @@ import ee.ria.xroad.common.CodedException;
 import ee.ria.xroad.common.request.AuthCertDeletionRequestType;
 import ee.ria.xroad.common.request.ClientRequestType;
 
+import com.google.common.util.concurrent.MoreExecutors;
+import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
-import org.mockito.InjectMocks;
 import org.mockito.Mock;
 import org.mockito.junit.jupiter.MockitoExtension;
 import org.niis.xroad.cs.admin.client.FeignManagementRequestsApi;
@@ -41,6 +42,10 @@ import org.niis.xroad.restapi.converter.ClientIdConverter;
 import org.niis.xroad.restapi.converter.SecurityServerIdConverter;
 import org.springframework.http.ResponseEntity;
 
+import java.time.Duration;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.Executors;
+
 import static org.assertj.core.api.AssertionsForClassTypes.assertThat;
 import static org.assertj.core.api.AssertionsForClassTypes.assertThatExceptionOfType;
 import static org.mockito.ArgumentMatchers.any;
@@ -50,6 +55,7 @@ import static org.niis.xroad.common.managementrequest.model.ManagementRequestTyp
 @ExtendWith(MockitoExtension.class)
 class ManagementRequestServiceImplTest {
     private static final Integer REQUEST_ID = 123;
+    private static final Duration QUEUE_TIMEOUT = Duration.ofSeconds(60);
 
     @Mock
     private FeignManagementRequestsApi managementRequestsApi;
@@ -58,9 +64,15 @@ class ManagementRequestServiceImplTest {
     @Mock
     private ClientIdConverter clientIdConverter;
 
-    @InjectMocks
     private ManagementRequestServiceImpl managementRequestService;
 
+    @BeforeEach
+    void setUp() {
+        var forwarder = new ManagementRequestForwarder(managementRequestsApi, MoreExecutors.newDirectExecutorService(),
+                QUEUE_TIMEOUT);
+        managementRequestService = new ManagementRequestServiceImpl(forwarder, securityServerIdConverter, clientIdConverter);
+    }
+
     @Test
     void shouldAddManagementRequestSucceed() {
         when(managementRequestsApi.addManagementRequest(any()))
@@ -68,7 +80,7 @@ class ManagementRequestServiceImplTest {
 
         ClientRequestType request = new ClientRequestType();
 
-        Integer result = managementRequestService.addManagementRequest(request, CLIENT_REGISTRATION_REQUEST);
+        Integer result = managementRequestService.addManagementRequest(request, CLIENT_REGISTRATION_REQUEST).join();
 
         assertThat(result).isEqualTo(REQUEST_ID);
     }
@@ -80,7 +92,7 @@ class ManagementRequestServiceImplTest {
 
         AuthCertDeletionRequestType request = new AuthCertDeletionRequestType();
 
-        Integer result = managementRequestService.addManagementRequest(request);
+        Integer result = managementRequestService.addManagementRequest(request).join();
 
         assertThat(result).isEqualTo(REQUEST_ID);
     }
@@ -92,8 +104,9 @@ class ManagementRequestServiceImplTest {
 
         ClientRequestType request = new ClientRequestType();
 
-        assertThatExceptionOfType(CodedException.class)
-                .isThrownBy(() -> managementRequestService.addManagementRequest(request, CLIENT_REGISTRATION_REQUEST));
+        assertThatExceptionOfType(CompletionException.class)
+                .isThrownBy(() -> managementRequestService.addManagementRequest(request, CLIENT_REGISTRATION_REQUEST).join())
+                .withCauseInstanceOf(CodedException.class);
     }
 
     @Test
@@ -103,7 +116,21 @@ class ManagementRequestServiceImplTest {
 
         AuthCertDeletionRequestType request = new AuthCertDeletionRequestType();
 
+        assertThatExceptionOfType(CompletionException.class)
+                .isThrownBy(() -> managementRequestService.addManagementRequest(request).join())
+                .withCauseInstanceOf(CodedException.class);
+    }
+
+    @Test
+    void shouldRejectRequestWhenForwarderCannotAcceptIt() {
+        var executor = Executors.newSingleThreadExecutor();
+        executor.shutdown();
+        var service = new ManagementRequestServiceImpl(new ManagementRequestForwarder(managementRequestsApi, executor, QUEUE_TIMEOUT),
+                securityServerIdConverter, clientIdConverter);
+
+        AuthCertDeletionRequestType request = new AuthCertDeletionRequestType();
+
         assertThatExceptionOfType(CodedException.class)
-                .isThrownBy(() -> managementRequestService.addManagementRequest(request));
+                .isThrownBy(() -> service.addManagementRequest(request));
     }
 }
@@ -41,6 +41,7 @@ import org.springframework.web.bind.annotation.RequestHeader;
 import org.springframework.web.bind.annotation.RestController;
 
 import java.io.InputStream;
+import java.util.concurrent.CompletableFuture;
 
 import static ee.ria.xroad.common.ErrorCodes.X_INVALID_REQUEST;
 
@@ -54,10 +55,11 @@ public class ManagementRequestController {
     @PostMapping(path = "/managementservice/manage",
             produces = {MediaType.TEXT_XML_VALUE},
             consumes = {MediaType.MULTIPART_RELATED_VALUE, MediaType.TEXT_XML_VALUE + ";charset=UTF-8"})
-    public ResponseEntity<String> addManagementRequest(@RequestHeader(HttpHeaders.CONTENT_TYPE) String contentType, InputStream body) {
-        return managementRequestSoapExecutor.process(contentType, body,
+    public CompletableFuture<ResponseEntity<String>> addManagementRequest(
+            @RequestHeader(HttpHeaders.CONTENT_TYPE) String contentType, InputStream body) {
+        return managementRequestSoapExecutor.processAsync(contentType, body,
                 result -> {
-                    Integer requestId;
+                    CompletableFuture<Integer> requestId;
                     if (ManagementRequestType.AUTH_CERT_DELETION_REQUEST == result.getRequestType()) {
                         var authCertDeletionRequest = result.getAuthCertDeletionRequest()
                                 .orElseThrow(() -> new CodedException(X_INVALID_REQUEST, "AuthCertDeletionRequest is missing"));
@@ -73,8 +75,10 @@ public class ManagementRequestController {
 
                         requestId = managementRequestService.addManagementRequest(clientRequest, result.getRequestType());
                     }
-                    log.info("Added new management request with id {}", requestId);
-                    return requestId;
+                    return requestId.thenApply(id -> {
+                        log.info("Added new management request with id {}", id);
+                        return id;
+                    });
                 });
     }
 
@@ -30,6 +30,7 @@ import org.eclipse.jetty.server.CustomRequestLog;
 import org.eclipse.jetty.server.Slf4jRequestLogWriter;
 import org.eclipse.jetty.server.handler.ErrorHandler;
 import org.niis.xroad.common.api.throttle.IpThrottlingFilter;
+import org.niis.xroad.common.api.throttle.IpThrottlingFilterMetrics;
 import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
 import org.springframework.boot.web.embedded.jetty.JettyServletWebServerFactory;
 import org.springframework.boot.web.server.WebServerFactoryCustomizer;
@@ -66,4 +67,12 @@ class WebServerCustomizer implements WebServerFactoryCustomizer<JettyServletWebS
         bean.addUrlPatterns("/managementservice", "/managementservice/");
         return bean;
     }
+
+    @Bean
+    @ConditionalOnProperty(
+            value = "xroad.registration-service.rate-limit-enabled",
+            havingValue = "true", matchIfMissing = true)
+    public IpThrottlingFilterMetrics ipThrottlingFilterMetrics(FilterRegistrationBean<IpThrottlingFilter> ipThrottlingFilter) {
+        return new IpThrottlingFilterMetrics(ipThrottlingFilter.getFilter());
+    }
 }
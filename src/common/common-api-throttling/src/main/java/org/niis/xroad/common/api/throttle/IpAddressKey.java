@@ -0,0 +1,92 @@
+/*
+ * The MIT License
+ * Copyright (c) 2019- Nordic Institute for Interoperability Solutions (NIIS)
+ * Copyright (c) 2018 Estonian Information System Authority (RIA),
+ * Nordic Institute for Interoperability Solutions (NIIS), Population Register Centre (VRK)
+ * Copyright (c) 2015-2017 Estonian Information System Authority (RIA), Population Register Centre (VRK)
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package org.niis.xroad.common.api.throttle;
+
+import com.google.common.net.InetAddresses;
+
+import java.net.Inet4Address;
+import java.net.InetAddress;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.UUID;
+
+/**
+ * Binary rate-limit key of an IP address. IPv4 addresses are stored in their IPv4-mapped IPv6 form,
+ * so every address fits into two longs and hashing or comparing a key does not touch any strings.
+ */
+record IpAddressKey(long high, long low) {
+    private static final int IPV4_BITS = 32;
+    private static final int IPV6_HALF_BITS = 64;
+    private static final long IPV4_MAPPED_PREFIX = 0xFFFFL << IPV4_BITS;
+    private static final long IPV4_MASK = 0xFFFFFFFFL;
+
+    /**
+     * Parses a textual IP address, as returned by {@code ServletRequest.getRemoteAddr()}, without any name lookups.
+     * Values that are not IP literals are mapped to a name based UUID, so that they still get a stable key of their own.
+     */
+    static IpAddressKey of(String address) {
+        if (address != null && InetAddresses.isInetAddress(address)) {
+            return of(InetAddresses.forString(address));
+        }
+        var uuid = UUID.nameUUIDFromBytes(String.valueOf(address).getBytes(StandardCharsets.UTF_8));
+        return new IpAddressKey(uuid.getMostSignificantBits(), uuid.getLeastSignificantBits());
+    }
+
+    static IpAddressKey of(InetAddress address) {
+        if (address instanceof Inet4Address) {
+            return new IpAddressKey(0L, IPV4_MAPPED_PREFIX | (InetAddresses.coerceToInteger(address) & IPV4_MASK));
+        }
+        var buffer = ByteBuffer.wrap(address.getAddress());
+        return new IpAddressKey(buffer.getLong(), buffer.getLong());
+    }
+
+    boolean isIpv4() {
+        return high == 0L && (low & ~IPV4_MASK) == IPV4_MAPPED_PREFIX;
+    }
+
+    /**
+     * @return key of the network this address belongs to, using the given prefix lengths
+     */
+    IpAddressKey network(int ipv4PrefixLength, int ipv6PrefixLength) {
+        if (isIpv4()) {
+            return new IpAddressKey(high, low & (IPV4_MAPPED_PREFIX | (mask(ipv4PrefixLength, IPV4_BITS) & IPV4_MASK)));
+        }
+        if (ipv6PrefixLength <= IPV6_HALF_BITS) {
+            return new IpAddressKey(high & mask(ipv6PrefixLength, IPV6_HALF_BITS), 0L);
+        }
+        return new IpAddressKey(high, low & mask(ipv6PrefixLength - IPV6_HALF_BITS, IPV6_HALF_BITS));
+    }
+
+    private static long mask(int prefixLength, int width) {
+        if (prefixLength <= 0) {
+            return 0L;
+        }
+        if (prefixLength >= width) {
+            return -1L;
+        }
+        return -1L << (width - prefixLength);
+    }
+}
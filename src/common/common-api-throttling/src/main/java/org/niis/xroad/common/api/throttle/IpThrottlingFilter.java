@@ -25,9 +25,8 @@
  */
 package org.niis.xroad.common.api.throttle;
 
+import com.google.common.cache.Cache;
 import com.google.common.cache.CacheBuilder;
-import com.google.common.cache.CacheLoader;
-import com.google.common.cache.LoadingCache;
 import io.github.bucket4j.Bandwidth;
 import io.github.bucket4j.Bucket;
 import jakarta.servlet.Filter;
@@ -40,48 +39,88 @@ import lombok.extern.slf4j.Slf4j;
 
 import java.io.IOException;
 import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
 import java.util.concurrent.ExecutionException;
 import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
 
 /**
- * Rate-limits requests
+ * Rate-limits requests.
+ * <p>
+ * Requests are limited per remote IP address and, optionally, per network (CIDR prefix) the address belongs to.
+ * Buckets are kept in segmented caches keyed by the binary form of the address. Rejections are counted and logged
+ * at most once per {@link #REJECTION_LOG_INTERVAL}, together with the number of rejections since the previous entry.
  */
 @Slf4j
 public class IpThrottlingFilter implements Filter {
     private static final int HTTP_STATUS_TOO_MANY_REQUESTS = 429;
+    private static final Duration REJECTION_LOG_INTERVAL = Duration.ofSeconds(10);
 
     private final IpThrottlingFilterConfig ipThrottlingFilterConfig;
-    private final LoadingCache<String, Bucket> bucketCache;
+    private final Cache<IpAddressKey, Bucket> bucketCache;
+    private final Cache<IpAddressKey, Bucket> networkBucketCache;
+    //BandWidth is immutable and can be reused
+    private final List<Bandwidth> limits;
+    private final List<Bandwidth> networkLimits;
+
+    private final LongAdder allowedRequests = new LongAdder();
+    private final LongAdder rejectedRequests = new LongAdder();
+    private final LongAdder rejectedNetworkRequests = new LongAdder();
+    private final LongAdder unloggedRejections = new LongAdder();
+    private final AtomicLong nextRejectionLogNanos = new AtomicLong(System.nanoTime());
 
     public IpThrottlingFilter(IpThrottlingFilterConfig properties) {
         this.ipThrottlingFilterConfig = properties;
-        //BandWidth is immutable and can be reused
-        bucketCache = CacheBuilder.newBuilder()
+        this.limits = createLimits(properties.getRateLimitRequestsPerSecond(),
+                properties.getRateLimitRequestsPerMinute());
+        this.networkLimits = createLimits(properties.getRateLimitNetworkRequestsPerSecond(),
+                properties.getRateLimitNetworkRequestsPerMinute());
+        this.bucketCache = createCache(properties);
+        this.networkBucketCache = createCache(properties);
+
+        log.info("API access rate limiting initialized with {} req/sec and {} req/min per address",
+                properties.getRateLimitRequestsPerSecond(),
+                properties.getRateLimitRequestsPerMinute());
+        if (!networkLimits.isEmpty()) {
+            log.info("API access rate limiting initialized with {} req/sec and {} req/min per /{} (IPv4) or /{} (IPv6) network",
+                    properties.getRateLimitNetworkRequestsPerSecond(),
+                    properties.getRateLimitNetworkRequestsPerMinute(),
+                    properties.getRateLimitIpv4PrefixLength(),
+                    properties.getRateLimitIpv6PrefixLength());
+        }
+    }
+
+    private static Cache<IpAddressKey, Bucket> createCache(IpThrottlingFilterConfig properties) {
+        return CacheBuilder.newBuilder()
+                .concurrencyLevel(Runtime.getRuntime().availableProcessors())
                 .maximumSize(properties.getRateLimitCacheSize())
                 .expireAfterAccess(properties.getRateLimitExpireAfterAccessMinutes(), TimeUnit.MINUTES)
-                .build(CacheLoader.from(this::createStandardBucket));
+                .build();
     }
 
     /**
-     * create a new bucket
+     * @return bandwidths for the given limits, empty if both limits are disabled
      */
-    private Bucket createStandardBucket() {
-        var builder = Bucket.builder();
-        if (ipThrottlingFilterConfig.getRateLimitRequestsPerSecond() > 0) {
-
-            builder.addLimit(createBandwidth(ipThrottlingFilterConfig.getRateLimitRequestsPerSecond(), Duration.ofSeconds(1)));
+    private static List<Bandwidth> createLimits(int requestsPerSecond, int requestsPerMinute) {
+        var bandwidths = new ArrayList<Bandwidth>(2);
+        if (requestsPerSecond > 0) {
+            bandwidths.add(createBandwidth(requestsPerSecond, Duration.ofSeconds(1)));
         }
-        if (ipThrottlingFilterConfig.getRateLimitRequestsPerMinute() > 0) {
-            builder.addLimit(createBandwidth(ipThrottlingFilterConfig.getRateLimitRequestsPerMinute(), Duration.ofMinutes(1)));
+        if (requestsPerMinute > 0) {
+            bandwidths.add(createBandwidth(requestsPerMinute, Duration.ofMinutes(1)));
         }
+        return List.copyOf(bandwidths);
+    }
 
-        log.info("API access rate limiting initialized with {} req/sec and {} req/min",
-                ipThrottlingFilterConfig.getRateLimitRequestsPerSecond(),
-                ipThrottlingFilterConfig.getRateLimitRequestsPerMinute());
+    private static Bucket createBucket(List<Bandwidth> bandwidths) {
+        var builder = Bucket.builder();
+        bandwidths.forEach(builder::addLimit);
         return builder.build();
     }
 
-    private Bandwidth createBandwidth(long capacity, Duration period) {
+    private static Bandwidth createBandwidth(long capacity, Duration period) {
         return Bandwidth.builder()
                 .capacity(capacity)
                 .refillGreedy(capacity, period)
@@ -95,25 +134,104 @@ public class IpThrottlingFilter implements Filter {
                          FilterChain filterChain) throws IOException, ServletException {
 
         final var ip = servletRequest.getRemoteAddr();
-        final Bucket bucket;
+        final var key = IpAddressKey.of(ip);
+        final var bucket = getBucket(bucketCache, key, limits);
 
-        try {
-            bucket = bucketCache.get(ip);
-        } catch (ExecutionException e) {
-            throw new ServletException("Rate limit failure", e);
+        if (bucket != null && !bucket.tryConsume(1)) {
+            reject(ip, false, servletResponse);
+        } else if (!tryConsumeNetwork(key)) {
+            // the request is not served, so it must not count against the address limit either
+            if (bucket != null) {
+                bucket.addTokens(1);
+            }
+            reject(ip, true, servletResponse);
+        } else {
+            allowedRequests.increment();
+            filterChain.doFilter(servletRequest, servletResponse);
         }
+    }
 
-        if (bucket.tryConsume(1)) {
-            filterChain.doFilter(servletRequest, servletResponse);
-        } else {
-            log.warn("Request rate limit exceeded for ip {}, responding with 429 TOO_MANY_REQUESTS", ip);
-            if (servletResponse instanceof HttpServletResponse httpResponse) {
-                httpResponse.setContentType("application/json");
-                httpResponse.setCharacterEncoding("UTF-8");
-                httpResponse.addHeader("Connection", "close");
-                httpResponse.setStatus(HTTP_STATUS_TOO_MANY_REQUESTS);
-                httpResponse.getWriter().append("{\"status\":429}");
+    private boolean tryConsumeNetwork(IpAddressKey key) throws ServletException {
+        if (networkLimits.isEmpty()) {
+            return true;
+        }
+        final var bucket = getBucket(networkBucketCache, key.network(ipThrottlingFilterConfig.getRateLimitIpv4PrefixLength(),
+                ipThrottlingFilterConfig.getRateLimitIpv6PrefixLength()), networkLimits);
+        return bucket.tryConsume(1);
+    }
+
+    /**
+     * @return bucket of the key, or null if the limits are disabled
+     */
+    private static Bucket getBucket(Cache<IpAddressKey, Bucket> cache, IpAddressKey key,
+                                    List<Bandwidth> bandwidths) throws ServletException {
+        if (bandwidths.isEmpty()) {
+            return null;
+        }
+        var bucket = cache.getIfPresent(key);
+        if (bucket == null) {
+            try {
+                bucket = cache.get(key, () -> createBucket(bandwidths));
+            } catch (ExecutionException e) {
+                throw new ServletException("Rate limit failure", e);
             }
         }
+        return bucket;
+    }
+
+    private void reject(String ip, boolean networkLimit, ServletResponse servletResponse) throws IOException {
+        rejectedRequests.increment();
+        if (networkLimit) {
+            rejectedNetworkRequests.increment();
+        }
+        logRejection(ip, networkLimit);
+
+        if (servletResponse instanceof HttpServletResponse httpResponse) {
+            httpResponse.setContentType("application/json");
+            httpResponse.setCharacterEncoding("UTF-8");
+            httpResponse.addHeader("Connection", "close");
+            httpResponse.setStatus(HTTP_STATUS_TOO_MANY_REQUESTS);
+            httpResponse.getWriter().append("{\"status\":429}");
+        }
+    }
+
+    private void logRejection(String ip, boolean networkLimit) {
+        final long now = System.nanoTime();
+        final long next = nextRejectionLogNanos.get();
+        if (now - next < 0 || !nextRejectionLogNanos.compareAndSet(next, now + REJECTION_LOG_INTERVAL.toNanos())) {
+            unloggedRejections.increment();
+            return;
+        }
+        log.warn("Request {} rate limit exceeded for ip {}, responding with 429 TOO_MANY_REQUESTS"
+                        + " ({} more requests rejected since the previous warning)",
+                networkLimit ? "network" : "address", ip, unloggedRejections.sumThenReset());
+    }
+
+    /**
+     * @return number of requests passed on to the filter chain
+     */
+    public long getAllowedRequests() {
+        return allowedRequests.sum();
+    }
+
+    /**
+     * @return number of requests rejected by either the address or the network limit
+     */
+    public long getRejectedRequests() {
+        return rejectedRequests.sum();
+    }
+
+    /**
+     * @return number of requests rejected by the network limit
+     */
+    public long getRejectedNetworkRequests() {
+        return rejectedNetworkRequests.sum();
+    }
+
+    /**
+     * @return approximate number of addresses currently tracked
+     */
+    public long getTrackedAddresses() {
+        return bucketCache.size();
     }
 }
@@ -26,6 +26,8 @@
 package org.niis.xroad.common.api.throttle;
 
 public interface IpThrottlingFilterConfig {
+    int DEFAULT_IPV4_PREFIX_LENGTH = 24;
+    int DEFAULT_IPV6_PREFIX_LENGTH = 64;
 
     /**
      * Controls how many requests from an IP address are allowed per minute.
@@ -50,4 +52,35 @@ public interface IpThrottlingFilterConfig {
     int getRateLimitCacheSize();
 
     int getRateLimitExpireAfterAccessMinutes();
+
+    /**
+     * Controls how many requests from a single network (see {@link #getRateLimitIpv4PrefixLength()} and
+     * {@link #getRateLimitIpv6PrefixLength()}) are allowed per second in total.
+     * To disable this feature, set this value to -1.
+     */
+    default int getRateLimitNetworkRequestsPerSecond() {
+        return -1;
+    }
+
+    /**
+     * Controls how many requests from a single network are allowed per minute in total.
+     * To disable this feature, set this value to -1.
+     */
+    default int getRateLimitNetworkRequestsPerMinute() {
+        return -1;
+    }
+
+    /**
+     * Prefix length used to group IPv4 addresses into networks for the network level limits.
+     */
+    default int getRateLimitIpv4PrefixLength() {
+        return DEFAULT_IPV4_PREFIX_LENGTH;
+    }
+
+    /**
+     * Prefix length used to group IPv6 addresses into networks for the network level limits.
+     */
+    default int getRateLimitIpv6PrefixLength() {
+        return DEFAULT_IPV6_PREFIX_LENGTH;
+    }
 }
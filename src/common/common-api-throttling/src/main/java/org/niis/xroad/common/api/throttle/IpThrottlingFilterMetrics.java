@@ -0,0 +1,60 @@
+/*
+ * The MIT License
+ * Copyright (c) 2019- Nordic Institute for Interoperability Solutions (NIIS)
+ * Copyright (c) 2018 Estonian Information System Authority (RIA),
+ * Nordic Institute for Interoperability Solutions (NIIS), Population Register Centre (VRK)
+ * Copyright (c) 2015-2017 Estonian Information System Authority (RIA), Population Register Centre (VRK)
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package org.niis.xroad.common.api.throttle;
+
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import lombok.RequiredArgsConstructor;
+
+/**
+ * Exports the counters of an {@link IpThrottlingFilter} as meters. Services register it as a bean next to the
+ * filter, and Spring Boot binds it to the application's meter registry.
+ */
+@RequiredArgsConstructor
+public class IpThrottlingFilterMetrics implements MeterBinder {
+    private static final String PREFIX = "xroad.api.throttling.";
+
+    private final IpThrottlingFilter filter;
+
+    @Override
+    public void bindTo(MeterRegistry registry) {
+        FunctionCounter.builder(PREFIX + "requests.allowed", filter, IpThrottlingFilter::getAllowedRequests)
+                .description("Requests passed on by the rate limiter")
+                .register(registry);
+        FunctionCounter.builder(PREFIX + "requests.rejected", filter, IpThrottlingFilter::getRejectedRequests)
+                .description("Requests rejected by the address or the network rate limit")
+                .register(registry);
+        FunctionCounter.builder(PREFIX + "requests.rejected.network", filter,
+                        IpThrottlingFilter::getRejectedNetworkRequests)
+                .description("Requests rejected by the network rate limit")
+                .register(registry);
+        Gauge.builder(PREFIX + "addresses.tracked", filter, IpThrottlingFilter::getTrackedAddresses)
+                .description("Approximate number of addresses tracked by the rate limiter")
+                .register(registry);
+    }
+}
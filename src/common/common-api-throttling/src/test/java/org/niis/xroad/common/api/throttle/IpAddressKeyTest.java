@@ -0,0 +1,96 @@
+/*
+ * The MIT License
+ * Copyright (c) 2019- Nordic Institute for Interoperability Solutions (NIIS)
+ * Copyright (c) 2018 Estonian Information System Authority (RIA),
+ * Nordic Institute for Interoperability Solutions (NIIS), Population Register Centre (VRK)
+ * Copyright (c) 2015-2017 Estonian Information System Authority (RIA), Population Register Centre (VRK)
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package org.niis.xroad.common.api.throttle;
+
+import org.junit.jupiter.api.Test;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class IpAddressKeyTest {
+
+    @Test
+    void ipv4Networks() {
+        var key = IpAddressKey.of("192.168.171.77");
+
+        assertThat(key.isIpv4()).isTrue();
+        assertThat(key.network(24, 64)).isEqualTo(IpAddressKey.of("192.168.171.0"));
+        assertThat(key.network(16, 64)).isEqualTo(IpAddressKey.of("192.168.0.0"));
+        assertThat(key.network(20, 64)).isEqualTo(IpAddressKey.of("192.168.160.0"));
+        assertThat(key.network(1, 64)).isEqualTo(IpAddressKey.of("128.0.0.0"));
+    }
+
+    @Test
+    void ipv4NetworkEdgeCases() {
+        var key = IpAddressKey.of("192.168.171.77");
+
+        assertThat(key.network(0, 64)).isEqualTo(IpAddressKey.of("0.0.0.0"));
+        assertThat(key.network(32, 64)).isEqualTo(key);
+        assertThat(key.network(33, 64)).isEqualTo(key);
+        assertThat(key.network(0, 64).isIpv4()).isTrue();
+    }
+
+    @Test
+    void ipv6Networks() {
+        var key = IpAddressKey.of("2001:db8:aaaa:bbbb:cccc:dddd:eeee:ffff");
+
+        assertThat(key.isIpv4()).isFalse();
+        assertThat(key.network(24, 64)).isEqualTo(IpAddressKey.of("2001:db8:aaaa:bbbb::"));
+        assertThat(key.network(24, 48)).isEqualTo(IpAddressKey.of("2001:db8:aaaa::"));
+        assertThat(key.network(24, 56)).isEqualTo(IpAddressKey.of("2001:db8:aaaa:bb00::"));
+        assertThat(key.network(24, 65)).isEqualTo(IpAddressKey.of("2001:db8:aaaa:bbbb:8000::"));
+        assertThat(key.network(24, 96)).isEqualTo(IpAddressKey.of("2001:db8:aaaa:bbbb:cccc:dddd::"));
+        assertThat(key.network(24, 127)).isEqualTo(IpAddressKey.of("2001:db8:aaaa:bbbb:cccc:dddd:eeee:fffe"));
+    }
+
+    @Test
+    void ipv6NetworkEdgeCases() {
+        var key = IpAddressKey.of("2001:db8:aaaa:bbbb:cccc:dddd:eeee:ffff");
+
+        assertThat(key.network(24, 0)).isEqualTo(IpAddressKey.of("::"));
+        assertThat(key.network(24, 128)).isEqualTo(key);
+        assertThat(key.network(24, 129)).isEqualTo(key);
+    }
+
+    @Test
+    void ipv4MappedAddressIsIpv4() {
+        assertThat(IpAddressKey.of("::ffff:10.1.2.3")).isEqualTo(IpAddressKey.of("10.1.2.3"));
+        assertThat(IpAddressKey.of("::ffff:10.1.2.3").network(8, 64)).isEqualTo(IpAddressKey.of("10.0.0.0"));
+    }
+
+    @Test
+    void ipv6AddressIsNotIpv4() {
+        // an IPv4-compatible address is not an IPv4-mapped address
+        assertThat(IpAddressKey.of("::10.1.2.3").isIpv4()).isFalse();
+        assertThat(IpAddressKey.of("::").isIpv4()).isFalse();
+    }
+
+    @Test
+    void nonLiteralAddressHasStableKey() {
+        assertThat(IpAddressKey.of("unknown")).isEqualTo(IpAddressKey.of("unknown"));
+        assertThat(IpAddressKey.of("unknown")).isNotEqualTo(IpAddressKey.of("other"));
+        assertThat(IpAddressKey.of((String) null)).isEqualTo(IpAddressKey.of((String) null));
+    }
+}
@@ -0,0 +1,177 @@
+/*
+ * The MIT License
+ * Copyright (c) 2019- Nordic Institute for Interoperability Solutions (NIIS)
+ * Copyright (c) 2018 Estonian Information System Authority (RIA),
+ * Nordic Institute for Interoperability Solutions (NIIS), Population Register Centre (VRK)
+ * Copyright (c) 2015-2017 Estonian Information System Authority (RIA), Population Register Centre (VRK)
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package org.niis.xroad.common.api.throttle;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import jakarta.servlet.FilterChain;
+import org.junit.jupiter.api.Test;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class IpThrottlingFilterTest {
+    private static final int TOO_MANY_REQUESTS = 429;
+
+    private final AtomicInteger passedRequests = new AtomicInteger();
+    private final FilterChain filterChain = (request, response) -> passedRequests.incrementAndGet();
+
+    @Test
+    void limitRequestsPerAddress() throws Exception {
+        var filter = new IpThrottlingFilter(new TestConfig(-1, 2, -1));
+
+        assertThat(doFilter(filter, "10.0.0.1")).isNotEqualTo(TOO_MANY_REQUESTS);
+        assertThat(doFilter(filter, "10.0.0.1")).isNotEqualTo(TOO_MANY_REQUESTS);
+        assertThat(doFilter(filter, "10.0.0.1")).isEqualTo(TOO_MANY_REQUESTS);
+        assertThat(doFilter(filter, "10.0.0.2")).isNotEqualTo(TOO_MANY_REQUESTS);
+
+        assertThat(passedRequests).hasValue(3);
+        assertThat(filter.getAllowedRequests()).isEqualTo(3);
+        assertThat(filter.getRejectedRequests()).isEqualTo(1);
+        assertThat(filter.getRejectedNetworkRequests()).isZero();
+        assertThat(filter.getTrackedAddresses()).isEqualTo(2);
+    }
+
+    @Test
+    void limitRequestsPerIpv4Network() throws Exception {
+        var filter = new IpThrottlingFilter(new TestConfig(10, -1, 2));
+
+        assertThat(doFilter(filter, "10.0.0.1")).isNotEqualTo(TOO_MANY_REQUESTS);
+        assertThat(doFilter(filter, "10.0.0.2")).isNotEqualTo(TOO_MANY_REQUESTS);
+        assertThat(doFilter(filter, "10.0.0.3")).isEqualTo(TOO_MANY_REQUESTS);
+        assertThat(doFilter(filter, "10.0.1.1")).isNotEqualTo(TOO_MANY_REQUESTS);
+
+        assertThat(passedRequests).hasValue(3);
+        assertThat(filter.getRejectedRequests()).isEqualTo(1);
+        assertThat(filter.getRejectedNetworkRequests()).isEqualTo(1);
+    }
+
+    @Test
+    void limitRequestsPerIpv6Network() throws Exception {
+        var filter = new IpThrottlingFilter(new TestConfig(10, -1, 2));
+
+        assertThat(doFilter(filter, "2001:db8::1")).isNotEqualTo(TOO_MANY_REQUESTS);
+        assertThat(doFilter(filter, "2001:db8::2:1")).isNotEqualTo(TOO_MANY_REQUESTS);
+        assertThat(doFilter(filter, "2001:db8::ffff:3")).isEqualTo(TOO_MANY_REQUESTS);
+        assertThat(doFilter(filter, "2001:db8:0:1::1")).isNotEqualTo(TOO_MANY_REQUESTS);
+
+        assertThat(passedRequests).hasValue(3);
+        assertThat(filter.getRejectedNetworkRequests()).isEqualTo(1);
+    }
+
+    @Test
+    void networkRejectionDoesNotConsumeAddressLimit() throws Exception {
+        var config = new TestConfig(-1, 2, 2);
+        var filter = new IpThrottlingFilter(config);
+
+        assertThat(doFilter(filter, "10.0.0.1")).isNotEqualTo(TOO_MANY_REQUESTS);
+        assertThat(doFilter(filter, "10.0.0.2")).isNotEqualTo(TOO_MANY_REQUESTS);
+        assertThat(doFilter(filter, "10.0.0.1")).isEqualTo(TOO_MANY_REQUESTS);
+        assertThat(filter.getRejectedNetworkRequests()).isEqualTo(1);
+
+        // a network of its own, the address still has one request left
+        config.ipv4PrefixLength = 32;
+        assertThat(doFilter(filter, "10.0.0.1")).isNotEqualTo(TOO_MANY_REQUESTS);
+        assertThat(doFilter(filter, "10.0.0.1")).isEqualTo(TOO_MANY_REQUESTS);
+
+        assertThat(passedRequests).hasValue(3);
+        assertThat(filter.getRejectedRequests()).isEqualTo(2);
+        assertThat(filter.getRejectedNetworkRequests()).isEqualTo(1);
+    }
+
+    @Test
+    void exportCountersAsMeters() throws Exception {
+        var filter = new IpThrottlingFilter(new TestConfig(-1, 1, 2));
+        var registry = new SimpleMeterRegistry();
+        new IpThrottlingFilterMetrics(filter).bindTo(registry);
+
+        doFilter(filter, "10.0.0.1");
+        doFilter(filter, "10.0.0.1");
+        doFilter(filter, "10.0.0.2");
+        doFilter(filter, "10.0.0.3");
+
+        assertThat(registry.get("xroad.api.throttling.requests.allowed").functionCounter().count()).isEqualTo(2);
+        assertThat(registry.get("xroad.api.throttling.requests.rejected").functionCounter().count()).isEqualTo(2);
+        assertThat(registry.get("xroad.api.throttling.requests.rejected.network").functionCounter().count())
+                .isEqualTo(1);
+        assertThat(registry.get("xroad.api.throttling.addresses.tracked").gauge().value()).isEqualTo(3);
+    }
+
+    private int doFilter(IpThrottlingFilter filter, String remoteAddress) throws Exception {
+        var request = new MockHttpServletRequest();
+        request.setRemoteAddr(remoteAddress);
+        var response = new MockHttpServletResponse();
+
+        filter.doFilter(request, response, filterChain);
+
+        return response.getStatus();
+    }
+
+    private static final class TestConfig implements IpThrottlingFilterConfig {
+        private final int requestsPerSecond;
+        private final int requestsPerMinute;
+        private final int networkRequestsPerMinute;
+        private volatile int ipv4PrefixLength = DEFAULT_IPV4_PREFIX_LENGTH;
+
+        TestConfig(int requestsPerSecond, int requestsPerMinute, int networkRequestsPerMinute) {
+            this.requestsPerSecond = requestsPerSecond;
+            this.requestsPerMinute = requestsPerMinute;
+            this.networkRequestsPerMinute = networkRequestsPerMinute;
+        }
+
+        @Override
+        public int getRateLimitRequestsPerSecond() {
+            return requestsPerSecond;
+        }
+
+        @Override
+        public int getRateLimitRequestsPerMinute() {
+            return requestsPerMinute;
+        }
+
+        @Override
+        public int getRateLimitCacheSize() {
+            return 100;
+        }
+
+        @Override
+        public int getRateLimitExpireAfterAccessMinutes() {
+            return 1;
+        }
+
+        @Override
+        public int getRateLimitNetworkRequestsPerMinute() {
+            return networkRequestsPerMinute;
+        }
+
+        @Override
+        public int getRateLimitIpv4PrefixLength() {
+            return ipv4PrefixLength;
+        }
+    }
+}
@@ -460,6 +460,13 @@ public final class SystemProperties {
 
     private static final String DEFAULT_SIGNER_OCSP_RETRY_DELAY = "60";
 
+    public static final String SIGNER_OCSP_FETCH_PARALLELISM = SIGNER_PREFIX + "ocsp-fetch-parallelism";
+
+    public static final String SIGNER_OCSP_RESPONDER_MAX_CONCURRENT_REQUESTS =
+            SIGNER_PREFIX + "ocsp-responder-max-concurrent-requests";
+
+    public static final String SIGNER_SIGN_BATCH_MAX_SIZE = SIGNER_PREFIX + "sign-batch-max-size";
+
     public static final String SIGNER_MODULE_MANAGER_UPDATE_INTERVAL = SIGNER_PREFIX + "module-manager-update-interval";
     public static final String SOFT_TOKEN_RSA_SIGN_MECHANISM = SIGNER_PREFIX + "soft-token-rsa-sign-mechanism";
     public static final String SOFT_TOKEN_EC_SIGN_MECHANISM = SIGNER_PREFIX + "soft-token-ec-sign-mechanism";
@@ -516,6 +523,9 @@ public final class SystemProperties {
     public static final String CONFIGURATION_CLIENT_ALLOWED_FEDERATIONS =
             PREFIX + "configuration-client.allowed-federations";
 
+    public static final String CONFIGURATION_CLIENT_DOWNLOAD_PARALLELISM =
+            PREFIX + "configuration-client.download-parallelism";
+
     /**
      * A constant to describe the X-Road instances this security server federates with.
      * {@link #CUSTOM} means a list of named, comma-separated X-Road instances to allow.
@@ -643,6 +653,10 @@ public final class SystemProperties {
     public static final String CONFIGURATION_PROXY_ADDRESS =
             PREFIX + "configuration-proxy.address";
 
+    /** Property name of the number of confproxy instances processed concurrently. */
+    public static final String CONFIGURATION_PROXY_PARALLELISM =
+            PREFIX + "configuration-proxy.parallelism";
+
     // Environmental Monitoring  -------------------------- //
 
     /** Property name of environmental monitor port. */
@@ -1154,6 +1168,28 @@ public final class SystemProperties {
                 DEFAULT_SIGNER_OCSP_RETRY_DELAY));
     }
 
+    /**
+     * @return the maximum number of OCSP responses signer fetches concurrently, 8 by default
+     */
+    public static int getOcspFetchParallelism() {
+        return Math.max(1, Integer.parseInt(System.getProperty(SIGNER_OCSP_FETCH_PARALLELISM, "8")));
+    }
+
+    /**
+     * @return the maximum number of concurrent requests signer sends to a single OCSP responder, 2 by default
+     */
+    public static int getOcspResponderMaxConcurrentRequests() {
+        return Math.max(1, Integer.parseInt(System.getProperty(SIGNER_OCSP_RESPONDER_MAX_CONCURRENT_REQUESTS, "2")));
+    }
+
+    /**
+     * @return the maximum number of concurrent sign requests signer signs as one batch on a token that does not
+     * sign concurrently, 32 by default
+     */
+    public static int getSignBatchMaxSize() {
+        return Math.max(1, Integer.parseInt(System.getProperty(SIGNER_SIGN_BATCH_MAX_SIZE, "32")));
+    }
+
     /**
      * @return the module manager update interval in seconds that should be set for signer, 60 by default
      */
@@ -1307,6 +1343,14 @@ public final class SystemProperties {
         return System.getProperty(CONFIGURATION_CLIENT_ALLOWED_FEDERATIONS, AllowedFederationMode.NONE.name());
     }
 
+    /**
+     * @return the maximum number of configuration parts the configuration client downloads in parallel,
+     * '4' by default.
+     */
+    public static int getConfigurationClientDownloadParallelism() {
+        return Integer.parseInt(System.getProperty(CONFIGURATION_CLIENT_DOWNLOAD_PARALLELISM, "4"));
+    }
+
     /**
      * @return the HTTP port on which the server proxy OCSP responder is listening, '5577' by default.
      */
@@ -1462,6 +1506,14 @@ public final class SystemProperties {
         return System.getProperty(CONFIGURATION_PROXY_ADDRESS, DEFAULT_CONNECTOR_HOST);
     }
 
+    /**
+     * @return the number of configuration proxy instances that are processed
+     * concurrently, '4' by default.
+     */
+    public static int getConfigurationProxyParallelism() {
+        return Math.max(1, Integer.parseInt(System.getProperty(CONFIGURATION_PROXY_PARALLELISM, "4")));
+    }
+
     /**
      * @return the interval in seconds at which proxy monitor agent collects monitoring data, '60' by default.
      */
@@ -41,12 +41,16 @@ import org.springframework.http.HttpHeaders;
 import org.springframework.http.ResponseEntity;
 
 import java.io.InputStream;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.function.Function;
 import java.util.function.ToIntFunction;
 
 @Slf4j
 @RequiredArgsConstructor
 public class ManagementRequestSoapExecutor {
     public static final int MAX_REQUEST_SIZE = 100_000;
+    private static final String TRACE_ID = "traceId";
 
     private final ManagementRequestVerifier managementRequestVerifier;
 
@@ -57,23 +61,62 @@ public class ManagementRequestSoapExecutor {
 
             var createdRequestId = onSuccess.applyAsInt(verificationResult);
 
-            var responseBody = ManagementRequestUtil.toResponse(verificationResult.getSoapMessage(), createdRequestId).getXml();
-            return disableCache(ResponseEntity.ok())
-                    .body(responseBody);
+            return toResponse(verificationResult, createdRequestId);
         } catch (Exception e) {
-            var ex = ErrorCodes.translateException(e);
-            // override the detail code with traceId
-            ex.setFaultDetail(MDC.get("traceId"));
+            return toFault(e, MDC.get(TRACE_ID));
+        }
+    }
+
+    /**
+     * Verifies the request on the calling thread and completes the response once the future returned by
+     * {@code onSuccess} completes, so that the request thread is not held while the request is being stored.
+     */
+    public CompletableFuture<ResponseEntity<String>> processAsync(
+            String contentType, InputStream body,
+            Function<ManagementRequestVerifier.Result, CompletableFuture<Integer>> onSuccess) {
+        final var traceId = MDC.get(TRACE_ID);
+        final ManagementRequestVerifier.Result verificationResult;
+        final CompletableFuture<Integer> createdRequestId;
+        try (var bos = BoundedInputStream.builder().setInputStream(body).setMaxCount(MAX_REQUEST_SIZE).get()) {
+            verificationResult = managementRequestVerifier.readRequest(contentType, bos);
+            createdRequestId = onSuccess.apply(verificationResult);
+        } catch (Exception e) {
+            return CompletableFuture.completedFuture(toFault(e, traceId));
+        }
 
-            if (log.isDebugEnabled() || !(e instanceof CodedException)) {
-                log.error("ManagementRequest failed", ex);
-            } else {
-                var cause = (ex.getCause() == null) ? "" : ", nested exception is" + ex.getCause().toString();
-                log.error("ManagementRequest failed: {}{}", ex.getMessage(), cause);
+        return createdRequestId.handle((requestId, error) -> {
+            if (error != null) {
+                return toFault(error instanceof CompletionException && error.getCause() != null ? error.getCause() : error,
+                        traceId);
             }
-            return disableCache(ResponseEntity.internalServerError())
-                    .body(SoapFault.createFaultXml(ex));
+            try {
+                return toResponse(verificationResult, requestId);
+            } catch (Exception e) {
+                return toFault(e, traceId);
+            }
+        });
+    }
+
+    private static ResponseEntity<String> toResponse(ManagementRequestVerifier.Result verificationResult,
+                                                     int createdRequestId) throws Exception {
+        var responseBody = ManagementRequestUtil.toResponse(verificationResult.getSoapMessage(), createdRequestId).getXml();
+        return disableCache(ResponseEntity.ok())
+                .body(responseBody);
+    }
+
+    private static ResponseEntity<String> toFault(Throwable e, String traceId) {
+        var ex = ErrorCodes.translateException(e);
+        // override the detail code with traceId
+        ex.setFaultDetail(traceId);
+
+        if (log.isDebugEnabled() || !(e instanceof CodedException)) {
+            log.error("ManagementRequest failed", ex);
+        } else {
+            var cause = (ex.getCause() == null) ? "" : ", nested exception is" + ex.getCause().toString();
+            log.error("ManagementRequest failed: {}{}", ex.getMessage(), cause);
         }
+        return disableCache(ResponseEntity.internalServerError())
+                .body(SoapFault.createFaultXml(ex));
     }
 
     private static ResponseEntity.BodyBuilder disableCache(ResponseEntity.BodyBuilder builder) {
@@ -28,6 +28,8 @@ package ee.ria.xroad.common.message;
 import ee.ria.xroad.common.util.MimeTypes;
 
 import org.apache.commons.io.IOUtils;
+import org.apache.commons.io.function.IOConsumer;
+import org.apache.commons.io.output.CloseShieldOutputStream;
 
 import java.io.IOException;
 import java.io.InputStream;
@@ -102,6 +104,23 @@ public class MultipartSoapMessageEncoder implements SoapMessageEncoder {
         IOUtils.copy(content, multipart);
     }
 
+    /**
+     * Writes the attachment content directly into the multipart output
+     * without buffering it. The writer may close the stream it is given,
+     * the multipart output itself stays open.
+     */
+    @Override
+    public void attachment(String contentType, IOConsumer<OutputStream> content,
+                           Map<String, String> additionalHeaders) throws IOException {
+        String[] headers = {};
+        if (additionalHeaders != null && !additionalHeaders.isEmpty()) {
+            headers = convertHeaders(additionalHeaders);
+        }
+
+        multipart.startPart(contentType, headers);
+        content.accept(CloseShieldOutputStream.wrap(multipart));
+    }
+
     private static String[] convertHeaders(Map<String, String> headers) {
         return headers.entrySet().stream()
                 .map(e -> e.getKey() + ": " + e.getValue())
@@ -31,16 +31,21 @@ import ee.ria.xroad.common.identifier.ServiceId;
 import ee.ria.xroad.common.util.MimeUtils;
 
 import lombok.Getter;
+import org.apache.commons.io.output.TeeOutputStream;
 import org.apache.http.Header;
 import org.apache.http.message.BasicHeader;
+import org.bouncycastle.operator.DigestCalculator;
 
+import java.io.ByteArrayOutputStream;
 import java.io.IOException;
 import java.io.OutputStream;
 import java.nio.charset.StandardCharsets;
 import java.util.Collections;
+import java.util.HashMap;
 import java.util.HashSet;
 import java.util.List;
-import java.util.Optional;
+import java.util.Locale;
+import java.util.Map;
 import java.util.Set;
 import java.util.function.Predicate;
 
@@ -62,16 +67,22 @@ public abstract class RestMessage {
     protected List<Header> headers;
     protected byte[] hash;
     protected byte[] messageBytes;
+    private byte[] filteredMessageBytes;
+    private Map<String, String> headerIndex;
 
     /**
      * get digest
      */
     public byte[] getHash() {
         if (hash == null) {
-            try {
-                hash = Digests.calculateDigest(Digests.DEFAULT_DIGEST_ALGORITHM, getMessageBytes());
-            } catch (Exception e) {
-                throw new IllegalStateException("Unable to calculate hash", e);
+            if (messageBytes == null) {
+                serialize();
+            } else {
+                try {
+                    hash = Digests.calculateDigest(Digests.DEFAULT_DIGEST_ALGORITHM, messageBytes);
+                } catch (Exception e) {
+                    throw new IllegalStateException("Unable to calculate hash", e);
+                }
             }
         }
         return hash;
@@ -82,11 +93,26 @@ public abstract class RestMessage {
      */
     public byte[] getMessageBytes() {
         if (messageBytes == null) {
-            messageBytes = toByteArray();
+            serialize();
         }
         return messageBytes;
     }
 
+    /**
+     * Serialize the message including only X-Road headers
+     */
+    public byte[] getFilteredMessage() {
+        if (filteredMessageBytes == null) {
+            try (ByteArrayOutputStream bof = new ByteArrayOutputStream()) {
+                writeFilteredMessage(bof);
+                filteredMessageBytes = bof.toByteArray();
+            } catch (IOException e) {
+                throw new IllegalStateException("Unable to serialize message", e);
+            }
+        }
+        return filteredMessageBytes;
+    }
+
     /**
      * Sets queryId
      */
@@ -94,6 +120,10 @@ public abstract class RestMessage {
         if (this.queryId == null) {
             this.queryId = queryId;
             this.headers.add(new BasicHeader(MimeUtils.HEADER_QUERY_ID, queryId));
+            messageBytes = null;
+            hash = null;
+            filteredMessageBytes = null;
+            headerIndex = null;
         } else {
             throw new IllegalStateException("Can not change queryId");
         }
@@ -105,15 +135,56 @@ public abstract class RestMessage {
      * @return http header value as a String or null if header not found
      */
     public String findHeaderValueByName(String name) {
-        Optional<Header> header = headers.stream()
-                .filter(h -> h.getName().equalsIgnoreCase(name))
-                .findFirst();
-        return header.map(Header::getValue).orElse(null);
+        if (headerIndex == null) {
+            Map<String, String> index = new HashMap<>();
+            for (Header h : headers) {
+                String key = h.getName().toLowerCase(Locale.ROOT);
+                if (!index.containsKey(key)) {
+                    index.put(key, h.getValue());
+                }
+            }
+            headerIndex = index;
+        }
+        return headerIndex.get(name.toLowerCase(Locale.ROOT));
+    }
+
+    /**
+     * Serialize the message
+     */
+    protected byte[] toByteArray() {
+        try (ByteArrayOutputStream bof = new ByteArrayOutputStream()) {
+            writeMessage(bof);
+            return bof.toByteArray();
+        } catch (IOException e) {
+            throw new IllegalStateException("Unable to serialize message", e);
+        }
     }
 
-    protected abstract byte[] toByteArray();
+    /**
+     * Writes the message (start line and all headers) in its canonical form
+     */
+    protected abstract void writeMessage(OutputStream os) throws IOException;
+
+    /**
+     * Writes the message including only X-Road headers
+     */
+    protected abstract void writeFilteredMessage(OutputStream os) throws IOException;
 
-    public abstract byte[] getFilteredMessage();
+    /**
+     * Serializes the message and calculates its digest in one pass
+     */
+    private void serialize() {
+        try (ByteArrayOutputStream bof = new ByteArrayOutputStream()) {
+            DigestCalculator dc = Digests.createDigestCalculator(Digests.DEFAULT_DIGEST_ALGORITHM);
+            try (OutputStream digestStream = dc.getOutputStream()) {
+                writeMessage(new TeeOutputStream(bof, digestStream));
+            }
+            messageBytes = bof.toByteArray();
+            hash = dc.getDigest();
+        } catch (Exception e) {
+            throw new IllegalStateException("Unable to serialize message", e);
+        }
+    }
 
     public abstract ClientId getSender();
 
@@ -36,8 +36,9 @@ import org.apache.http.message.BasicHeader;
 
 import java.io.BufferedReader;
 import java.io.ByteArrayInputStream;
-import java.io.ByteArrayOutputStream;
+import java.io.IOException;
 import java.io.InputStreamReader;
+import java.io.OutputStream;
 import java.net.URI;
 import java.nio.charset.StandardCharsets;
 import java.util.ArrayList;
@@ -111,48 +112,30 @@ public class RestRequest extends RestMessage {
         decodeIdentifiers();
     }
 
-    /**
-     * serialize
-     * @return
-     */
     @Override
-    protected byte[] toByteArray() {
-        try (ByteArrayOutputStream bof = new ByteArrayOutputStream()) {
-            writeString(bof, verb.toString());
-            bof.write(CRLF);
-            writeString(bof, requestPath);
-            if (query != null) {
-                writeString(bof, "?");
-                writeString(bof, query);
-            }
-            bof.write(CRLF);
-            serializeHeaders(headers, bof, h -> true);
-            return bof.toByteArray();
-        } catch (Exception io) {
-            throw new IllegalStateException("Unable to serialize request", io);
+    protected void writeMessage(OutputStream os) throws IOException {
+        writeString(os, verb.toString());
+        os.write(CRLF);
+        writeString(os, requestPath);
+        if (query != null) {
+            writeString(os, "?");
+            writeString(os, query);
         }
+        os.write(CRLF);
+        serializeHeaders(headers, os, h -> true);
     }
 
-    /**
-     * serialize
-     * @return
-     */
     @Override
-    public byte[] getFilteredMessage() {
-        try (ByteArrayOutputStream bof = new ByteArrayOutputStream()) {
-            writeString(bof, verb.toString());
-            bof.write(CRLF);
-            if (servicePath.isEmpty()) {
-                writeString(bof, requestPath);
-            } else {
-                writeString(bof, requestPath.substring(0, requestPath.length() - servicePath.length()));
-            }
-            bof.write(CRLF);
-            serializeHeaders(headers, bof, RestMessage::isXroadHeader);
-            return bof.toByteArray();
-        } catch (Exception io) {
-            throw new IllegalStateException("Unable to serialize request", io);
+    protected void writeFilteredMessage(OutputStream os) throws IOException {
+        writeString(os, verb.toString());
+        os.write(CRLF);
+        if (servicePath.isEmpty()) {
+            writeString(os, requestPath);
+        } else {
+            writeString(os, requestPath.substring(0, requestPath.length() - servicePath.length()));
         }
+        os.write(CRLF);
+        serializeHeaders(headers, os, RestMessage::isXroadHeader);
     }
 
     @Override
@@ -38,9 +38,9 @@ import org.apache.http.message.BasicHeader;
 
 import java.io.BufferedReader;
 import java.io.ByteArrayInputStream;
-import java.io.ByteArrayOutputStream;
 import java.io.IOException;
 import java.io.InputStreamReader;
+import java.io.OutputStream;
 import java.nio.charset.StandardCharsets;
 import java.util.ArrayList;
 import java.util.List;
@@ -111,36 +111,21 @@ public class RestResponse extends RestMessage {
     }
 
     @Override
-    protected byte[] toByteArray() {
-        try (ByteArrayOutputStream bof = new ByteArrayOutputStream()) {
-
-            writeString(bof, String.valueOf(responseCode));
-            bof.write(CRLF);
-            writeString(bof, reason);
-            bof.write(CRLF);
-            serializeHeaders(headers, bof, h -> true);
-
-            return bof.toByteArray();
-        } catch (IOException e) {
-            throw new IllegalArgumentException(e);
-        }
+    protected void writeMessage(OutputStream os) throws IOException {
+        writeString(os, String.valueOf(responseCode));
+        os.write(CRLF);
+        writeString(os, reason);
+        os.write(CRLF);
+        serializeHeaders(headers, os, h -> true);
     }
 
-    /**
-     * Serialize the message including only X-Road headers
-     */
     @Override
-    public byte[] getFilteredMessage() {
-        try (ByteArrayOutputStream bof = new ByteArrayOutputStream()) {
-            writeString(bof, String.valueOf(responseCode));
-            bof.write(CRLF);
-            writeString(bof, reason);
-            bof.write(CRLF);
-            serializeHeaders(headers, bof, RestMessage::isXroadHeader);
-            return bof.toByteArray();
-        } catch (Exception io) {
-            throw new IllegalStateException("Unable to serialize request", io);
-        }
+    protected void writeFilteredMessage(OutputStream os) throws IOException {
+        writeString(os, String.valueOf(responseCode));
+        os.write(CRLF);
+        writeString(os, reason);
+        os.write(CRLF);
+        serializeHeaders(headers, os, RestMessage::isXroadHeader);
     }
 
     @Override
@@ -25,9 +25,13 @@
  */
 package ee.ria.xroad.common.message;
 
+import org.apache.commons.io.function.IOConsumer;
+import org.apache.commons.io.output.ByteArrayOutputStream;
+
 import java.io.Closeable;
 import java.io.IOException;
 import java.io.InputStream;
+import java.io.OutputStream;
 import java.util.Map;
 
 /**
@@ -47,4 +51,21 @@ public interface SoapMessageEncoder extends SoapMessageConsumer, Closeable {
     @Override
     void attachment(String contentType, InputStream content,
                     Map<String, String> additionalHeaders) throws Exception;
+
+    /**
+     * Encodes an attachment whose content is produced by the given writer.
+     * The default implementation buffers the content in memory, encoders that
+     * can write the part directly to the output should override this.
+     * @param contentType content type of the attachment
+     * @param content writer producing the attachment content
+     * @param additionalHeaders additional headers of the attachment part
+     * @throws Exception if an error occurs
+     */
+    default void attachment(String contentType, IOConsumer<OutputStream> content,
+                            Map<String, String> additionalHeaders) throws Exception {
+        try (ByteArrayOutputStream buffer = new ByteArrayOutputStream()) {
+            content.accept(buffer);
+            attachment(contentType, buffer.toInputStream(), additionalHeaders);
+        }
+    }
 }
@@ -29,6 +29,7 @@ import ee.ria.xroad.common.CodedException;
 import ee.ria.xroad.common.ErrorCodes;
 import ee.ria.xroad.common.crypto.identifier.DigestAlgorithm;
 import ee.ria.xroad.common.crypto.identifier.SignAlgorithm;
+import ee.ria.xroad.common.util.CompiledXPath;
 import ee.ria.xroad.common.util.XmlUtils;
 
 import org.apache.xml.security.algorithms.MessageDigestAlgorithm;
@@ -47,6 +48,8 @@ import java.io.IOException;
 import java.nio.charset.StandardCharsets;
 import java.security.NoSuchAlgorithmException;
 import java.util.Iterator;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
 
 import static ee.ria.xroad.common.crypto.Digests.DEFAULT_DIGEST_ALGORITHM;
 import static ee.ria.xroad.common.crypto.Digests.calculateDigest;
@@ -139,6 +142,15 @@ final class Helper {
     static final String COMPLETE_REVOCATION_REFS_ID = "complete-revocation-refs";
     static final String COMPLETE_CERTIFICATE_REFS_ID = "complete-certificate-refs";
 
+    private static final NamespaceContext NAMESPACE_CTX = createNamespaceCtx();
+
+    private static final CompiledXPath OCSP_REFS_XPATH =
+            unsignedSignaturePropertiesXPath(COMPLETE_REVOCATION_REFS_TAG, OCSP_REFS_TAG, OCSP_REF_TAG);
+    private static final CompiledXPath ENCAPSULATED_OCSP_VALUES_XPATH =
+            unsignedSignaturePropertiesXPath(REVOCATION_VALUES_TAG, OCSP_VALUES_TAG, ENCAPSULATED_OCSP_VALUE_TAG);
+    private static final CompiledXPath CERTIFICATE_REFS_XPATH =
+            unsignedSignaturePropertiesXPath(COMPLETE_CERTIFICATE_REFS_TAG, CERT_REFS_TAG, CERT_TAG);
+
     private Helper() {
     }
 
@@ -236,21 +248,7 @@ final class Helper {
         // ------- xades:OCSPRefs
         // -------- xades:OCSPRef
 
-        StringBuilder xpath = new StringBuilder();
-        xpath.append(PREFIX_XADES);
-        xpath.append(QUALIFYING_PROPS_TAG).append("/");
-        xpath.append(PREFIX_XADES);
-        xpath.append(UNSIGNED_PROPS_TAG).append("/");
-        xpath.append(PREFIX_XADES);
-        xpath.append(UNSIGNED_SIGNATURE_PROPS_TAG).append("/");
-        xpath.append(PREFIX_XADES);
-        xpath.append(COMPLETE_REVOCATION_REFS_TAG).append("/");
-        xpath.append(PREFIX_XADES);
-        xpath.append(OCSP_REFS_TAG).append("/");
-        xpath.append(PREFIX_XADES);
-        xpath.append(OCSP_REF_TAG);
-
-        return XmlUtils.getElementsXPathNS(objectContainer, xpath.toString(), getNamespaceCtx());
+        return XmlUtils.getElementsXPathNS(objectContainer, OCSP_REFS_XPATH);
     }
 
     /**
@@ -268,21 +266,7 @@ final class Helper {
         // ------- xades:OCSPValues
         // -------- xades:EncapsulatedOCSPValue
 
-        StringBuilder xpath = new StringBuilder();
-        xpath.append(PREFIX_XADES);
-        xpath.append(QUALIFYING_PROPS_TAG).append("/");
-        xpath.append(PREFIX_XADES);
-        xpath.append(UNSIGNED_PROPS_TAG).append("/");
-        xpath.append(PREFIX_XADES);
-        xpath.append(UNSIGNED_SIGNATURE_PROPS_TAG).append("/");
-        xpath.append(PREFIX_XADES);
-        xpath.append(REVOCATION_VALUES_TAG).append("/");
-        xpath.append(PREFIX_XADES);
-        xpath.append(OCSP_VALUES_TAG).append("/");
-        xpath.append(PREFIX_XADES);
-        xpath.append(ENCAPSULATED_OCSP_VALUE_TAG);
-
-        return XmlUtils.getElementsXPathNS(objectContainer, xpath.toString(), getNamespaceCtx());
+        return XmlUtils.getElementsXPathNS(objectContainer, ENCAPSULATED_OCSP_VALUES_XPATH);
     }
 
     /**
@@ -300,21 +284,7 @@ final class Helper {
         // ------- xades:CertRefs
         // -------- xades:Cert
 
-        StringBuilder xpath = new StringBuilder();
-        xpath.append(PREFIX_XADES);
-        xpath.append(QUALIFYING_PROPS_TAG).append("/");
-        xpath.append(PREFIX_XADES);
-        xpath.append(UNSIGNED_PROPS_TAG).append("/");
-        xpath.append(PREFIX_XADES);
-        xpath.append(UNSIGNED_SIGNATURE_PROPS_TAG).append("/");
-        xpath.append(PREFIX_XADES);
-        xpath.append(COMPLETE_CERTIFICATE_REFS_TAG).append("/");
-        xpath.append(PREFIX_XADES);
-        xpath.append(CERT_REFS_TAG).append("/");
-        xpath.append(PREFIX_XADES);
-        xpath.append(CERT_TAG);
-
-        return XmlUtils.getElementsXPathNS(objectContainer, xpath.toString(), getNamespaceCtx());
+        return XmlUtils.getElementsXPathNS(objectContainer, CERTIFICATE_REFS_XPATH);
     }
 
     /***
@@ -347,7 +317,20 @@ final class Helper {
         return new CodedException(ErrorCodes.X_MALFORMED_SIGNATURE, "Could not find element \"%s\"", elementTag);
     }
 
-    private static NamespaceContext getNamespaceCtx() {
+    /**
+     * Compiles the path to the given element below xades:UnsignedSignatureProperties, relative to ds:Object.
+     */
+    private static CompiledXPath unsignedSignaturePropertiesXPath(String... tags) {
+        String xpath = Stream.concat(
+                        Stream.of(QUALIFYING_PROPS_TAG, UNSIGNED_PROPS_TAG, UNSIGNED_SIGNATURE_PROPS_TAG),
+                        Stream.of(tags))
+                .map(Helper::xadesElement)
+                .collect(Collectors.joining("/"));
+
+        return new CompiledXPath(xpath, NAMESPACE_CTX);
+    }
+
+    private static NamespaceContext createNamespaceCtx() {
         return new NamespaceContext() {
             @Override
             public String getNamespaceURI(String prefix) {
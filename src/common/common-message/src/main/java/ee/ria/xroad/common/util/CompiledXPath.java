@@ -0,0 +1,104 @@
+/*
+ * The MIT License
+ * Copyright (c) 2019- Nordic Institute for Interoperability Solutions (NIIS)
+ * Copyright (c) 2018 Estonian Information System Authority (RIA),
+ * Nordic Institute for Interoperability Solutions (NIIS), Population Register Centre (VRK)
+ * Copyright (c) 2015-2017 Estonian Information System Authority (RIA), Population Register Centre (VRK)
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package ee.ria.xroad.common.util;
+
+import lombok.Getter;
+import org.w3c.dom.Element;
+import org.w3c.dom.Node;
+import org.w3c.dom.NodeList;
+
+import javax.xml.namespace.NamespaceContext;
+import javax.xml.namespace.QName;
+import javax.xml.xpath.XPath;
+import javax.xml.xpath.XPathConstants;
+import javax.xml.xpath.XPathExpression;
+import javax.xml.xpath.XPathExpressionException;
+
+/**
+ * XPath expression that is compiled once per thread and reused for every evaluation.
+ * Compiled {@link XPathExpression} objects are not thread-safe, so each thread keeps its own copy.
+ * Instances of this class are thread-safe and meant to be kept in static fields.
+ */
+public final class CompiledXPath {
+
+    @Getter
+    private final String expression;
+    private final NamespaceContext namespaceContext;
+
+    private final ThreadLocal<XPathExpression> compiled = ThreadLocal.withInitial(this::compile);
+
+    /**
+     * Creates a new compiled XPath expression.
+     * @param expression the xpath expression
+     * @param namespaceContext the namespace context (can be null)
+     * @throws IllegalArgumentException if the expression cannot be compiled
+     */
+    public CompiledXPath(String expression, NamespaceContext namespaceContext) {
+        this.expression = expression;
+        this.namespaceContext = namespaceContext;
+
+        // Fail early on invalid expressions instead of on the first evaluation
+        compiled.get();
+    }
+
+    /**
+     * Returns the first element matching the expression.
+     * @param context the node from which to evaluate the expression
+     * @return the element or null if the element cannot be found
+     * @throws XPathExpressionException if the expression cannot be evaluated
+     */
+    public Element evaluateElement(Node context) throws XPathExpressionException {
+        return (Element) evaluate(context, XPathConstants.NODE);
+    }
+
+    /**
+     * Returns the nodes matching the expression.
+     * @param context the node from which to evaluate the expression
+     * @return the matching nodes
+     * @throws XPathExpressionException if the expression cannot be evaluated
+     */
+    public NodeList evaluateNodes(Node context) throws XPathExpressionException {
+        return (NodeList) evaluate(context, XPathConstants.NODESET);
+    }
+
+    private Object evaluate(Node context, QName returnType) throws XPathExpressionException {
+        return compiled.get().evaluate(context, returnType);
+    }
+
+    private XPathExpression compile() {
+        XPath xpath = XmlUtils.newXPath();
+
+        if (namespaceContext != null) {
+            xpath.setNamespaceContext(namespaceContext);
+        }
+
+        try {
+            return xpath.compile(expression);
+        } catch (XPathExpressionException e) {
+            throw new IllegalArgumentException("Invalid xpath expression " + expression, e);
+        }
+    }
+}
@@ -40,6 +40,7 @@ import org.xml.sax.helpers.XMLReaderFactory;
 
 import javax.xml.XMLConstants;
 import javax.xml.namespace.NamespaceContext;
+import javax.xml.namespace.QName;
 import javax.xml.parsers.DocumentBuilder;
 import javax.xml.parsers.DocumentBuilderFactory;
 import javax.xml.parsers.ParserConfigurationException;
@@ -53,6 +54,7 @@ import javax.xml.transform.dom.DOMSource;
 import javax.xml.transform.stream.StreamResult;
 import javax.xml.xpath.XPath;
 import javax.xml.xpath.XPathConstants;
+import javax.xml.xpath.XPathExpression;
 import javax.xml.xpath.XPathExpressionException;
 import javax.xml.xpath.XPathFactory;
 
@@ -87,6 +89,22 @@ public final class XmlUtils {
 
     private static final TransformerFactory TRANSFORMER_FACTORY = createTransformerFactory();
 
+    /* DocumentBuilder, Transformer, XPathFactory and XPath instances are not thread-safe, but they can be reused
+     * sequentially after reset(). Keeping one instance per thread avoids the factory lookup and parser
+     * configuration on every message.
+     */
+    private static final ThreadLocal<DocumentBuilder> DOCUMENT_PARSER =
+            ThreadLocal.withInitial(() -> newDocumentBuilder(XmlUtils.DOCUMENT_PARSING_FACTORY));
+    private static final ThreadLocal<DocumentBuilder> NAMESPACE_AWARE_DOCUMENT_PARSER =
+            ThreadLocal.withInitial(() -> newDocumentBuilder(XmlUtils.NAMESPACE_AWARE_DOCUMENT_PARSING_FACTORY));
+
+    private static final ThreadLocal<Transformer> TRANSFORMER = ThreadLocal.withInitial(XmlUtils::newTransformer);
+
+    private static final ThreadLocal<XPathFactory> XPATH_FACTORY =
+            ThreadLocal.withInitial(XPathFactory::newDefaultInstance);
+    private static final ThreadLocal<XPath> XPATH = ThreadLocal.withInitial(XmlUtils::newXPath);
+    private static final ThreadLocal<IdLookup> ID_LOOKUP = ThreadLocal.withInitial(IdLookup::new);
+
     static {
         /* Per JSR-206, section 4.14, a configured DocumentBuilderFactory or TransformerFactory can be shared
          * for calling newDocumentBuilder() and newTransformer().
@@ -147,10 +165,11 @@ public final class XmlUtils {
      * @throws Exception if an error occurs
      */
     public static Document parseDocument(InputStream documentXml, boolean namespaceAware) throws Exception {
-        if (namespaceAware) {
-            return NAMESPACE_AWARE_DOCUMENT_PARSING_FACTORY.newDocumentBuilder().parse(documentXml);
-        } else {
-            return DOCUMENT_PARSING_FACTORY.newDocumentBuilder().parse(documentXml);
+        DocumentBuilder builder = namespaceAware ? NAMESPACE_AWARE_DOCUMENT_PARSER.get() : DOCUMENT_PARSER.get();
+        try {
+            return builder.parse(documentXml);
+        } finally {
+            builder.reset();
         }
     }
 
@@ -165,8 +184,12 @@ public final class XmlUtils {
         StringWriter writer = new StringWriter();
         Result result = new StreamResult(writer);
 
-        Transformer t = TRANSFORMER_FACTORY.newTransformer();
-        t.transform(source, result);
+        Transformer t = TRANSFORMER.get();
+        try {
+            t.transform(source, result);
+        } finally {
+            t.reset();
+        }
 
         return writer.toString();
     }
@@ -192,14 +215,23 @@ public final class XmlUtils {
      */
     public static Element getElementXPathNS(Element parent, String xpathExpr, NamespaceContext nsCtx) {
         try {
-            XPathFactory factory = XPathFactory.newInstance();
-            XPath xpath = factory.newXPath();
+            return (Element) evaluateXPath(parent, xpathExpr, nsCtx, XPathConstants.NODE);
+        } catch (XPathExpressionException e) {
+            log.warn(ELEMENT_NOT_FOUND_WARNING, e);
 
-            if (nsCtx != null) {
-                xpath.setNamespaceContext(nsCtx);
-            }
+            return null;
+        }
+    }
 
-            return (Element) xpath.evaluate(xpathExpr, parent, XPathConstants.NODE);
+    /**
+     * Returns an element matching the given precompiled xpath expression.
+     * @param parent the parent element from which to search
+     * @param xpath the compiled xpath expression
+     * @return the element or null if the element cannot be found or the xpath expression cannot be evaluated
+     */
+    public static Element getElementXPathNS(Element parent, CompiledXPath xpath) {
+        try {
+            return xpath.evaluateElement(parent);
         } catch (XPathExpressionException e) {
             log.warn(ELEMENT_NOT_FOUND_WARNING, e);
 
@@ -216,14 +248,23 @@ public final class XmlUtils {
      */
     public static NodeList getElementsXPathNS(Element parent, String xpathExpr, NamespaceContext nsCtx) {
         try {
-            XPathFactory factory = XPathFactory.newInstance();
-            XPath xpath = factory.newXPath();
+            return (NodeList) evaluateXPath(parent, xpathExpr, nsCtx, XPathConstants.NODESET);
+        } catch (XPathExpressionException e) {
+            log.warn(ELEMENT_NOT_FOUND_WARNING, e);
 
-            if (nsCtx != null) {
-                xpath.setNamespaceContext(nsCtx);
-            }
+            return null;
+        }
+    }
 
-            return (NodeList) xpath.evaluate(xpathExpr, parent, XPathConstants.NODESET);
+    /**
+     * Returns a list of elements matching the given precompiled xpath expression.
+     * @param parent the parent element from which to search
+     * @param xpath the compiled xpath expression
+     * @return the elements or null if the xpath expression cannot be evaluated
+     */
+    public static NodeList getElementsXPathNS(Element parent, CompiledXPath xpath) {
+        try {
+            return xpath.evaluateNodes(parent);
         } catch (XPathExpressionException e) {
             log.warn(ELEMENT_NOT_FOUND_WARNING, e);
 
@@ -244,10 +285,7 @@ public final class XmlUtils {
         }
 
         try {
-            XPathFactory factory = XPathFactory.newInstance();
-            XPath xpath = factory.newXPath();
-
-            return (Element) xpath.evaluate("//*[@Id = '" + id + "']", doc, XPathConstants.NODE);
+            return ID_LOOKUP.get().find(doc, id);
         } catch (XPathExpressionException e) {
             log.warn(ELEMENT_NOT_FOUND_WARNING, e);
 
@@ -346,6 +384,46 @@ public final class XmlUtils {
         return reader;
     }
 
+    /**
+     * Creates a new XPath object using the factory of the current thread.
+     * @return the XPath object
+     */
+    static XPath newXPath() {
+        return XPATH_FACTORY.get().newXPath();
+    }
+
+    private static Object evaluateXPath(Element parent, String xpathExpr, NamespaceContext nsCtx, QName returnType)
+            throws XPathExpressionException {
+        XPath xpath = XPATH.get();
+        try {
+            if (nsCtx != null) {
+                xpath.setNamespaceContext(nsCtx);
+            }
+
+            return xpath.evaluate(xpathExpr, parent, returnType);
+        } finally {
+            xpath.reset();
+        }
+    }
+
+    private static DocumentBuilder newDocumentBuilder(DocumentBuilderFactory factory) {
+        try {
+            return factory.newDocumentBuilder();
+        } catch (ParserConfigurationException e) {
+            //Unexpected, the factories are configured once at class initialization
+            throw new IllegalStateException(e);
+        }
+    }
+
+    private static Transformer newTransformer() {
+        try {
+            return TRANSFORMER_FACTORY.newTransformer();
+        } catch (TransformerConfigurationException e) {
+            //Unexpected
+            throw new IllegalStateException(e);
+        }
+    }
+
     private static TransformerFactory createTransformerFactory() {
         final TransformerFactory factory = TransformerFactory.newInstance();
         try {
@@ -356,4 +434,35 @@ public final class XmlUtils {
         }
         return factory;
     }
+
+    /**
+     * Element lookup by ID attribute. The expression is compiled once per thread and the searched id is passed
+     * in as an XPath variable, so that the id value is never interpreted as a part of the expression.
+     */
+    private static final class IdLookup {
+        private static final QName ID_VARIABLE = new QName("id");
+
+        private String id;
+        private final XPathExpression expression;
+
+        IdLookup() {
+            XPath xpath = newXPath();
+            xpath.setXPathVariableResolver(name -> ID_VARIABLE.equals(name) ? id : null);
+            try {
+                expression = xpath.compile("//*[@Id = $id]");
+            } catch (XPathExpressionException e) {
+                //Unexpected
+                throw new IllegalStateException(e);
+            }
+        }
+
+        Element find(Document doc, String elementId) throws XPathExpressionException {
+            id = elementId;
+            try {
+                return (Element) expression.evaluate(doc, XPathConstants.NODE);
+            } finally {
+                id = null;
+            }
+        }
+    }
 }
@@ -25,14 +25,20 @@
  */
 package ee.ria.xroad.common.message;
 
+import ee.ria.xroad.common.crypto.Digests;
+import ee.ria.xroad.common.util.MimeUtils;
+
 import org.apache.http.message.BasicHeader;
 import org.junit.Test;
 
 import java.util.Arrays;
 import java.util.Collections;
 
+import static ee.ria.xroad.common.util.EncoderUtils.encodeBase64;
 import static org.junit.Assert.assertArrayEquals;
 import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotEquals;
+import static org.junit.Assert.assertNull;
 
 /**
  * Test RestRequest
@@ -56,6 +62,47 @@ public class RestRequestTest {
         assertArrayEquals(msg1, req2.getMessageBytes());
     }
 
+    @Test
+    public void shouldCalculateHashOfSerializedMessage() throws Exception {
+        final RestRequest req = new RestRequest(
+                "POST",
+                String.format("/r%d/Instance/Class/Member/SubSystem/ServiceCode", RestMessage.PROTOCOL_VERSION),
+                null,
+                Arrays.asList(
+                        new BasicHeader("X-Road-Client", "Instance/Class/Member/SubSystem"),
+                        new BasicHeader("Content-Type", "application/json")),
+                "xid"
+        );
+        final byte[] hash = req.getHash();
+        assertArrayEquals(Digests.calculateDigest(Digests.DEFAULT_DIGEST_ALGORITHM, req.toByteArray()), hash);
+        assertArrayEquals(req.toByteArray(), req.getMessageBytes());
+
+        req.setQueryId("queryId");
+        assertArrayEquals(req.toByteArray(), req.getMessageBytes());
+        assertArrayEquals(Digests.calculateDigest(Digests.DEFAULT_DIGEST_ALGORITHM, req.toByteArray()), req.getHash());
+        assertNotEquals(encodeBase64(hash), encodeBase64(req.getHash()));
+    }
+
+    @Test
+    public void shouldFindHeadersIgnoringCase() throws Exception {
+        final RestRequest req = new RestRequest(
+                "GET",
+                String.format("/r%d/Instance/Class/Member/SubSystem/ServiceCode", RestMessage.PROTOCOL_VERSION),
+                null,
+                Arrays.asList(
+                        new BasicHeader("X-Road-Client", "Instance/Class/Member/SubSystem"),
+                        new BasicHeader("accept", "application/json"),
+                        new BasicHeader("Accept", "text/plain")),
+                "xid"
+        );
+        assertEquals("application/json", req.findHeaderValueByName("ACCEPT"));
+        assertEquals("xid", req.findHeaderValueByName("x-road-request-id"));
+        assertNull(req.findHeaderValueByName(MimeUtils.HEADER_QUERY_ID));
+
+        req.setQueryId("queryId");
+        assertEquals("queryId", req.findHeaderValueByName(MimeUtils.HEADER_QUERY_ID));
+    }
+
     @Test(expected = IllegalArgumentException.class)
     public void shouldRejectWrongProtocolVersion() throws Exception {
         final RestRequest req = new RestRequest(
@@ -36,6 +36,7 @@ import org.xml.sax.XMLReader;
 import org.xml.sax.helpers.XMLReaderAdapter;
 import org.xml.sax.helpers.XMLReaderFactory;
 
+import javax.xml.namespace.NamespaceContext;
 import javax.xml.parsers.DocumentBuilderFactory;
 import javax.xml.parsers.ParserConfigurationException;
 
@@ -44,8 +45,13 @@ import java.io.File;
 import java.io.IOException;
 import java.io.InputStream;
 import java.io.PrintWriter;
+import java.util.Iterator;
 
+import static org.junit.Assert.assertEquals;
 import static org.junit.Assert.assertNotEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
 
 /**
  * Unit tests for {@link XmlUtils}
@@ -104,6 +110,64 @@ public class XmlUtilsTest {
         reader.parse(new InputSource(getXXEFileInjectionDocument()));
     }
 
+    @Test
+    public void parseAndSerializeRepeatedlyWithReusedParser() throws Exception {
+        for (int i = 0; i < 3; i++) {
+            Document document = XmlUtils.parseDocument("<a xmlns=\"urn:test\"><b>" + i + "</b></a>");
+
+            assertEquals("urn:test", document.getDocumentElement().getNamespaceURI());
+            assertTrue(XmlUtils.toXml(document).endsWith("<a xmlns=\"urn:test\"><b>" + i + "</b></a>"));
+        }
+    }
+
+    @Test(expected = SAXParseException.class)
+    public void parserIsUsableAfterFailedParse() throws Exception {
+        try {
+            XmlUtils.parseDocument("<a><b></a>");
+        } finally {
+            assertNotNull(XmlUtils.parseDocument("<a><b/></a>"));
+        }
+    }
+
+    @Test
+    public void getElementById() throws Exception {
+        Document document = XmlUtils.parseDocument("<a><b Id=\"first\"/><c Id=\"it's\"/></a>");
+
+        assertEquals("b", XmlUtils.getElementById(document, "#first").getTagName());
+        assertEquals("c", XmlUtils.getElementById(document, "it's").getTagName());
+        assertNull(XmlUtils.getElementById(document, "' or '1' = '1"));
+    }
+
+    @Test
+    public void compiledXPathWithNamespaceContext() throws Exception {
+        Document document = XmlUtils.parseDocument(
+                "<t:a xmlns:t=\"urn:test\"><t:b/><t:b/><b/></t:a>");
+        CompiledXPath xpath = new CompiledXPath("x:b", new NamespaceContext() {
+            @Override
+            public String getNamespaceURI(String prefix) {
+                return "x".equals(prefix) ? "urn:test" : null;
+            }
+
+            @Override
+            public String getPrefix(String namespaceURI) {
+                return null;
+            }
+
+            @Override
+            public Iterator<String> getPrefixes(String namespaceURI) {
+                return null;
+            }
+        });
+
+        assertEquals(2, XmlUtils.getElementsXPathNS(document.getDocumentElement(), xpath).getLength());
+        assertNotNull(XmlUtils.getElementXPathNS(document.getDocumentElement(), xpath));
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void compiledXPathRejectsInvalidExpression() {
+        new CompiledXPath("//[", null);
+    }
+
     private InputStream getXXEFileInjectionDocument() {
         return new ByteArrayInputStream(String.format("<?xml version=\"1.0\" encoding=\"ISO-8859-1\"?>"
                         + "<!DOCTYPE test ["
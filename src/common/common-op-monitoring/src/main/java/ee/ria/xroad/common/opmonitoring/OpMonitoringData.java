@@ -30,13 +30,17 @@ import ee.ria.xroad.common.identifier.ClientId;
 import ee.ria.xroad.common.identifier.ServiceId;
 import ee.ria.xroad.common.message.RepresentedParty;
 
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.SerializerProvider;
+import com.fasterxml.jackson.databind.annotation.JsonSerialize;
+import com.fasterxml.jackson.databind.ser.std.StdSerializer;
 import lombok.Getter;
 import lombok.Setter;
 import lombok.ToString;
 
+import java.io.IOException;
 import java.util.HashMap;
 import java.util.Map;
-import java.util.Objects;
 
 import static ee.ria.xroad.common.opmonitoring.OpMonitoringData.SecurityServerType.PRODUCER;
 
@@ -44,8 +48,13 @@ import static ee.ria.xroad.common.opmonitoring.OpMonitoringData.SecurityServerTy
  * The constants and operations used for representing and processing
  * operational monitoring data. Operational monitoring data are gathered when
  * XRoad requests are handled by the client and server proxies.
+ * <p>
+ * An instance is created for every handled message, so the values are kept in
+ * plain fields and written to JSON directly from them. Numeric fields that have
+ * not been set are tracked in a bit mask and left out of the serialized record.
  */
 @ToString
+@JsonSerialize(using = OpMonitoringData.Serializer.class)
 public class OpMonitoringData {
 
     // The following fields correspond to the schema defined in
@@ -146,6 +155,18 @@ public class OpMonitoringData {
         }
     }
 
+    // Bits of the numeric fields that have been set.
+    private static final int REQUEST_OUT_TS_SET = 1;
+    private static final int RESPONSE_IN_TS_SET = 1 << 1;
+    private static final int RESPONSE_OUT_TS_SET = 1 << 2;
+    private static final int REQUEST_SIZE_SET = 1 << 3;
+    private static final int RESPONSE_SIZE_SET = 1 << 4;
+    private static final int REQUEST_MIME_SIZE_SET = 1 << 5;
+    private static final int RESPONSE_MIME_SIZE_SET = 1 << 6;
+    private static final int REQUEST_ATTACHMENT_COUNT_SET = 1 << 7;
+    private static final int RESPONSE_ATTACHMENT_COUNT_SET = 1 << 8;
+    private static final int REST_RESPONSE_STATUS_CODE_SET = 1 << 9;
+
     @Setter
     /**
      * In case true, the same value as "response out" is assigned
@@ -154,7 +175,55 @@ public class OpMonitoringData {
      */
     private boolean assignResponseOutTsToResponseInTs = false;
 
-    private final Map<String, Object> data = new HashMap<>();
+    private SecurityServerType securityServerType;
+    private String securityServerInternalIp;
+    private String clientSecurityServerAddress;
+    private String serviceSecurityServerAddress;
+
+    private String clientXRoadInstance;
+    private String clientMemberClass;
+    private String clientMemberCode;
+    private String clientSubsystemCode;
+
+    private String serviceXRoadInstance;
+    private String serviceMemberClass;
+    private String serviceMemberCode;
+    private String serviceSubsystemCode;
+    private String serviceCode;
+    private String serviceVersion;
+    private String serviceType;
+
+    private String restMethod;
+    private String restPath;
+
+    private String representedPartyClass;
+    private String representedPartyCode;
+
+    private String messageId;
+    private String messageUserId;
+    private String messageIssue;
+    private String messageProtocolVersion;
+    private String xRequestId;
+
+    private String faultCode;
+    private String faultString;
+
+    private long requestInTs;
+    private long requestOutTs;
+    private long responseInTs;
+    private long responseOutTs;
+
+    private long requestSize;
+    private long responseSize;
+    private long requestMimeSize;
+    private long responseMimeSize;
+    private int requestAttachmentCount;
+    private int responseAttachmentCount;
+    private int restResponseStatusCode;
+
+    private boolean succeeded;
+
+    private int setFields;
 
     /**
      * Constructor for creating an instance in code that handles incoming
@@ -169,19 +238,88 @@ public class OpMonitoringData {
     }
 
     /**
-     * Returns map of the operational monitoring data.
+     * Returns a map of the operational monitoring data. The map is created on
+     * every call and changes to it are not reflected in this object.
      * @return operational monitoring data
      */
     public Map<String, Object> getData() {
+        Map<String, Object> data = new HashMap<>();
+
+        putIfNotNull(data, SECURITY_SERVER_TYPE, securityServerType.getTypeString());
+        putIfNotNull(data, SECURITY_SERVER_INTERNAL_IP, securityServerInternalIp);
+        putIfNotNull(data, CLIENT_SECURITY_SERVER_ADDRESS, clientSecurityServerAddress);
+        putIfNotNull(data, SERVICE_SECURITY_SERVER_ADDRESS, serviceSecurityServerAddress);
+        putIfNotNull(data, CLIENT_XROAD_INSTANCE, clientXRoadInstance);
+        putIfNotNull(data, CLIENT_MEMBER_CLASS, clientMemberClass);
+        putIfNotNull(data, CLIENT_MEMBER_CODE, clientMemberCode);
+        putIfNotNull(data, CLIENT_SUBSYSTEM_CODE, clientSubsystemCode);
+        putIfNotNull(data, SERVICE_XROAD_INSTANCE, serviceXRoadInstance);
+        putIfNotNull(data, SERVICE_MEMBER_CLASS, serviceMemberClass);
+        putIfNotNull(data, SERVICE_MEMBER_CODE, serviceMemberCode);
+        putIfNotNull(data, SERVICE_SUBSYSTEM_CODE, serviceSubsystemCode);
+        putIfNotNull(data, SERVICE_CODE, serviceCode);
+        putIfNotNull(data, SERVICE_VERSION, serviceVersion);
+        putIfNotNull(data, SERVICE_TYPE, serviceType);
+        putIfNotNull(data, REST_METHOD, restMethod);
+        putIfNotNull(data, REST_PATH, restPath);
+        putIfNotNull(data, REPRESENTED_PARTY_CLASS, representedPartyClass);
+        putIfNotNull(data, REPRESENTED_PARTY_CODE, representedPartyCode);
+        putIfNotNull(data, MESSAGE_ID, messageId);
+        putIfNotNull(data, MESSAGE_USER_ID, messageUserId);
+        putIfNotNull(data, MESSAGE_ISSUE, messageIssue);
+        putIfNotNull(data, MESSAGE_PROTOCOL_VERSION, messageProtocolVersion);
+        putIfNotNull(data, X_REQUEST_ID, xRequestId);
+        putIfNotNull(data, FAULT_CODE, faultCode);
+        putIfNotNull(data, FAULT_STRING, faultString);
+
+        data.put(REQUEST_IN_TIMESTAMP, requestInTs);
+        putIfSet(data, REQUEST_OUT_TIMESTAMP, REQUEST_OUT_TS_SET, requestOutTs);
+        putIfSet(data, RESPONSE_IN_TIMESTAMP, RESPONSE_IN_TS_SET, responseInTs);
+        putIfSet(data, RESPONSE_OUT_TIMESTAMP, RESPONSE_OUT_TS_SET, responseOutTs);
+        putIfSet(data, REQUEST_SIZE, REQUEST_SIZE_SET, requestSize);
+        putIfSet(data, RESPONSE_SIZE, RESPONSE_SIZE_SET, responseSize);
+        putIfSet(data, REQUEST_MIME_SIZE, REQUEST_MIME_SIZE_SET, requestMimeSize);
+        putIfSet(data, RESPONSE_MIME_SIZE, RESPONSE_MIME_SIZE_SET, responseMimeSize);
+
+        if (isSet(REQUEST_ATTACHMENT_COUNT_SET)) {
+            data.put(REQUEST_ATTACHMENT_COUNT, requestAttachmentCount);
+        }
+
+        if (isSet(RESPONSE_ATTACHMENT_COUNT_SET)) {
+            data.put(RESPONSE_ATTACHMENT_COUNT, responseAttachmentCount);
+        }
+
+        if (isSet(REST_RESPONSE_STATUS_CODE_SET)) {
+            data.put(REST_RESPONSE_STATUS_CODE, restResponseStatusCode);
+        }
+
+        data.put(SUCCEEDED, succeeded);
+
         return data;
     }
 
+    private void putIfNotNull(Map<String, Object> data, String key, String value) {
+        if (value != null) {
+            data.put(key, value);
+        }
+    }
+
+    private void putIfSet(Map<String, Object> data, String key, int field, long value) {
+        if (isSet(field)) {
+            data.put(key, value);
+        }
+    }
+
+    private boolean isSet(int field) {
+        return (setFields & field) != 0;
+    }
+
     /**
      * Sets the security server type.
      * @param type security server type
      */
     void setSecurityServerType(SecurityServerType type) {
-        data.put(SECURITY_SERVER_TYPE, type.getTypeString());
+        this.securityServerType = type;
     }
 
     /**
@@ -189,7 +327,7 @@ public class OpMonitoringData {
      * @param internalIp IP address
      */
     public void setSecurityServerInternalIp(String internalIp) {
-        data.put(SECURITY_SERVER_INTERNAL_IP, internalIp);
+        this.securityServerInternalIp = internalIp;
     }
 
     /**
@@ -197,11 +335,11 @@ public class OpMonitoringData {
      * @param timestamp Unix timestamp in milliseconds
      */
     public void setRequestInTs(long timestamp) {
-        data.put(REQUEST_IN_TIMESTAMP, timestamp);
+        this.requestInTs = timestamp;
     }
 
-    public Long getRequestInTs() {
-        return (Long) data.get(REQUEST_IN_TIMESTAMP);
+    public long getRequestInTs() {
+        return requestInTs;
     }
 
     /**
@@ -209,7 +347,8 @@ public class OpMonitoringData {
      * @param timestamp Unix timestamp in milliseconds
      */
     public void setRequestOutTs(long timestamp) {
-        data.put(REQUEST_OUT_TIMESTAMP, timestamp);
+        this.requestOutTs = timestamp;
+        setFields |= REQUEST_OUT_TS_SET;
     }
 
     /**
@@ -217,7 +356,8 @@ public class OpMonitoringData {
      * @param timestamp Unix timestamp in milliseconds
      */
     public void setResponseInTs(long timestamp) {
-        data.put(RESPONSE_IN_TIMESTAMP, timestamp);
+        this.responseInTs = timestamp;
+        setFields |= RESPONSE_IN_TS_SET;
     }
 
     /**
@@ -227,7 +367,7 @@ public class OpMonitoringData {
      * @param overwrite if true, old value is overwritten, otherwise old value remains
      */
     public void setResponseOutTs(long timestamp, boolean overwrite) {
-        if (!overwrite && data.get(RESPONSE_OUT_TIMESTAMP) != null) {
+        if (!overwrite && isSet(RESPONSE_OUT_TS_SET)) {
             return;
         }
 
@@ -235,7 +375,8 @@ public class OpMonitoringData {
             setResponseInTs(timestamp);
         }
 
-        data.put(RESPONSE_OUT_TIMESTAMP, timestamp);
+        this.responseOutTs = timestamp;
+        setFields |= RESPONSE_OUT_TS_SET;
     }
 
     /**
@@ -244,10 +385,10 @@ public class OpMonitoringData {
      */
     public void setClientId(ClientId clientId) {
         if (clientId != null) {
-            data.put(CLIENT_XROAD_INSTANCE, clientId.getXRoadInstance());
-            data.put(CLIENT_MEMBER_CLASS, clientId.getMemberClass());
-            data.put(CLIENT_MEMBER_CODE, clientId.getMemberCode());
-            data.put(CLIENT_SUBSYSTEM_CODE, clientId.getSubsystemCode());
+            this.clientXRoadInstance = clientId.getXRoadInstance();
+            this.clientMemberClass = clientId.getMemberClass();
+            this.clientMemberCode = clientId.getMemberCode();
+            this.clientSubsystemCode = clientId.getSubsystemCode();
         }
     }
 
@@ -257,12 +398,12 @@ public class OpMonitoringData {
      */
     public void setServiceId(ServiceId serviceId) {
         if (serviceId != null) {
-            data.put(SERVICE_XROAD_INSTANCE, serviceId.getXRoadInstance());
-            data.put(SERVICE_MEMBER_CLASS, serviceId.getMemberClass());
-            data.put(SERVICE_MEMBER_CODE, serviceId.getMemberCode());
-            data.put(SERVICE_SUBSYSTEM_CODE, serviceId.getSubsystemCode());
-            data.put(SERVICE_CODE, serviceId.getServiceCode());
-            data.put(SERVICE_VERSION, serviceId.getServiceVersion());
+            this.serviceXRoadInstance = serviceId.getXRoadInstance();
+            this.serviceMemberClass = serviceId.getMemberClass();
+            this.serviceMemberCode = serviceId.getMemberCode();
+            this.serviceSubsystemCode = serviceId.getSubsystemCode();
+            this.serviceCode = serviceId.getServiceCode();
+            this.serviceVersion = serviceId.getServiceVersion();
         }
     }
 
@@ -270,14 +411,8 @@ public class OpMonitoringData {
      * Gets service ID from related fields.
      */
     public ServiceId getServiceId() {
-        String xRoadInstance = (String) data.get(SERVICE_XROAD_INSTANCE);
-        String memberClass = (String) data.get(SERVICE_MEMBER_CLASS);
-        String memberCode = (String) data.get(SERVICE_MEMBER_CODE);
-        String subsystemCode = (String) data.get(SERVICE_SUBSYSTEM_CODE);
-        String serviceCode = (String) data.get(SERVICE_CODE);
-        String serviceVersion = (String) data.get(SERVICE_VERSION);
-
-        return ServiceId.Conf.create(xRoadInstance, memberClass, memberCode, subsystemCode, serviceCode, serviceVersion);
+        return ServiceId.Conf.create(serviceXRoadInstance, serviceMemberClass, serviceMemberCode,
+                serviceSubsystemCode, serviceCode, serviceVersion);
     }
 
     /**
@@ -285,7 +420,7 @@ public class OpMonitoringData {
      * @param messageId message ID
      */
     public void setMessageId(String messageId) {
-        data.put(MESSAGE_ID, messageId);
+        this.messageId = messageId;
     }
 
     /**
@@ -293,7 +428,7 @@ public class OpMonitoringData {
      * @param messageUserId user ID
      */
     public void setMessageUserId(String messageUserId) {
-        data.put(MESSAGE_USER_ID, messageUserId);
+        this.messageUserId = messageUserId;
     }
 
     /**
@@ -301,7 +436,7 @@ public class OpMonitoringData {
      * @param messageIssue issue
      */
     public void setMessageIssue(String messageIssue) {
-        data.put(MESSAGE_ISSUE, messageIssue);
+        this.messageIssue = messageIssue;
     }
 
     /**
@@ -310,8 +445,8 @@ public class OpMonitoringData {
      */
     public void setRepresentedParty(RepresentedParty representedParty) {
         if (representedParty != null) {
-            data.put(REPRESENTED_PARTY_CLASS, representedParty.getPartyClass());
-            data.put(REPRESENTED_PARTY_CODE, representedParty.getPartyCode());
+            this.representedPartyClass = representedParty.getPartyClass();
+            this.representedPartyCode = representedParty.getPartyCode();
         }
     }
 
@@ -320,7 +455,7 @@ public class OpMonitoringData {
      * @param messageProtocolVersion message protocol version
      */
     public void setMessageProtocolVersion(String messageProtocolVersion) {
-        data.put(MESSAGE_PROTOCOL_VERSION, messageProtocolVersion);
+        this.messageProtocolVersion = messageProtocolVersion;
     }
 
     /**
@@ -328,7 +463,7 @@ public class OpMonitoringData {
      * @param address address
      */
     public void setClientSecurityServerAddress(String address) {
-        data.put(CLIENT_SECURITY_SERVER_ADDRESS, address);
+        this.clientSecurityServerAddress = address;
     }
 
     /**
@@ -336,7 +471,7 @@ public class OpMonitoringData {
      * @param address address
      */
     public void setServiceSecurityServerAddress(String address) {
-        data.put(SERVICE_SECURITY_SERVER_ADDRESS, address);
+        this.serviceSecurityServerAddress = address;
     }
 
     /**
@@ -344,7 +479,8 @@ public class OpMonitoringData {
      * @param size request size
      */
     public void setRequestSize(long size) {
-        data.put(REQUEST_SIZE, size);
+        this.requestSize = size;
+        setFields |= REQUEST_SIZE_SET;
     }
 
     /**
@@ -352,7 +488,8 @@ public class OpMonitoringData {
      * @param size response size
      */
     public void setResponseSize(long size) {
-        data.put(RESPONSE_SIZE, size);
+        this.responseSize = size;
+        setFields |= RESPONSE_SIZE_SET;
     }
 
     /**
@@ -360,7 +497,8 @@ public class OpMonitoringData {
      * @param size MIME size
      */
     public void setRequestMimeSize(long size) {
-        data.put(REQUEST_MIME_SIZE, size);
+        this.requestMimeSize = size;
+        setFields |= REQUEST_MIME_SIZE_SET;
     }
 
     /**
@@ -368,7 +506,8 @@ public class OpMonitoringData {
      * @param count attachment count
      */
     public void setRequestAttachmentCount(int count) {
-        data.put(REQUEST_ATTACHMENT_COUNT, count);
+        this.requestAttachmentCount = count;
+        setFields |= REQUEST_ATTACHMENT_COUNT_SET;
     }
 
     /**
@@ -376,7 +515,8 @@ public class OpMonitoringData {
      * @param size MIME size
      */
     public void setResponseMimeSize(long size) {
-        data.put(RESPONSE_MIME_SIZE, size);
+        this.responseMimeSize = size;
+        setFields |= RESPONSE_MIME_SIZE_SET;
     }
 
     /**
@@ -384,7 +524,8 @@ public class OpMonitoringData {
      * @param count attachment count
      */
     public void setResponseAttachmentCount(int count) {
-        data.put(RESPONSE_ATTACHMENT_COUNT, count);
+        this.responseAttachmentCount = count;
+        setFields |= RESPONSE_ATTACHMENT_COUNT_SET;
     }
 
     /**
@@ -392,7 +533,7 @@ public class OpMonitoringData {
      * @param succeeded succeeded flag
      */
     public void setSucceeded(boolean succeeded) {
-        data.put(SUCCEEDED, succeeded);
+        this.succeeded = succeeded;
     }
 
     /**
@@ -400,7 +541,8 @@ public class OpMonitoringData {
      * @param statusCode http status code for the response
      */
     public void setRestResponseStatusCode(int statusCode) {
-        data.put(REST_RESPONSE_STATUS_CODE, statusCode);
+        this.restResponseStatusCode = statusCode;
+        setFields |= REST_RESPONSE_STATUS_CODE_SET;
     }
 
     /**
@@ -409,8 +551,8 @@ public class OpMonitoringData {
      */
     public void setFaultCodeAndString(CodedException e) {
         if (e != null) {
-            data.put(FAULT_CODE, e.getFaultCode());
-            data.put(FAULT_STRING, e.getFaultString());
+            this.faultCode = e.getFaultCode();
+            this.faultString = e.getFaultString();
         }
     }
 
@@ -419,7 +561,7 @@ public class OpMonitoringData {
      * @param xRequestId x-request-id
      */
     public void setXRequestId(String xRequestId) {
-        data.put(X_REQUEST_ID, xRequestId);
+        this.xRequestId = xRequestId;
     }
 
     /**
@@ -427,7 +569,7 @@ public class OpMonitoringData {
      * @param serviceType service type
      */
     public void setServiceType(String serviceType) {
-        data.put(SERVICE_TYPE, serviceType);
+        this.serviceType = serviceType;
     }
 
     /**
@@ -435,14 +577,14 @@ public class OpMonitoringData {
      * @param restMethod REST method
      */
     public void setRestMethod(String restMethod) {
-        data.put(REST_METHOD, restMethod);
+        this.restMethod = restMethod;
     }
 
     /**
      * Gets REST method.
      */
     public String getRestMethod() {
-        return (String) data.get(REST_METHOD);
+        return restMethod;
     }
 
     /**
@@ -450,19 +592,100 @@ public class OpMonitoringData {
      * @param restPath REST path
      */
     public void setRestPath(String restPath) {
-        data.put(REST_PATH, restPath);
+        this.restPath = restPath;
     }
 
     /**
      * Gets REST path.
      */
     public String getRestPath() {
-        return (String) data.get(REST_PATH);
+        return restPath;
     }
 
     public boolean isProducer() {
-        var type = (String) data.get(SECURITY_SERVER_TYPE);
-        return Objects.equals(PRODUCER, SecurityServerType.fromString(type));
+        return securityServerType == PRODUCER;
+    }
+
+    /**
+     * Writes the record as a JSON object directly from the fields, without an intermediate map. Fields without a
+     * value are left out, as the records are sent with a writer that does not write null values.
+     */
+    static final class Serializer extends StdSerializer<OpMonitoringData> {
+
+        Serializer() {
+            super(OpMonitoringData.class);
+        }
+
+        @Override
+        public void serialize(OpMonitoringData value, JsonGenerator gen, SerializerProvider provider)
+                throws IOException {
+            gen.writeStartObject();
+
+            writeString(gen, SECURITY_SERVER_TYPE, value.securityServerType.getTypeString());
+            writeString(gen, SECURITY_SERVER_INTERNAL_IP, value.securityServerInternalIp);
+            writeString(gen, CLIENT_SECURITY_SERVER_ADDRESS, value.clientSecurityServerAddress);
+            writeString(gen, SERVICE_SECURITY_SERVER_ADDRESS, value.serviceSecurityServerAddress);
+            writeString(gen, CLIENT_XROAD_INSTANCE, value.clientXRoadInstance);
+            writeString(gen, CLIENT_MEMBER_CLASS, value.clientMemberClass);
+            writeString(gen, CLIENT_MEMBER_CODE, value.clientMemberCode);
+            writeString(gen, CLIENT_SUBSYSTEM_CODE, value.clientSubsystemCode);
+            writeString(gen, SERVICE_XROAD_INSTANCE, value.serviceXRoadInstance);
+            writeString(gen, SERVICE_MEMBER_CLASS, value.serviceMemberClass);
+            writeString(gen, SERVICE_MEMBER_CODE, value.serviceMemberCode);
+            writeString(gen, SERVICE_SUBSYSTEM_CODE, value.serviceSubsystemCode);
+            writeString(gen, SERVICE_CODE, value.serviceCode);
+            writeString(gen, SERVICE_VERSION, value.serviceVersion);
+            writeString(gen, SERVICE_TYPE, value.serviceType);
+            writeString(gen, REST_METHOD, value.restMethod);
+            writeString(gen, REST_PATH, value.restPath);
+            writeString(gen, REPRESENTED_PARTY_CLASS, value.representedPartyClass);
+            writeString(gen, REPRESENTED_PARTY_CODE, value.representedPartyCode);
+            writeString(gen, MESSAGE_ID, value.messageId);
+            writeString(gen, MESSAGE_USER_ID, value.messageUserId);
+            writeString(gen, MESSAGE_ISSUE, value.messageIssue);
+            writeString(gen, MESSAGE_PROTOCOL_VERSION, value.messageProtocolVersion);
+            writeString(gen, X_REQUEST_ID, value.xRequestId);
+            writeString(gen, FAULT_CODE, value.faultCode);
+            writeString(gen, FAULT_STRING, value.faultString);
+
+            gen.writeNumberField(REQUEST_IN_TIMESTAMP, value.requestInTs);
+            writeLong(gen, value, REQUEST_OUT_TIMESTAMP, REQUEST_OUT_TS_SET, value.requestOutTs);
+            writeLong(gen, value, RESPONSE_IN_TIMESTAMP, RESPONSE_IN_TS_SET, value.responseInTs);
+            writeLong(gen, value, RESPONSE_OUT_TIMESTAMP, RESPONSE_OUT_TS_SET, value.responseOutTs);
+            writeLong(gen, value, REQUEST_SIZE, REQUEST_SIZE_SET, value.requestSize);
+            writeLong(gen, value, RESPONSE_SIZE, RESPONSE_SIZE_SET, value.responseSize);
+            writeLong(gen, value, REQUEST_MIME_SIZE, REQUEST_MIME_SIZE_SET, value.requestMimeSize);
+            writeLong(gen, value, RESPONSE_MIME_SIZE, RESPONSE_MIME_SIZE_SET, value.responseMimeSize);
+            writeInt(gen, value, REQUEST_ATTACHMENT_COUNT, REQUEST_ATTACHMENT_COUNT_SET,
+                    value.requestAttachmentCount);
+            writeInt(gen, value, RESPONSE_ATTACHMENT_COUNT, RESPONSE_ATTACHMENT_COUNT_SET,
+                    value.responseAttachmentCount);
+            writeInt(gen, value, REST_RESPONSE_STATUS_CODE, REST_RESPONSE_STATUS_CODE_SET,
+                    value.restResponseStatusCode);
+
+            gen.writeBooleanField(SUCCEEDED, value.succeeded);
+
+            gen.writeEndObject();
+        }
+
+        private static void writeString(JsonGenerator gen, String name, String value) throws IOException {
+            if (value != null) {
+                gen.writeStringField(name, value);
+            }
+        }
 
+        private static void writeLong(JsonGenerator gen, OpMonitoringData data, String name, int field, long value)
+                throws IOException {
+            if (data.isSet(field)) {
+                gen.writeNumberField(name, value);
+            }
+        }
+
+        private static void writeInt(JsonGenerator gen, OpMonitoringData data, String name, int field, int value)
+                throws IOException {
+            if (data.isSet(field)) {
+                gen.writeNumberField(name, value);
+            }
+        }
     }
 }
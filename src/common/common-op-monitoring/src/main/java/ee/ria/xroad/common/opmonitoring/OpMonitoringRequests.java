@@ -38,4 +38,7 @@ public final class OpMonitoringRequests {
 
     public static final String GET_SECURITY_SERVER_HEALTH_DATA =
             "getSecurityServerHealthData";
+
+    public static final String GET_SECURITY_SERVER_OPERATIONAL_DATA_AGGREGATES =
+            "getSecurityServerOperationalDataAggregates";
 }
@@ -55,6 +55,13 @@ public final class OpMonitoringSystemProperties {
     private static final String OP_MONITOR_BUFFER_MAX_RECORDS_IN_MESSAGE =
             PREFIX + "op-monitor-buffer.max-records-in-message";
 
+    /**
+     * Property name of the maximum number of messages the operational monitoring buffer
+     * may have in flight to the operational monitoring daemon at the same time.
+     */
+    private static final String OP_MONITOR_BUFFER_MAX_CONCURRENT_MESSAGES =
+            PREFIX + "op-monitor-buffer.max-concurrent-messages";
+
     /**
      * Property name of the operational monitoring buffer sending interval seconds.
      */
@@ -171,6 +178,13 @@ public final class OpMonitoringSystemProperties {
         return Integer.parseInt(System.getProperty(OP_MONITOR_BUFFER_MAX_RECORDS_IN_MESSAGE, "100"));
     }
 
+    /**
+     * @return max number of messages concurrently in flight to the operational monitoring daemon, '4' by default.
+     */
+    public static int getOpMonitorBufferMaxConcurrentMessages() {
+        return Math.max(1, Integer.parseInt(System.getProperty(OP_MONITOR_BUFFER_MAX_CONCURRENT_MESSAGES, "4")));
+    }
+
     /**
      * @return the interval in seconds at which operational monitoring buffer additionally tries to send records to the
      * operational monitoring daemon, '5' by default.
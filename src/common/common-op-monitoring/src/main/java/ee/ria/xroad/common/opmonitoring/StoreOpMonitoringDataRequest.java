@@ -32,7 +32,6 @@ import lombok.ToString;
 
 import java.util.ArrayList;
 import java.util.List;
-import java.util.Map;
 
 /**
  * Store operational monitoring data request.
@@ -43,9 +42,9 @@ import java.util.Map;
 public class StoreOpMonitoringDataRequest {
 
     @JsonProperty("records")
-    private final List<Map<String, Object>> records = new ArrayList<>();
+    private final List<OpMonitoringData> records = new ArrayList<>();
 
-    public void addRecord(Map<String, Object> record) {
+    public void addRecord(OpMonitoringData record) {
         records.add(record);
     }
 }
@@ -87,6 +87,10 @@ public final class RpcClient<C extends RpcClient.ExecutionContext> {
             @Override
             public <ReqT, RespT> ClientCall<ReqT, RespT> interceptCall(
                     MethodDescriptor<ReqT, RespT> method, CallOptions callOptions, Channel next) {
+                // streams stay open until either side ends them, so the deadline only applies to unary calls
+                if (method.getType() != MethodDescriptor.MethodType.UNARY) {
+                    return next.newCall(method, callOptions);
+                }
                 return next.newCall(method, callOptions.withDeadlineAfter(clientTimeoutMillis, MILLISECONDS));
             }
         };
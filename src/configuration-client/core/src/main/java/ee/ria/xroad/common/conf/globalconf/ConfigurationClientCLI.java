@@ -25,6 +25,7 @@
  */
 package ee.ria.xroad.common.conf.globalconf;
 
+import ee.ria.xroad.common.DefaultFilepaths;
 import ee.ria.xroad.common.SystemProperties;
 
 import lombok.NoArgsConstructor;
@@ -32,6 +33,7 @@ import lombok.extern.slf4j.Slf4j;
 import org.apache.commons.cli.CommandLine;
 import org.apache.commons.lang3.StringUtils;
 
+import java.io.IOException;
 import java.nio.file.Path;
 import java.util.Collections;
 import java.util.List;
@@ -100,6 +102,12 @@ public final class ConfigurationClientCLI {
                 paramsValidator.tryMarkValid(file.getContentIdentifier());
             }
 
+            @Override
+            Path createTempFile(Path destination) throws IOException {
+                // keep the configuration directory untouched
+                return DefaultFilepaths.createTempFile("conf", null);
+            }
+
             @Override
             Set<Path> persistAllContent(
                     List<ConfigurationDownloader.DownloadedContent> downloadedContents) {
@@ -26,23 +26,30 @@
 package ee.ria.xroad.common.conf.globalconf;
 
 import ee.ria.xroad.common.CodedException;
+import ee.ria.xroad.common.DefaultFilepaths;
+import ee.ria.xroad.common.SystemProperties;
 import ee.ria.xroad.common.crypto.identifier.DigestAlgorithm;
 
 import lombok.Getter;
 import lombok.extern.slf4j.Slf4j;
 import org.apache.commons.io.IOUtils;
+import org.apache.commons.io.output.TeeOutputStream;
 import org.apache.commons.lang3.StringUtils;
 import org.bouncycastle.operator.DigestCalculator;
 
-import java.io.File;
 import java.io.IOException;
 import java.io.InputStream;
+import java.io.OutputStream;
 import java.net.HttpURLConnection;
 import java.net.URI;
 import java.net.URL;
 import java.net.URLConnection;
+import java.nio.file.DirectoryStream;
 import java.nio.file.Files;
 import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.nio.file.attribute.FileTime;
 import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.HashMap;
@@ -51,7 +58,12 @@ import java.util.List;
 import java.util.Map;
 import java.util.Optional;
 import java.util.Set;
-import java.util.stream.Stream;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
 
 import static ee.ria.xroad.common.ErrorCodes.X_IO_ERROR;
 import static ee.ria.xroad.common.SystemProperties.CURRENT_GLOBAL_CONFIGURATION_VERSION;
@@ -70,6 +82,9 @@ import static ee.ria.xroad.common.util.EncoderUtils.encodeBase64;
  * then traversed to find the first location where configuration * can be
  * downloaded. The successful location is remembered and used first next time
  * the configuration is downloaded.
+ * <p>
+ * Content parts are downloaded in parallel and streamed to temporary files while being digested. Parts whose
+ * local copy already matches the hash in the configuration directory are not downloaded at all.
  */
 @Slf4j
 public class ConfigurationDownloader {
@@ -78,6 +93,7 @@ public class ConfigurationDownloader {
     protected final FileNameProvider fileNameProvider;
     private final Map<String, ConfigurationLocation> successfulLocations = new HashMap<>();
     private final SharedParametersConfigurationLocations sharedParametersConfigurationLocations;
+    private final Map<Path, LocalFileHash> localFileHashes = new ConcurrentHashMap<>();
 
     @Getter
     private final Integer configurationVersion;
@@ -175,19 +191,24 @@ public class ConfigurationDownloader {
 
         Configuration configuration = getParser().parse(location, contentIdentifiers);
 
-        // first download all parts into memory and verify then
+        // first download all parts into temporary files and verify then
         List<DownloadedContent> downloadedContents = downloadAllContent(configuration);
 
-        // when everything is ok save contents and/or update expiry dates
-        Set<Path> neededFiles = persistAllContent(downloadedContents);
+        try {
+            // when everything is ok save contents and/or update expiry dates
+            Set<Path> neededFiles = persistAllContent(downloadedContents);
 
-        deleteExtraFiles(configuration.getInstanceIdentifier(), neededFiles);
+            deleteExtraFiles(configuration.getInstanceIdentifier(), neededFiles);
+        } finally {
+            downloadedContents.forEach(DownloadedContent::discard);
+        }
 
         return configuration;
     }
 
     /**
      * Download all configuration files if the conditions are met {@link #shouldDownload(ConfigurationFile, Path)}.
+     * Parts are fetched in parallel, but verified and handled in the order they appear in the directory.
      *
      * @param configuration configuration object with details about the configuration download location
      * @return list of downloaded content
@@ -196,29 +217,113 @@ public class ConfigurationDownloader {
     List<DownloadedContent> downloadAllContent(Configuration configuration) throws Exception {
         log.trace("downloadAllContent");
 
-        List<DownloadedContent> result = new ArrayList<>();
         ConfigurationLocation location = configuration.getLocation();
 
         var contentHandler = ContentHandler.forVersion(configuration.getVersion());
 
-        for (ConfigurationFile file : configuration.getFiles()) {
-            Path contentFileName = fileNameProvider.getFileName(file);
-            if (shouldDownload(file, contentFileName)) {
-                byte[] content = downloadContent(location, file);
+        List<Future<DownloadedContent>> downloads = new ArrayList<>();
+        ExecutorService executor = Executors.newFixedThreadPool(getDownloadParallelism(configuration));
+        try {
+            for (ConfigurationFile file : configuration.getFiles()) {
+                downloads.add(executor.submit(() -> fetchContent(location, file)));
+            }
 
-                verifyContent(content, file);
-                validateContent(file);
-                contentHandler.handleContent(content, file);
+            List<DownloadedContent> result = new ArrayList<>();
+            for (Future<DownloadedContent> download : downloads) {
+                DownloadedContent downloadedContent = getDownloadedContent(download);
+                if (downloadedContent.content != null) {
+                    verifyContent(downloadedContent.hash, downloadedContent.file);
+                    validateContent(downloadedContent.file);
+                    if (ContentHandler.isHandled(downloadedContent.file)) {
+                        contentHandler.handleContent(Files.readAllBytes(downloadedContent.content),
+                                downloadedContent.file);
+                    }
+                } else {
+                    log.trace("{} is up to date", downloadedContent.file.getContentLocation());
+                    validateContent(downloadedContent.file);
+                }
+                result.add(downloadedContent);
+            }
 
-                result.add(new DownloadedContent(file, content));
-            } else {
-                log.trace("{} is up to date", file.getContentLocation());
-                validateContent(file);
-                result.add(new DownloadedContent(file, null));
+            return result;
+        } catch (Exception e) {
+            discardAll(executor, downloads);
+            throw e;
+        } finally {
+            executor.shutdown();
+        }
+    }
+
+    private static int getDownloadParallelism(Configuration configuration) {
+        return Math.max(1, Math.min(configuration.getFiles().size(),
+                SystemProperties.getConfigurationClientDownloadParallelism()));
+    }
+
+    private static DownloadedContent getDownloadedContent(Future<DownloadedContent> download) throws Exception {
+        try {
+            return download.get();
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof Exception cause) {
+                throw cause;
             }
+            throw e;
         }
+    }
 
-        return result;
+    private static void discardAll(ExecutorService executor, List<Future<DownloadedContent>> downloads)
+            throws InterruptedException {
+        executor.shutdownNow();
+        if (!executor.awaitTermination(READ_TIMEOUT, TimeUnit.MILLISECONDS)) {
+            log.warn("Configuration part downloads did not terminate in time");
+        }
+
+        downloads.stream()
+                .filter(download -> download.state() == Future.State.SUCCESS)
+                .map(Future::resultNow)
+                .forEach(DownloadedContent::discard);
+    }
+
+    /**
+     * Downloads the given configuration file into a temporary file, unless it is up-to-date locally.
+     * The content is digested while it is being written, so it never has to be read back for verification.
+     *
+     * @param location the configuration location
+     * @param file the configuration file to download
+     * @return the downloaded content, which has no content when the local file is up-to-date
+     * @throws Exception in case downloading fails
+     */
+    DownloadedContent fetchContent(ConfigurationLocation location, ConfigurationFile file) throws Exception {
+        Path contentFileName = fileNameProvider.getFileName(file);
+        if (!shouldDownload(file, contentFileName)) {
+            return new DownloadedContent(file, null, null);
+        }
+
+        Path tempFile = createTempFile(contentFileName);
+        try {
+            DigestCalculator dc = createDigestCalculator(file.getHashAlgorithmId());
+            try (OutputStream out = new TeeOutputStream(Files.newOutputStream(tempFile), dc.getOutputStream())) {
+                downloadContent(location, file, out);
+            }
+
+            return new DownloadedContent(file, tempFile, dc.getDigest());
+        } catch (Exception e) {
+            Files.deleteIfExists(tempFile);
+            throw e;
+        }
+    }
+
+    /**
+     * Creates the temporary file the content of the given destination is downloaded to. The file is created
+     * next to the destination, so that it can be atomically moved into place.
+     *
+     * @param destination the destination of the downloaded content
+     * @return path to the temporary file
+     * @throws IOException if creating the file fails
+     */
+    Path createTempFile(Path destination) throws IOException {
+        Path parent = destination.toAbsolutePath().getParent();
+        Files.createDirectories(parent);
+        return DefaultFilepaths.createTempFile(parent, "conf", null);
     }
 
     Set<Path> persistAllContent(List<DownloadedContent> downloadedContents) throws Exception {
@@ -239,29 +344,46 @@ public class ConfigurationDownloader {
 
     void deleteExtraFiles(String instanceIdentifier, Set<Path> neededFiles) {
         Path instanceDirectory = fileNameProvider.getConfigurationDirectory(instanceIdentifier);
-        try {
-            try (Stream<Path> fileStream = Files.walk(instanceDirectory)) {
-                fileStream
-                        .filter(i -> !neededFiles.contains(i))
-                        .map(Path::toFile)
-                        .filter(File::isFile)
-                        .forEach(File::delete);
+        if (!Files.isDirectory(instanceDirectory)) {
+            return;
+        }
+
+        try (DirectoryStream<Path> files = Files.newDirectoryStream(instanceDirectory,
+                file -> !neededFiles.contains(file) && Files.isRegularFile(file))) {
+            for (Path file : files) {
+                Files.deleteIfExists(file);
+                localFileHashes.remove(file);
             }
         } catch (IOException e) {
             log.error("Error deleting file in directory {}", instanceDirectory, e);
         }
-
     }
 
     protected static class DownloadedContent {
         ConfigurationFile file;
 
         // if null content was not downloaded as it was not changed
-        byte[] content;
+        Path content;
+
+        // digest of the downloaded content
+        byte[] hash;
 
-        DownloadedContent(ConfigurationFile file, byte[] content) {
+        DownloadedContent(ConfigurationFile file, Path content, byte[] hash) {
             this.file = file;
             this.content = content;
+            this.hash = hash;
+        }
+
+        void discard() {
+            if (content == null) {
+                return;
+            }
+
+            try {
+                Files.deleteIfExists(content);
+            } catch (IOException e) {
+                log.warn("Failed to delete temporary file {}", content, e);
+            }
         }
     }
 
@@ -269,6 +391,9 @@ public class ConfigurationDownloader {
      * Checks if the configuration file should be downloaded. The rules to download:
      * i) Configuration file does not exist in the system
      * ii) Configuration file hash is different from the one that system has
+     * <p>
+     * Hashes of local files are remembered between downloads and only recalculated when the file has been
+     * modified since.
      *
      * @param configurationFile new configuration file
      * @param file              current configuration file
@@ -280,7 +405,7 @@ public class ConfigurationDownloader {
 
         if (Files.exists(file)) {
             String contentHash = configurationFile.getHash();
-            String existingHash = encodeBase64(hash(file, configurationFile.getHashAlgorithmId()));
+            String existingHash = localHash(file, configurationFile.getHashAlgorithmId());
             if (StringUtils.equals(existingHash, contentHash)) {
                 return false;
             } else {
@@ -295,6 +420,38 @@ public class ConfigurationDownloader {
         return true;
     }
 
+    private String localHash(Path file, DigestAlgorithm algorithm) throws Exception {
+        BasicFileAttributes attributes = Files.readAttributes(file, BasicFileAttributes.class);
+
+        LocalFileHash cached = localFileHashes.get(file);
+        if (cached != null && cached.matches(algorithm, attributes)) {
+            return cached.hash();
+        }
+
+        String hash = encodeBase64(hash(file, algorithm));
+        localFileHashes.put(file, LocalFileHash.of(algorithm, attributes, hash));
+        return hash;
+    }
+
+    private void rememberLocalHash(Path file, ConfigurationFile configurationFile) throws IOException {
+        BasicFileAttributes attributes = Files.readAttributes(file, BasicFileAttributes.class);
+        localFileHashes.put(file, LocalFileHash.of(configurationFile.getHashAlgorithmId(), attributes,
+                configurationFile.getHash()));
+    }
+
+    private record LocalFileHash(DigestAlgorithm algorithm, long size, FileTime lastModified, String hash) {
+
+        static LocalFileHash of(DigestAlgorithm algorithm, BasicFileAttributes attributes, String hash) {
+            return new LocalFileHash(algorithm, attributes.size(), attributes.lastModifiedTime(), hash);
+        }
+
+        boolean matches(DigestAlgorithm otherAlgorithm, BasicFileAttributes attributes) {
+            return algorithm.equals(otherAlgorithm)
+                    && size == attributes.size()
+                    && lastModified.equals(attributes.lastModifiedTime());
+        }
+    }
+
     private LocationVersionResolver locationVersionResolver(ConfigurationLocation location) {
         if (configurationVersion == null) {
             return LocationVersionResolver.range(location,
@@ -309,21 +466,17 @@ public class ConfigurationDownloader {
         return this.locationVersionResolver(location).toVersionedLocation();
     }
 
-    byte[] downloadContent(ConfigurationLocation location, ConfigurationFile file) throws Exception {
+    void downloadContent(ConfigurationLocation location, ConfigurationFile file, OutputStream out) throws Exception {
         URLConnection connection = getDownloadURLConnection(getDownloadURL(location, file));
         log.info("Downloading content from {}", connection.getURL());
         try (InputStream in = connection.getInputStream()) {
-            return IOUtils.toByteArray(in);
+            IOUtils.copy(in, out);
         }
     }
 
-    void verifyContent(byte[] content, ConfigurationFile file) throws Exception {
+    void verifyContent(byte[] hash, ConfigurationFile file) {
         log.trace("verifyContent({}, {})", file.getHash(), file.getHashAlgorithmId());
 
-        DigestCalculator dc = createDigestCalculator(file.getHashAlgorithmId());
-        dc.getOutputStream().write(content);
-
-        byte[] hash = dc.getDigest();
         if (!Arrays.equals(hash, decodeBase64(file.getHash()))) {
             log.trace("Content {} hash {} does not match expected hash {}", file, encodeBase64(hash), file.getHash());
             throw new CodedException(X_IO_ERROR, "Failed to verify content integrity (%s)", file);
@@ -334,10 +487,12 @@ public class ConfigurationDownloader {
         //make possible with current structure to be overridden and validations called
     }
 
-    void persistContent(byte[] content, Path destination, ConfigurationFile file) throws Exception {
+    void persistContent(Path content, Path destination, ConfigurationFile file) throws Exception {
         log.info("Saving {} to {}", file, destination);
 
-        ConfigurationDirectory.save(destination, content, file.getMetadata());
+        Files.move(content, destination, StandardCopyOption.ATOMIC_MOVE);
+        ConfigurationDirectory.saveMetadata(destination, file.getMetadata());
+        rememberLocalHash(destination, file);
     }
 
     void updateExpirationDate(Path destination, ConfigurationFile file) throws Exception {
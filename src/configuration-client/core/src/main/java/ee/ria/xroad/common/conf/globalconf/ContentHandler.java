@@ -54,6 +54,13 @@ final class ContentHandler {
         return parametersProviderFactory.sharedParametersProvider(content);
     }
 
+    static boolean isHandled(ConfigurationFile file) {
+        return switch (file.getContentIdentifier()) {
+            case ConfigurationConstants.CONTENT_ID_PRIVATE_PARAMETERS, ConfigurationConstants.CONTENT_ID_SHARED_PARAMETERS -> true;
+            default -> false;
+        };
+    }
+
     void handleContent(byte[] content, ConfigurationFile file) throws CertificateEncodingException, IOException {
         switch (file.getContentIdentifier()) {
             case ConfigurationConstants.CONTENT_ID_PRIVATE_PARAMETERS:
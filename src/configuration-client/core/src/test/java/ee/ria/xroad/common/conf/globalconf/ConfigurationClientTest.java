@@ -29,13 +29,13 @@ import ee.ria.xroad.common.CodedException;
 import ee.ria.xroad.common.TestCertUtil;
 
 import lombok.extern.slf4j.Slf4j;
-import org.apache.commons.io.IOUtils;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.io.TempDir;
 
 import java.io.File;
 import java.io.FileInputStream;
 import java.io.InputStream;
+import java.io.OutputStream;
 import java.nio.file.Files;
 import java.nio.file.Path;
 import java.nio.file.Paths;
@@ -189,7 +189,7 @@ class ConfigurationClientTest {
             }
 
             @Override
-            void persistContent(byte[] content, Path destination, ConfigurationFile file) throws Exception {
+            void persistContent(Path content, Path destination, ConfigurationFile file) throws Exception {
                 receivedParts.add(file.getContentIdentifier());
                 super.persistContent(content, destination, file);
             }
@@ -199,11 +199,9 @@ class ConfigurationClientTest {
             }
 
             @Override
-            byte[] downloadContent(ConfigurationLocation location, ConfigurationFile file) throws Exception {
-                try (InputStream in = Files.newInputStream(
-                        Paths.get(confPath, file.getInstanceIdentifier(), file.getContentLocation()))) {
-                    return IOUtils.toByteArray(in);
-                }
+            void downloadContent(ConfigurationLocation location, ConfigurationFile file, OutputStream out)
+                    throws Exception {
+                Files.copy(Paths.get(confPath, file.getInstanceIdentifier(), file.getContentLocation()), out);
             }
         };
 
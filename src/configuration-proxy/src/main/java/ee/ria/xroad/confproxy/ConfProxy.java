@@ -35,6 +35,12 @@ import org.apache.commons.lang3.StringUtils;
 
 import java.nio.file.Files;
 import java.nio.file.Paths;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
 
 /**
  * Defines a configuration proxy instance and carries out it's main operations.
@@ -56,38 +62,56 @@ public class ConfProxy {
     /**
      * Launch the configuration proxy instance. Downloads signed directory,
      * signs its content and moves it to the public distribution directory.
+     * All supported global configuration versions are processed concurrently.
      * @throws Exception in case of any errors
      */
     public final void execute() throws Exception {
         log.debug("Purge outdated generations");
         ConfProxyHelper.purgeOutdatedGenerations(conf);
 
-        var result = new ConfProxyExecutionResult();
-        for (int version = SystemProperties.CURRENT_GLOBAL_CONFIGURATION_VERSION;
-                version >= SystemProperties.getMinimumConfigurationProxyGlobalConfigurationVersion();
-                version--) {
-            log.debug("Download global configuration version {}. Minimum version {}",
-                    version, SystemProperties.getMinimumConfigurationProxyGlobalConfigurationVersion());
+        int minVersion = SystemProperties.getMinimumConfigurationProxyGlobalConfigurationVersion();
+        int maxVersion = SystemProperties.CURRENT_GLOBAL_CONFIGURATION_VERSION;
+        ExecutorService executor = Executors.newFixedThreadPool(Math.max(1, maxVersion - minVersion + 1));
+        try {
+            Map<Integer, Future<?>> tasks = new LinkedHashMap<>();
+            for (int version = maxVersion; version >= minVersion; version--) {
+                final int currentVersion = version;
+                tasks.put(version, executor.submit(() -> {
+                    distribute(currentVersion, minVersion);
+                    return null;
+                }));
+            }
 
-            try {
-                VersionedConfigurationDirectory confDir = download(version);
-                log.debug("Create output builder");
-                try (OutputBuilder output = new OutputBuilder(confDir, conf, version)) {
-                    log.debug("Build signed directory");
-                    output.buildSignedDirectory();
-                    output.move();
-                    log.debug("Finished execute");
+            var result = new ConfProxyExecutionResult();
+            for (Map.Entry<Integer, Future<?>> task : tasks.entrySet()) {
+                try {
+                    task.getValue().get();
+                    log.info("Successfully distributed global configuration version {}", task.getKey());
+                    result.markSuccessful();
+                } catch (ExecutionException e) {
+                    log.warn("Failed to distribute global configuration version " + task.getKey(), e.getCause());
+                    result.addFailedVersion(task.getKey());
                 }
-                log.info("Successfully distributed global configuration version {}", version);
-                result.markSuccessful();
-            } catch (Exception e) {
-                log.warn("Failed to distribute global configuration version " + version, e);
-                result.addFailedVersion(version);
             }
+            if (!result.isSuccess() && !result.getFailedVersions().isEmpty()) {
+                throw new Exception("Error distributing any global configuration version: "
+                        + StringUtils.join(result.getFailedVersions(), ","));
+            }
+        } finally {
+            executor.shutdownNow();
         }
-        if (!result.isSuccess() && !result.getFailedVersions().isEmpty()) {
-            throw new Exception("Error distributing any global configuration version: "
-                    + StringUtils.join(result.getFailedVersions(), ","));
+    }
+
+    private void distribute(int version, int minVersion) throws Exception {
+        log.debug("Download global configuration version {}. Minimum version {}", version, minVersion);
+
+        VersionedConfigurationDirectory confDir = download(version);
+        log.debug("Create output builder");
+        try (OutputBuilder output = new OutputBuilder(confDir, conf, version)) {
+            log.debug("Build signed directory");
+            output.buildSignedDirectory();
+            output.move();
+            log.debug("Finished execute");
         }
     }
 
@@ -32,10 +32,16 @@ import ee.ria.xroad.signer.protocol.RpcSignerClient;
 
 import lombok.extern.slf4j.Slf4j;
 
+import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
 
 import static ee.ria.xroad.common.SystemProperties.CONF_FILE_CONFPROXY;
+import static ee.ria.xroad.common.SystemProperties.getConfigurationProxyParallelism;
 
 /**
  * Main program for the configuration proxy.
@@ -89,7 +95,7 @@ public final class ConfProxyMain {
     }
 
     /**
-     * Executes all configuration proxy instances in sequence.
+     * Executes all configuration proxy instances, up to the configured number of them concurrently.
      *
      * @param args program arguments
      * @throws Exception if not able to get list of available instances
@@ -105,15 +111,31 @@ public final class ConfProxyMain {
             log.debug("Instances from available instances: {}", instances);
         }
 
-        for (String instance : instances) {
-            try {
-                ConfProxy proxy = new ConfProxy(instance);
-                log.info("ConfProxy executing for instance {}", instance);
-                proxy.execute();
-            } catch (Exception ex) {
-                log.error("Error when executing configuration-proxy '{}'",
-                        instance, ex);
+        ExecutorService executor = Executors.newFixedThreadPool(
+                Math.max(1, Math.min(getConfigurationProxyParallelism(), instances.size())));
+        try {
+            List<Future<?>> tasks = new ArrayList<>(instances.size());
+            for (String instance : instances) {
+                tasks.add(executor.submit(() -> execute(instance)));
+            }
+            for (Future<?> task : tasks) {
+                task.get();
             }
+        } catch (ExecutionException e) {
+            throw new IllegalStateException("Unexpected configuration-proxy execution failure", e.getCause());
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    private static void execute(final String instance) {
+        try {
+            ConfProxy proxy = new ConfProxy(instance);
+            log.info("ConfProxy executing for instance {}", instance);
+            proxy.execute();
+        } catch (Exception ex) {
+            log.error("Error when executing configuration-proxy '{}'",
+                    instance, ex);
         }
     }
 
@@ -43,14 +43,20 @@ import ee.ria.xroad.signer.SignerProxy;
 import lombok.extern.slf4j.Slf4j;
 import org.apache.commons.io.FileUtils;
 import org.apache.commons.io.input.TeeInputStream;
+import org.apache.commons.io.output.CloseShieldOutputStream;
+import org.apache.commons.io.output.TeeOutputStream;
+import org.bouncycastle.operator.DigestCalculator;
 import org.eclipse.jetty.util.MultiPartWriter;
 
+import java.io.BufferedOutputStream;
 import java.io.ByteArrayInputStream;
 import java.io.ByteArrayOutputStream;
 import java.io.FileInputStream;
 import java.io.FileOutputStream;
 import java.io.IOException;
 import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
 import java.nio.file.Files;
 import java.nio.file.Path;
 import java.nio.file.Paths;
@@ -59,11 +65,11 @@ import java.time.OffsetDateTime;
 import java.time.ZoneId;
 import java.time.format.DateTimeFormatter;
 import java.time.temporal.ChronoUnit;
-import java.util.Date;
 import java.util.List;
+import java.util.concurrent.atomic.AtomicLong;
 
 import static ee.ria.xroad.common.conf.globalconf.ConfigurationConstants.CONTENT_ID_SHARED_PARAMETERS;
-import static ee.ria.xroad.common.crypto.Digests.calculateDigest;
+import static ee.ria.xroad.common.crypto.Digests.createDigestCalculator;
 import static ee.ria.xroad.common.util.EncoderUtils.encodeBase64;
 import static ee.ria.xroad.common.util.MimeUtils.HEADER_CONTENT_IDENTIFIER;
 import static ee.ria.xroad.common.util.MimeUtils.HEADER_CONTENT_LOCATION;
@@ -89,6 +95,10 @@ public class OutputBuilder implements AutoCloseable {
     private static final DateTimeFormatter DATETIME_FORMAT =
             DateTimeFormatter.ISO_OFFSET_DATE_TIME.withZone(ZoneId.of("UTC"));
 
+    // Generation directories are named after their creation time, builders running concurrently
+    // must not end up with the same name.
+    private static final AtomicLong LAST_TIMESTAMP = new AtomicLong();
+
     private final VersionedConfigurationDirectory confDir;
     private final ConfProxyProperties conf;
     private final int version;
@@ -122,22 +132,33 @@ public class OutputBuilder implements AutoCloseable {
     /**
      * Generates a signed directory MIME for the global configuration and
      * writes the directory contents to a temporary location.
+     * The directory content is streamed to the signed directory file while
+     * its digest is being calculated, the signature is appended once the
+     * content has been written.
      *
      * @throws Exception if errors occur when reading global configuration files
      */
     public final void buildSignedDirectory() throws Exception {
-        try (ByteArrayOutputStream mimeContent = new ByteArrayOutputStream()) {
-            build(mimeContent);
+        String keyId = conf.getActiveSigningKey();
+        DigestAlgorithm digestAlgorithmId = conf.getSignatureDigestAlgorithmId();
+        SignAlgorithm signAlgoId = getSignatureAlgorithmId(keyId, digestAlgorithmId);
+        DigestCalculator digestCalculator = createDigestCalculator(digestAlgorithmId);
+
+        try (OutputStream out = new BufferedOutputStream(Files.newOutputStream(tempConfPath))) {
+            out.write(envelopeHeader.getBytes(StandardCharsets.UTF_8));
 
-            log.debug("Generated directory content:\n{}\n", mimeContent);
+            try (MultipartEncoder encoder = new MultipartEncoder(out, envelopeBoundary)) {
+                encoder.startPart(mpMixedContentType(dataBoundary));
 
-            byte[] contentBytes = mimeContent.toByteArray();
-            mimeContent.reset();
-            sign(contentBytes, mimeContent);
-            Files.write(tempConfPath, mimeContent.toByteArray());
+                try (OutputStream digestOut = digestCalculator.getOutputStream()) {
+                    build(new TeeOutputStream(CloseShieldOutputStream.wrap(out), digestOut));
+                }
 
-            log.debug("Written signed directory to '{}'", tempConfPath);
+                sign(encoder, keyId, signAlgoId, digestCalculator.getDigest());
+            }
         }
+
+        log.debug("Written signed directory to '{}'", tempConfPath);
     }
 
     /**
@@ -162,7 +183,7 @@ public class OutputBuilder implements AutoCloseable {
     }
 
     /**
-     * Cleans up any remaining temporary files.
+     * Cleans up any remaining temporary files, including a partially written signed directory.
      *
      * @throws IOException in case of unsuccessful file operations
      */
@@ -170,6 +191,7 @@ public class OutputBuilder implements AutoCloseable {
     public final void close() throws IOException {
         log.debug("Cleaning up '{}'", tempDirPath);
         FileUtils.deleteDirectory(tempDirPath.toFile());
+        Files.deleteIfExists(tempConfPath);
     }
 
     /**
@@ -182,7 +204,7 @@ public class OutputBuilder implements AutoCloseable {
         DigestAlgorithm hashAlgURI = conf.getHashAlgorithmURI();
 
         hashCalculator = new HashCalculator(hashAlgURI);
-        timestamp = Long.toString(new Date().getTime());
+        timestamp = Long.toString(nextTimestamp());
         tempConfPath = Paths.get(tempDir, String.format("%s-v%d", SIGNED_DIRECTORY_NAME, version));
         tempDirPath = Paths.get(tempDir, timestamp);
 
@@ -200,13 +222,19 @@ public class OutputBuilder implements AutoCloseable {
                 MultiPartWriter.MULTIPART_MIXED) + "\n\n";
     }
 
+    private static long nextTimestamp() {
+        long now = System.currentTimeMillis();
+
+        return LAST_TIMESTAMP.updateAndGet(last -> Math.max(last + 1, now));
+    }
+
     /**
      * Generates global configuration directory content MIME.
      *
-     * @param mimeContent output stream to write to
+     * @param mimeContent output stream to write to, closed when the content is complete
      * @throws Exception if reading global configuration files fails
      */
-    private void build(final ByteArrayOutputStream mimeContent) throws Exception {
+    private void build(final OutputStream mimeContent) throws Exception {
         try (MultipartEncoder encoder = new MultipartEncoder(mimeContent, dataBoundary)) {
             OffsetDateTime expireDate = TimeUtils.offsetDateTimeNow().plusSeconds(conf.getValidityIntervalSeconds());
             encoder.startPart(null, new String[]{
@@ -264,44 +292,28 @@ public class OutputBuilder implements AutoCloseable {
     }
 
     /**
-     * Signs the global configuration directory content.
+     * Signs the global configuration directory content and appends the signature part to the envelope.
      *
-     * @param contentBytes configuration directory content bytes
-     * @param mimeContent  output stream to write to
-     * @throws Exception if errors are encountered while writing
-     *                   the signed directory content to a temporary location
+     * @param encoder    envelope encoder positioned after the directory content part
+     * @param keyId      id of the key used for signing
+     * @param signAlgoId signature algorithm
+     * @param digest     digest of the directory content
+     * @throws Exception if errors are encountered while signing or writing the signature part
      */
-    private void sign(final byte[] contentBytes, final ByteArrayOutputStream mimeContent) throws Exception {
-        String keyId = conf.getActiveSigningKey();
-        DigestAlgorithm digestAlgorithmId = conf.getSignatureDigestAlgorithmId();
-        SignAlgorithm signAlgoId = getSignatureAlgorithmId(keyId, digestAlgorithmId);
-        byte[] digest = calculateDigest(digestAlgorithmId, contentBytes);
-
+    private void sign(final MultipartEncoder encoder, final String keyId, final SignAlgorithm signAlgoId,
+                      final byte[] digest) throws Exception {
         log.debug("Signing directory with signing key '{}' and signing algorithm '{}'", keyId, signAlgoId);
 
         String signature = getSignature(keyId, signAlgoId, digest);
-
-        mimeContent.write(envelopeHeader.getBytes());
-
-        try (MultipartEncoder encoder = new MultipartEncoder(mimeContent, envelopeBoundary)) {
-            encoder.startPart(mpMixedContentType(dataBoundary));
-            encoder.write(contentBytes);
-            DigestAlgorithm hashURI = hashCalculator.getAlgoURI();
-            Path verificationCertPath = conf.getCertPath(keyId);
-
-            encoder.startPart(MimeTypes.BINARY, new String[]{
-                    HEADER_CONTENT_TRANSFER_ENCODING + ": base64",
-                    HEADER_SIG_ALGO_ID + ": " + signAlgoId.uri(),
-                    HEADER_VERIFICATION_CERT_HASH + ": " + getVerificationCertHash(verificationCertPath) + "; "
-                            + HEADER_HASH_ALGORITHM_ID + "=" + hashURI.uri()});
-            encoder.write(signature.getBytes());
-        }
-
-        log.debug("Generated signed directory:\n{}\n", mimeContent);
-
-        Files.write(tempConfPath, mimeContent.toByteArray());
-
-        log.debug("Written signed directory to '{}'", tempConfPath);
+        DigestAlgorithm hashURI = hashCalculator.getAlgoURI();
+        Path verificationCertPath = conf.getCertPath(keyId);
+
+        encoder.startPart(MimeTypes.BINARY, new String[]{
+                HEADER_CONTENT_TRANSFER_ENCODING + ": base64",
+                HEADER_SIG_ALGO_ID + ": " + signAlgoId.uri(),
+                HEADER_VERIFICATION_CERT_HASH + ": " + getVerificationCertHash(verificationCertPath) + "; "
+                        + HEADER_HASH_ALGORITHM_ID + "=" + hashURI.uri()});
+        encoder.write(signature.getBytes());
     }
 
     /**
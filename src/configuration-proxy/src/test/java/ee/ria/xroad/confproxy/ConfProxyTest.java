@@ -26,26 +26,40 @@
 package ee.ria.xroad.confproxy;
 
 import ee.ria.xroad.common.CodedException;
+import ee.ria.xroad.common.TestCertUtil;
 import ee.ria.xroad.common.conf.globalconf.VersionedConfigurationDirectory;
+import ee.ria.xroad.common.crypto.identifier.SignMechanism;
 import ee.ria.xroad.confproxy.util.ConfProxyHelper;
 import ee.ria.xroad.confproxy.util.OutputBuilder;
 import ee.ria.xroad.signer.SignerProxy;
 
 import lombok.extern.slf4j.Slf4j;
+import org.apache.commons.io.FileUtils;
 import org.junit.Before;
 import org.junit.Test;
+import org.mockito.ArgumentCaptor;
 import org.mockito.MockedStatic;
 
+import java.io.File;
+import java.nio.charset.StandardCharsets;
 import java.nio.file.Files;
+import java.nio.file.Path;
 import java.nio.file.Paths;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
 
 import static ee.ria.xroad.common.SystemProperties.CONFIGURATION_PATH;
 import static ee.ria.xroad.common.SystemProperties.CONFIGURATION_PROXY_CONF_PATH;
 import static ee.ria.xroad.common.SystemProperties.CONFIGURATION_PROXY_GENERATED_CONF_PATH;
 import static ee.ria.xroad.common.SystemProperties.TEMP_FILES_PATH;
+import static ee.ria.xroad.common.crypto.Digests.calculateDigest;
+import static ee.ria.xroad.common.crypto.identifier.DigestAlgorithm.SHA512;
+import static org.junit.Assert.assertArrayEquals;
 import static org.junit.Assert.assertEquals;
 import static org.junit.Assert.assertThrows;
+import static org.junit.Assert.assertTrue;
 import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
 import static org.mockito.Mockito.mockStatic;
 
 /**
@@ -80,4 +94,42 @@ public class ConfProxyTest {
         }
     }
 
+    @Test
+    public void signatureCoversStreamedDirectoryContent() throws Exception {
+        Path confProxyConf = Paths.get("build/tmp/test/conf-proxy-conf");
+        FileUtils.deleteDirectory(confProxyConf.toFile());
+        FileUtils.copyDirectory(new File("src/test/resources/conf-proxy-conf"), confProxyConf.toFile());
+        System.setProperty(CONFIGURATION_PROXY_CONF_PATH, confProxyConf.toString());
+
+        ConfProxyProperties conf = new ConfProxyProperties("PROXY1");
+        conf.saveCert(conf.getActiveSigningKey(), TestCertUtil.getCaCert().getEncoded());
+        ConfProxyHelper.purgeOutdatedGenerations(conf);
+        VersionedConfigurationDirectory confDir = new VersionedConfigurationDirectory(conf.getConfigurationDownloadPath(2));
+        Path signedDirectory = Paths.get(conf.getTemporaryDirectoryPath(), "conf-v2");
+
+        try (MockedStatic<SignerProxy> signerProxyMock = mockStatic(SignerProxy.class)) {
+            ArgumentCaptor<byte[]> digest = ArgumentCaptor.forClass(byte[].class);
+            signerProxyMock.when(() -> SignerProxy.getSignMechanism(any())).thenReturn(SignMechanism.CKM_RSA_PKCS);
+            signerProxyMock.when(() -> SignerProxy.sign(eq(conf.getActiveSigningKey()), any(), digest.capture()))
+                    .thenReturn(new byte[]{1, 2, 3});
+
+            try (OutputBuilder output = new OutputBuilder(confDir, conf, 2)) {
+                output.buildSignedDirectory();
+
+                String signed = Files.readString(signedDirectory, StandardCharsets.ISO_8859_1);
+                Matcher boundary = Pattern.compile("boundary=([^\\s;]+)").matcher(signed);
+                assertTrue(boundary.find());
+                String delimiter = "\r\n--" + boundary.group(1) + "\r\n";
+                int contentStart = signed.indexOf("\r\n\r\n") + 4;
+                int contentEnd = signed.indexOf(delimiter, contentStart);
+                assertTrue(contentEnd > contentStart);
+
+                byte[] content = signed.substring(contentStart, contentEnd).getBytes(StandardCharsets.ISO_8859_1);
+                assertArrayEquals(calculateDigest(SHA512, content), digest.getValue());
+                assertTrue(signed.contains("AQID"));
+            }
+            assertTrue(Files.notExists(signedDirectory));
+        }
+    }
+
 }
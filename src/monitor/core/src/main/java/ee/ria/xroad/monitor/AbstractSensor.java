@@ -38,7 +38,11 @@ public abstract class AbstractSensor {
     private final TaskScheduler taskScheduler;
 
     protected void scheduleSingleMeasurement(Duration delay) {
-        taskScheduler.schedule(this::measure, taskScheduler.getClock().instant().plus(delay));
+        schedule(this::measure, delay);
+    }
+
+    protected void schedule(Runnable task, Duration delay) {
+        taskScheduler.schedule(task, taskScheduler.getClock().instant().plus(delay));
     }
 
     protected abstract Duration getInterval();
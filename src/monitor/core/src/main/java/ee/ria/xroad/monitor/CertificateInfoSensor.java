@@ -37,6 +37,7 @@ import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.scheduling.TaskScheduler;
 
+import java.io.Closeable;
 import java.security.cert.X509Certificate;
 import java.time.Duration;
 import java.time.format.DateTimeFormatter;
@@ -50,6 +51,10 @@ import java.util.stream.Stream;
  * Collects certificate information.
  * Before using CertificateInfoSensor, SignerClient needs to have been initialized
  * with SignerClient.init()
+ * <p>
+ * Token certificates are taken from the token list pushed by the signer, and the metrics are updated as soon as the
+ * signer reports a change. The periodic measurement picks up the remaining certificates and falls back to
+ * listing the tokens while the signer subscription is not available.
  */
 @Slf4j
 public class CertificateInfoSensor extends AbstractSensor {
@@ -76,7 +81,7 @@ public class CertificateInfoSensor extends AbstractSensor {
         certificateInfoCollector = new CertificateInfoCollector()
                 .addExtractor(new InternalServerCertificateExtractor(serverConfProvider))
                 .addExtractor(new InternalTlsExtractor(serverConfProvider))
-                .addExtractor(new TokenExtractor());
+                .addExtractor(new TokenExtractor(new WatchingTokenLister(this::onTokensChanged)));
 
         scheduleSingleMeasurement(INITIAL_DELAY);
     }
@@ -144,6 +149,45 @@ public class CertificateInfoSensor extends AbstractSensor {
 
     }
 
+    /**
+     * Lists tokens from the latest token list pushed by the signer, subscribing on first use.
+     * Lists tokens from the signer directly when there is no active subscription.
+     */
+    @RequiredArgsConstructor
+    static class WatchingTokenLister implements TokenExtractor.Lister {
+        private final Runnable onChange;
+        private volatile List<TokenInfo> tokens;
+        private Closeable subscription;
+
+        @Override
+        public List<TokenInfo> listTokens() throws Exception {
+            subscribe();
+            final List<TokenInfo> current = tokens;
+            return current != null ? current : SignerProxy.getTokens();
+        }
+
+        private synchronized void subscribe() {
+            if (subscription == null) {
+                try {
+                    subscription = SignerProxy.watchTokens(this::onTokens, this::onSubscriptionEnded);
+                } catch (Exception e) {
+                    log.warn("Subscribing to signer token changes failed, listing tokens instead", e);
+                }
+            }
+        }
+
+        private void onTokens(List<TokenInfo> newTokens) {
+            tokens = newTokens;
+            onChange.run();
+        }
+
+        private synchronized void onSubscriptionEnded(Throwable error) {
+            log.warn("Signer token subscription ended, listing tokens until resubscribed", error);
+            tokens = null;
+            subscription = null;
+        }
+    }
+
     @RequiredArgsConstructor
     static class InternalTlsExtractor extends CertificateInfoExtractor {
         private final ServerConfProvider serverConfProvider;
@@ -192,10 +236,6 @@ public class CertificateInfoSensor extends AbstractSensor {
             this.tokenInfoLister = tokenInfoLister;
         }
 
-        TokenExtractor() {
-            tokenInfoLister = SignerProxy::getTokens;
-        }
-
         @Override
         public Stream<CertificateMonitoringInfo> getCertificates() {
             Stream<TokenInfo> tokens;
@@ -264,6 +304,19 @@ public class CertificateInfoSensor extends AbstractSensor {
         scheduleSingleMeasurement(getInterval());
     }
 
+    private void onTokensChanged() {
+        schedule(this::update, Duration.ZERO);
+    }
+
+    private void update() {
+        log.debug("Token certificates changed, updating CertificateInfo metrics");
+        try {
+            updateOrRegisterData(list());
+        } catch (Exception e) {
+            log.error("Updating CertificateInfo metrics failed", e);
+        }
+    }
+
     @Override
     protected Duration getInterval() {
         return Duration.ofSeconds(SystemProperties.getEnvMonitorCertificateInfoSensorInterval());
@@ -25,6 +25,7 @@
  */
 package ee.ria.xroad.monitor;
 
+import lombok.EqualsAndHashCode;
 import lombok.Getter;
 import lombok.Setter;
 
@@ -37,6 +38,7 @@ import java.util.ArrayList;
  */
 @Getter
 @Setter
+@EqualsAndHashCode
 public class JmxStringifiedData<T> {
     ArrayList<T> dtoData;
     ArrayList<String> jmxStringData;
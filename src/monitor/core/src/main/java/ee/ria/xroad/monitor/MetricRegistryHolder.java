@@ -28,22 +28,51 @@ package ee.ria.xroad.monitor;
 import com.codahale.metrics.Gauge;
 import com.codahale.metrics.Histogram;
 import com.codahale.metrics.MetricRegistry;
+import com.codahale.metrics.MetricRegistryListener;
+import com.codahale.metrics.Reservoir;
 import com.codahale.metrics.SlidingTimeWindowReservoir;
 
 import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
 
 /**
  * Global access point for {@link MetricRegistry}
+ * <p>
+ * Keeps a version number that changes whenever a metric is added or removed, or the value of a sensor or
+ * histogram created through this holder changes, so that readers can reuse data derived from an unchanged registry.
  */
 public final class MetricRegistryHolder {
 
     private static final int MINUTES_IN_HOUR = 60;
     private static final MetricRegistryHolder INSTANCE = new MetricRegistryHolder();
 
-    private MetricRegistry metrics;
+    private final AtomicLong version = new AtomicLong();
+    private final MetricRegistryListener versionListener = new MetricRegistryListener.Base() {
+        @Override
+        public void onGaugeAdded(String name, Gauge<?> gauge) {
+            markChanged();
+        }
+
+        @Override
+        public void onGaugeRemoved(String name) {
+            markChanged();
+        }
+
+        @Override
+        public void onHistogramAdded(String name, Histogram histogram) {
+            markChanged();
+        }
+
+        @Override
+        public void onHistogramRemoved(String name) {
+            markChanged();
+        }
+    };
+
+    private volatile MetricRegistry metrics;
 
     private MetricRegistryHolder() {
-        metrics = new MetricRegistry();
+        setMetrics(new MetricRegistry());
     }
 
     /**
@@ -66,7 +95,23 @@ public final class MetricRegistryHolder {
      * Set Singleton instance (for testing purposes)
      */
     public void setMetrics(MetricRegistry metricRegistry) {
+        if (this.metrics != null) {
+            this.metrics.removeListener(versionListener);
+        }
         this.metrics = metricRegistry;
+        metricRegistry.addListener(versionListener);
+        markChanged();
+    }
+
+    /**
+     * @return current version of the registry contents
+     */
+    public long getVersion() {
+        return version.get();
+    }
+
+    private void markChanged() {
+        version.incrementAndGet();
     }
 
 
@@ -75,7 +120,7 @@ public final class MetricRegistryHolder {
      */
     @SuppressWarnings("unchecked")
     public <T> SimpleSensor<T> getOrCreateSimpleSensor(String metricName) {
-        final Gauge sensor = metrics.gauge(metricName, SimpleSensor::new);
+        final Gauge sensor = metrics.gauge(metricName, this::createSimpleSensor);
         if (sensor instanceof SimpleSensor) {
             return (SimpleSensor<T>) sensor;
         }
@@ -91,7 +136,25 @@ public final class MetricRegistryHolder {
     }
 
 
+    private <T> SimpleSensor<T> createSimpleSensor() {
+        final SimpleSensor<T> sensor = new SimpleSensor<>();
+        sensor.setChangeListener(this::markChanged);
+        return sensor;
+    }
+
     private Histogram createDefaultHistogram() {
-        return new Histogram(new SlidingTimeWindowReservoir(MINUTES_IN_HOUR, TimeUnit.MINUTES));
+        return new ChangeTrackingHistogram(new SlidingTimeWindowReservoir(MINUTES_IN_HOUR, TimeUnit.MINUTES));
+    }
+
+    private final class ChangeTrackingHistogram extends Histogram {
+        ChangeTrackingHistogram(Reservoir reservoir) {
+            super(reservoir);
+        }
+
+        @Override
+        public void update(long value) {
+            super.update(value);
+            markChanged();
+        }
     }
 }
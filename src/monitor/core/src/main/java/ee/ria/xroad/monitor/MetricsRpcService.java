@@ -108,6 +108,15 @@ public class MetricsRpcService extends MetricsServiceGrpc.MetricsServiceImplBase
         }
     }
 
+    /**
+     * Immutable response built from a given version of the metric registry
+     */
+    private record MetricsSnapshot(long version, SystemMetricsResp response) {
+    }
+
+    private volatile MetricsSnapshot ownerSnapshot;
+    private volatile MetricsSnapshot limitedSnapshot;
+
     @Override
     public void getMetrics(SystemMetricsReq req, StreamObserver<SystemMetricsResp> responseObserver) {
         log.info("Received SystemMetricsRequest: " + req);
@@ -116,18 +125,66 @@ public class MetricsRpcService extends MetricsServiceGrpc.MetricsServiceImplBase
             log.info("Is owner of security server: " + req.getIsClientOwner());
         }
 
-        MetricRegistry metrics = MetricRegistryHolder.getInstance().getMetrics();
+        final boolean ownerMetrics = req.getIsClientOwner() || !SystemProperties.getEnvMonitorLimitRemoteDataSet();
+        final SystemMetricsResp response = getSnapshot(ownerMetrics);
+
+        if (req.getMetricNamesList().isEmpty()) {
+            responseObserver.onNext(response);
+        } else {
+            responseObserver.onNext(filter(response, req.getMetricNamesList()));
+        }
+        responseObserver.onCompleted();
+    }
+
+    /**
+     * Returns the complete response for the current registry contents, building it only if the registry has changed
+     * since the previous request.
+     */
+    private SystemMetricsResp getSnapshot(boolean ownerMetrics) {
+        final MetricRegistryHolder registryHolder = MetricRegistryHolder.getInstance();
+        final long version = registryHolder.getVersion();
+        final MetricsSnapshot snapshot = ownerMetrics ? ownerSnapshot : limitedSnapshot;
+        if (snapshot != null && snapshot.version() == version) {
+            return snapshot.response();
+        }
+
+        MetricRegistry metrics = registryHolder.getMetrics();
         var responseBuilder = SystemMetricsResp.newBuilder();
         responseBuilder.getMetricsBuilder().setName("systemMetrics");
 
-        collectMetrics(responseBuilder, metrics, req.getMetricNamesList(), req.getIsClientOwner());
+        collectMetrics(responseBuilder, metrics, null, ownerMetrics);
 
-        if (req.getIsClientOwner() || !SystemProperties.getEnvMonitorLimitRemoteDataSet()) {
-            collectOwnerMetrics(responseBuilder, metrics, req.getMetricNamesList());
+        if (ownerMetrics) {
+            collectOwnerMetrics(responseBuilder, metrics, null);
         }
 
-        responseObserver.onNext(responseBuilder.build());
-        responseObserver.onCompleted();
+        final MetricsSnapshot updated = new MetricsSnapshot(version, responseBuilder.build());
+        if (ownerMetrics) {
+            ownerSnapshot = updated;
+        } else {
+            limitedSnapshot = updated;
+        }
+        return updated.response();
+    }
+
+    private SystemMetricsResp filter(SystemMetricsResp response, List<String> metricNames) {
+        var responseBuilder = SystemMetricsResp.newBuilder();
+        responseBuilder.getMetricsBuilder().setName(response.getMetrics().getName());
+        for (Metrics metric : response.getMetrics().getMetricsList()) {
+            if (metricNames.contains(getName(metric))) {
+                responseBuilder.getMetricsBuilder().addMetrics(metric);
+            }
+        }
+        return responseBuilder.build();
+    }
+
+    private static String getName(Metrics metric) {
+        return switch (metric.getValueCase()) {
+            case SINGLE_METRICS -> metric.getSingleMetrics().getName();
+            case SINGLE_HISTOGRAM -> metric.getSingleHistogram().getName();
+            case METRICS_GROUP -> metric.getMetricsGroup().getName();
+            default -> null;
+        };
     }
 
     private void collectMetrics(SystemMetricsResp.Builder builder, MetricRegistry metrics, List<String> metricNames,
@@ -27,6 +27,8 @@ package ee.ria.xroad.monitor;
 
 import com.codahale.metrics.Gauge;
 
+import java.util.Objects;
+
 /**
  * Simple {@link Gauge} implementation
  * @param <T>
@@ -34,6 +36,7 @@ import com.codahale.metrics.Gauge;
 public class SimpleSensor<T> implements Gauge<T> {
 
     private volatile T value;
+    private volatile Runnable changeListener;
 
     public SimpleSensor(T initialValue) {
         update(initialValue);
@@ -48,6 +51,18 @@ public class SimpleSensor<T> implements Gauge<T> {
     }
 
     public void update(T newValue) {
+        final T oldValue = this.value;
         this.value = newValue;
+        final Runnable listener = changeListener;
+        if (listener != null && !Objects.equals(oldValue, newValue)) {
+            listener.run();
+        }
+    }
+
+    /**
+     * Sets the listener notified when {@link #update(Object)} changes the value
+     */
+    void setChangeListener(Runnable listener) {
+        this.changeListener = listener;
     }
 }
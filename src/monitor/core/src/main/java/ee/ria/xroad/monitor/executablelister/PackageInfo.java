@@ -25,6 +25,7 @@
  */
 package ee.ria.xroad.monitor.executablelister;
 
+import lombok.EqualsAndHashCode;
 import lombok.Getter;
 import lombok.Setter;
 import lombok.ToString;
@@ -35,6 +36,7 @@ import lombok.ToString;
 @Getter
 @Setter
 @ToString
+@EqualsAndHashCode
 public class PackageInfo {
     private String name;
     private String version;
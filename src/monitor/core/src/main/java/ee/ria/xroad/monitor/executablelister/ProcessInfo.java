@@ -25,6 +25,7 @@
  */
 package ee.ria.xroad.monitor.executablelister;
 
+import lombok.EqualsAndHashCode;
 import lombok.Getter;
 import lombok.Setter;
 import lombok.ToString;
@@ -37,6 +38,7 @@ import java.io.Serializable;
 @Getter
 @Setter
 @ToString
+@EqualsAndHashCode
 public class ProcessInfo implements Serializable {
     private String userId;
     private String cpuLoad;
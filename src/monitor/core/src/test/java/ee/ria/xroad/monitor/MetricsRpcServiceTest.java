@@ -57,6 +57,7 @@ import static org.junit.jupiter.api.Assertions.fail;
 class MetricsRpcServiceTest {
     private static final String HISTOGRAM_NAME = "TestHistogram";
     private static final String GAUGE_NAME = "TestGauge";
+    private static final String SENSOR_NAME = "TestSensor";
 
     private RpcServer rpcServer;
     private RpcClient<TestMetricsExecutionContext> rpcClient;
@@ -195,4 +196,21 @@ class MetricsRpcServiceTest {
         assertEquals(55L, (long) histogram.getMean());
     }
 
+    @Test
+    void testSystemMetricsReflectSensorUpdates() throws Exception {
+        var request = SystemMetricsReq.newBuilder()
+                .addMetricNames(SENSOR_NAME)
+                .setIsClientOwner(true)
+                .build();
+        SimpleSensor<String> sensor = MetricRegistryHolder.getInstance().getOrCreateSimpleSensor(SENSOR_NAME);
+
+        sensor.update("first");
+        var response = rpcClient.execute(ctx -> ctx.getMetricsServiceBlockingStub().getMetrics(request));
+        assertEquals("first", response.getMetrics().getMetrics(0).getSingleMetrics().getValue());
+
+        sensor.update("second");
+        response = rpcClient.execute(ctx -> ctx.getMetricsServiceBlockingStub().getMetrics(request));
+        assertEquals(1, response.getMetrics().getMetricsCount());
+        assertEquals("second", response.getMetrics().getMetrics(0).getSingleMetrics().getValue());
+    }
 }
@@ -0,0 +1,214 @@
+/*
+ * The MIT License
+ * Copyright (c) 2019- Nordic Institute for Interoperability Solutions (NIIS)
+ * Copyright (c) 2018 Estonian Information System Authority (RIA),
+ * Nordic Institute for Interoperability Solutions (NIIS), Population Register Centre (VRK)
+ * Copyright (c) 2015-2017 Estonian Information System Authority (RIA), Population Register Centre (VRK)
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package ee.ria.xroad.opmonitordaemon;
+
+import ee.ria.xroad.common.SystemProperties;
+import ee.ria.xroad.common.opmonitoring.OpMonitoringData;
+
+import liquibase.Contexts;
+import liquibase.LabelExpression;
+import liquibase.Liquibase;
+import liquibase.database.Database;
+import liquibase.database.DatabaseFactory;
+import liquibase.database.jvm.JdbcConnection;
+import liquibase.resource.ClassLoaderResourceAccessor;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+import org.testcontainers.containers.PostgreSQLContainer;
+import org.testcontainers.junit.jupiter.Container;
+import org.testcontainers.junit.jupiter.Testcontainers;
+
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.Statement;
+import java.time.Instant;
+import java.time.ZoneOffset;
+import java.time.format.DateTimeFormatter;
+import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+
+import static ee.ria.xroad.opmonitordaemon.OpMonitorDaemonDatabaseCtx.doInTransaction;
+import static ee.ria.xroad.opmonitordaemon.OperationalDataRecordManager.storeRecords;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Tests the maintenance of the partitioned operational data table against PostgreSQL. The database is migrated
+ * with the op-monitor database changelog and the daemon connects as a separate user, the same way as on an installed
+ * security server.
+ */
+@Testcontainers
+class OperationalDataPartitionIntTest {
+
+    private static final String DB_USER = "opmonitor";
+    private static final String DB_PASSWORD = "opmonitor";
+
+    private static final long DAY = TimeUnit.DAYS.toSeconds(1);
+    private static final long HOUR = TimeUnit.HOURS.toSeconds(1);
+
+    private static final DateTimeFormatter PARTITION_DAY = DateTimeFormatter.ofPattern("yyyyMMdd")
+            .withZone(ZoneOffset.UTC);
+
+    @Container
+    private static final PostgreSQLContainer<?> POSTGRES = new PostgreSQLContainer<>("postgres:14")
+            .withDatabaseName("op-monitor");
+
+    // Start of the first day after the migration. The records of the earlier days are kept in the legacy partition.
+    private static long tomorrow;
+
+    @BeforeAll
+    static void setUpDatabase() throws Exception {
+        try (Connection connection = DriverManager.getConnection(POSTGRES.getJdbcUrl(), POSTGRES.getUsername(),
+                POSTGRES.getPassword())) {
+            try (Statement statement = connection.createStatement()) {
+                statement.execute("CREATE ROLE " + DB_USER + " LOGIN PASSWORD '" + DB_PASSWORD + "'");
+            }
+
+            Database database = DatabaseFactory.getInstance()
+                    .findCorrectDatabaseImplementation(new JdbcConnection(connection));
+
+            try (Liquibase liquibase = new Liquibase("op-monitor-changelog.xml", new ClassLoaderResourceAccessor(),
+                    database)) {
+                liquibase.setChangeLogParameter("db_user", DB_USER);
+                liquibase.setChangeLogParameter("db_schema", "public");
+                liquibase.update(new Contexts("admin"), new LabelExpression());
+            }
+        }
+
+        tomorrow = Instant.now().truncatedTo(ChronoUnit.DAYS).getEpochSecond() + DAY;
+
+        System.setProperty(SystemProperties.DATABASE_PROPERTIES, "src/intTest/resources/op-monitor-db.properties");
+        System.setProperty("op-monitor.hibernate.connection.url", POSTGRES.getJdbcUrl());
+        System.setProperty("op-monitor.hibernate.connection.username", DB_USER);
+        System.setProperty("op-monitor.hibernate.connection.password", DB_PASSWORD);
+    }
+
+    @Test
+    void dropsOutdatedPartitionsAndDeletesRemainingOutdatedRecords() throws Exception {
+        assertTrue(doInTransaction(OperationalDataPartitionManager::isPartitioned));
+
+        // Today is covered by the legacy partition, partitions are created for the following six days.
+        assertEquals(6, OperationalDataRecordCleaner.createPartitions(Instant.ofEpochSecond(tomorrow - DAY)));
+        assertEquals(0, OperationalDataRecordCleaner.createPartitions(Instant.ofEpochSecond(tomorrow - DAY)));
+
+        long legacy = tomorrow - 2 * DAY;
+        long day1 = tomorrow + HOUR;
+        long day2Early = tomorrow + DAY + HOUR;
+        long day2Late = tomorrow + DAY + 20 * HOUR;
+        long day3 = tomorrow + 2 * DAY + HOUR;
+
+        storeRecords(createRecords(2), legacy);
+        storeRecords(createRecords(2), day1);
+        storeRecords(createRecords(1), day2Early);
+        storeRecords(createRecords(1), day2Late);
+        storeRecords(createRecords(1), day3);
+
+        Set<String> partitions = getPartitions();
+        assertTrue(partitions.containsAll(Set.of("operational_data_legacy", "operational_data_default",
+                partitionName(tomorrow), partitionName(tomorrow + DAY), partitionName(tomorrow + 2 * DAY))),
+                "Partitions: " + partitions);
+        assertEquals(2, countRecords("operational_data_legacy"));
+        assertEquals(2, countRecords(partitionName(tomorrow)));
+
+        int removed = OperationalDataRecordCleaner.cleanRecords(Instant.ofEpochSecond(tomorrow + DAY + 12 * HOUR));
+
+        // The legacy and the first day partitions are dropped, the second day partition holding the cutoff is
+        // cleaned row by row.
+        assertEquals(1, removed);
+
+        partitions = getPartitions();
+        assertFalse(partitions.contains("operational_data_legacy"), "Partitions: " + partitions);
+        assertFalse(partitions.contains(partitionName(tomorrow)), "Partitions: " + partitions);
+        assertTrue(partitions.containsAll(Set.of("operational_data_default", partitionName(tomorrow + DAY),
+                partitionName(tomorrow + 2 * DAY), partitionName(tomorrow + 5 * DAY))), "Partitions: " + partitions);
+
+        assertEquals(List.of(day2Late, day3), getMonitoringDataTimestamps(tomorrow + 10 * DAY));
+    }
+
+    @Test
+    void doesNotCreatePartitionForRecordsInDefaultPartition() throws Exception {
+        long day20 = tomorrow + 20 * DAY;
+
+        // No partition exists for the day, the record is stored in the default partition.
+        storeRecords(createRecords(1), day20 + HOUR);
+        assertEquals(1, countRecords("operational_data_default"));
+
+        // Creating the partition for the day would move the record, the rest of the days are created.
+        assertEquals(6, OperationalDataRecordCleaner.createPartitions(Instant.ofEpochSecond(day20)));
+
+        Set<String> partitions = getPartitions();
+        assertFalse(partitions.contains(partitionName(day20)), "Partitions: " + partitions);
+        assertTrue(partitions.containsAll(Set.of(partitionName(day20 + DAY), partitionName(day20 + 6 * DAY))),
+                "Partitions: " + partitions);
+        assertEquals(1, countRecords("operational_data_default"));
+    }
+
+    private static List<OperationalDataRecord> createRecords(int count) {
+        List<OperationalDataRecord> records = new ArrayList<>();
+
+        for (int i = 0; i < count; i++) {
+            OperationalDataRecord record = new OperationalDataRecord();
+            record.setSecurityServerInternalIp("192.168.56.101");
+            record.setSecurityServerType(OpMonitoringData.SecurityServerType.CLIENT.getTypeString());
+            record.setRequestInTs(14743812670000L);
+            record.setResponseOutTs(14743812680000L);
+            record.setSucceeded(true);
+
+            records.add(record);
+        }
+
+        return records;
+    }
+
+    private static String partitionName(long dayStart) {
+        return "operational_data_" + PARTITION_DAY.format(Instant.ofEpochSecond(dayStart));
+    }
+
+    private static Set<String> getPartitions() throws Exception {
+        return doInTransaction(session -> new HashSet<>(session.createNativeQuery(
+                "SELECT c.relname FROM pg_inherits i JOIN pg_class c ON c.oid = i.inhrelid"
+                        + " WHERE i.inhparent = 'operational_data'::regclass", String.class)
+                .getResultList()));
+    }
+
+    private static long countRecords(String table) throws Exception {
+        return doInTransaction(session -> session.createNativeQuery("SELECT count(*) FROM " + table, Long.class)
+                .getSingleResult());
+    }
+
+    private static List<Long> getMonitoringDataTimestamps(long before) throws Exception {
+        return doInTransaction(session -> session.createNativeQuery(
+                        "SELECT monitoring_data_ts FROM operational_data WHERE monitoring_data_ts < :before"
+                                + " ORDER BY monitoring_data_ts", Long.class)
+                .setParameter("before", before)
+                .getResultList());
+    }
+}
@@ -29,16 +29,16 @@ import ee.ria.xroad.common.identifier.ServiceId;
 import ee.ria.xroad.common.opmonitoring.OpMonitoringData.SecurityServerType;
 import ee.ria.xroad.common.opmonitoring.OpMonitoringSystemProperties;
 
-import com.codahale.metrics.Counter;
+import com.codahale.metrics.DefaultSettableGauge;
 import com.codahale.metrics.Gauge;
 import com.codahale.metrics.Histogram;
 import com.codahale.metrics.MetricRegistry;
-import com.codahale.metrics.SlidingTimeWindowReservoir;
+import com.codahale.metrics.SettableGauge;
 import lombok.extern.slf4j.Slf4j;
 
-import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.TimeUnit;
 import java.util.function.Supplier;
 
@@ -52,6 +52,8 @@ import static ee.ria.xroad.opmonitordaemon.HealthDataMetricsUtil.getServiceTypeN
 /**
  * Health data metrics forwarded over JMX. Also, these metrics are used when
  * health data is requested using the getSecurityServerHealthData SOAP request.
+ * Records may be processed concurrently, the metrics of a service are looked
+ * up from the registry by name (or registered on first use) in constant time.
  */
 @Slf4j
 final class HealthDataMetrics {
@@ -66,13 +68,11 @@ final class HealthDataMetrics {
     static final String MONITORING_STARTUP_TIMESTAMP =
             "monitoringStartupTimestamp";
 
-    // The timestamps of last successful and unsuccessful requests are stored
-    // for each service that is handled for, and are provided when the
-    // respective gauge is queried.
-    private static Map<String, Long> requestTimestamps = new HashMap<>();
-
-    // Stores the service types of the services
-    private static Map<String, String> serviceTypes = new HashMap<>();
+    // The metric names of each service that has been handled for. The names
+    // contain the escaped service identifier, computing them once per service
+    // keeps the escaping out of processing each record.
+    private static final Map<ServiceId, ServiceMetricNames> METRIC_NAMES =
+            new ConcurrentHashMap<>();
 
     private HealthDataMetrics() {
     }
@@ -114,82 +114,60 @@ final class HealthDataMetrics {
                 continue;
             }
 
-            registerOrUpdateGauges(registry, serviceId, rec);
-            registerOrUpdateCounters(registry, serviceId, rec);
+            ServiceMetricNames names = METRIC_NAMES.computeIfAbsent(serviceId,
+                    ServiceMetricNames::create);
+
+            updateGauges(registry, names, rec);
+            updateCounters(registry, names, rec);
 
             if (rec.getSucceeded()) {
                 // Statistics of request duration and the sizes of the request
                 // and response are computed over the successful requests only.
-                registerOrUpdateHistograms(registry, serviceId, rec);
+                updateHistograms(registry, names, rec);
             }
         }
     }
 
-    private static void registerOrUpdateGauges(MetricRegistry registry,
-                                               ServiceId serviceId, OperationalDataRecord rec) {
+    private static void updateGauges(MetricRegistry registry,
+                                     ServiceMetricNames names, OperationalDataRecord rec) {
         // last request timestamp
-        String expectedGaugeName = getLastRequestTimestampGaugeName(serviceId,
-                rec.getSucceeded());
-        requestTimestamps.put(expectedGaugeName, rec.getResponseOutTs());
-        Gauge gauge = HealthDataMetricsUtil.findGauge(registry,
-                expectedGaugeName);
-        if (gauge == null) {
-            registry.register(expectedGaugeName,
-                    (Gauge<Long>) () -> requestTimestamps.get(
-                            expectedGaugeName));
-        }
+        setGauge(registry, names.lastRequestTimestamp(rec.getSucceeded()),
+                rec.getResponseOutTs());
 
         // service type
-        String serviceTypeGaugeName = getServiceTypeName(serviceId);
-        serviceTypes.put(serviceTypeGaugeName, rec.getServiceType());
-        Gauge serviceTypeGauge = HealthDataMetricsUtil.findGauge(registry,
-                serviceTypeGaugeName);
-        if (serviceTypeGauge == null) {
-            registry.register(serviceTypeGaugeName,
-                    (Gauge<String>) () -> serviceTypes.get(serviceTypeGaugeName));
-        }
+        setGauge(registry, names.serviceType(), rec.getServiceType());
     }
 
-    private static void registerOrUpdateCounters(MetricRegistry registry,
-                                                 ServiceId serviceId, OperationalDataRecord rec) {
-        String expectedCounterName = getRequestCounterName(serviceId,
-                rec.getSucceeded());
-        Counter counter = HealthDataMetricsUtil.findCounter(registry,
-                expectedCounterName);
-
-        if (counter == null) {
-            // Register and increment a new counter.
-            counter = new SlidingTimeWindowCounter(
-                    OP_MONITOR_HEALTH_STATS_PERIOD_SECONDS, TimeUnit.SECONDS);
-            registry.register(expectedCounterName, counter);
-        }
+    private static <T> void setGauge(MetricRegistry registry, String name, T value) {
+        SettableGauge<T> gauge = registry.gauge(name, DefaultSettableGauge::new);
+        gauge.setValue(value);
+    }
 
-        counter.inc();
+    private static void updateCounters(MetricRegistry registry,
+                                       ServiceMetricNames names, OperationalDataRecord rec) {
+        registry.counter(names.requestCount(rec.getSucceeded()),
+                () -> new SlidingTimeWindowCounter(
+                        OP_MONITOR_HEALTH_STATS_PERIOD_SECONDS, TimeUnit.SECONDS))
+                .inc();
     }
 
-    private static void registerOrUpdateHistograms(MetricRegistry registry,
-                                                   ServiceId serviceId, OperationalDataRecord rec) {
-        registerOrUpdateHistogram(registry, getRequestDurationName(serviceId), getRequestDuration(rec));
+    private static void updateHistograms(MetricRegistry registry,
+                                         ServiceMetricNames names, OperationalDataRecord rec) {
+        updateHistogram(registry, names.requestDuration(), getRequestDuration(rec));
 
-        registerOrUpdateHistogram(registry, getRequestSizeName(serviceId), rec.getRequestSize());
-        registerOrUpdateHistogram(registry, getResponseSizeName(serviceId), rec.getResponseSize());
+        updateHistogram(registry, names.requestSize(), rec.getRequestSize());
+        updateHistogram(registry, names.responseSize(), rec.getResponseSize());
     }
 
-    private static void registerOrUpdateHistogram(MetricRegistry registry, String histogramName, Long newValue) {
+    private static void updateHistogram(MetricRegistry registry, String histogramName, Long newValue) {
 
         if (newValue == null) return;
 
-        Histogram histogram = HealthDataMetricsUtil.findHistogram(registry, histogramName);
-
-        if (histogram == null) {
-            // Add a histogram corresponding to the service and update it.
-            histogram = registry.register(histogramName,
-                    new Histogram(new SlidingTimeWindowReservoir(
-                            OP_MONITOR_HEALTH_STATS_PERIOD_SECONDS,
-                            TimeUnit.SECONDS)));
-        }
-
-        histogram.update(newValue);
+        registry.histogram(histogramName,
+                () -> new Histogram(new SlidingTimeWindowHistogramReservoir(
+                        OP_MONITOR_HEALTH_STATS_PERIOD_SECONDS,
+                        TimeUnit.SECONDS)))
+                .update(newValue);
     }
 
     /**
@@ -224,4 +202,33 @@ final class HealthDataMetrics {
                 (Gauge<Long>) startupTimestampProvider::get);
     }
 
+    private record ServiceMetricNames(String lastSuccessfulRequestTimestamp,
+                                      String lastUnsuccessfulRequestTimestamp,
+                                      String successfulRequestCount,
+                                      String unsuccessfulRequestCount,
+                                      String requestDuration,
+                                      String requestSize,
+                                      String responseSize,
+                                      String serviceType) {
+
+        static ServiceMetricNames create(ServiceId serviceId) {
+            return new ServiceMetricNames(
+                    getLastRequestTimestampGaugeName(serviceId, true),
+                    getLastRequestTimestampGaugeName(serviceId, false),
+                    getRequestCounterName(serviceId, true),
+                    getRequestCounterName(serviceId, false),
+                    getRequestDurationName(serviceId),
+                    getRequestSizeName(serviceId),
+                    getResponseSizeName(serviceId),
+                    getServiceTypeName(serviceId));
+        }
+
+        String lastRequestTimestamp(boolean success) {
+            return success ? lastSuccessfulRequestTimestamp : lastUnsuccessfulRequestTimestamp;
+        }
+
+        String requestCount(boolean success) {
+            return success ? successfulRequestCount : unsuccessfulRequestCount;
+        }
+    }
 }
@@ -31,17 +31,14 @@ import com.codahale.metrics.Counter;
 import com.codahale.metrics.Gauge;
 import com.codahale.metrics.Histogram;
 import com.codahale.metrics.MetricRegistry;
-import lombok.extern.slf4j.Slf4j;
 import org.apache.commons.lang3.StringUtils;
 import org.apache.commons.text.StringEscapeUtils;
 
-import java.util.SortedMap;
 import java.util.regex.Pattern;
 
 /**
  * Helper utilities for preparing and processing health data metrics.
  */
-@Slf4j
 final class HealthDataMetricsUtil {
 
     // The template of the names of the metrics that are registered each time
@@ -228,18 +225,7 @@ final class HealthDataMetricsUtil {
      * @return the found gauge or null if it does not exist
      */
     static Gauge findGauge(MetricRegistry registry, String expectedGaugeName) {
-        SortedMap<String, Gauge> gauges = registry.getGauges(
-                (name, metric) -> name.matches(HealthDataMetricsUtil
-                        .formatMetricMatchRegexp(expectedGaugeName))
-        );
-
-        if (gauges.size() > 1) {
-            // Should not happen because we use a strict regexp.
-            log.warn("Multiple gauges matched the name "
-                    + expectedGaugeName);
-        }
-
-        return gauges.isEmpty() ? null : gauges.values().iterator().next();
+        return registry.getMetrics().get(expectedGaugeName) instanceof Gauge gauge ? gauge : null;
     }
 
     /**
@@ -249,18 +235,7 @@ final class HealthDataMetricsUtil {
      */
     static Counter findCounter(MetricRegistry registry,
                                String expectedCounterName) {
-        SortedMap<String, Counter> counters = registry.getCounters(
-                (name, metric) -> name.matches(HealthDataMetricsUtil
-                        .formatMetricMatchRegexp(expectedCounterName))
-        );
-
-        if (counters.size() > 1) {
-            // Should not happen because we use a strict regexp.
-            log.warn("Multiple counters matched the name "
-                    + expectedCounterName);
-        }
-
-        return counters.isEmpty() ? null : counters.values().iterator().next();
+        return registry.getMetrics().get(expectedCounterName) instanceof Counter counter ? counter : null;
     }
 
     /**
@@ -271,18 +246,6 @@ final class HealthDataMetricsUtil {
      */
     static Histogram findHistogram(MetricRegistry registry,
                                    String expectedHistogramName) {
-        SortedMap<String, Histogram> histograms = registry.getHistograms(
-                (name, metric) -> name.matches(HealthDataMetricsUtil
-                        .formatMetricMatchRegexp(expectedHistogramName))
-        );
-
-        if (histograms.size() > 1) {
-            // Should not happen because we use a strict regexp.
-            log.warn("Multiple histograms matched the name "
-                    + expectedHistogramName);
-        }
-
-        return histograms.isEmpty() ? null
-                : histograms.values().iterator().next();
+        return registry.getMetrics().get(expectedHistogramName) instanceof Histogram histogram ? histogram : null;
     }
 }
@@ -0,0 +1,197 @@
+/*
+ * The MIT License
+ * Copyright (c) 2019- Nordic Institute for Interoperability Solutions (NIIS)
+ * Copyright (c) 2018 Estonian Information System Authority (RIA),
+ * Nordic Institute for Interoperability Solutions (NIIS), Population Register Centre (VRK)
+ * Copyright (c) 2015-2017 Estonian Information System Authority (RIA), Population Register Centre (VRK)
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package ee.ria.xroad.opmonitordaemon;
+
+import ee.ria.xroad.common.CodedException;
+import ee.ria.xroad.common.conf.globalconf.GlobalConfProvider;
+import ee.ria.xroad.common.identifier.ClientId;
+import ee.ria.xroad.common.identifier.SecurityServerId;
+import ee.ria.xroad.common.identifier.ServiceId;
+import ee.ria.xroad.common.message.SoapMessageImpl;
+import ee.ria.xroad.opmonitordaemon.OperationalDataRollup.Granularity;
+import ee.ria.xroad.opmonitordaemon.OperationalDataRollup.Statistics;
+import ee.ria.xroad.opmonitordaemon.OperationalDataRollupManager.Rollups;
+import ee.ria.xroad.opmonitordaemon.message.AggregateStatisticsType;
+import ee.ria.xroad.opmonitordaemon.message.AggregateType;
+import ee.ria.xroad.opmonitordaemon.message.AggregatesType;
+import ee.ria.xroad.opmonitordaemon.message.GetSecurityServerOperationalDataAggregatesResponseType;
+import ee.ria.xroad.opmonitordaemon.message.GetSecurityServerOperationalDataAggregatesType;
+import ee.ria.xroad.opmonitordaemon.message.SearchCriteriaType;
+
+import lombok.extern.slf4j.Slf4j;
+import org.apache.commons.lang3.StringUtils;
+
+import java.io.OutputStream;
+import java.util.List;
+import java.util.function.Consumer;
+
+import static ee.ria.xroad.common.ErrorCodes.X_INTERNAL_ERROR;
+
+/**
+ * Query handler for operational data aggregates requests. The aggregates are
+ * read from the rollups maintained while storing operational data, instead of
+ * aggregating the records on each request. Clients other than the owner of
+ * the security server and the central monitoring client only receive the
+ * aggregates of their own services.
+ */
+@Slf4j
+class OperationalDataAggregatesRequestHandler extends OperationalDataRequestHandler {
+
+    OperationalDataAggregatesRequestHandler(GlobalConfProvider globalConfProvider) {
+        super(globalConfProvider);
+    }
+
+    @Override
+    public void handle(SoapMessageImpl requestSoap, OutputStream out,
+                       Consumer<String> contentTypeCallback) throws Exception {
+        log.trace("handle()");
+
+        ClientId clientId = requestSoap.getClient();
+        SecurityServerId serverId = requestSoap.getSecurityServer();
+
+        GetSecurityServerOperationalDataAggregatesType requestData = getRequestData(
+                requestSoap, GetSecurityServerOperationalDataAggregatesType.class);
+
+        SearchCriteriaType searchCriteria = requestData.getSearchCriteria();
+        long recordsFrom = searchCriteria.getRecordsFrom();
+        long recordsTo = searchCriteria.getRecordsTo();
+        long recordsAvailableBefore = getRecordsAvailableBefore();
+
+        checkTimestamps(recordsFrom, recordsTo, recordsAvailableBefore);
+
+        ClientId serviceProviderId = searchCriteria.getClient();
+        Granularity granularity = Granularity.valueOf(requestData.getGranularity().value());
+
+        log.debug("Handle getSecurityServerOperationalDataAggregates: clientId: {},"
+                        + " recordsFrom: {}, recordsTo: {}, granularity: {},"
+                        + " serviceProviderId: {}",
+                clientId, recordsFrom, recordsTo, granularity,
+                serviceProviderId);
+
+        GetSecurityServerOperationalDataAggregatesResponseType aggregatesResponse =
+                buildAggregatesResponse(getClientForFilter(clientId, serverId),
+                        granularity, recordsFrom, recordsTo, serviceProviderId,
+                        recordsAvailableBefore);
+
+        SoapMessageImpl response = createResponse(requestSoap,
+                OBJECT_FACTORY.createGetSecurityServerOperationalDataAggregatesResponse(
+                        aggregatesResponse));
+
+        contentTypeCallback.accept(response.getContentType());
+        out.write(response.getBytes());
+    }
+
+    private GetSecurityServerOperationalDataAggregatesResponseType buildAggregatesResponse(
+            ClientId filterByClient, Granularity granularity, long recordsFrom,
+            long recordsTo, ClientId filterByServiceProvider,
+            long recordsAvailableBefore) {
+        GetSecurityServerOperationalDataAggregatesResponseType aggregatesResponse =
+                OBJECT_FACTORY.createGetSecurityServerOperationalDataAggregatesResponseType();
+
+        // Only the periods that have ended before the records available
+        // before timestamp are complete. The first incomplete period is
+        // served by a later query, when its records are all available.
+        long firstIncompletePeriodStart = granularity.periodStart(recordsAvailableBefore);
+
+        if (recordsTo >= firstIncompletePeriodStart) {
+            recordsTo = firstIncompletePeriodStart - 1;
+
+            aggregatesResponse.setNextRecordsFrom(Math.max(recordsFrom, firstIncompletePeriodStart));
+        }
+
+        Rollups rollups = recordsTo >= recordsFrom
+                ? getRollups(granularity, recordsFrom, recordsTo, filterByClient, filterByServiceProvider)
+                : new Rollups(List.of(), null);
+
+        AggregatesType aggregates = OBJECT_FACTORY.createAggregatesType();
+        rollups.rollups().forEach(rollup -> aggregates.getAggregate().add(buildAggregate(rollup)));
+
+        aggregatesResponse.setAggregatesCount(aggregates.getAggregate().size());
+        aggregatesResponse.setAggregates(aggregates);
+
+        if (rollups.nextRecordsFrom() != null) {
+            aggregatesResponse.setNextRecordsFrom(rollups.nextRecordsFrom());
+        }
+
+        return aggregatesResponse;
+    }
+
+    protected long getRecordsAvailableBefore() {
+        return getRecordsAvailableBeforeTimestamp();
+    }
+
+    protected Rollups getRollups(Granularity granularity, long recordsFrom,
+                                 long recordsTo, ClientId filterByClient,
+                                 ClientId filterByServiceProvider) {
+        try {
+            return OperationalDataRollupManager.queryRollups(granularity,
+                    recordsFrom, recordsTo, filterByClient,
+                    filterByServiceProvider);
+        } catch (Exception e) {
+            log.error("Failed to get aggregates for response", e);
+
+            throw new CodedException(X_INTERNAL_ERROR,
+                    "Failed to get aggregates for response: " + e.getMessage());
+        }
+    }
+
+    private static AggregateType buildAggregate(OperationalDataRollup rollup) {
+        AggregateType aggregate = OBJECT_FACTORY.createAggregateType();
+
+        aggregate.setPeriodStart(rollup.getPeriodStart());
+        aggregate.setSecurityServerType(rollup.getSecurityServerType());
+        aggregate.setService(ServiceId.Conf.create(
+                rollup.getServiceXRoadInstance(),
+                rollup.getServiceMemberClass(),
+                rollup.getServiceMemberCode(),
+                StringUtils.defaultIfEmpty(rollup.getServiceSubsystemCode(), null),
+                rollup.getServiceCode(),
+                StringUtils.defaultIfEmpty(rollup.getServiceVersion(), null)));
+        aggregate.setSuccessfulRequestCount(rollup.getSuccessfulRequestCount());
+        aggregate.setUnsuccessfulRequestCount(rollup.getUnsuccessfulRequestCount());
+        aggregate.setRequestDuration(buildStatistics(rollup.getRequestDuration()));
+        aggregate.setRequestSize(buildStatistics(rollup.getRequestSize()));
+        aggregate.setResponseSize(buildStatistics(rollup.getResponseSize()));
+
+        return aggregate;
+    }
+
+    private static AggregateStatisticsType buildStatistics(Statistics statistics) {
+        if (statistics == null || statistics.getCount() == 0) {
+            return null;
+        }
+
+        AggregateStatisticsType result = OBJECT_FACTORY.createAggregateStatisticsType();
+
+        result.setCount(statistics.getCount());
+        result.setMin(statistics.getMin());
+        result.setAverage(statistics.getAverage());
+        result.setMax(statistics.getMax());
+        result.setStdDev(statistics.getStdDev());
+
+        return result;
+    }
+}
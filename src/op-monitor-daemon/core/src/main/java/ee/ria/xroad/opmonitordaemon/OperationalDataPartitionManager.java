@@ -0,0 +1,111 @@
+/*
+ * The MIT License
+ * Copyright (c) 2019- Nordic Institute for Interoperability Solutions (NIIS)
+ * Copyright (c) 2018 Estonian Information System Authority (RIA),
+ * Nordic Institute for Interoperability Solutions (NIIS), Population Register Centre (VRK)
+ * Copyright (c) 2015-2017 Estonian Information System Authority (RIA), Population Register Centre (VRK)
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package ee.ria.xroad.opmonitordaemon;
+
+import lombok.AccessLevel;
+import lombok.NoArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.hibernate.Session;
+import org.hibernate.dialect.PostgreSQLDialect;
+import org.hibernate.engine.spi.SessionFactoryImplementor;
+
+import java.time.Instant;
+import java.time.temporal.ChronoUnit;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Manages the time-range partitions of the operational_data table. On PostgreSQL the table is partitioned by
+ * monitoring_data_ts, one partition per UTC day (see the op-monitor database changelog), so that outdated records
+ * can be removed by dropping whole partitions. On other databases the table is not partitioned and the methods of
+ * this class do nothing.
+ */
+@Slf4j
+@NoArgsConstructor(access = AccessLevel.PRIVATE)
+final class OperationalDataPartitionManager {
+
+    private static final long SECONDS_PER_DAY = TimeUnit.DAYS.toSeconds(1);
+
+    /**
+     * Creates the missing daily partitions starting from the day of the given instant.
+     * @param session database session
+     * @param from    the first day to create a partition for
+     * @param days    number of consecutive days to create partitions for
+     * @return the number of created partitions
+     */
+    static int createPartitions(Session session, Instant from, int days) {
+        if (!isPartitioned(session)) {
+            return 0;
+        }
+
+        long dayStart = from.truncatedTo(ChronoUnit.DAYS).getEpochSecond();
+        int created = 0;
+
+        for (int i = 0; i < days; i++) {
+            long rangeFrom = dayStart + i * SECONDS_PER_DAY;
+
+            Boolean result = session.createNativeQuery(
+                            "SELECT create_operational_data_partition(:rangeFrom, :rangeTo)", Boolean.class)
+                    .setParameter("rangeFrom", rangeFrom)
+                    .setParameter("rangeTo", rangeFrom + SECONDS_PER_DAY)
+                    .getSingleResult();
+
+            if (Boolean.TRUE.equals(result)) {
+                log.debug("Created operational data partition for records from {}", Instant.ofEpochSecond(rangeFrom));
+                created++;
+            }
+        }
+
+        return created;
+    }
+
+    /**
+     * Detaches and drops the partitions holding only records older than the given timestamp. The records of the
+     * partition containing the timestamp itself are not touched.
+     * @param session       database session
+     * @param beforeSeconds monitoring data timestamp in seconds
+     * @return the number of dropped partitions
+     */
+    static int dropPartitionsBefore(Session session, long beforeSeconds) {
+        if (!isPartitioned(session)) {
+            return 0;
+        }
+
+        return session.createNativeQuery("SELECT drop_operational_data_partitions(:before)", Integer.class)
+                .setParameter("before", beforeSeconds)
+                .getSingleResult();
+    }
+
+    static boolean isPartitioned(Session session) {
+        if (!(session.getSessionFactory().unwrap(SessionFactoryImplementor.class)
+                .getJdbcServices().getDialect() instanceof PostgreSQLDialect)) {
+            return false;
+        }
+
+        return session.createNativeQuery("SELECT count(*) FROM pg_partitioned_table"
+                        + " WHERE partrelid = to_regclass('operational_data')", Long.class)
+                .getSingleResult() > 0;
+    }
+}
@@ -45,12 +45,17 @@ import java.util.concurrent.TimeUnit;
 import static ee.ria.xroad.opmonitordaemon.OpMonitorDaemonDatabaseCtx.doInTransaction;
 
 /**
- * Deletes outdated operational data records from the database.
+ * Deletes outdated operational data records and rollups from the database.
+ * When the operational data table is partitioned, whole outdated partitions
+ * are dropped and only the records of the partition containing the cutoff are
+ * deleted row by row. Partitions for the upcoming days are created in advance.
  */
 @Slf4j
 @NoArgsConstructor(access = AccessLevel.PRIVATE)
 public final class OperationalDataRecordCleaner {
 
+    private static final int PARTITIONS_CREATED_AHEAD_DAYS = 7;
+
     /**
      * Initializes the operational data recorder cleaner creating an operational
      * data records cleaner job and scheduling a
@@ -59,10 +64,13 @@ public final class OperationalDataRecordCleaner {
      * @param jobManager the job manager
      */
     public static void init(JobManager jobManager) {
+        createUpcomingPartitions();
         registerCronJob(jobManager, OpMonitoringSystemProperties.getOpMonitorCleanInterval());
     }
 
     public static void doClean() {
+        createUpcomingPartitions();
+
         try {
             handleCleanup();
         } catch (Exception e) {
@@ -71,6 +79,25 @@ public final class OperationalDataRecordCleaner {
         }
     }
 
+    private static void createUpcomingPartitions() {
+        try {
+            createPartitions(TimeUtils.now());
+        } catch (Exception e) {
+            log.error("Failed to create operational data partitions", e);
+        }
+    }
+
+    static int createPartitions(Instant from) throws Exception {
+        int created = doInTransaction(session -> OperationalDataPartitionManager.createPartitions(session, from,
+                PARTITIONS_CREATED_AHEAD_DAYS));
+
+        if (created > 0) {
+            log.info("Created {} operational data partitions", created);
+        }
+
+        return created;
+    }
+
     private static void handleCleanup() throws Exception {
         cleanRecords(
                 TimeUtils.now().minus(OpMonitoringSystemProperties.getOpMonitorKeepRecordsForDays(), ChronoUnit.DAYS));
@@ -79,10 +106,22 @@ public final class OperationalDataRecordCleaner {
     static int cleanRecords(Instant before) throws Exception {
         log.trace("cleanRecords({})", before);
 
+        long beforeSeconds = TimeUnit.MILLISECONDS.toSeconds(before.toEpochMilli());
+
+        // Dropping partitions locks the whole table, so it is done in its own
+        // short transaction. Any failure aborts the cleanup instead of falling
+        // back to deleting the records of the whole table row by row.
+        int dropped = doInTransaction(session ->
+                OperationalDataPartitionManager.dropPartitionsBefore(session, beforeSeconds));
+
+        if (dropped > 0) {
+            log.info("Dropped {} outdated operational data partitions", dropped);
+        }
+
         return doInTransaction(session -> {
             String hql =
                     "delete OperationalDataRecord r where r.monitoringDataTs < "
-                            + TimeUnit.MILLISECONDS.toSeconds(before.toEpochMilli());
+                            + beforeSeconds;
 
             int removed = session.createQuery(hql).executeUpdate();
 
@@ -94,6 +133,13 @@ public final class OperationalDataRecordCleaner {
                         + " the database", removed);
             }
 
+            int removedRollups = OperationalDataRollupManager.deleteRollupsBefore(session, beforeSeconds);
+
+            if (removedRollups > 0) {
+                log.info("Removed {} outdated operational data rollups from"
+                        + " the database", removedRollups);
+            }
+
             return removed;
         });
     }
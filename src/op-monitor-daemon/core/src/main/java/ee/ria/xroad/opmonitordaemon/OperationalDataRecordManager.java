@@ -28,12 +28,22 @@ package ee.ria.xroad.opmonitordaemon;
 import ee.ria.xroad.common.db.HibernateUtil;
 import ee.ria.xroad.common.identifier.ClientId;
 import ee.ria.xroad.common.opmonitoring.OpMonitoringSystemProperties;
+import ee.ria.xroad.common.util.CachingStream;
 
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import lombok.Getter;
+import lombok.RequiredArgsConstructor;
 import lombok.Setter;
 import lombok.extern.slf4j.Slf4j;
 import org.hibernate.Session;
 import org.hibernate.query.Query;
 
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
 import java.util.Collections;
 import java.util.HashSet;
 import java.util.List;
@@ -51,6 +61,8 @@ final class OperationalDataRecordManager {
 
     private static final int DEFAULT_BATCH_SIZE = 50;
 
+    private static final String RECORDS_FIELD = "records";
+
     @Setter
     private static int maxRecordsInPayload = OpMonitoringSystemProperties.getOpMonitorMaxRecordsInPayload();
 
@@ -87,10 +99,35 @@ final class OperationalDataRecordManager {
         return records;
     }
 
+    /**
+     * Selects operational data records using the same criteria and overflow rules as
+     * {@link #queryRecords(long, long, ClientId, ClientId, Set)}, without loading them. The records are read from a
+     * database cursor and serialized one at a time into a temporary file in the same transaction in which the overflow
+     * boundary is resolved, so the number of records in the returned payload is the number of records written.
+     */
+    static OperationalDataPayload selectRecords(long recordsFrom, long recordsTo, ClientId clientFilter,
+                                                ClientId serviceProviderFilter,
+                                                Set<String> outputFields) throws Exception {
+        CachingStream cache = new CachingStream();
+
+        try {
+            return doInTransaction(session -> writeOperationalDataInTransaction(session, recordsFrom, recordsTo,
+                    clientFilter, serviceProviderFilter, outputFields, cache));
+        } catch (Exception e) {
+            cache.consume();
+
+            throw e;
+        }
+    }
+
     private static Void storeInTransaction(Session session, List<OperationalDataRecord> records, long timestamp) {
         int storedCount = 0;
         int batchSize = getConfiguredBatchSize(session);
 
+        // Flushing every batchSize records sends the inserts as a single JDBC
+        // batch, also when no batch size is configured for the database.
+        session.setJdbcBatchSize(batchSize);
+
         for (OperationalDataRecord record : records) {
             record.setMonitoringDataTs(timestamp);
             session.save(record);
@@ -101,6 +138,8 @@ final class OperationalDataRecordManager {
             }
         }
 
+        OperationalDataRollupManager.updateRollups(session, records);
+
         return null;
     }
 
@@ -131,48 +170,82 @@ final class OperationalDataRecordManager {
      * @param outputFields          list of the requested operational data field
      * @return operational data records.
      */
-    @SuppressWarnings("unchecked")
     private static OperationalDataRecords queryOperationalDataInTransaction(Session session, long recordsFrom,
                                                                             long recordsTo, ClientId clientFilter,
                                                                             ClientId serviceProviderFilter,
                                                                             Set<String> outputFields) {
+        SelectedRecords selected = selectOperationalDataInTransaction(session, recordsFrom, recordsTo, clientFilter,
+                serviceProviderFilter, outputFields);
 
-        final OperationalDataRecordQuery
-                query = new OperationalDataRecordQuery(session, clientFilter, serviceProviderFilter, outputFields);
-        query.between(recordsFrom, recordsTo);
-        query.orderByAsc(MONITORING_DATA_TS);
-        query.setMaxRecords(maxRecordsInPayload);
-        OperationalDataRecords records = new OperationalDataRecords(query.list());
+        OperationalDataRecords records = new OperationalDataRecords(selected.createQuery(session).list());
+        records.setNextRecordsFrom(selected.nextRecordsFrom());
 
-        // Check overflow.
-        if (records.size() == maxRecordsInPayload) {
-            log.trace("Check possible records overflow");
+        return records;
+    }
 
-            long lastMonitoringDataTs = records.getLastMonitoringDataTs();
-            final OperationalDataRecordQuery overflow =
-                    new OperationalDataRecordQuery(session, clientFilter, serviceProviderFilter, outputFields);
-            overflow.addOverflowCriteria(lastMonitoringDataTs);
-            OperationalDataRecords overflowRecords = new OperationalDataRecords(overflow.list());
+    private static CachedRecords writeOperationalDataInTransaction(Session session, long recordsFrom,
+                                                                   long recordsTo, ClientId clientFilter,
+                                                                   ClientId serviceProviderFilter,
+                                                                   Set<String> outputFields, CachingStream cache)
+            throws IOException {
+        SelectedRecords selected = selectOperationalDataInTransaction(session, recordsFrom, recordsTo, clientFilter,
+                serviceProviderFilter, outputFields);
 
-            records.removeRecordsByMonitoringDataTs(lastMonitoringDataTs);
-            records.append(overflowRecords);
+        int size = selected.write(session, QueryRequestHandler.OBJECT_WRITER, cache);
+
+        return new CachedRecords(cache, size, selected.nextRecordsFrom());
+    }
+
+    private static SelectedRecords selectOperationalDataInTransaction(Session session, long recordsFrom,
+                                                                      long recordsTo, ClientId clientFilter,
+                                                                      ClientId serviceProviderFilter,
+                                                                      Set<String> outputFields) {
+        long selectedTo = recordsTo;
+        Long nextRecordsFrom = null;
+
+        // Records sharing the timestamp of the last record that fits in the payload are included as overflow.
+        Long lastMonitoringDataTs = findMonitoringDataTs(session, recordsFrom, recordsTo, clientFilter,
+                serviceProviderFilter, maxRecordsInPayload - 1);
+
+        if (lastMonitoringDataTs != null) {
+            selectedTo = lastMonitoringDataTs;
 
             if (recordsOverflow(session, lastMonitoringDataTs, recordsTo, clientFilter, serviceProviderFilter)) {
                 log.debug("Records overflow, set nextRecordsFrom to {}", lastMonitoringDataTs + 1);
 
-                records.setNextRecordsFrom(lastMonitoringDataTs + 1);
+                nextRecordsFrom = lastMonitoringDataTs + 1;
             }
         }
 
-        return records;
+        return new SelectedRecords(recordsFrom, selectedTo, clientFilter, serviceProviderFilter, outputFields,
+                nextRecordsFrom);
+    }
+
+    private static Long findMonitoringDataTs(Session session, long recordsFrom, long recordsTo,
+                                             ClientId clientFilter, ClientId serviceProviderFilter, int position) {
+        final OperationalDataRecordQuery query =
+                new OperationalDataRecordQuery(session, clientFilter, serviceProviderFilter,
+                        Collections.singleton(MONITORING_DATA_TS));
+        query.between(recordsFrom, recordsTo);
+        query.orderByAsc(MONITORING_DATA_TS);
+        query.setFirstRecord(position);
+        query.setMaxRecords(1);
+
+        List<OperationalDataRecord> result = query.list();
+
+        return result.isEmpty() ? null : result.getFirst().getMonitoringDataTs();
     }
 
     private static void removeMonitoringDataTsIfNotSpecified(OperationalDataRecords records, Set<String> outputFields) {
-        if (!outputFields.isEmpty() && !outputFields.contains(MONITORING_DATA_TS)) {
+        if (isMonitoringDataTsRemoved(outputFields)) {
             records.getRecords().forEach(i -> i.setMonitoringDataTs(null));
         }
     }
 
+    private static boolean isMonitoringDataTsRemoved(Set<String> outputFields) {
+        return !outputFields.isEmpty() && !outputFields.contains(MONITORING_DATA_TS);
+    }
+
     private static boolean recordsOverflow(Session session, long lastMonitoringDataTs, long recordsTo,
                                            ClientId clientFilter, ClientId serviceProviderFilter) {
         // Indicate overflow only if some records are not included.
@@ -195,4 +268,84 @@ final class OperationalDataRecordManager {
 
         return !query.list().isEmpty();
     }
+
+    /**
+     * Search criteria of the operational data records to return, with the records to date limited by the overflow
+     * rules.
+     */
+    private record SelectedRecords(long recordsFrom, long recordsTo, ClientId clientFilter,
+                                   ClientId serviceProviderFilter, Set<String> outputFields, Long nextRecordsFrom) {
+
+        private OperationalDataRecordQuery createQuery(Session session) {
+            final OperationalDataRecordQuery query =
+                    new OperationalDataRecordQuery(session, clientFilter, serviceProviderFilter, outputFields);
+            query.between(recordsFrom, recordsTo);
+            query.orderByAsc(MONITORING_DATA_TS);
+
+            return query;
+        }
+
+        /**
+         * Serializes the records as JSON one at a time while they are read from a database cursor.
+         * @return the number of records written
+         */
+        private int write(Session session, ObjectWriter objectWriter, OutputStream out) throws IOException {
+            final OperationalDataRecordQuery query = createQuery(session);
+            final ObjectWriter writer = objectWriter.without(SerializationFeature.FLUSH_AFTER_WRITE_VALUE);
+            boolean removeMonitoringDataTs = isMonitoringDataTsRemoved(outputFields);
+            int[] written = {0};
+
+            try (JsonGenerator generator = writer.createGenerator(out)) {
+                generator.writeStartObject();
+                generator.writeArrayFieldStart(RECORDS_FIELD);
+
+                query.forEach(record -> {
+                    if (removeMonitoringDataTs) {
+                        record.setMonitoringDataTs(null);
+                    }
+                    try {
+                        writer.writeValue(generator, record);
+                    } catch (IOException e) {
+                        throw new UncheckedIOException(e);
+                    }
+                    written[0]++;
+                });
+
+                generator.writeEndArray();
+                generator.writeEndObject();
+            } catch (UncheckedIOException e) {
+                throw e.getCause();
+            }
+
+            return written[0];
+        }
+    }
+
+    /**
+     * Operational data records written by {@link #selectRecords} into a temporary file.
+     */
+    @RequiredArgsConstructor
+    private static final class CachedRecords implements OperationalDataPayload {
+        private final CachingStream cache;
+        private final int size;
+        @Getter
+        private final Long nextRecordsFrom;
+
+        @Override
+        public int size() {
+            return size;
+        }
+
+        @Override
+        public void writePayload(OutputStream out) throws IOException {
+            try (InputStream in = cache.getCachedContents()) {
+                in.transferTo(out);
+            }
+        }
+
+        @Override
+        public void close() {
+            cache.consume();
+        }
+    }
 }
@@ -47,6 +47,8 @@ import java.util.HashSet;
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
+import java.util.function.Consumer;
+import java.util.stream.Stream;
 
 import static ee.ria.xroad.common.opmonitoring.OpMonitoringData.CLIENT_MEMBER_CLASS;
 import static ee.ria.xroad.common.opmonitoring.OpMonitoringData.CLIENT_MEMBER_CODE;
@@ -64,6 +66,8 @@ import static ee.ria.xroad.opmonitordaemon.OperationalDataOutputSpecFields.PUBLI
 @SuppressWarnings("checkstyle:magicnumber")
 final class OperationalDataRecordQuery {
 
+    private static final int FETCH_SIZE = 500;
+
     private final CriteriaBuilder cb;
     private final CriteriaQuery<Tuple> query;
     private final Root<OperationalDataRecord> from;
@@ -72,6 +76,9 @@ final class OperationalDataRecordQuery {
     @Setter
     private int maxRecords = Integer.MAX_VALUE;
 
+    @Setter
+    private int firstRecord = 0;
+
     private Predicate pred;
     private List<Selection<?>> projection = new ArrayList<>();
     private jakarta.persistence.criteria.Order order = null;
@@ -150,19 +157,29 @@ final class OperationalDataRecordQuery {
                         member.getSubsystemCode()));
     }
 
-    void addOverflowCriteria(long monitoringDataTs) {
-        pred = cb.and(pred, cb.equal(from.get(MONITORING_DATA_TS), monitoringDataTs));
+    List<OperationalDataRecord> list() {
+        List<OperationalDataRecord> records = new ArrayList<>();
+        forEach(records::add);
+        return records;
     }
 
-    List<OperationalDataRecord> list() {
+    /**
+     * Passes the matching records to the consumer one at a time while reading them from a database cursor, so the
+     * result set is never held in memory as a whole. Must be called within a transaction.
+     */
+    void forEach(Consumer<OperationalDataRecord> consumer) {
         query.multiselect(projection).where(pred);
         if (order != null) {
             query.orderBy(order);
         }
-        return transform(session.createQuery(query)
+        try (Stream<Tuple> result = session.createQuery(query)
                 .setReadOnly(true)
+                .setFetchSize(FETCH_SIZE)
+                .setFirstResult(firstRecord)
                 .setMaxResults(maxRecords)
-                .getResultList());
+                .getResultStream()) {
+            result.map(OperationalDataRecordQuery::transform).forEach(consumer);
+        }
     }
 
     void between(long fromTs, long toTs) {
@@ -174,7 +191,7 @@ final class OperationalDataRecordQuery {
     }
 
     /**
-     * Transforms a list of Tuple to list of OperationalDataRecord
+     * Transforms a Tuple to OperationalDataRecord
      *
      * A tuple represents a partial OperationalDataRecord. Assumes that the column aliases in a tuple match the field
      * names and a setter for the field exists (uses reflection). Assumes that the values can
@@ -182,24 +199,19 @@ final class OperationalDataRecordQuery {
      * @see #configureOutputFields
      * @see OperationalDataRecord
      */
-    private static List<OperationalDataRecord> transform(List<Tuple> result) {
-        List<OperationalDataRecord> tmp = new ArrayList<>(result.size());
-
-        for (Tuple t : result) {
-            final OperationalDataRecord record = new OperationalDataRecord();
-            for (TupleElement<?> te : t.getElements()) {
-                final Method method = SETTERS.get(te.getAlias());
-                if (method != null) {
-                    try {
-                        method.invoke(record, t.get(te));
-                    } catch (InvocationTargetException | IllegalAccessException e) {
-                        throw new IllegalArgumentException("Unable to transform", e);
-                    }
+    private static OperationalDataRecord transform(Tuple t) {
+        final OperationalDataRecord record = new OperationalDataRecord();
+        for (TupleElement<?> te : t.getElements()) {
+            final Method method = SETTERS.get(te.getAlias());
+            if (method != null) {
+                try {
+                    method.invoke(record, t.get(te));
+                } catch (InvocationTargetException | IllegalAccessException e) {
+                    throw new IllegalArgumentException("Unable to transform", e);
                 }
             }
-            tmp.add(record);
         }
-        return tmp;
+        return record;
     }
 
     /*
@@ -28,12 +28,15 @@ package ee.ria.xroad.opmonitordaemon;
 import com.fasterxml.jackson.annotation.JsonCreator;
 import com.fasterxml.jackson.annotation.JsonIgnore;
 import com.fasterxml.jackson.annotation.JsonProperty;
+import com.fasterxml.jackson.core.JsonGenerator;
 import com.fasterxml.jackson.core.JsonProcessingException;
 import com.fasterxml.jackson.databind.ObjectWriter;
 import lombok.Getter;
 import lombok.Setter;
 import lombok.ToString;
 
+import java.io.IOException;
+import java.io.OutputStream;
 import java.util.ArrayList;
 import java.util.List;
 
@@ -41,7 +44,7 @@ import java.util.List;
  * Represents a payload of the request getSecurityServerOperationalData.
  */
 @ToString
-class OperationalDataRecords {
+class OperationalDataRecords implements OperationalDataPayload {
 
     @Getter
     @JsonProperty("records")
@@ -60,23 +63,19 @@ class OperationalDataRecords {
         this.records = records;
     }
 
-    int size() {
+    @Override
+    public int size() {
         return records.size();
     }
 
-    void append(OperationalDataRecords operationalDataRecords) {
-        records.addAll(operationalDataRecords.getRecords());
-    }
-
-    void removeRecordsByMonitoringDataTs(long monitoringDataTs) {
-        records.removeIf(i -> i.getMonitoringDataTs() == monitoringDataTs);
-    }
-
-    Long getLastMonitoringDataTs() {
-        return records.isEmpty() ? null : records.getLast().getMonitoringDataTs();
-    }
-
     String getPayload(ObjectWriter objectWriter) throws JsonProcessingException {
         return objectWriter.writeValueAsString(this);
     }
+
+    @Override
+    public void writePayload(OutputStream out) throws IOException {
+        try (JsonGenerator generator = QueryRequestHandler.OBJECT_WRITER.createGenerator(out)) {
+            QueryRequestHandler.OBJECT_WRITER.writeValue(generator, this);
+        }
+    }
 }
@@ -44,7 +44,6 @@ import jakarta.xml.bind.Marshaller;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 
-import java.io.IOException;
 import java.io.OutputStream;
 import java.util.HashMap;
 import java.util.HashSet;
@@ -165,8 +164,7 @@ class OperationalDataRequestHandler extends QueryRequestHandler {
             long recordsTo,
             ClientId filterByServiceProvider,
             Set<String> outputFields,
-            long recordsAvailableBefore) throws IOException {
-        OperationalDataRecords responseRecords;
+            long recordsAvailableBefore) {
         GetSecurityServerOperationalDataResponseType opDataResponse =
                 OBJECT_FACTORY
                         .createGetSecurityServerOperationalDataResponseType();
@@ -181,18 +179,18 @@ class OperationalDataRequestHandler extends QueryRequestHandler {
             opDataResponse.setNextRecordsFrom(recordsAvailableBefore);
         }
 
-        responseRecords = getOperationalDataRecords(filterByClient,
+        OperationalDataPayload responseRecords = getOperationalDataRecords(filterByClient,
                 recordsFrom, recordsTo, filterByServiceProvider, outputFields);
 
         opDataResponse.setRecordsCount(responseRecords.size());
-        String payload = responseRecords.getPayload(OBJECT_WRITER);
 
-        // Optimize memory usage: release records memory before compressing
-        // operation.
-        responseRecords.getRecords().clear();
-
-        opDataResponse.setRecords(createAttachmentDataSource(compress(payload),
-                CID, MimeTypes.GZIP));
+        // The records are compressed directly into the response attachment,
+        // the resources held by the records are released once written.
+        opDataResponse.setRecords(createStreamedAttachment(out -> {
+            try (responseRecords) {
+                compress(responseRecords::writePayload, out);
+            }
+        }, CID, MimeTypes.GZIP));
 
         if (responseRecords.getNextRecordsFrom() != null) {
             opDataResponse.setNextRecordsFrom(
@@ -208,11 +206,11 @@ class OperationalDataRequestHandler extends QueryRequestHandler {
                 opDataResponse);
     }
 
-    protected OperationalDataRecords getOperationalDataRecords(
+    protected OperationalDataPayload getOperationalDataRecords(
             ClientId filterByClient, long recordsFrom, long recordsTo,
             ClientId filterByServiceProvider, Set<String> outputFields) {
         try {
-            return OperationalDataRecordManager.queryRecords(recordsFrom,
+            return OperationalDataRecordManager.selectRecords(recordsFrom,
                     recordsTo, filterByClient, filterByServiceProvider,
                     outputFields);
         } catch (Exception e) {
@@ -239,7 +237,7 @@ class OperationalDataRequestHandler extends QueryRequestHandler {
                 && clientId.equals(globalConfProvider.getServerOwner(serverId));
     }
 
-    private static long getRecordsAvailableBeforeTimestamp() {
+    static long getRecordsAvailableBeforeTimestamp() {
         return TimeUtils.getEpochSecond() - OFFSET_SECONDS;
     }
 }
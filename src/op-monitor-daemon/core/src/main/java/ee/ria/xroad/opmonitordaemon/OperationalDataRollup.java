@@ -0,0 +1,226 @@
+/*
+ * The MIT License
+ * Copyright (c) 2019- Nordic Institute for Interoperability Solutions (NIIS)
+ * Copyright (c) 2018 Estonian Information System Authority (RIA),
+ * Nordic Institute for Interoperability Solutions (NIIS), Population Register Centre (VRK)
+ * Copyright (c) 2015-2017 Estonian Information System Authority (RIA), Population Register Centre (VRK)
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package ee.ria.xroad.opmonitordaemon;
+
+import lombok.EqualsAndHashCode;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+import lombok.ToString;
+
+import java.io.Serializable;
+import java.util.Comparator;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Represents a single database record of pre-aggregated operational data.
+ * Each such record summarizes the requests of one service, handled in one
+ * security server role, during one period of time (a UTC minute, hour or day).
+ * The records are updated incrementally while operational data records are
+ * stored.
+ */
+@ToString
+@EqualsAndHashCode(onlyExplicitlyIncluded = true)
+@NoArgsConstructor
+public class OperationalDataRollup implements Serializable {
+
+    /**
+     * The length of the aggregation periods.
+     */
+    enum Granularity {
+        MINUTE(TimeUnit.MINUTES),
+        HOUR(TimeUnit.HOURS),
+        DAY(TimeUnit.DAYS);
+
+        private final long seconds;
+
+        Granularity(TimeUnit unit) {
+            this.seconds = unit.toSeconds(1);
+        }
+
+        /**
+         * @param timestamp Unix timestamp in seconds
+         * @return the start of the period containing the timestamp (Unix
+         * timestamp in seconds)
+         */
+        long periodStart(long timestamp) {
+            return Math.floorDiv(timestamp, seconds) * seconds;
+        }
+    }
+
+    // Orders the records by their identifying fields, the same order as the
+    // primary key of the table.
+    static final Comparator<OperationalDataRollup> KEY_ORDER =
+            Comparator.comparing(OperationalDataRollup::getGranularity)
+                    .thenComparingLong(OperationalDataRollup::getPeriodStart)
+                    .thenComparing(OperationalDataRollup::getSecurityServerType)
+                    .thenComparing(OperationalDataRollup::getServiceXRoadInstance)
+                    .thenComparing(OperationalDataRollup::getServiceMemberClass)
+                    .thenComparing(OperationalDataRollup::getServiceMemberCode)
+                    .thenComparing(OperationalDataRollup::getServiceSubsystemCode)
+                    .thenComparing(OperationalDataRollup::getServiceCode)
+                    .thenComparing(OperationalDataRollup::getServiceVersion);
+
+    // The following fields identify the record. The optional parts of the
+    // service identifier are stored as empty strings, so that they can be
+    // part of the primary key.
+
+    @Getter
+    @Setter
+    @EqualsAndHashCode.Include
+    private String granularity;
+
+    // The Unix timestamp (in seconds) of the beginning of the period.
+    @Getter
+    @Setter
+    @EqualsAndHashCode.Include
+    private long periodStart;
+
+    @Getter
+    @Setter
+    @EqualsAndHashCode.Include
+    private String securityServerType;
+
+    @Getter
+    @Setter
+    @EqualsAndHashCode.Include
+    private String serviceXRoadInstance;
+
+    @Getter
+    @Setter
+    @EqualsAndHashCode.Include
+    private String serviceMemberClass;
+
+    @Getter
+    @Setter
+    @EqualsAndHashCode.Include
+    private String serviceMemberCode;
+
+    @Getter
+    @Setter
+    @EqualsAndHashCode.Include
+    private String serviceSubsystemCode = "";
+
+    @Getter
+    @Setter
+    @EqualsAndHashCode.Include
+    private String serviceCode;
+
+    @Getter
+    @Setter
+    @EqualsAndHashCode.Include
+    private String serviceVersion = "";
+
+    // The aggregated values.
+
+    @Getter
+    @Setter
+    private long successfulRequestCount;
+
+    @Getter
+    @Setter
+    private long unsuccessfulRequestCount;
+
+    // The statistics of request duration and the sizes of the request and
+    // response are computed over the successful requests only (as in health
+    // data).
+
+    @Getter
+    @Setter
+    private Statistics requestDuration = new Statistics();
+
+    @Getter
+    @Setter
+    private Statistics requestSize = new Statistics();
+
+    @Getter
+    @Setter
+    private Statistics responseSize = new Statistics();
+
+    /**
+     * Adds the request described by the operational data record to the
+     * aggregated values.
+     * @param rec operational data record
+     */
+    void add(OperationalDataRecord rec) {
+        if (Boolean.TRUE.equals(rec.getSucceeded())) {
+            successfulRequestCount++;
+
+            requestDuration.add(rec.getResponseOutTs() - rec.getRequestInTs());
+            requestSize.add(rec.getRequestSize());
+            responseSize.add(rec.getResponseSize());
+        } else {
+            unsuccessfulRequestCount++;
+        }
+    }
+
+    /**
+     * The count, sum, sum of squares, minimum and maximum of a measured
+     * value, from which the average and standard deviation can be computed
+     * over any set of periods.
+     */
+    @Getter
+    @Setter
+    @ToString
+    @NoArgsConstructor
+    static class Statistics implements Serializable {
+        private long count;
+        private long sum;
+        private double sumOfSquares;
+        private Long min;
+        private Long max;
+
+        void add(Long value) {
+            if (value == null) {
+                return;
+            }
+
+            count++;
+            sum += value;
+            sumOfSquares += (double) value * value;
+            min = min == null ? value : Math.min(min, value);
+            max = max == null ? value : Math.max(max, value);
+        }
+
+        Double getAverage() {
+            return count == 0 ? null : (double) sum / count;
+        }
+
+        Double getStdDev() {
+            if (count == 0) {
+                return null;
+            }
+
+            if (count == 1) {
+                return 0.0;
+            }
+
+            double variance = (sumOfSquares - (double) sum * sum / count) / (count - 1);
+
+            return Math.sqrt(Math.max(variance, 0.0));
+        }
+    }
+}
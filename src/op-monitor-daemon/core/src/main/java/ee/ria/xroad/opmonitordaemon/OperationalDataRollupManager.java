@@ -0,0 +1,355 @@
+/*
+ * The MIT License
+ * Copyright (c) 2019- Nordic Institute for Interoperability Solutions (NIIS)
+ * Copyright (c) 2018 Estonian Information System Authority (RIA),
+ * Nordic Institute for Interoperability Solutions (NIIS), Population Register Centre (VRK)
+ * Copyright (c) 2015-2017 Estonian Information System Authority (RIA), Population Register Centre (VRK)
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package ee.ria.xroad.opmonitordaemon;
+
+import ee.ria.xroad.common.identifier.ClientId;
+import ee.ria.xroad.common.identifier.ServiceId;
+import ee.ria.xroad.common.opmonitoring.OpMonitoringSystemProperties;
+import ee.ria.xroad.opmonitordaemon.OperationalDataRollup.Granularity;
+import ee.ria.xroad.opmonitordaemon.OperationalDataRollup.Statistics;
+
+import lombok.AccessLevel;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+import lombok.extern.slf4j.Slf4j;
+import org.hibernate.Session;
+import org.hibernate.dialect.PostgreSQLDialect;
+import org.hibernate.engine.spi.SessionFactoryImplementor;
+import org.hibernate.query.Query;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.sql.Types;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+import static ee.ria.xroad.opmonitordaemon.OpMonitorDaemonDatabaseCtx.doInTransaction;
+
+/**
+ * This class encapsulates all the database access related to the
+ * operational_data_rollup table, mapped by the OperationalDataRollup class.
+ * The rollups of all granularities are updated in the transaction storing the
+ * operational data records, so that they always match the stored records.
+ */
+@Slf4j
+@NoArgsConstructor(access = AccessLevel.PRIVATE)
+final class OperationalDataRollupManager {
+
+    private static final String TABLE = "operational_data_rollup";
+
+    private static final List<String> KEY_COLUMNS = List.of("granularity", "period_start", "security_server_type",
+            "service_xroad_instance", "service_member_class", "service_member_code", "service_subsystem_code",
+            "service_code", "service_version");
+
+    private static final List<String> STATISTICS_COLUMN_PREFIXES =
+            List.of("request_duration", "request_size", "response_size");
+
+    private static final List<String> SUM_COLUMNS = Stream.concat(
+            Stream.of("successful_request_count", "unsuccessful_request_count"),
+            STATISTICS_COLUMN_PREFIXES.stream().flatMap(prefix ->
+                    Stream.of(prefix + "_count", prefix + "_sum", prefix + "_sum_of_squares"))).toList();
+
+    private static final List<String> MIN_COLUMNS =
+            STATISTICS_COLUMN_PREFIXES.stream().map(prefix -> prefix + "_min").toList();
+
+    private static final List<String> MAX_COLUMNS =
+            STATISTICS_COLUMN_PREFIXES.stream().map(prefix -> prefix + "_max").toList();
+
+    private static final List<String> COLUMNS = Stream.of(KEY_COLUMNS, SUM_COLUMNS, MIN_COLUMNS, MAX_COLUMNS)
+            .flatMap(List::stream).toList();
+
+    private static final String POSTGRESQL_UPSERT_STATEMENT = createPostgreSqlUpsertStatement();
+    private static final String MERGE_STATEMENT = createMergeStatement();
+
+    @Setter
+    private static int maxRollupsInPayload = OpMonitoringSystemProperties.getOpMonitorMaxRecordsInPayload();
+
+    /**
+     * Rollups selected by {@link #queryRollups}.
+     * @param rollups         the rollups ordered by period start
+     * @param nextRecordsFrom the period start to use in the next query if the
+     *                        number of rollups has been limited, null otherwise
+     */
+    record Rollups(List<OperationalDataRollup> rollups, Long nextRecordsFrom) {
+    }
+
+    /**
+     * Adds the operational data records to the rollups of all granularities.
+     * The records are aggregated into the periods of their monitoring data
+     * timestamp (the time the records were stored), so that records stored
+     * later never change the periods that have already ended.
+     * Records without a service identifier are not aggregated.
+     * @param session database session of the transaction storing the records
+     * @param records operational data records
+     */
+    static void updateRollups(Session session, List<OperationalDataRecord> records) {
+        Map<OperationalDataRollup, OperationalDataRollup> rollups = new HashMap<>();
+
+        for (OperationalDataRecord rec : records) {
+            ServiceId serviceId = HealthDataMetricsUtil.getServiceId(rec);
+
+            if (serviceId == null) {
+                continue;
+            }
+
+            long storedSeconds = rec.getMonitoringDataTs();
+
+            for (Granularity granularity : Granularity.values()) {
+                OperationalDataRollup key = createRollup(granularity, granularity.periodStart(storedSeconds),
+                        rec.getSecurityServerType(), serviceId);
+
+                rollups.computeIfAbsent(key, k -> k).add(rec);
+            }
+        }
+
+        if (rollups.isEmpty()) {
+            return;
+        }
+
+        // Rows are always locked in the order of the primary key, so that
+        // concurrent store requests updating the same rollups do not deadlock.
+        List<OperationalDataRollup> sorted = rollups.values().stream()
+                .sorted(OperationalDataRollup.KEY_ORDER)
+                .toList();
+
+        String statement = isPostgreSql(session) ? POSTGRESQL_UPSERT_STATEMENT : MERGE_STATEMENT;
+
+        session.doWork(connection -> upsertRollups(connection, statement, sorted));
+    }
+
+    static Rollups queryRollups(Granularity granularity, long recordsFrom, long recordsTo, ClientId clientFilter,
+                                ClientId serviceProviderFilter) throws Exception {
+        return doInTransaction(session -> queryRollupsInTransaction(session, granularity, recordsFrom, recordsTo,
+                clientFilter, serviceProviderFilter));
+    }
+
+    /**
+     * Deletes the rollups of the periods starting before the given timestamp.
+     * @param session       database session
+     * @param beforeSeconds Unix timestamp in seconds
+     * @return the number of deleted rollups
+     */
+    static int deleteRollupsBefore(Session session, long beforeSeconds) {
+        return session.createMutationQuery("delete OperationalDataRollup r where r.periodStart < :before")
+                .setParameter("before", beforeSeconds)
+                .executeUpdate();
+    }
+
+    /**
+     * Queries the rollups of the periods starting within the given interval. The number of returned rollups is
+     * limited by maxRollupsInPayload plus overflow rollups of the same period as the last included rollup.
+     * @param session               database session
+     * @param granularity           the granularity of the rollups
+     * @param recordsFrom           period start from timestamp seconds
+     * @param recordsTo             period start to timestamp seconds
+     * @param clientFilter          the client whose own services are included only (if not null)
+     * @param serviceProviderFilter only include the services of the given provider (if not null)
+     * @return the rollups
+     */
+    private static Rollups queryRollupsInTransaction(Session session, Granularity granularity, long recordsFrom,
+                                                     long recordsTo, ClientId clientFilter,
+                                                     ClientId serviceProviderFilter) {
+        List<OperationalDataRollup> rollups = createQuery(session, granularity, recordsFrom, recordsTo,
+                clientFilter, serviceProviderFilter)
+                .setMaxResults(maxRollupsInPayload)
+                .list();
+
+        if (rollups.size() < maxRollupsInPayload) {
+            return new Rollups(rollups, null);
+        }
+
+        long lastPeriodStart = rollups.getLast().getPeriodStart();
+
+        List<OperationalDataRollup> included = createQuery(session, granularity, recordsFrom, lastPeriodStart,
+                clientFilter, serviceProviderFilter).list();
+
+        boolean overflow = lastPeriodStart < recordsTo && !createQuery(session, granularity, lastPeriodStart + 1,
+                recordsTo, clientFilter, serviceProviderFilter).setMaxResults(1).list().isEmpty();
+
+        if (overflow) {
+            log.debug("Rollups overflow, set nextRecordsFrom to {}", lastPeriodStart + 1);
+        }
+
+        return new Rollups(included, overflow ? lastPeriodStart + 1 : null);
+    }
+
+    private static Query<OperationalDataRollup> createQuery(Session session, Granularity granularity,
+                                                            long recordsFrom, long recordsTo,
+                                                            ClientId clientFilter, ClientId serviceProviderFilter) {
+        StringBuilder hql = new StringBuilder("select r from OperationalDataRollup r"
+                + " where r.granularity = :granularity and r.periodStart between :recordsFrom and :recordsTo");
+
+        appendProviderCriteria(hql, "client", clientFilter);
+        appendProviderCriteria(hql, "serviceProvider", serviceProviderFilter);
+
+        hql.append(" order by r.periodStart, r.securityServerType, r.serviceXRoadInstance, r.serviceMemberClass,"
+                + " r.serviceMemberCode, r.serviceSubsystemCode, r.serviceCode, r.serviceVersion");
+
+        Query<OperationalDataRollup> query = session.createQuery(hql.toString(), OperationalDataRollup.class)
+                .setReadOnly(true)
+                .setParameter("granularity", granularity.name())
+                .setParameter("recordsFrom", recordsFrom)
+                .setParameter("recordsTo", recordsTo);
+
+        setProviderParameters(query, "client", clientFilter);
+        setProviderParameters(query, "serviceProvider", serviceProviderFilter);
+
+        return query;
+    }
+
+    private static void appendProviderCriteria(StringBuilder hql, String name, ClientId provider) {
+        if (provider != null) {
+            hql.append(String.format(" and r.serviceXRoadInstance = :%1$sXRoadInstance"
+                    + " and r.serviceMemberClass = :%1$sMemberClass"
+                    + " and r.serviceMemberCode = :%1$sMemberCode"
+                    + " and r.serviceSubsystemCode = :%1$sSubsystemCode", name));
+        }
+    }
+
+    private static void setProviderParameters(Query<?> query, String name, ClientId provider) {
+        if (provider != null) {
+            query.setParameter(name + "XRoadInstance", provider.getXRoadInstance());
+            query.setParameter(name + "MemberClass", provider.getMemberClass());
+            query.setParameter(name + "MemberCode", provider.getMemberCode());
+            query.setParameter(name + "SubsystemCode", Objects.toString(provider.getSubsystemCode(), ""));
+        }
+    }
+
+    private static OperationalDataRollup createRollup(Granularity granularity, long periodStart,
+                                                      String securityServerType, ServiceId serviceId) {
+        OperationalDataRollup rollup = new OperationalDataRollup();
+        rollup.setGranularity(granularity.name());
+        rollup.setPeriodStart(periodStart);
+        rollup.setSecurityServerType(securityServerType);
+        rollup.setServiceXRoadInstance(serviceId.getXRoadInstance());
+        rollup.setServiceMemberClass(serviceId.getMemberClass());
+        rollup.setServiceMemberCode(serviceId.getMemberCode());
+        rollup.setServiceSubsystemCode(Objects.toString(serviceId.getSubsystemCode(), ""));
+        rollup.setServiceCode(serviceId.getServiceCode());
+        rollup.setServiceVersion(Objects.toString(serviceId.getServiceVersion(), ""));
+
+        return rollup;
+    }
+
+    private static void upsertRollups(Connection connection, String statement, List<OperationalDataRollup> rollups)
+            throws SQLException {
+        log.trace("upsertRollups({})", rollups.size());
+
+        try (PreparedStatement stmt = connection.prepareStatement(statement)) {
+            for (OperationalDataRollup rollup : rollups) {
+                int index = 1;
+
+                stmt.setString(index++, rollup.getGranularity());
+                stmt.setLong(index++, rollup.getPeriodStart());
+                stmt.setString(index++, rollup.getSecurityServerType());
+                stmt.setString(index++, rollup.getServiceXRoadInstance());
+                stmt.setString(index++, rollup.getServiceMemberClass());
+                stmt.setString(index++, rollup.getServiceMemberCode());
+                stmt.setString(index++, rollup.getServiceSubsystemCode());
+                stmt.setString(index++, rollup.getServiceCode());
+                stmt.setString(index++, rollup.getServiceVersion());
+
+                stmt.setLong(index++, rollup.getSuccessfulRequestCount());
+                stmt.setLong(index++, rollup.getUnsuccessfulRequestCount());
+
+                List<Statistics> statistics =
+                        List.of(rollup.getRequestDuration(), rollup.getRequestSize(), rollup.getResponseSize());
+
+                for (Statistics stats : statistics) {
+                    stmt.setLong(index++, stats.getCount());
+                    stmt.setLong(index++, stats.getSum());
+                    stmt.setDouble(index++, stats.getSumOfSquares());
+                }
+
+                for (Statistics stats : statistics) {
+                    stmt.setObject(index++, stats.getMin(), Types.BIGINT);
+                }
+
+                for (Statistics stats : statistics) {
+                    stmt.setObject(index++, stats.getMax(), Types.BIGINT);
+                }
+
+                stmt.addBatch();
+            }
+
+            stmt.executeBatch();
+        }
+    }
+
+    private static boolean isPostgreSql(Session session) {
+        return session.getSessionFactory().unwrap(SessionFactoryImplementor.class)
+                .getJdbcServices().getDialect() instanceof PostgreSQLDialect;
+    }
+
+    // The aggregated values of an existing row are combined with the new
+    // ones: sums are added up, minimums and maximums are compared ignoring
+    // nulls.
+    private static String combinedValues(String existing, String added) {
+        return Stream.of(
+                SUM_COLUMNS.stream().map(c -> String.format("%1$s = %2$s.%1$s + %3$s.%1$s", c, existing, added)),
+                MIN_COLUMNS.stream().map(c -> String.format(
+                        "%1$s = LEAST(COALESCE(%2$s.%1$s, %3$s.%1$s), COALESCE(%3$s.%1$s, %2$s.%1$s))",
+                        c, existing, added)),
+                MAX_COLUMNS.stream().map(c -> String.format(
+                        "%1$s = GREATEST(COALESCE(%2$s.%1$s, %3$s.%1$s), COALESCE(%3$s.%1$s, %2$s.%1$s))",
+                        c, existing, added)))
+                .flatMap(s -> s)
+                .collect(Collectors.joining(", "));
+    }
+
+    private static String createPostgreSqlUpsertStatement() {
+        return "INSERT INTO " + TABLE + " (" + String.join(", ", COLUMNS) + ")"
+                + " VALUES (" + COLUMNS.stream().map(c -> "?").collect(Collectors.joining(", ")) + ")"
+                + " ON CONFLICT (" + String.join(", ", KEY_COLUMNS) + ")"
+                + " DO UPDATE SET " + combinedValues(TABLE, "EXCLUDED");
+    }
+
+    // Standard SQL, used with the databases other than PostgreSQL (i.e. the
+    // in-memory database of the tests).
+    private static String createMergeStatement() {
+        return "MERGE INTO " + TABLE + " t USING (VALUES ("
+                + COLUMNS.stream().map(OperationalDataRollupManager::typedParameter).collect(Collectors.joining(", "))
+                + ")) AS v (" + String.join(", ", COLUMNS) + ")"
+                + " ON (" + KEY_COLUMNS.stream().map(c -> "t." + c + " = v." + c).collect(Collectors.joining(" AND "))
+                + ") WHEN MATCHED THEN UPDATE SET " + combinedValues("t", "v")
+                + " WHEN NOT MATCHED THEN INSERT (" + String.join(", ", COLUMNS) + ")"
+                + " VALUES (" + COLUMNS.stream().map(c -> "v." + c).collect(Collectors.joining(", ")) + ")";
+    }
+
+    private static String typedParameter(String column) {
+        if (column.endsWith("_sum_of_squares")) {
+            return "CAST(? AS DOUBLE PRECISION)";
+        }
+
+        return KEY_COLUMNS.contains(column) && !"period_start".equals(column)
+                ? "CAST(? AS VARCHAR(255))" : "CAST(? AS BIGINT)";
+    }
+}
@@ -47,6 +47,7 @@ import jakarta.xml.bind.ValidationEvent;
 import jakarta.xml.bind.attachment.AttachmentMarshaller;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.apache.commons.io.function.IOConsumer;
 import org.apache.commons.io.output.ByteArrayOutputStream;
 import org.apache.commons.lang3.StringUtils;
 import org.glassfish.jaxb.runtime.api.AccessorException;
@@ -57,6 +58,7 @@ import javax.xml.validation.Schema;
 import javax.xml.validation.SchemaFactory;
 
 import java.io.IOException;
+import java.io.InputStream;
 import java.io.OutputStream;
 import java.nio.charset.StandardCharsets;
 import java.util.HashMap;
@@ -189,6 +191,15 @@ abstract class QueryRequestHandler {
         };
     }
 
+    /**
+     * Creates an attachment whose content is written directly to the response
+     * by the given writer when the attachments are encoded.
+     */
+    static DataHandler createStreamedAttachment(
+            IOConsumer<OutputStream> writer, String cid, String contentType) {
+        return new StreamedDataHandler(writer, cid, contentType);
+    }
+
     static byte[] compress(String data) throws IOException {
         byte[] dataBytes = data.getBytes(StandardCharsets.UTF_8);
 
@@ -202,6 +213,13 @@ abstract class QueryRequestHandler {
         }
     }
 
+    static void compress(IOConsumer<OutputStream> writer, OutputStream out)
+            throws IOException {
+        try (GZIPOutputStream gzip = new GZIPOutputStream(out)) {
+            writer.accept(gzip);
+        }
+    }
+
     private static Map<String, String> getAdditionalAttachmentHeaders(
             String cid) {
         Map<String, String> additionalHeaders = new HashMap<>();
@@ -223,9 +241,15 @@ abstract class QueryRequestHandler {
 
         void encodeAttachments() throws Exception {
             for (Map.Entry<String, DataHandler> attach : attachments.entrySet()) {
-                responseEncoder.attachment(attach.getValue().getContentType(),
-                        attach.getValue().getInputStream(),
-                        getAdditionalAttachmentHeaders(attach.getKey()));
+                if (attach.getValue() instanceof StreamedDataHandler streamed) {
+                    responseEncoder.attachment(streamed.getContentType(),
+                            streamed.writer,
+                            getAdditionalAttachmentHeaders(attach.getKey()));
+                } else {
+                    responseEncoder.attachment(attach.getValue().getContentType(),
+                            attach.getValue().getInputStream(),
+                            getAdditionalAttachmentHeaders(attach.getKey()));
+                }
             }
         }
 
@@ -257,4 +281,34 @@ abstract class QueryRequestHandler {
             return null;
         }
     }
+
+    private static final class StreamedDataHandler extends DataHandler {
+        private final IOConsumer<OutputStream> writer;
+        private final String cid;
+
+        StreamedDataHandler(IOConsumer<OutputStream> writer, String cid,
+                            String contentType) {
+            super(null, contentType);
+            this.writer = writer;
+            this.cid = cid;
+        }
+
+        @Override
+        public String getName() {
+            return cid;
+        }
+
+        @Override
+        public InputStream getInputStream() throws IOException {
+            try (ByteArrayOutputStream bos = new ByteArrayOutputStream()) {
+                writer.accept(bos);
+                return bos.toInputStream();
+            }
+        }
+
+        @Override
+        public void writeTo(OutputStream os) throws IOException {
+            writer.accept(os);
+        }
+    }
 }
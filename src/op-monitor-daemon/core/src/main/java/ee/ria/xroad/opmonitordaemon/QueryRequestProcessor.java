@@ -45,11 +45,12 @@ import java.util.function.Consumer;
 
 import static ee.ria.xroad.common.opmonitoring.OpMonitoringRequests.GET_SECURITY_SERVER_HEALTH_DATA;
 import static ee.ria.xroad.common.opmonitoring.OpMonitoringRequests.GET_SECURITY_SERVER_OPERATIONAL_DATA;
+import static ee.ria.xroad.common.opmonitoring.OpMonitoringRequests.GET_SECURITY_SERVER_OPERATIONAL_DATA_AGGREGATES;
 
 /**
  * The processor class for operational monitoring query requests.
- * Processes getSecurityServerOperationalData and getSecurityServerHealthData
- * SOAP requests.
+ * Processes getSecurityServerOperationalData, getSecurityServerHealthData and
+ * getSecurityServerOperationalDataAggregates SOAP requests.
  */
 @Slf4j
 class QueryRequestProcessor {
@@ -65,6 +66,7 @@ class QueryRequestProcessor {
 
     private final OperationalDataRequestHandler operationalDataHandler;
     private final HealthDataRequestHandler healthDataHandler;
+    private final OperationalDataAggregatesRequestHandler aggregatesHandler;
 
     QueryRequestProcessor(GlobalConfProvider globalConfProvider,
                           RequestWrapper request,
@@ -76,6 +78,7 @@ class QueryRequestProcessor {
         this.operationalDataHandler = new OperationalDataRequestHandler(globalConfProvider);
         this.healthDataHandler = new HealthDataRequestHandler(
                 healthMetricRegistry);
+        this.aggregatesHandler = new OperationalDataAggregatesRequestHandler(globalConfProvider);
 
         globalConfProvider.verifyValidity();
     }
@@ -119,6 +122,11 @@ class QueryRequestProcessor {
                                 responseOut,
                                 responseContentTypeAssigner());
                         break;
+                    case GET_SECURITY_SERVER_OPERATIONAL_DATA_AGGREGATES:
+                        aggregatesHandler.handle(requestSoap,
+                                responseOut,
+                                responseContentTypeAssigner());
+                        break;
                     default:
                         throw new CodedException(ErrorCodes.X_INTERNAL_ERROR,
                                 "Unknown service: '%s'", requestSoap.getService());
@@ -25,15 +25,17 @@
  */
 package ee.ria.xroad.opmonitordaemon;
 
+import com.codahale.metrics.Clock;
 import com.codahale.metrics.Counter;
-import com.codahale.metrics.Reservoir;
-import com.codahale.metrics.SlidingTimeWindowReservoir;
 
 import java.util.concurrent.TimeUnit;
 
 /**
- * A counter metric that uses the sliding time window reservoir internally to
- * support periodic and configurable resetting.
+ * A counter metric that only counts the increments made within a sliding
+ * window of time.
+ * The window is divided into one second buckets kept in a ring, so both
+ * incrementing and reading the count take constant time regardless of the
+ * request rate. Increments expire a whole bucket at a time.
  * This counter does not support manually decrementing the count (the dec()
  * methods raise a runtime exception).
  * We extend Counter instead of implementing the Metric and Counting
@@ -42,7 +44,14 @@ import java.util.concurrent.TimeUnit;
  */
 class SlidingTimeWindowCounter extends Counter {
 
-    private final Reservoir reservoir;
+    private static final long BUCKET_NANOS = TimeUnit.SECONDS.toNanos(1);
+
+    private final Clock clock;
+    private final long[] buckets;
+
+    // The tick (bucket number since the clock origin) of the newest bucket.
+    private long headTick;
+    private long count;
 
     /**
      * Creates a counter with the given window of time.
@@ -51,27 +60,36 @@ class SlidingTimeWindowCounter extends Counter {
      * @param windowUnit the unit of {@code window}
      */
     SlidingTimeWindowCounter(long window, TimeUnit windowUnit) {
-        reservoir = new SlidingTimeWindowReservoir(window, windowUnit);
+        this(window, windowUnit, Clock.defaultClock());
+    }
+
+    SlidingTimeWindowCounter(long window, TimeUnit windowUnit, Clock clock) {
+        this.clock = clock;
+        this.buckets = new long[(int) Math.max(1, windowUnit.toSeconds(window))];
+        this.headTick = currentTick();
     }
 
     /**
-     * @return the snapshot size of the sliding time window reservoir.
+     * @return the number of increments within the window of time.
      */
     @Override
-    public long getCount() {
-        return reservoir.getSnapshot().size();
+    public synchronized long getCount() {
+        advance(currentTick());
+        return count;
     }
 
     @Override
     public void inc() {
-        reservoir.update(1L);
+        inc(1L);
     }
 
     @Override
-    public void inc(long n) {
-        for (int i = 0; i < n; ++i) {
-            inc();
-        }
+    public synchronized void inc(long n) {
+        long tick = currentTick();
+        advance(tick);
+
+        buckets[Math.floorMod(tick, buckets.length)] += n;
+        count += n;
     }
 
     @Override
@@ -84,4 +102,26 @@ class SlidingTimeWindowCounter extends Counter {
         throw new RuntimeException("This counter can be incremented only");
     }
 
+    // Expires the buckets that have fallen out of the window since the last
+    // update. Each bucket is cleared at most once per window, so the cost is
+    // amortized constant.
+    private void advance(long tick) {
+        if (tick <= headTick) {
+            return;
+        }
+
+        long expired = Math.min(tick - headTick, buckets.length);
+
+        for (long i = 1; i <= expired; i++) {
+            int index = Math.floorMod(headTick + i, buckets.length);
+            count -= buckets[index];
+            buckets[index] = 0;
+        }
+
+        headTick = tick;
+    }
+
+    private long currentTick() {
+        return clock.getTick() / BUCKET_NANOS;
+    }
 }
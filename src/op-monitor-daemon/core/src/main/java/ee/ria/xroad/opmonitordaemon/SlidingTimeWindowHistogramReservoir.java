@@ -0,0 +1,326 @@
+/*
+ * The MIT License
+ * Copyright (c) 2019- Nordic Institute for Interoperability Solutions (NIIS)
+ * Copyright (c) 2018 Estonian Information System Authority (RIA),
+ * Nordic Institute for Interoperability Solutions (NIIS), Population Register Centre (VRK)
+ * Copyright (c) 2015-2017 Estonian Information System Authority (RIA), Population Register Centre (VRK)
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package ee.ria.xroad.opmonitordaemon;
+
+import com.codahale.metrics.Clock;
+import com.codahale.metrics.Reservoir;
+import com.codahale.metrics.Snapshot;
+
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.PrintWriter;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.IntStream;
+
+/**
+ * A histogram reservoir that keeps the statistics of the values recorded
+ * within a sliding window of time without storing the values themselves.
+ * Values are counted in log-linear bins (as in HdrHistogram): every power of
+ * two range is split into {@value #SUB_BUCKETS} equal bins, so quantiles are
+ * accurate to a few percent while the count, minimum, maximum, mean and
+ * standard deviation are exact. The window is divided into {@value #SLOTS}
+ * time slots that expire as a whole, so both recording a value and taking a
+ * snapshot take constant time regardless of the request rate.
+ */
+class SlidingTimeWindowHistogramReservoir implements Reservoir {
+
+    private static final int SLOTS = 10;
+
+    private static final int SUB_BUCKET_BITS = 3;
+    private static final int SUB_BUCKETS = 1 << SUB_BUCKET_BITS;
+    private static final int BINS = (Long.SIZE - SUB_BUCKET_BITS) * SUB_BUCKETS;
+
+    private final Clock clock;
+    private final long slotNanos;
+    private final Slot[] slots = new Slot[SLOTS];
+
+    // Bin counts summed over all the slots in the window.
+    private final long[] windowBins = new long[BINS];
+
+    // The tick (slot number since the clock origin) of the newest slot.
+    private long headTick;
+
+    /**
+     * Creates a reservoir with the given window of time.
+     *
+     * @param window     the window of time
+     * @param windowUnit the unit of {@code window}
+     */
+    SlidingTimeWindowHistogramReservoir(long window, TimeUnit windowUnit) {
+        this(window, windowUnit, Clock.defaultClock());
+    }
+
+    SlidingTimeWindowHistogramReservoir(long window, TimeUnit windowUnit, Clock clock) {
+        this.clock = clock;
+        this.slotNanos = Math.max(1, windowUnit.toNanos(window) / SLOTS);
+        this.headTick = currentTick();
+
+        for (int i = 0; i < SLOTS; i++) {
+            slots[i] = new Slot();
+        }
+    }
+
+    @Override
+    public synchronized int size() {
+        advance(currentTick());
+
+        long count = 0;
+        for (Slot slot : slots) {
+            count += slot.count;
+        }
+
+        return (int) Math.min(count, Integer.MAX_VALUE);
+    }
+
+    @Override
+    public synchronized void update(long value) {
+        long tick = currentTick();
+        advance(tick);
+
+        int bin = binIndex(value);
+        slots[Math.floorMod(tick, SLOTS)].update(value, bin);
+        windowBins[bin]++;
+    }
+
+    @Override
+    public synchronized Snapshot getSnapshot() {
+        advance(currentTick());
+
+        long count = 0;
+        double sum = 0;
+        double sumOfSquares = 0;
+        long min = Long.MAX_VALUE;
+        long max = Long.MIN_VALUE;
+
+        for (Slot slot : slots) {
+            if (slot.count > 0) {
+                count += slot.count;
+                sum += slot.sum;
+                sumOfSquares += slot.sumOfSquares;
+                min = Math.min(min, slot.min);
+                max = Math.max(max, slot.max);
+            }
+        }
+
+        return new BinnedSnapshot(windowBins.clone(), count, sum, sumOfSquares, min, max);
+    }
+
+    // Expires the slots that have fallen out of the window since the last
+    // update. Each slot is cleared at most once per window.
+    private void advance(long tick) {
+        if (tick <= headTick) {
+            return;
+        }
+
+        long expired = Math.min(tick - headTick, SLOTS);
+
+        for (long i = 1; i <= expired; i++) {
+            Slot slot = slots[Math.floorMod(headTick + i, SLOTS)];
+
+            if (slot.bins != null) {
+                for (int bin = 0; bin < BINS; bin++) {
+                    windowBins[bin] -= slot.bins[bin];
+                }
+            }
+
+            slot.clear();
+        }
+
+        headTick = tick;
+    }
+
+    private long currentTick() {
+        return clock.getTick() / slotNanos;
+    }
+
+    static int binIndex(long value) {
+        if (value < SUB_BUCKETS) {
+            // Small (and negative) values are counted exactly.
+            return (int) Math.max(value, 0);
+        }
+
+        int exponent = Long.SIZE - 1 - Long.numberOfLeadingZeros(value);
+        int subBucket = (int) (value >>> (exponent - SUB_BUCKET_BITS)) & (SUB_BUCKETS - 1);
+
+        return (exponent - SUB_BUCKET_BITS + 1) * SUB_BUCKETS + subBucket;
+    }
+
+    static long binLowerBound(int bin) {
+        if (bin < SUB_BUCKETS) {
+            return bin;
+        }
+
+        int exponent = bin / SUB_BUCKETS + SUB_BUCKET_BITS - 1;
+
+        return (long) (SUB_BUCKETS + bin % SUB_BUCKETS) << (exponent - SUB_BUCKET_BITS);
+    }
+
+    static long binWidth(int bin) {
+        return bin < SUB_BUCKETS ? 1 : 1L << (bin / SUB_BUCKETS - 1);
+    }
+
+    private static final class Slot {
+        private long count;
+        private double sum;
+        private double sumOfSquares;
+        private long min;
+        private long max;
+        // Allocated when the first value falls into the slot.
+        private int[] bins;
+
+        void update(long value, int bin) {
+            if (count == 0) {
+                min = value;
+                max = value;
+            } else {
+                min = Math.min(min, value);
+                max = Math.max(max, value);
+            }
+
+            count++;
+            sum += value;
+            sumOfSquares += (double) value * value;
+
+            if (bins == null) {
+                bins = new int[BINS];
+            }
+            bins[bin]++;
+        }
+
+        void clear() {
+            count = 0;
+            sum = 0;
+            sumOfSquares = 0;
+
+            if (bins != null) {
+                Arrays.fill(bins, 0);
+            }
+        }
+    }
+
+    /**
+     * A snapshot computed from the bin counts. The quantiles are the midpoints
+     * of the bins containing them, clamped to the exact minimum and maximum.
+     * {@link #getValues()} returns one representative value per non-empty bin
+     * instead of every recorded value.
+     */
+    private static final class BinnedSnapshot extends Snapshot {
+        private final long[] bins;
+        private final long count;
+        private final double sum;
+        private final double sumOfSquares;
+        private final long min;
+        private final long max;
+
+        BinnedSnapshot(long[] bins, long count, double sum, double sumOfSquares, long min, long max) {
+            this.bins = bins;
+            this.count = count;
+            this.sum = sum;
+            this.sumOfSquares = sumOfSquares;
+            this.min = min;
+            this.max = max;
+        }
+
+        @Override
+        public double getValue(double quantile) {
+            if (quantile < 0.0 || quantile > 1.0 || Double.isNaN(quantile)) {
+                throw new IllegalArgumentException(quantile + " is not in [0..1]");
+            }
+
+            if (count == 0) {
+                return 0.0;
+            }
+
+            long rank = Math.max(1, (long) Math.ceil(quantile * count));
+            long seen = 0;
+
+            for (int bin = 0; bin < bins.length; bin++) {
+                seen += bins[bin];
+                if (seen >= rank) {
+                    return representative(bin);
+                }
+            }
+
+            return max;
+        }
+
+        @Override
+        public long[] getValues() {
+            return IntStream.range(0, bins.length)
+                    .filter(bin -> bins[bin] > 0)
+                    .mapToLong(this::representative)
+                    .toArray();
+        }
+
+        @Override
+        public int size() {
+            return (int) Math.min(count, Integer.MAX_VALUE);
+        }
+
+        @Override
+        public long getMax() {
+            return count == 0 ? 0 : max;
+        }
+
+        @Override
+        public double getMean() {
+            return count == 0 ? 0.0 : sum / count;
+        }
+
+        @Override
+        public long getMin() {
+            return count == 0 ? 0 : min;
+        }
+
+        @Override
+        public double getStdDev() {
+            if (count <= 1) {
+                return 0.0;
+            }
+
+            double variance = (sumOfSquares - sum * sum / count) / (count - 1);
+
+            return Math.sqrt(Math.max(variance, 0.0));
+        }
+
+        @Override
+        public void dump(OutputStream output) {
+            try (PrintWriter out = new PrintWriter(new OutputStreamWriter(output, StandardCharsets.UTF_8))) {
+                for (long value : getValues()) {
+                    out.printf("%d%n", value);
+                }
+            }
+        }
+
+        private long representative(int bin) {
+            long midpoint = binLowerBound(bin) + (binWidth(bin) - 1) / 2;
+
+            return Math.clamp(midpoint, min, max);
+        }
+    }
+}
@@ -29,12 +29,11 @@ import ee.ria.xroad.common.util.JsonUtils;
 import ee.ria.xroad.common.util.RequestWrapper;
 
 import com.codahale.metrics.MetricRegistry;
+import com.fasterxml.jackson.core.JsonParser;
 import com.fasterxml.jackson.databind.ObjectReader;
 import lombok.extern.slf4j.Slf4j;
-import org.apache.commons.io.IOUtils;
-import org.apache.commons.lang3.StringUtils;
 
-import java.nio.charset.StandardCharsets;
+import java.io.InputStream;
 import java.util.List;
 
 import static ee.ria.xroad.common.util.TimeUtils.getEpochSecond;
@@ -70,12 +69,7 @@ class StoreRequestProcessor {
      * @throws Exception in case of any errors
      */
     void process() throws Exception {
-        String rawJson = IOUtils.toString(request.getInputStream(),
-                StandardCharsets.UTF_8);
-
-        log.trace("Incoming JSON: {}", rawJson);
-
-        List<OperationalDataRecord> records = prepareRawStoreData(rawJson);
+        List<OperationalDataRecord> records = prepareRawStoreData(request.getInputStream());
 
         log.debug("Process {} record{}", records.size(),
                 records.size() == 1 ? "" : "s");
@@ -86,23 +80,26 @@ class StoreRequestProcessor {
     }
 
     // Get usable operational data to be stored. If no such data is found,
-    // send an error message right away.
+    // send an error message right away. The records are decoded directly
+    // from the request stream.
     private static List<OperationalDataRecord> prepareRawStoreData(
-            String rawJsonData) throws Exception {
-        if (StringUtils.isBlank(rawJsonData)) {
-            throw new Exception(
-                    "No data was found in the request to store data");
-        }
-
-        OperationalDataRecords records;
-
-        try {
-            records = OBJECT_READER.readValue(rawJsonData, OperationalDataRecords.class);
-        } catch (Exception e) {
-            throw new Exception("Received invalid request", e);
+            InputStream rawJsonData) throws Exception {
+        try (JsonParser parser = OBJECT_READER.createParser(rawJsonData)) {
+            if (parser.nextToken() == null) {
+                throw new Exception(
+                        "No data was found in the request to store data");
+            }
+
+            OperationalDataRecords records;
+
+            try {
+                records = OBJECT_READER.readValue(parser, OperationalDataRecords.class);
+            } catch (Exception e) {
+                throw new Exception("Received invalid request", e);
+            }
+
+            return records.getRecords();
         }
-
-        return records.getRecords();
     }
 
 }
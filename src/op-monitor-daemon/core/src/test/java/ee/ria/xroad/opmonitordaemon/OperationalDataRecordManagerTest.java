@@ -25,24 +25,30 @@
  */
 package ee.ria.xroad.opmonitordaemon;
 
+import ee.ria.xroad.common.SystemProperties;
 import ee.ria.xroad.common.identifier.ClientId;
 import ee.ria.xroad.common.opmonitoring.OpMonitoringSystemProperties;
 
 import com.google.common.collect.Sets;
 import lombok.extern.slf4j.Slf4j;
 import org.junit.Before;
+import org.junit.BeforeClass;
 import org.junit.Rule;
 import org.junit.Test;
 import org.junit.rules.ExpectedException;
 
+import java.io.ByteArrayOutputStream;
 import java.lang.reflect.Field;
+import java.nio.charset.StandardCharsets;
 import java.time.Instant;
 import java.util.Collections;
 import java.util.HashSet;
+import java.util.Set;
 
 import static ee.ria.xroad.opmonitordaemon.OpMonitorDaemonDatabaseCtx.doInTransaction;
 import static ee.ria.xroad.opmonitordaemon.OperationalDataRecordManager.queryAllRecords;
 import static ee.ria.xroad.opmonitordaemon.OperationalDataRecordManager.queryRecords;
+import static ee.ria.xroad.opmonitordaemon.OperationalDataRecordManager.selectRecords;
 import static ee.ria.xroad.opmonitordaemon.OperationalDataRecordManager.storeRecords;
 import static ee.ria.xroad.opmonitordaemon.OperationalDataTestUtil.OBJECT_READER;
 import static ee.ria.xroad.opmonitordaemon.OperationalDataTestUtil.formatFullOperationalDataAsJson;
@@ -69,6 +75,11 @@ public class OperationalDataRecordManagerTest extends BaseTestUsingDB {
     @Rule
     public final ExpectedException expectedException = ExpectedException.none();
 
+    @BeforeClass
+    public static void setTempFilesPath() {
+        System.setProperty(SystemProperties.TEMP_FILES_PATH, "build/");
+    }
+
     /**
      * Cleanup the stored records before each test.
      * @throws Exception if an error occurs.
@@ -382,6 +393,32 @@ public class OperationalDataRecordManagerTest extends BaseTestUsingDB {
         assertEquals(1, result.size());
     }
 
+    @Test
+    public void selectAndWriteRecordsWithOverflow() throws Exception {
+        storeFullOperationalDataRecords(3, 1474968960L);
+        storeFullOperationalDataRecords(3, 1474968970L);
+        storeFullOperationalDataRecords(3, 1474968980L);
+
+        OperationalDataRecordManager.setMaxRecordsInPayload(4);
+        Set<String> outputFields = Sets.newHashSet("serviceCode");
+
+        OperationalDataRecords queried = queryRecords(1474968960L, 1474968980L, null, null, outputFields);
+
+        try (OperationalDataPayload selected = selectRecords(1474968960L, 1474968980L, null, null, outputFields)) {
+            assertEquals(6, selected.size());
+            assertEquals(Long.valueOf(1474968971L), selected.getNextRecordsFrom());
+
+            // records removed after the selection do not change the selected payload
+            OperationalDataRecordCleaner.cleanRecords(Instant.ofEpochMilli(1474968975000L));
+
+            ByteArrayOutputStream out = new ByteArrayOutputStream();
+            selected.writePayload(out);
+
+            assertEquals(queried.getPayload(QueryRequestHandler.OBJECT_WRITER),
+                    out.toString(StandardCharsets.UTF_8));
+        }
+    }
+
     @Test
     public void cleanupLogRecords() throws Exception {
         storeFullOperationalDataRecords(1, 1474968970L);
@@ -394,6 +431,15 @@ public class OperationalDataRecordManagerTest extends BaseTestUsingDB {
         assertEquals(1, result.size());
     }
 
+    @Test
+    public void cleanupLogRecordsWithoutPartitions() throws Exception {
+        storeFullOperationalDataRecords(1, 1474968970L);
+
+        // HSQLDB tables are not partitioned, the records are deleted row by row.
+        assertEquals(0, OperationalDataRecordCleaner.createPartitions(Instant.ofEpochMilli(1474968975000L)));
+        assertEquals(1, OperationalDataRecordCleaner.cleanRecords(Instant.ofEpochMilli(1474968975000L)));
+    }
+
     @Test
     public void stringTruncation() throws Exception {
         OperationalDataRecord record = OBJECT_READER.readValue(
@@ -0,0 +1,231 @@
+/*
+ * The MIT License
+ * Copyright (c) 2019- Nordic Institute for Interoperability Solutions (NIIS)
+ * Copyright (c) 2018 Estonian Information System Authority (RIA),
+ * Nordic Institute for Interoperability Solutions (NIIS), Population Register Centre (VRK)
+ * Copyright (c) 2015-2017 Estonian Information System Authority (RIA), Population Register Centre (VRK)
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package ee.ria.xroad.opmonitordaemon;
+
+import ee.ria.xroad.common.identifier.ClientId;
+import ee.ria.xroad.common.opmonitoring.OpMonitoringSystemProperties;
+import ee.ria.xroad.opmonitordaemon.OperationalDataRollup.Granularity;
+import ee.ria.xroad.opmonitordaemon.OperationalDataRollupManager.Rollups;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import java.time.Instant;
+import java.util.List;
+
+import static ee.ria.xroad.opmonitordaemon.OpMonitorDaemonDatabaseCtx.doInTransaction;
+import static ee.ria.xroad.opmonitordaemon.OperationalDataRecordManager.storeRecords;
+import static ee.ria.xroad.opmonitordaemon.OperationalDataRollupManager.queryRollups;
+import static ee.ria.xroad.opmonitordaemon.OperationalDataTestUtil.OBJECT_READER;
+import static ee.ria.xroad.opmonitordaemon.OperationalDataTestUtil.formatFullOperationalDataAsJson;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+
+/**
+ * Test cases related to maintaining and querying the pre-aggregated
+ * operational data at the level of OperationalDataRollupManager.
+ */
+public class OperationalDataRollupManagerTest extends BaseTestUsingDB {
+
+    // 2016-09-27T09:36:00Z
+    private static final long MINUTE_START = 1474968960L;
+    private static final long HOUR_START = 1474966800L;
+    private static final long DAY_START = 1474934400L;
+
+    private static final ClientId.Conf PROVIDER =
+            ClientId.Conf.create("XTEE-CI-XM", "GOV", "00000000", "Center");
+
+    /**
+     * Cleanup the stored records and rollups before each test.
+     * @throws Exception if an error occurs.
+     */
+    @Before
+    public void beforeTest() throws Exception {
+        doInTransaction(session -> {
+            session.createMutationQuery("delete OperationalDataRecord").executeUpdate();
+            session.createMutationQuery("delete OperationalDataRollup").executeUpdate();
+            return null;
+        });
+
+        OperationalDataRollupManager.setMaxRollupsInPayload(
+                OpMonitoringSystemProperties.getOpMonitorMaxRecordsInPayload());
+    }
+
+    @Test
+    public void storeAndQueryRollupsOfAllGranularities() throws Exception {
+        storeRecords(List.of(
+                createRecord(MINUTE_START + 1, 100L, true),
+                createRecord(MINUTE_START + 2, 300L, true),
+                createRecord(MINUTE_START + 3, 50L, false)), MINUTE_START + 5);
+        storeRecords(List.of(createRecord(MINUTE_START + 60, 200L, true)), MINUTE_START + 65);
+
+        Rollups minutes = queryRollups(Granularity.MINUTE, MINUTE_START, MINUTE_START + 60, null, null);
+
+        assertEquals(2, minutes.rollups().size());
+        assertNull(minutes.nextRecordsFrom());
+
+        OperationalDataRollup first = minutes.rollups().getFirst();
+
+        assertEquals(MINUTE_START, first.getPeriodStart());
+        assertEquals("Client", first.getSecurityServerType());
+        assertEquals("xroadGetRandom", first.getServiceCode());
+        assertEquals("v1", first.getServiceVersion());
+        assertEquals(2, first.getSuccessfulRequestCount());
+        assertEquals(1, first.getUnsuccessfulRequestCount());
+        assertEquals(2, first.getRequestDuration().getCount());
+        assertEquals(Long.valueOf(100), first.getRequestDuration().getMin());
+        assertEquals(Long.valueOf(300), first.getRequestDuration().getMax());
+        assertEquals(200.0, first.getRequestDuration().getAverage(), 0.0);
+        assertEquals(141.421, first.getRequestDuration().getStdDev(), 1e-3);
+        assertEquals(0, first.getRequestSize().getCount());
+        assertNull(first.getRequestSize().getAverage());
+
+        assertEquals(MINUTE_START + 60, minutes.rollups().get(1).getPeriodStart());
+
+        Rollups hours = queryRollups(Granularity.HOUR, HOUR_START, HOUR_START, null, null);
+
+        assertEquals(1, hours.rollups().size());
+        assertEquals(3, hours.rollups().getFirst().getSuccessfulRequestCount());
+
+        Rollups days = queryRollups(Granularity.DAY, DAY_START, DAY_START, null, null);
+
+        assertEquals(1, days.rollups().size());
+        assertEquals(3, days.rollups().getFirst().getSuccessfulRequestCount());
+        assertEquals(1, days.rollups().getFirst().getUnsuccessfulRequestCount());
+    }
+
+    @Test
+    public void combineRollupsOfSeparateStoreRequests() throws Exception {
+        storeRecords(List.of(createRecord(MINUTE_START + 1, 100L, true)), MINUTE_START + 10);
+        storeRecords(List.of(createRecord(MINUTE_START + 2, 20L, true)), MINUTE_START + 20);
+        storeRecords(List.of(createRecord(MINUTE_START + 3, 500L, true)), MINUTE_START + 30);
+        storeRecords(List.of(createRecord(MINUTE_START + 4, 50L, false)), MINUTE_START + 40);
+
+        Rollups minutes = queryRollups(Granularity.MINUTE, MINUTE_START, MINUTE_START, null, null);
+
+        assertEquals(1, minutes.rollups().size());
+
+        OperationalDataRollup rollup = minutes.rollups().getFirst();
+
+        assertEquals(3, rollup.getSuccessfulRequestCount());
+        assertEquals(1, rollup.getUnsuccessfulRequestCount());
+        assertEquals(Long.valueOf(20), rollup.getRequestDuration().getMin());
+        assertEquals(Long.valueOf(500), rollup.getRequestDuration().getMax());
+        assertEquals(620, rollup.getRequestDuration().getSum());
+    }
+
+    @Test
+    public void aggregateRecordsByStoreTimestamp() throws Exception {
+        storeRecords(List.of(createRecord(MINUTE_START + 1, 10L, true)), MINUTE_START + 2);
+
+        // A record of the first minute stored late must not change the
+        // period that has already ended.
+        storeRecords(List.of(createRecord(MINUTE_START + 30, 10L, false)), MINUTE_START + 70);
+
+        List<OperationalDataRollup> rollups =
+                queryRollups(Granularity.MINUTE, MINUTE_START, MINUTE_START + 60, null, null).rollups();
+
+        assertEquals(2, rollups.size());
+        assertEquals(MINUTE_START, rollups.get(0).getPeriodStart());
+        assertEquals(1, rollups.get(0).getSuccessfulRequestCount());
+        assertEquals(0, rollups.get(0).getUnsuccessfulRequestCount());
+        assertEquals(MINUTE_START + 60, rollups.get(1).getPeriodStart());
+        assertEquals(1, rollups.get(1).getUnsuccessfulRequestCount());
+    }
+
+    @Test
+    public void queryRollupsCausingOverflow() throws Exception {
+        OperationalDataRecord otherService = createRecord(MINUTE_START + 61, 10L, true);
+        otherService.setServiceCode("otherService");
+
+        storeRecords(List.of(createRecord(MINUTE_START + 1, 10L, true)), MINUTE_START + 2);
+        storeRecords(List.of(createRecord(MINUTE_START + 61, 10L, true), otherService), MINUTE_START + 62);
+        storeRecords(List.of(createRecord(MINUTE_START + 121, 10L, true)), MINUTE_START + 122);
+
+        OperationalDataRollupManager.setMaxRollupsInPayload(2);
+
+        // The rollups of the same period as the last included one are
+        // included as overflow.
+        Rollups minutes = queryRollups(Granularity.MINUTE, MINUTE_START, MINUTE_START + 180, null, null);
+
+        assertEquals(3, minutes.rollups().size());
+        assertEquals(Long.valueOf(MINUTE_START + 61), minutes.nextRecordsFrom());
+
+        minutes = queryRollups(Granularity.MINUTE, minutes.nextRecordsFrom(), MINUTE_START + 180, null, null);
+
+        assertEquals(1, minutes.rollups().size());
+        assertNull(minutes.nextRecordsFrom());
+    }
+
+    @Test
+    public void queryRollupsFilteringByServiceProvider() throws Exception {
+        OperationalDataRecord otherProvider = createRecord(MINUTE_START + 1, 10L, true);
+        otherProvider.setServiceSubsystemCode(null);
+
+        storeRecords(List.of(createRecord(MINUTE_START + 1, 10L, true), otherProvider), MINUTE_START + 10);
+
+        assertEquals(2, queryRollups(Granularity.MINUTE, MINUTE_START, MINUTE_START, null, null)
+                .rollups().size());
+
+        List<OperationalDataRollup> rollups =
+                queryRollups(Granularity.MINUTE, MINUTE_START, MINUTE_START, null, PROVIDER).rollups();
+
+        assertEquals(1, rollups.size());
+        assertEquals("Center", rollups.getFirst().getServiceSubsystemCode());
+
+        rollups = queryRollups(Granularity.MINUTE, MINUTE_START, MINUTE_START,
+                ClientId.Conf.create("XTEE-CI-XM", "GOV", "00000000"), null).rollups();
+
+        assertEquals(1, rollups.size());
+        assertEquals("", rollups.getFirst().getServiceSubsystemCode());
+
+        assertEquals(0, queryRollups(Granularity.MINUTE, MINUTE_START, MINUTE_START,
+                ClientId.Conf.create("XTEE-CI-XM", "GOV", "00000000"), PROVIDER).rollups().size());
+    }
+
+    @Test
+    public void cleanupRollups() throws Exception {
+        storeRecords(List.of(createRecord(MINUTE_START + 1, 10L, true)), MINUTE_START + 10);
+
+        OperationalDataRecordCleaner.cleanRecords(Instant.ofEpochSecond(HOUR_START + 1));
+
+        assertEquals(1, queryRollups(Granularity.MINUTE, DAY_START, MINUTE_START, null, null).rollups().size());
+        assertEquals(0, queryRollups(Granularity.HOUR, DAY_START, MINUTE_START, null, null).rollups().size());
+        assertEquals(0, queryRollups(Granularity.DAY, DAY_START, MINUTE_START, null, null).rollups().size());
+    }
+
+    private static OperationalDataRecord createRecord(long requestInSeconds, long durationMillis,
+                                                      boolean succeeded) throws Exception {
+        OperationalDataRecord record = OBJECT_READER.readValue(formatFullOperationalDataAsJson(),
+                OperationalDataRecord.class);
+
+        record.setRequestInTs(requestInSeconds * 1000);
+        record.setResponseOutTs(requestInSeconds * 1000 + durationMillis);
+        record.setSucceeded(succeeded);
+
+        return record;
+    }
+}
@@ -40,7 +40,11 @@ import ee.ria.xroad.common.message.SoapUtils;
 import ee.ria.xroad.common.opmonitoring.OpMonitoringData;
 import ee.ria.xroad.common.util.MimeTypes;
 import ee.ria.xroad.common.util.MimeUtils;
+import ee.ria.xroad.opmonitordaemon.OperationalDataRollup.Granularity;
+import ee.ria.xroad.opmonitordaemon.OperationalDataRollupManager.Rollups;
+import ee.ria.xroad.opmonitordaemon.message.AggregateType;
 import ee.ria.xroad.opmonitordaemon.message.GetSecurityServerHealthDataResponseType;
+import ee.ria.xroad.opmonitordaemon.message.GetSecurityServerOperationalDataAggregatesResponseType;
 
 import com.codahale.metrics.MetricRegistry;
 import lombok.SneakyThrows;
@@ -62,6 +66,7 @@ import java.util.Set;
 import static ee.ria.xroad.opmonitordaemon.OperationalDataTestUtil.OBJECT_READER;
 import static ee.ria.xroad.opmonitordaemon.OperationalDataTestUtil.formatFullOperationalDataAsJson;
 import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
 import static org.mockito.Mockito.mock;
 
 /**
@@ -80,6 +85,8 @@ public class QueryRequestHandlerTest {
             "src/test/resources/operationaldata.request";
     private static final String HEALTH_DATA_REQUEST =
             "src/test/resources/healthdata.request";
+    private static final String OPERATIONAL_DATA_AGGREGATES_REQUEST =
+            "src/test/resources/operationaldataaggregates.request";
 
     private static final String SERVICE_TYPE_REST = "REST";
 
@@ -215,6 +222,153 @@ public class QueryRequestHandlerTest {
                 .getUnsuccessfulRequestCount());
     }
 
+    /**
+     * Ensure that an operational data aggregates response contains the
+     * rollups of the requested granularity in the SOAP body.
+     */
+    @Test
+    public void handleOperationalDataAggregatesRequest() throws Exception {
+        InputStream is = new FileInputStream(OPERATIONAL_DATA_AGGREGATES_REQUEST);
+        SoapParser parser = new SoapParserImpl();
+        SoapMessageImpl request = (SoapMessageImpl) parser.parse(
+                MimeTypes.TEXT_XML_UTF8, is);
+
+        OperationalDataRollup rollup = new OperationalDataRollup();
+        rollup.setGranularity(Granularity.MINUTE.name());
+        rollup.setPeriodStart(1477468200L);
+        rollup.setSecurityServerType(OpMonitoringData.SecurityServerType.PRODUCER.getTypeString());
+        rollup.setServiceXRoadInstance("XTEE-CI-XM");
+        rollup.setServiceMemberClass("GOV");
+        rollup.setServiceMemberCode("00000001");
+        rollup.setServiceCode("xroad/GetRandom");
+        rollup.setUnsuccessfulRequestCount(1);
+        rollup.add(createSucceededRecord(100L));
+        rollup.add(createSucceededRecord(300L));
+
+        QueryRequestHandler handler = new OperationalDataAggregatesRequestHandler(mock(GlobalConfProvider.class)) {
+            @Override
+            protected Rollups getRollups(Granularity granularity, long recordsFrom, long recordsTo,
+                                         ClientId filterByClient, ClientId filterByServiceProvider) {
+                assertEquals(Granularity.MINUTE, granularity);
+                assertEquals(1477468140L, recordsFrom);
+
+                return new Rollups(List.of(rollup), 1477468201L);
+            }
+
+            @Override
+            protected ClientId getClientForFilter(ClientId clientId,
+                                                  SecurityServerId serverId) throws Exception {
+                return null;
+            }
+        };
+
+        OutputStream out = new ByteArrayOutputStream();
+
+        handler.handle(request, out, ct -> testContentType = ct);
+
+        assertEquals(MimeTypes.TEXT_XML, MimeUtils.getBaseContentType(testContentType));
+
+        SoapMessageImpl response = (SoapMessageImpl) parser.parse(
+                MimeTypes.TEXT_XML, IOUtils.toInputStream(out.toString()));
+
+        GetSecurityServerOperationalDataAggregatesResponseType responseData =
+                JaxbUtils.createUnmarshaller(
+                                GetSecurityServerOperationalDataAggregatesResponseType.class)
+                        .unmarshal(SoapUtils.getFirstChild(
+                                        response.getSoap().getSOAPBody()),
+                                GetSecurityServerOperationalDataAggregatesResponseType.class)
+                        .getValue();
+
+        assertEquals(1, responseData.getAggregatesCount());
+        assertEquals(Long.valueOf(1477468201L), responseData.getNextRecordsFrom());
+
+        AggregateType aggregate = responseData.getAggregates().getAggregate().getFirst();
+
+        assertEquals(1477468200L, aggregate.getPeriodStart());
+        assertEquals(ServiceId.Conf.create("XTEE-CI-XM", "GOV", "00000001", null, "xroad/GetRandom"),
+                aggregate.getService());
+        assertEquals(2, aggregate.getSuccessfulRequestCount());
+        assertEquals(1, aggregate.getUnsuccessfulRequestCount());
+        assertEquals(100L, aggregate.getRequestDuration().getMin());
+        assertEquals(200.0, aggregate.getRequestDuration().getAverage(), 0.0);
+        assertEquals(300L, aggregate.getRequestDuration().getMax());
+        assertNull(aggregate.getRequestSize());
+    }
+
+    /**
+     * Ensure that an operational data aggregates response contains only the
+     * periods that have ended and that the next query starts from the
+     * period that was still open.
+     */
+    @Test
+    public void handleOperationalDataAggregatesRequestAcrossOpenPeriod() throws Exception {
+        List<Long> queriedRecordsTo = new ArrayList<>();
+
+        // The minute starting at 1477468200 is still open.
+        GetSecurityServerOperationalDataAggregatesResponseType responseData =
+                handleAggregatesRequest(1477468230L, queriedRecordsTo);
+
+        assertEquals(List.of(1477468199L), queriedRecordsTo);
+        assertEquals(Long.valueOf(1477468200L), responseData.getNextRecordsFrom());
+
+        // Once the minute has ended, it is included in the response.
+        responseData = handleAggregatesRequest(1477468330L, queriedRecordsTo);
+
+        assertEquals(List.of(1477468199L, 1477468260L), queriedRecordsTo);
+        assertNull(responseData.getNextRecordsFrom());
+    }
+
+    private GetSecurityServerOperationalDataAggregatesResponseType handleAggregatesRequest(
+            long recordsAvailableBefore, List<Long> queriedRecordsTo) throws Exception {
+        SoapParser parser = new SoapParserImpl();
+        SoapMessageImpl request;
+
+        try (InputStream is = new FileInputStream(OPERATIONAL_DATA_AGGREGATES_REQUEST)) {
+            request = (SoapMessageImpl) parser.parse(MimeTypes.TEXT_XML_UTF8, is);
+        }
+
+        QueryRequestHandler handler = new OperationalDataAggregatesRequestHandler(mock(GlobalConfProvider.class)) {
+            @Override
+            protected long getRecordsAvailableBefore() {
+                return recordsAvailableBefore;
+            }
+
+            @Override
+            protected Rollups getRollups(Granularity granularity, long recordsFrom, long recordsTo,
+                                         ClientId filterByClient, ClientId filterByServiceProvider) {
+                queriedRecordsTo.add(recordsTo);
+
+                return new Rollups(List.of(), null);
+            }
+
+            @Override
+            protected ClientId getClientForFilter(ClientId clientId,
+                                                  SecurityServerId serverId) throws Exception {
+                return null;
+            }
+        };
+
+        OutputStream out = new ByteArrayOutputStream();
+
+        handler.handle(request, out, ct -> testContentType = ct);
+
+        SoapMessageImpl response = (SoapMessageImpl) parser.parse(
+                MimeTypes.TEXT_XML, IOUtils.toInputStream(out.toString()));
+
+        return JaxbUtils.createUnmarshaller(GetSecurityServerOperationalDataAggregatesResponseType.class)
+                .unmarshal(SoapUtils.getFirstChild(response.getSoap().getSOAPBody()),
+                        GetSecurityServerOperationalDataAggregatesResponseType.class)
+                .getValue();
+    }
+
+    private static OperationalDataRecord createSucceededRecord(long durationMillis) throws IOException {
+        OperationalDataRecord record = OBJECT_READER.readValue(
+                formatFullOperationalDataAsJson(), OperationalDataRecord.class);
+        record.setResponseOutTs(record.getRequestInTs() + durationMillis);
+
+        return record;
+    }
+
     private final class TestMetricsRegistry extends MetricRegistry {
         TestMetricsRegistry() throws IOException {
             HealthDataMetrics.registerInitialMetrics(this,
@@ -0,0 +1,94 @@
+/*
+ * The MIT License
+ * Copyright (c) 2019- Nordic Institute for Interoperability Solutions (NIIS)
+ * Copyright (c) 2018 Estonian Information System Authority (RIA),
+ * Nordic Institute for Interoperability Solutions (NIIS), Population Register Centre (VRK)
+ * Copyright (c) 2015-2017 Estonian Information System Authority (RIA), Population Register Centre (VRK)
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package ee.ria.xroad.opmonitordaemon;
+
+import com.codahale.metrics.Clock;
+import org.junit.Test;
+
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.Assert.assertEquals;
+
+/**
+ * Tests the expiry of increments in SlidingTimeWindowCounter.
+ */
+public class SlidingTimeWindowCounterTest {
+
+    private final ManualClock clock = new ManualClock();
+
+    @Test
+    public void countsIncrementsWithinWindow() {
+        SlidingTimeWindowCounter counter = new SlidingTimeWindowCounter(10, TimeUnit.SECONDS, clock);
+
+        counter.inc();
+        clock.advanceSeconds(3);
+        counter.inc(2);
+        clock.advanceSeconds(6);
+
+        assertEquals(3, counter.getCount());
+
+        // The first increment falls out of the window.
+        clock.advanceSeconds(1);
+        assertEquals(2, counter.getCount());
+
+        clock.advanceSeconds(3);
+        assertEquals(0, counter.getCount());
+    }
+
+    @Test
+    public void expiresEverythingAfterLongIdlePeriod() {
+        SlidingTimeWindowCounter counter = new SlidingTimeWindowCounter(10, TimeUnit.SECONDS, clock);
+
+        for (int i = 0; i < 5; i++) {
+            counter.inc();
+            clock.advanceSeconds(1);
+        }
+
+        clock.advanceSeconds(1000);
+        assertEquals(0, counter.getCount());
+
+        counter.inc();
+        assertEquals(1, counter.getCount());
+    }
+
+    @Test(expected = RuntimeException.class)
+    public void doesNotSupportDecrement() {
+        new SlidingTimeWindowCounter(10, TimeUnit.SECONDS, clock).dec();
+    }
+
+    static final class ManualClock extends Clock {
+        private long tick;
+
+        void advanceSeconds(long seconds) {
+            tick += TimeUnit.SECONDS.toNanos(seconds);
+        }
+
+        @Override
+        public long getTick() {
+            return tick;
+        }
+    }
+}
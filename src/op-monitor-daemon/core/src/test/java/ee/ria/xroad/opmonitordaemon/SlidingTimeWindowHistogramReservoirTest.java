@@ -0,0 +1,117 @@
+/*
+ * The MIT License
+ * Copyright (c) 2019- Nordic Institute for Interoperability Solutions (NIIS)
+ * Copyright (c) 2018 Estonian Information System Authority (RIA),
+ * Nordic Institute for Interoperability Solutions (NIIS), Population Register Centre (VRK)
+ * Copyright (c) 2015-2017 Estonian Information System Authority (RIA), Population Register Centre (VRK)
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package ee.ria.xroad.opmonitordaemon;
+
+import ee.ria.xroad.opmonitordaemon.SlidingTimeWindowCounterTest.ManualClock;
+
+import com.codahale.metrics.Snapshot;
+import org.junit.Test;
+
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Tests the statistics and expiry of SlidingTimeWindowHistogramReservoir.
+ */
+public class SlidingTimeWindowHistogramReservoirTest {
+
+    private final ManualClock clock = new ManualClock();
+
+    @Test
+    public void computesExactStatisticsAndApproximateQuantiles() {
+        SlidingTimeWindowHistogramReservoir reservoir =
+                new SlidingTimeWindowHistogramReservoir(60, TimeUnit.SECONDS, clock);
+
+        for (long value = 1; value <= 1000; value++) {
+            reservoir.update(value);
+        }
+
+        Snapshot snapshot = reservoir.getSnapshot();
+
+        assertEquals(1000, snapshot.size());
+        assertEquals(1, snapshot.getMin());
+        assertEquals(1000, snapshot.getMax());
+        assertEquals(500.5, snapshot.getMean(), 1e-9);
+        assertEquals(288.819, snapshot.getStdDev(), 1e-3);
+
+        assertRelativelyClose(500, snapshot.getMedian());
+        assertRelativelyClose(950, snapshot.get95thPercentile());
+        assertRelativelyClose(990, snapshot.get99thPercentile());
+    }
+
+    @Test
+    public void expiresValuesOutsideWindow() {
+        SlidingTimeWindowHistogramReservoir reservoir =
+                new SlidingTimeWindowHistogramReservoir(10, TimeUnit.SECONDS, clock);
+
+        reservoir.update(100);
+        clock.advanceSeconds(5);
+        reservoir.update(5);
+        reservoir.update(7);
+
+        assertEquals(3, reservoir.size());
+        assertEquals(100, reservoir.getSnapshot().getMax());
+
+        clock.advanceSeconds(6);
+
+        Snapshot snapshot = reservoir.getSnapshot();
+        assertEquals(2, snapshot.size());
+        assertEquals(5, snapshot.getMin());
+        assertEquals(7, snapshot.getMax());
+        assertEquals(6.0, snapshot.getMean(), 1e-9);
+        assertArrayEquals(new long[] {5, 7}, snapshot.getValues());
+
+        clock.advanceSeconds(60);
+
+        snapshot = reservoir.getSnapshot();
+        assertEquals(0, snapshot.size());
+        assertEquals(0, snapshot.getMax());
+        assertEquals(0.0, snapshot.getMean(), 0.0);
+        assertEquals(0.0, snapshot.getMedian(), 0.0);
+    }
+
+    @Test
+    public void binsCoverTheWholeRange() {
+        long[] values = {0, 1, 7, 8, 9, 15, 16, 17, 1000, 123456789L, Long.MAX_VALUE};
+
+        for (long value : values) {
+            int bin = SlidingTimeWindowHistogramReservoir.binIndex(value);
+            long lower = SlidingTimeWindowHistogramReservoir.binLowerBound(bin);
+            long width = SlidingTimeWindowHistogramReservoir.binWidth(bin);
+
+            assertTrue(value + " below bin " + bin, lower <= value);
+            assertTrue(value + " above bin " + bin, value - lower < width);
+        }
+    }
+
+    private static void assertRelativelyClose(double expected, double actual) {
+        assertTrue("expected about " + expected + " but was " + actual,
+                Math.abs(actual - expected) <= expected * 0.07);
+    }
+}
@@ -0,0 +1,119 @@
+/*
+ * The MIT License
+ * Copyright (c) 2019- Nordic Institute for Interoperability Solutions (NIIS)
+ * Copyright (c) 2018 Estonian Information System Authority (RIA),
+ * Nordic Institute for Interoperability Solutions (NIIS), Population Register Centre (VRK)
+ * Copyright (c) 2015-2017 Estonian Information System Authority (RIA), Population Register Centre (VRK)
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package ee.ria.xroad.common.signature;
+
+import ee.ria.xroad.common.crypto.identifier.DigestAlgorithm;
+
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+import org.bouncycastle.cert.ocsp.OCSPResp;
+
+import java.security.cert.X509Certificate;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+
+import static ee.ria.xroad.common.crypto.Digests.calculateDigest;
+import static ee.ria.xroad.common.util.EncoderUtils.encodeBase64;
+
+/**
+ * Pre-rendered values of the XAdES signature parts that only depend on the signing certificate, the extra
+ * certificates and the OCSP responses. Within a signing context these stay the same from one message to the next,
+ * so the certificate digests, issuer serials and base64 encodings are computed once and reused.
+ */
+final class SignatureTemplate {
+
+    private static final int CACHE_MAX_SIZE = 64;
+    private static final int CACHE_EXPIRE_MINUTES = 60;
+
+    private static final Cache<Key, SignatureTemplate> CACHE = CacheBuilder.newBuilder()
+            .maximumSize(CACHE_MAX_SIZE)
+            .expireAfterAccess(CACHE_EXPIRE_MINUTES, TimeUnit.MINUTES)
+            .build();
+
+    private final CertRef signingCert;
+    private final List<CertRef> extraCertificates;
+    private final List<String> ocspResponses;
+
+    private SignatureTemplate(Key key) throws Exception {
+        this.signingCert = new CertRef(key.signingCert(), key.digestAlgorithm());
+
+        this.extraCertificates = new ArrayList<>(key.extraCertificates().size());
+        for (X509Certificate cert : key.extraCertificates()) {
+            extraCertificates.add(new CertRef(cert, key.digestAlgorithm()));
+        }
+
+        this.ocspResponses = new ArrayList<>(key.ocspResponses().size());
+        for (OCSPResp ocspResponse : key.ocspResponses()) {
+            ocspResponses.add(encodeBase64(ocspResponse.getEncoded()));
+        }
+    }
+
+    /**
+     * Returns the template for the given signing context, creating it if it is not cached yet.
+     */
+    static SignatureTemplate get(DigestAlgorithm digestAlgorithm, X509Certificate signingCert,
+                                 List<X509Certificate> extraCertificates, List<OCSPResp> ocspResponses)
+            throws Exception {
+        Key key = new Key(digestAlgorithm, signingCert, List.copyOf(extraCertificates), List.copyOf(ocspResponses));
+
+        try {
+            return CACHE.get(key, () -> new SignatureTemplate(key));
+        } catch (ExecutionException e) {
+            throw e.getCause() instanceof Exception cause ? cause : e;
+        }
+    }
+
+    CertRef getSigningCert() {
+        return signingCert;
+    }
+
+    List<CertRef> getExtraCertificates() {
+        return extraCertificates;
+    }
+
+    List<String> getOcspResponses() {
+        return ocspResponses;
+    }
+
+    /**
+     * Pre-rendered values of a single certificate.
+     */
+    record CertRef(String digest, String issuerName, String serialNumber, String encoded) {
+
+        CertRef(X509Certificate cert, DigestAlgorithm digestAlgorithm) throws Exception {
+            this(encodeBase64(calculateDigest(digestAlgorithm, cert.getEncoded())),
+                    cert.getIssuerX500Principal().getName(),
+                    cert.getSerialNumber().toString(),
+                    encodeBase64(cert.getEncoded()));
+        }
+    }
+
+    private record Key(DigestAlgorithm digestAlgorithm, X509Certificate signingCert,
+                       List<X509Certificate> extraCertificates, List<OCSPResp> ocspResponses) {
+    }
+}
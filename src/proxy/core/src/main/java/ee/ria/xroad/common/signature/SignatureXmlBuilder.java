@@ -39,19 +39,14 @@ import org.apache.xml.security.signature.SignedInfo;
 import org.apache.xml.security.signature.XMLSignature;
 import org.apache.xml.security.signature.XMLSignatureException;
 import org.apache.xml.security.utils.resolver.ResourceResolverSpi;
-import org.bouncycastle.cert.ocsp.OCSPResp;
 import org.w3c.dom.Document;
 import org.w3c.dom.Element;
 import org.w3c.dom.Text;
 
-import java.io.IOException;
 import java.security.cert.X509Certificate;
-import java.util.ArrayList;
 import java.util.Calendar;
-import java.util.List;
 import java.util.TimeZone;
 
-import static ee.ria.xroad.common.crypto.Digests.calculateDigest;
 import static ee.ria.xroad.common.signature.Helper.ALGORITHM_ATTRIBUTE;
 import static ee.ria.xroad.common.signature.Helper.CERTIFFICATE_VALUES_TAG;
 import static ee.ria.xroad.common.signature.Helper.CERT_DIGEST_TAG;
@@ -105,10 +100,10 @@ import static ee.ria.xroad.common.signature.Helper.createSignatureElement;
 import static ee.ria.xroad.common.signature.Helper.elementNotFound;
 import static ee.ria.xroad.common.signature.Helper.getSignatureRefereceIdForMessage;
 import static ee.ria.xroad.common.signature.Helper.getSignatureReferenceIdForSignedProperties;
-import static ee.ria.xroad.common.util.EncoderUtils.encodeBase64;
 
 /**
  * Encapsulates the AsiC XAdES signature profile. This class creates the signature used in signing the messages.
+ * The certificate and OCSP related values are taken from a cached {@link SignatureTemplate}.
  */
 final class SignatureXmlBuilder {
 
@@ -125,11 +120,9 @@ final class SignatureXmlBuilder {
 
     private static final int MAX_LINE_LENGTH = 76;
 
-    private final List<X509Certificate> extraCertificates = new ArrayList<>();
-    private final List<OCSPResp> ocspResponses = new ArrayList<>();
-
     private final X509Certificate signingCert;
     private final DigestAlgorithm hashAlgorithmId;
+    private final SignatureTemplate template;
 
     private Document document;
     private XMLSignature signature;
@@ -138,9 +131,9 @@ final class SignatureXmlBuilder {
 
     SignatureXmlBuilder(SigningRequest request, DigestAlgorithm hashAlgorithmId) throws Exception {
         this.signingCert = request.getSigningCert();
-        this.extraCertificates.addAll(request.getExtraCertificates());
-        this.ocspResponses.addAll(request.getOcspResponses());
         this.hashAlgorithmId = hashAlgorithmId;
+        this.template = SignatureTemplate.get(hashAlgorithmId, signingCert, request.getExtraCertificates(),
+                request.getOcspResponses());
     }
 
     byte[] createDataToBeSigned(String docName, ResourceResolverSpi resourceResolver, SignAlgorithm signatureAlgorithmUri)
@@ -250,7 +243,7 @@ final class SignatureXmlBuilder {
         Element signingCertificate = createXadesElement(signedSignatureProperties, SIGNING_CERTIFICATE_TAG);
         Element cert = createXadesElement(signingCertificate, CERT_TAG);
 
-        createCertDigestAndIssuerSerial(signature.getKeyInfo().getX509Certificate(), cert);
+        createCertDigestAndIssuerSerial(template.getSigningCert(), cert);
     }
 
     private void createSignaturePolicyIdentifier(Element signedSignatureProperties) throws Exception {
@@ -303,18 +296,15 @@ final class SignatureXmlBuilder {
         }
     }
 
-    private void createCertDigestAndIssuerSerial(X509Certificate cert, Element certElement) throws Exception {
+    private void createCertDigestAndIssuerSerial(SignatureTemplate.CertRef cert, Element certElement)
+            throws Exception {
         Element certDigest = createXadesElement(certElement, CERT_DIGEST_TAG);
-        createCertDigestAlgAndValue(cert, certDigest);
+        createDigestAlgAndValue(getHashAlgorithmId(), cert.digest(), certDigest);
 
         Element issuerSerial = createXadesElement(certElement, ISSUER_SERIAL_TAG);
         createCertId(cert, issuerSerial);
     }
 
-    private void createCertDigestAlgAndValue(X509Certificate cert, Element element) throws Exception {
-        createDigestAlgAndValue(getHashAlgorithmId(), digest(cert, getHashAlgorithmId()), element);
-    }
-
     private void createDigestAlgAndValue(DigestAlgorithm algorithmUri, String digest, Element element) throws Exception {
         Element digestMethod = createDsElement(element, DIGEST_METHOD_TAG);
         digestMethod.setAttribute(ALGORITHM_ATTRIBUTE, algorithmUri.uri());
@@ -323,23 +313,20 @@ final class SignatureXmlBuilder {
         digestValue.setTextContent(digest);
     }
 
-    private void createCertId(X509Certificate cert, Element element) {
+    private void createCertId(SignatureTemplate.CertRef cert, Element element) {
         Element issuerName = createDsElement(element, X509_ISSUER_NAME_TAG);
-        issuerName.setTextContent(cert.getIssuerX500Principal().getName());
+        issuerName.setTextContent(cert.issuerName());
 
         Element issuerNumber = createDsElement(element, X509_SERIAL_NUMBER_TAG);
-        issuerNumber.setTextContent(cert.getSerialNumber().toString());
+        issuerNumber.setTextContent(cert.serialNumber());
     }
 
     private Element createUnsignedProperties() throws Exception {
         Element unsignedProperties = createXadesElement(UNSIGNED_PROPS_TAG);
         Element unsignedSignatureProperties = createXadesElement(unsignedProperties, UNSIGNED_SIGNATURE_PROPS_TAG);
 
-        if (!extraCertificates.isEmpty()) {
+        if (!template.getExtraCertificates().isEmpty()) {
             createCompleteCertificateRefs(unsignedSignatureProperties);
-        }
-
-        if (!extraCertificates.isEmpty()) {
             createCertificateValues(unsignedSignatureProperties);
         }
 
@@ -354,26 +341,26 @@ final class SignatureXmlBuilder {
 
         int c = 1;
 
-        for (OCSPResp ocspResp : ocspResponses) {
-            createOcspValue(ocspValues, ocspResp, OCSP_RESPONSE_ID + (c++));
+        for (String ocspResponse : template.getOcspResponses()) {
+            createOcspValue(ocspValues, ocspResponse, OCSP_RESPONSE_ID + (c++));
         }
     }
 
-    private void createOcspValue(Element ocspValues, OCSPResp ocspResponse, String id) throws IOException {
+    private void createOcspValue(Element ocspValues, String encodedOcspResponse, String id) {
         Element encapsulatedOcspValue = createXadesElement(ocspValues, ENCAPSULATED_OCSP_VALUE_TAG);
         encapsulatedOcspValue.setAttribute(ID_ATTRIBUTE, id);
-        encapsulatedOcspValue.setTextContent(encodeBase64(ocspResponse.getEncoded()));
+        encapsulatedOcspValue.setTextContent(encodedOcspResponse);
     }
 
-    private void createCertificateValues(Element unsignedSignatureProperties) throws Exception {
+    private void createCertificateValues(Element unsignedSignatureProperties) {
         Element certificateValues = createXadesElement(unsignedSignatureProperties, CERTIFFICATE_VALUES_TAG);
 
         int c = 1;
 
-        for (X509Certificate cert : extraCertificates) {
+        for (SignatureTemplate.CertRef cert : template.getExtraCertificates()) {
             Element encapsulatedX509Certificate = createXadesElement(certificateValues,
                     ENCAPSULATED_X509_CERTIFICATE_TAG);
-            encapsulatedX509Certificate.setTextContent(encodeBase64(cert.getEncoded()));
+            encapsulatedX509Certificate.setTextContent(cert.encoded());
             encapsulatedX509Certificate.setAttribute(ID_ATTRIBUTE, ENCAPSULATED_CERT_ID + (c++));
         }
     }
@@ -388,7 +375,7 @@ final class SignatureXmlBuilder {
         // add references to all the extra certificates
         int c = 1;
 
-        for (X509Certificate cert : extraCertificates) {
+        for (SignatureTemplate.CertRef cert : template.getExtraCertificates()) {
             Element certElement = createXadesElement(certRefs, CERT_TAG);
             certElement.setAttribute(URI_ATTRIBUTE, "#" + ENCAPSULATED_CERT_ID + (c++));
             createCertDigestAndIssuerSerial(cert, certElement);
@@ -416,12 +403,4 @@ final class SignatureXmlBuilder {
     private Element createDsElement(String name) {
         return document.createElement(PREFIX_DS + name);
     }
-
-    private static String digest(X509Certificate cert, DigestAlgorithm method) throws Exception {
-        return digest(cert.getEncoded(), method);
-    }
-
-    private static String digest(byte[] encoded, DigestAlgorithm method) throws Exception {
-        return encodeBase64(calculateDigest(method, encoded));
-    }
 }
@@ -0,0 +1,218 @@
+/*
+ * The MIT License
+ * Copyright (c) 2019- Nordic Institute for Interoperability Solutions (NIIS)
+ * Copyright (c) 2018 Estonian Information System Authority (RIA),
+ * Nordic Institute for Interoperability Solutions (NIIS), Population Register Centre (VRK)
+ * Copyright (c) 2015-2017 Estonian Information System Authority (RIA), Population Register Centre (VRK)
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package org.niis.xroad.securityserver.restapi.cache;
+
+import ee.ria.xroad.common.conf.globalconf.GlobalConfProvider;
+import ee.ria.xroad.common.conf.globalconf.MemberInfo;
+import ee.ria.xroad.common.conf.serverconf.model.ClientType;
+import ee.ria.xroad.common.identifier.ClientId;
+
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Component;
+import org.springframework.util.StringUtils;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Optional;
+import java.util.stream.Stream;
+
+/**
+ * In-memory index of the clients (members and subsystems) listed in global configuration.
+ * <p>
+ * The index is built from {@link GlobalConfProvider#getMembers(String...)} on first use and replaced by
+ * {@link #refresh()} whenever the member list of global configuration has changed. Readers only read the current
+ * snapshot, so searching does not touch global configuration at all. Member names are resolved once per build and
+ * the searchable identifier fields are kept in lower case, so searching does not need to look up member names or
+ * convert identifiers client by client.
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class GlobalClientIndex {
+
+    private final GlobalConfProvider globalConfProvider;
+
+    private volatile Snapshot snapshot;
+
+    /**
+     * Find global clients whose identifier and member name match the given search terms. Instance is matched
+     * exactly, other terms are matched as case-insensitive substrings. Empty terms match all clients.
+     * @param name member name search term
+     * @param instance instance identifier
+     * @param memberClass member class search term
+     * @param memberCode member code search term
+     * @param subsystemCode subsystem code search term
+     * @param showMembers include members (without subsystem code) in the results
+     * @return matching clients in global configuration order
+     */
+    public List<ClientType> find(String name, String instance, String memberClass, String memberCode,
+                                 String subsystemCode, boolean showMembers) {
+        Snapshot current = getSnapshot();
+        Collection<Entry> candidates = StringUtils.isEmpty(instance)
+                ? current.entries
+                : current.entriesByInstance.getOrDefault(toLowerCase(instance), List.of());
+        String nameTerm = toLowerCase(name);
+        String memberClassTerm = toLowerCase(memberClass);
+        String memberCodeTerm = toLowerCase(memberCode);
+        String subsystemCodeTerm = toLowerCase(subsystemCode);
+
+        Stream<Entry> matching = candidates.stream();
+        if (!showMembers) {
+            matching = matching.filter(entry -> entry.subsystemCode != null);
+        }
+        if (nameTerm != null) {
+            matching = matching.filter(entry -> entry.memberName != null && entry.memberName.contains(nameTerm));
+        }
+        if (memberClassTerm != null) {
+            matching = matching.filter(entry -> entry.memberClass.contains(memberClassTerm));
+        }
+        if (memberCodeTerm != null) {
+            matching = matching.filter(entry -> entry.memberCode.contains(memberCodeTerm));
+        }
+        if (subsystemCodeTerm != null) {
+            matching = matching.filter(entry -> entry.subsystemCode != null
+                    && entry.subsystemCode.contains(subsystemCodeTerm));
+        }
+        return matching
+                .map(entry -> toClientType(entry.id))
+                .toList();
+    }
+
+    /**
+     * Find one global client
+     * @param clientId client (member or subsystem) identifier
+     * @return the client, or empty if global configuration does not contain it
+     */
+    public Optional<ClientType> find(ClientId clientId) {
+        return Optional.ofNullable(getSnapshot().entriesById.get(clientId.toShortString().trim()))
+                .map(entry -> toClientType(entry.id));
+    }
+
+    /**
+     * Return name of the member the client belongs to, with the same semantics as
+     * {@link GlobalConfProvider#getMemberName(ClientId)}
+     * @param clientId client (member or subsystem) identifier
+     * @return member name, or null if global configuration does not contain the member
+     */
+    public String getMemberName(ClientId clientId) {
+        return getSnapshot().getMemberName(clientId);
+    }
+
+    /**
+     * Replace the index if the members in global configuration have changed since it was built. Called after
+     * global configuration has been reloaded.
+     */
+    public synchronized void refresh() {
+        List<MemberInfo> members = globalConfProvider.getMembers();
+        Snapshot current = snapshot;
+        if (current == null || !current.members.equals(members)) {
+            current = new Snapshot(members);
+            snapshot = current;
+            log.debug("Rebuilt global client index with {} clients", current.entries.size());
+        }
+    }
+
+    /**
+     * Return the current contents of the index. Callers doing several lookups should take one snapshot and use
+     * it for all of them, so that the lookups are consistent with each other.
+     * @return current snapshot of the index
+     */
+    public Snapshot getSnapshot() {
+        Snapshot current = snapshot;
+        if (current == null) {
+            refresh();
+            current = snapshot;
+        }
+        return current;
+    }
+
+    private static ClientType toClientType(ClientId.Conf id) {
+        ClientType clientType = new ClientType();
+        clientType.setIdentifier(id);
+        return clientType;
+    }
+
+    private static String memberKey(ClientId clientId) {
+        return String.join("/", clientId.getXRoadInstance(), clientId.getMemberClass(), clientId.getMemberCode());
+    }
+
+    private static String toLowerCase(String value) {
+        return StringUtils.isEmpty(value) ? null : value.toLowerCase(Locale.ROOT);
+    }
+
+    private static final class Entry {
+        private final ClientId.Conf id;
+        private final String memberName;
+        private final String memberClass;
+        private final String memberCode;
+        private final String subsystemCode;
+
+        Entry(MemberInfo memberInfo) {
+            this.id = memberInfo.getId();
+            this.memberName = memberInfo.getName() == null ? null : memberInfo.getName().toLowerCase(Locale.ROOT);
+            this.memberClass = id.getMemberClass().toLowerCase(Locale.ROOT);
+            this.memberCode = id.getMemberCode().toLowerCase(Locale.ROOT);
+            this.subsystemCode = id.getSubsystemCode() == null ? null : id.getSubsystemCode().toLowerCase(Locale.ROOT);
+        }
+    }
+
+    /**
+     * Immutable contents of the index built from one member list of global configuration.
+     */
+    public static final class Snapshot {
+        private final List<MemberInfo> members;
+        private final List<Entry> entries = new ArrayList<>();
+        private final Map<String, List<Entry>> entriesByInstance = new HashMap<>();
+        private final Map<String, Entry> entriesById = new HashMap<>();
+        private final Map<String, String> memberNames = new HashMap<>();
+
+        Snapshot(List<MemberInfo> members) {
+            this.members = List.copyOf(members);
+            for (MemberInfo memberInfo : this.members) {
+                Entry entry = new Entry(memberInfo);
+                entries.add(entry);
+                entriesByInstance.computeIfAbsent(memberInfo.getId().getXRoadInstance().toLowerCase(Locale.ROOT),
+                        k -> new ArrayList<>()).add(entry);
+                entriesById.putIfAbsent(memberInfo.getId().toShortString(), entry);
+                memberNames.putIfAbsent(memberKey(memberInfo.getId()), memberInfo.getName());
+            }
+        }
+
+        /**
+         * Return name of the member the client belongs to
+         * @param clientId client (member or subsystem) identifier
+         * @return member name, or null if the snapshot does not contain the member
+         */
+        public String getMemberName(ClientId clientId) {
+            return memberNames.get(memberKey(clientId));
+        }
+    }
+}
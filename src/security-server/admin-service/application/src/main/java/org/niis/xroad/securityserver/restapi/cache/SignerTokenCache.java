@@ -0,0 +1,180 @@
+/*
+ * The MIT License
+ * Copyright (c) 2019- Nordic Institute for Interoperability Solutions (NIIS)
+ * Copyright (c) 2018 Estonian Information System Authority (RIA),
+ * Nordic Institute for Interoperability Solutions (NIIS), Population Register Centre (VRK)
+ * Copyright (c) 2015-2017 Estonian Information System Authority (RIA), Population Register Centre (VRK)
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package org.niis.xroad.securityserver.restapi.cache;
+
+import ee.ria.xroad.signer.protocol.dto.TokenInfo;
+
+import lombok.extern.slf4j.Slf4j;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
+import java.util.function.LongSupplier;
+import java.util.function.Supplier;
+
+/**
+ * Token list of signer, kept current by the token watch stream of signer.
+ * <p>
+ * While the stream is connected, reads are served from the latest token list pushed by signer. After this
+ * admin service has changed tokens, keys or certificates ({@link #invalidate()}), reads go to signer until
+ * signer has had time to push the change. While the stream is not connected, reads go to signer and the
+ * subscription is retried in the background.
+ */
+@Slf4j
+public class SignerTokenCache {
+    static final long INVALIDATION_PERIOD_MS = 2000;
+    static final long RESUBSCRIBE_DELAY_MS = 1000;
+
+    /**
+     * Subscribes to token list changes, see {@link ee.ria.xroad.signer.SignerProxy#watchTokens}
+     */
+    @FunctionalInterface
+    public interface TokenWatcher {
+        Closeable watch(Consumer<List<TokenInfo>> listener, Consumer<Throwable> completionListener);
+    }
+
+    private final Supplier<List<TokenInfo>> tokenLoader;
+    private final TokenWatcher tokenWatcher;
+    private final LongSupplier nanoClock;
+
+    private final ScheduledExecutorService resubscribeExecutor = Executors.newSingleThreadScheduledExecutor(r -> {
+        Thread thread = new Thread(r, "signer-token-cache");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    private volatile List<TokenInfo> tokens;
+    private volatile long validAfterNanos;
+    private volatile Closeable subscription;
+    private volatile boolean stopped;
+
+    public SignerTokenCache(Supplier<List<TokenInfo>> tokenLoader, TokenWatcher tokenWatcher) {
+        this(tokenLoader, tokenWatcher, System::nanoTime);
+    }
+
+    SignerTokenCache(Supplier<List<TokenInfo>> tokenLoader, TokenWatcher tokenWatcher, LongSupplier nanoClock) {
+        this.tokenLoader = tokenLoader;
+        this.tokenWatcher = tokenWatcher;
+        this.nanoClock = nanoClock;
+        this.validAfterNanos = nanoClock.getAsLong();
+    }
+
+    /**
+     * Subscribes to the token list changes of signer.
+     */
+    public void start() {
+        subscribe();
+    }
+
+    /**
+     * Closes the subscription. Reads go to signer after this.
+     */
+    public void stop() {
+        stopped = true;
+        tokens = null;
+        resubscribeExecutor.shutdownNow();
+        closeSubscription();
+    }
+
+    /**
+     * @return current tokens of signer
+     */
+    public List<TokenInfo> getTokens() {
+        return getCurrentTokens().orElseGet(tokenLoader);
+    }
+
+    /**
+     * @param tokenId token id
+     * @return the token, or empty if the token list is not cached or does not contain the token
+     */
+    public Optional<TokenInfo> getToken(String tokenId) {
+        return getCurrentTokens().flatMap(current -> current.stream()
+                .filter(tokenInfo -> tokenInfo.getId().equals(tokenId))
+                .findFirst());
+    }
+
+    /**
+     * Stops serving reads from the pushed token list until signer has had time to push the changes this admin
+     * service has made.
+     */
+    public void invalidate() {
+        validAfterNanos = nanoClock.getAsLong() + TimeUnit.MILLISECONDS.toNanos(INVALIDATION_PERIOD_MS);
+    }
+
+    private Optional<List<TokenInfo>> getCurrentTokens() {
+        List<TokenInfo> current = tokens;
+        if (current == null || nanoClock.getAsLong() - validAfterNanos < 0) {
+            return Optional.empty();
+        }
+        return Optional.of(current);
+    }
+
+    private void subscribe() {
+        if (stopped) {
+            return;
+        }
+        try {
+            subscription = tokenWatcher.watch(this::onTokens, this::onCompleted);
+        } catch (RuntimeException e) {
+            onCompleted(e);
+        }
+    }
+
+    private void onTokens(List<TokenInfo> pushedTokens) {
+        if (!stopped) {
+            tokens = List.copyOf(pushedTokens);
+        }
+    }
+
+    private void onCompleted(Throwable error) {
+        tokens = null;
+        if (stopped) {
+            return;
+        }
+        log.debug("Signer token watch ended, resubscribing", error);
+        try {
+            resubscribeExecutor.schedule(this::subscribe, RESUBSCRIBE_DELAY_MS, TimeUnit.MILLISECONDS);
+        } catch (RuntimeException e) {
+            log.debug("Failed to schedule signer token watch resubscription", e);
+        }
+    }
+
+    private void closeSubscription() {
+        Closeable current = subscription;
+        if (current != null) {
+            try {
+                current.close();
+            } catch (IOException e) {
+                log.debug("Failed to close signer token watch", e);
+            }
+        }
+    }
+}
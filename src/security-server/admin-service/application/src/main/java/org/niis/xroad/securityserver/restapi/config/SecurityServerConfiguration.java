@@ -27,8 +27,8 @@ package org.niis.xroad.securityserver.restapi.config;
 
 import ee.ria.xroad.common.util.process.ExternalProcessRunner;
 
-import jakarta.servlet.Filter;
 import org.niis.xroad.common.api.throttle.IpThrottlingFilter;
+import org.niis.xroad.common.api.throttle.IpThrottlingFilterMetrics;
 import org.niis.xroad.restapi.config.AddCorrelationIdFilter;
 import org.niis.xroad.restapi.config.ApiCachingConfiguration;
 import org.niis.xroad.restapi.util.CaffeineCacheBuilder;
@@ -53,10 +53,16 @@ public class SecurityServerConfiguration {
     @Bean
     @Order(AddCorrelationIdFilter.CORRELATION_ID_FILTER_ORDER + 3)
     @Profile("nontest")
-    public Filter ipThrottlingFilter(AdminServiceProperties properties) {
+    public IpThrottlingFilter ipThrottlingFilter(AdminServiceProperties properties) {
         return new IpThrottlingFilter(properties);
     }
 
+    @Bean
+    @Profile("nontest")
+    public IpThrottlingFilterMetrics ipThrottlingFilterMetrics(IpThrottlingFilter ipThrottlingFilter) {
+        return new IpThrottlingFilterMetrics(ipThrottlingFilter);
+    }
+
     @Bean
     public CaffeineCacheBuilder.ConfiguredCache cacheGetCertAuthorities(ApiCachingConfiguration.Config cachingProperties) {
         return CaffeineCacheBuilder.newExpireAfterWriteCache(GET_CERTIFICATE_AUTHORITIES_CACHE, cachingProperties.getCacheDefaultTtl());
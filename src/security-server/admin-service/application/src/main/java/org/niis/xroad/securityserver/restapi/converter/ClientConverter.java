@@ -25,7 +25,6 @@
  */
 package org.niis.xroad.securityserver.restapi.converter;
 
-import ee.ria.xroad.common.conf.globalconf.GlobalConfProvider;
 import ee.ria.xroad.common.conf.globalconf.MemberInfo;
 import ee.ria.xroad.common.conf.serverconf.model.ClientType;
 import ee.ria.xroad.common.identifier.ClientId;
@@ -35,6 +34,7 @@ import lombok.RequiredArgsConstructor;
 import org.niis.xroad.restapi.converter.ClientIdConverter;
 import org.niis.xroad.securityserver.restapi.cache.CurrentSecurityServerId;
 import org.niis.xroad.securityserver.restapi.cache.CurrentSecurityServerSignCertificates;
+import org.niis.xroad.securityserver.restapi.cache.GlobalClientIndex;
 import org.niis.xroad.securityserver.restapi.converter.comparator.ClientSortingComparator;
 import org.niis.xroad.securityserver.restapi.openapi.model.Client;
 import org.niis.xroad.securityserver.restapi.openapi.model.ClientStatus;
@@ -55,7 +55,7 @@ import java.util.stream.Collectors;
 @RequiredArgsConstructor
 public class ClientConverter {
 
-    private final GlobalConfProvider globalConfProvider;
+    private final GlobalClientIndex globalClientIndex;
     private final CurrentSecurityServerId securityServerOwner; // request scoped
     // request scoped contains all certificates of type sign
     private final CurrentSecurityServerSignCertificates currentSecurityServerSignCertificates;
@@ -69,13 +69,17 @@ public class ClientConverter {
      * @return
      */
     public Client convert(ClientType clientType) {
+        return convert(clientType, globalClientIndex.getSnapshot());
+    }
+
+    private Client convert(ClientType clientType, GlobalClientIndex.Snapshot globalClients) {
         Client client = new Client();
         client.setId(clientIdConverter.convertId(clientType.getIdentifier()));
         client.setInstanceId(clientType.getIdentifier().getXRoadInstance());
         client.setMemberClass(clientType.getIdentifier().getMemberClass());
         client.setMemberCode(clientType.getIdentifier().getMemberCode());
         client.setSubsystemCode(clientType.getIdentifier().getSubsystemCode());
-        client.setMemberName(globalConfProvider.getMemberName(clientType.getIdentifier()));
+        client.setMemberName(globalClients.getMemberName(clientType.getIdentifier()));
         client.setOwner(clientType.getIdentifier().equals(securityServerOwner.getServerId().getOwner()));
         client.setHasValidLocalSignCert(ClientUtils.hasValidLocalSignCert(clientType.getIdentifier(),
                 currentSecurityServerSignCertificates.getSignCertificateInfos()));
@@ -93,8 +97,9 @@ public class ClientConverter {
      * @return
      */
     public Set<Client> convert(Iterable<ClientType> clientTypes) {
+        GlobalClientIndex.Snapshot globalClients = globalClientIndex.getSnapshot();
         return Streams.stream(clientTypes)
-                .map(this::convert)
+                .map(clientType -> convert(clientType, globalClients))
                 .sorted(clientSortingComparator)
                 .collect(Collectors.toCollection(LinkedHashSet::new));
     }
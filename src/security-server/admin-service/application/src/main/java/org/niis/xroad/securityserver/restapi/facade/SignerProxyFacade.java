@@ -40,6 +40,7 @@ import ee.ria.xroad.signer.protocol.dto.TokenInfo;
 import ee.ria.xroad.signer.protocol.dto.TokenInfoAndKeyId;
 
 import lombok.extern.slf4j.Slf4j;
+import org.niis.xroad.securityserver.restapi.cache.SignerTokenCache;
 import org.niis.xroad.signer.proto.CertificateRequestFormat;
 import org.springframework.beans.factory.DisposableBean;
 import org.springframework.beans.factory.InitializingBean;
@@ -48,24 +49,31 @@ import org.springframework.stereotype.Component;
 
 import java.time.Instant;
 import java.util.List;
+import java.util.function.Supplier;
 
 /**
  * SignerProxy facade.
- * Pure facade / wrapper, just delegates to SignerProxy. Zero business logic.
- * Exists to make testing easier by offering non-static methods.
+ * Wrapper that delegates to SignerProxy. Exists to make testing easier by offering non-static methods.
+ * Token list reads are served from {@link SignerTokenCache}, which signer keeps current, and calls that
+ * change tokens, keys or certificates invalidate it.
  */
 @Slf4j
 @Profile("!test")
 @Component
 public class SignerProxyFacade implements InitializingBean, DisposableBean {
 
+    private SignerTokenCache tokenCache;
+
     @Override
     public void afterPropertiesSet() throws Exception {
         RpcSignerClient.init();
+        tokenCache = new SignerTokenCache(SignerProxy::getTokens, SignerProxy::watchTokens);
+        tokenCache.start();
     }
 
     @Override
     public void destroy() {
+        tokenCache.stop();
         RpcSignerClient.shutdown();
     }
 
@@ -73,77 +81,77 @@ public class SignerProxyFacade implements InitializingBean, DisposableBean {
      * {@link SignerProxy#initSoftwareToken(char[])}
      */
     public void initSoftwareToken(char[] password) throws SecurityException {
-        SignerProxy.initSoftwareToken(password);
+        changeTokens(() -> SignerProxy.initSoftwareToken(password));
     }
 
     /**
      * {@link SignerProxy#getTokens()}
      */
     public List<TokenInfo> getTokens() throws SecurityException {
-        return SignerProxy.getTokens();
+        return tokenCache.getTokens();
     }
 
     /**
      * {@link SignerProxy#getToken(String)}
      */
     public TokenInfo getToken(String tokenId) throws SecurityException {
-        return SignerProxy.getToken(tokenId);
+        return tokenCache.getToken(tokenId).orElseGet(() -> SignerProxy.getToken(tokenId));
     }
 
     /**
      * {@link SignerProxy#activateToken(String, char[])}
      */
     public void activateToken(String tokenId, char[] password) throws SecurityException {
-        SignerProxy.activateToken(tokenId, password);
+        changeTokens(() -> SignerProxy.activateToken(tokenId, password));
     }
 
     /**
      * {@link SignerProxy#deactivateToken(String)}
      */
     public void deactivateToken(String tokenId) throws SecurityException {
-        SignerProxy.deactivateToken(tokenId);
+        changeTokens(() -> SignerProxy.deactivateToken(tokenId));
     }
 
     /**
      * {@link SignerProxy#setTokenFriendlyName(String, String)}
      */
     public void setTokenFriendlyName(String tokenId, String friendlyName) throws SecurityException {
-        SignerProxy.setTokenFriendlyName(tokenId, friendlyName);
+        changeTokens(() -> SignerProxy.setTokenFriendlyName(tokenId, friendlyName));
     }
 
     /**
      * {@link SignerProxy#setKeyFriendlyName(String, String)}
      */
     public void setKeyFriendlyName(String keyId, String friendlyName) throws SecurityException {
-        SignerProxy.setKeyFriendlyName(keyId, friendlyName);
+        changeTokens(() -> SignerProxy.setKeyFriendlyName(keyId, friendlyName));
     }
 
     /**
      * {@link SignerProxy#generateKey(String, String, KeyAlgorithm)}
      */
     public KeyInfo generateKey(String tokenId, String keyLabel, KeyAlgorithm keyAlgorithm) throws SecurityException {
-        return SignerProxy.generateKey(tokenId, keyLabel, keyAlgorithm);
+        return changeTokens(() -> SignerProxy.generateKey(tokenId, keyLabel, keyAlgorithm));
     }
 
     /**
      * {@link SignerProxy#importCert(byte[], String, ClientId.Conf)}
      */
     public String importCert(byte[] certBytes, String initialStatus, ClientId.Conf clientId, boolean activate) throws SecurityException {
-        return SignerProxy.importCert(certBytes, initialStatus, clientId, activate);
+        return changeTokens(() -> SignerProxy.importCert(certBytes, initialStatus, clientId, activate));
     }
 
     /**
      * {@link SignerProxy#activateCert(String)}
      */
     public void activateCert(String certId) throws SecurityException {
-        SignerProxy.activateCert(certId);
+        changeTokens(() -> SignerProxy.activateCert(certId));
     }
 
     /**
      * {@link SignerProxy#deactivateCert(String)}
      */
     public void deactivateCert(String certId) throws SecurityException {
-        SignerProxy.deactivateCert(certId);
+        changeTokens(() -> SignerProxy.deactivateCert(certId));
     }
 
     /**
@@ -151,7 +159,7 @@ public class SignerProxyFacade implements InitializingBean, DisposableBean {
      */
     public GeneratedCertRequestInfo generateCertRequest(String keyId, ClientId.Conf memberId, KeyUsageInfo keyUsage,
                                                         String subjectName, CertificateRequestFormat format) throws SecurityException {
-        return SignerProxy.generateCertRequest(keyId, memberId, keyUsage, subjectName, format);
+        return changeTokens(() -> SignerProxy.generateCertRequest(keyId, memberId, keyUsage, subjectName, format));
     }
 
     /**
@@ -161,7 +169,8 @@ public class SignerProxyFacade implements InitializingBean, DisposableBean {
                                                         String subjectName, String altName, CertificateRequestFormat format,
                                                         String certificateProfile)
             throws SecurityException {
-        return SignerProxy.generateCertRequest(keyId, memberId, keyUsage, subjectName, altName, format, certificateProfile);
+        return changeTokens(() -> SignerProxy.generateCertRequest(keyId, memberId, keyUsage, subjectName, altName, format,
+                certificateProfile));
     }
 
     /**
@@ -169,56 +178,56 @@ public class SignerProxyFacade implements InitializingBean, DisposableBean {
      */
     public GeneratedCertRequestInfo regenerateCertRequest(String certRequestId, CertificateRequestFormat format)
             throws SecurityException {
-        return SignerProxy.regenerateCertRequest(certRequestId, format);
+        return changeTokens(() -> SignerProxy.regenerateCertRequest(certRequestId, format));
     }
 
     /**
      * {@link SignerProxy#deleteCertRequest(String)}
      */
     public void deleteCertRequest(String certRequestId) throws SecurityException {
-        SignerProxy.deleteCertRequest(certRequestId);
+        changeTokens(() -> SignerProxy.deleteCertRequest(certRequestId));
     }
 
     /**
      * {@link SignerProxy#deleteCert(String)}
      */
     public void deleteCert(String certId) throws SecurityException {
-        SignerProxy.deleteCert(certId);
+        changeTokens(() -> SignerProxy.deleteCert(certId));
     }
 
     /**
      * {@link SignerProxy#deleteKey(String, boolean)}
      */
     public void deleteKey(String keyId, boolean deleteFromToken) throws SecurityException {
-        SignerProxy.deleteKey(keyId, deleteFromToken);
+        changeTokens(() -> SignerProxy.deleteKey(keyId, deleteFromToken));
     }
 
     /**
      * {@link SignerProxy#setCertStatus(String, String)}
      */
     public void setCertStatus(String certId, String status) throws SecurityException {
-        SignerProxy.setCertStatus(certId, status);
+        changeTokens(() -> SignerProxy.setCertStatus(certId, status));
     }
 
     /**
      * {@link SignerProxy#setCertStatus(String, String)}
      */
     public void setRenewedCertHash(String certId, String hash) throws SecurityException {
-        SignerProxy.setRenewedCertHash(certId, hash);
+        changeTokens(() -> SignerProxy.setRenewedCertHash(certId, hash));
     }
 
     /**
      * {@link SignerProxy#setRenewalError(String, String)}
      */
     public void setRenewalError(String certId, String errorMessage) throws SecurityException {
-        SignerProxy.setRenewalError(certId, errorMessage);
+        changeTokens(() -> SignerProxy.setRenewalError(certId, errorMessage));
     }
 
     /**
      * {@link SignerProxy#setNextPlannedRenewal(String, Instant)}
      */
     public void setNextPlannedRenewal(String certId, Instant nextRenewalTime) throws SecurityException {
-        SignerProxy.setNextPlannedRenewal(certId, nextRenewalTime);
+        changeTokens(() -> SignerProxy.setNextPlannedRenewal(certId, nextRenewalTime));
     }
 
     /**
@@ -271,6 +280,22 @@ public class SignerProxyFacade implements InitializingBean, DisposableBean {
     }
 
     public void updateSoftwareTokenPin(String tokenId, char[] oldPin, char[] newPin) throws SecurityException {
-        SignerProxy.updateTokenPin(tokenId, oldPin, newPin);
+        changeTokens(() -> SignerProxy.updateTokenPin(tokenId, oldPin, newPin));
+    }
+
+    private void changeTokens(Runnable signerCall) {
+        try {
+            signerCall.run();
+        } finally {
+            tokenCache.invalidate();
+        }
+    }
+
+    private <T> T changeTokens(Supplier<T> signerCall) {
+        try {
+            return signerCall.get();
+        } finally {
+            tokenCache.invalidate();
+        }
     }
 }
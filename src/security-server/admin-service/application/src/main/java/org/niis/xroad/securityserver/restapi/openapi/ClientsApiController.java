@@ -179,13 +179,16 @@ public class ClientsApiController implements ClientsApi {
      *                              NOTE: parameter does not have an effect on whether local or global clients are
      *                              searched
      * @param internalSearch search only in the local clients
+     * @param offset number of sorted clients to skip
+     * @param limit maximum number of clients to return
      * @return
      */
     @Override
     @PreAuthorize("hasAuthority('VIEW_CLIENTS')")
     public ResponseEntity<Set<Client>> findClients(String name, String instance, String memberClass,
                                                    String memberCode, String subsystemCode, Boolean showMembers, Boolean internalSearch,
-                                                   Boolean localValidSignCert, Boolean excludeLocal) {
+                                                   Boolean localValidSignCert, Boolean excludeLocal, Integer offset,
+                                                   Integer limit) {
         ClientService.SearchParameters searchParams = ClientService.SearchParameters.builder()
                 .name(name)
                 .instance(instance)
@@ -196,6 +199,8 @@ public class ClientsApiController implements ClientsApi {
                 .internalSearch(internalSearch)
                 .excludeLocal(excludeLocal)
                 .hasValidLocalSignCert(localValidSignCert)
+                .offset(offset)
+                .limit(limit)
                 .build();
         Set<Client> clients = clientConverter.convert(clientService.findClients(searchParams));
         return new ResponseEntity<>(clients, HttpStatus.OK);
@@ -43,6 +43,7 @@ import ee.ria.xroad.signer.protocol.dto.KeyUsageInfo;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.niis.xroad.restapi.common.backup.service.BackupRestoreEvent;
+import org.niis.xroad.securityserver.restapi.cache.GlobalClientIndex;
 import org.niis.xroad.securityserver.restapi.cache.SecurityServerAddressChangeStatus;
 import org.niis.xroad.securityserver.restapi.facade.SignerProxyFacade;
 import org.niis.xroad.securityserver.restapi.util.MailNotificationHelper;
@@ -73,6 +74,7 @@ public class GlobalConfChecker {
     private final SignerProxyFacade signerProxyFacade;
     private final SecurityServerAddressChangeStatus addressChangeStatus;
     private final MailNotificationHelper mailNotificationHelper;
+    private final GlobalClientIndex globalClientIndex;
 
     /**
      * Reloads global configuration, and updates client statuses, authentication certificate statuses
@@ -112,6 +114,7 @@ public class GlobalConfChecker {
         log.debug("Reloading globalconf");
         globalConfProvider.reload();
         globalConfProvider.verifyValidity();
+        globalClientIndex.refresh();
     }
 
     private void updateServerConf() {
@@ -41,6 +41,7 @@ import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.hibernate.Hibernate;
 import org.niis.xroad.restapi.config.audit.AuditDataHelper;
+import org.niis.xroad.restapi.converter.ClientIdConverter;
 import org.niis.xroad.restapi.exceptions.DeviationAwareRuntimeException;
 import org.niis.xroad.restapi.exceptions.ErrorDeviation;
 import org.niis.xroad.restapi.exceptions.WarningDeviation;
@@ -48,6 +49,7 @@ import org.niis.xroad.restapi.service.ServiceException;
 import org.niis.xroad.restapi.service.UnhandledWarningsException;
 import org.niis.xroad.securityserver.restapi.cache.CurrentSecurityServerId;
 import org.niis.xroad.securityserver.restapi.cache.CurrentSecurityServerSignCertificates;
+import org.niis.xroad.securityserver.restapi.cache.GlobalClientIndex;
 import org.niis.xroad.securityserver.restapi.repository.AccessRightRepository;
 import org.niis.xroad.securityserver.restapi.repository.ClientRepository;
 import org.niis.xroad.securityserver.restapi.repository.IdentifierRepository;
@@ -63,6 +65,7 @@ import java.security.cert.CertificateException;
 import java.security.cert.X509Certificate;
 import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.Comparator;
 import java.util.HashMap;
 import java.util.HashSet;
 import java.util.List;
@@ -101,6 +104,7 @@ import static org.niis.xroad.restapi.exceptions.DeviationCodes.WARNING_UNREGISTE
 public class ClientService {
     private static final String INVALID_INSTANCE_IDENTIFIER = "instance identifier is invalid: ";
     private static final String INVALID_MEMBER_CLASS = "member class is invalid: ";
+    private static final ClientIdConverter CLIENT_ID_CONVERTER = new ClientIdConverter();
 
     private final ClientRepository clientRepository;
     private final GlobalConfService globalConfService;
@@ -112,6 +116,7 @@ public class ClientService {
     private final ManagementRequestSenderService managementRequestSenderService;
     private final CurrentSecurityServerId currentSecurityServerId;
     private final AuditDataHelper auditDataHelper;
+    private final GlobalClientIndex globalClientIndex;
 
     // request scoped contains all certificates of type sign
     private final CurrentSecurityServerSignCertificates currentSecurityServerSignCertificates;
@@ -389,7 +394,15 @@ public class ClientService {
      * Find clients in the globalconf
      */
     public List<ClientType> findGlobalClients(ClientService.SearchParameters searchParameters) {
-        return searchClients(searchParameters, getAllGlobalClients());
+        List<ClientType> globalClients = globalClientIndex.find(searchParameters.name, searchParameters.instance,
+                searchParameters.memberClass, searchParameters.memberCode, searchParameters.subsystemCode,
+                searchParameters.showMembers);
+        if (searchParameters.hasValidLocalSignCert == null) {
+            return globalClients;
+        }
+        return globalClients.stream()
+                .filter(ct -> searchParameters.hasValidLocalSignCert.equals(hasValidLocalSignCertCheck(ct)))
+                .collect(Collectors.toList());
     }
 
     private List<ClientType> searchClients(SearchParameters searchParameters, List<ClientType> allClients) {
@@ -407,30 +420,52 @@ public class ClientService {
      * @return
      */
     public Optional<ClientType> findByClientId(ClientId clientId) {
-        List<ClientType> localClients = getAllLocalClients();
-        List<ClientType> globalClients = getAllGlobalClients();
-        List<ClientType> distinctClients = mergeClientListsDistinctively(globalClients, localClients);
-        return distinctClients.stream()
-                .filter(clientType -> clientType.getIdentifier().toShortString().trim()
-                        .equals(clientId.toShortString().trim()))
-                .findFirst();
+        String shortId = clientId.toShortString().trim();
+        return getAllLocalClients().stream()
+                .filter(clientType -> clientType.getIdentifier().toShortString().trim().equals(shortId))
+                .findFirst()
+                .or(() -> globalClientIndex.find(clientId));
     }
 
     /**
-     * Find from all clients (local or global)
+     * Find from all clients (local or global). If {@link SearchParameters#offset} or {@link SearchParameters#limit}
+     * is given, the results are sorted by member name and client id and only the requested page is returned.
      */
     public List<ClientType> findClients(ClientService.SearchParameters searchParameters) {
+        List<ClientType> clients;
         List<ClientType> localClients = findLocalClients(searchParameters);
         if (searchParameters.internalSearch) {
-            return localClients;
+            clients = localClients;
+        } else if (searchParameters.excludeLocal) {
+            clients = subtractLocalFromGlobalClients(findGlobalClients(searchParameters), localClients);
+        } else {
+            clients = mergeClientListsDistinctively(findGlobalClients(searchParameters), localClients);
         }
+        return page(clients, searchParameters.offset, searchParameters.limit);
+    }
 
-        List<ClientType> globalClients = findGlobalClients(searchParameters);
-        if (searchParameters.excludeLocal) {
-            return subtractLocalFromGlobalClients(globalClients, localClients);
+    /**
+     * Sort clients the same way as they are listed in the UI (member name, then client id, both ignoring case
+     * and clients without a member name last) and return the requested page
+     */
+    private List<ClientType> page(List<ClientType> clients, Integer offset, Integer limit) {
+        if (offset == null && limit == null) {
+            return clients;
         }
+        Comparator<String> nullsLastIgnoreCase = Comparator.nullsLast(String.CASE_INSENSITIVE_ORDER);
+        GlobalClientIndex.Snapshot globalClients = globalClientIndex.getSnapshot();
+        return clients.stream()
+                .map(ct -> new SortableClient(ct, globalClients.getMemberName(ct.getIdentifier()),
+                        CLIENT_ID_CONVERTER.convertId(ct.getIdentifier())))
+                .sorted(Comparator.comparing(SortableClient::memberName, nullsLastIgnoreCase)
+                        .thenComparing(SortableClient::encodedId, String.CASE_INSENSITIVE_ORDER))
+                .skip(offset != null ? offset : 0)
+                .limit(limit != null ? limit : Long.MAX_VALUE)
+                .map(SortableClient::client)
+                .collect(Collectors.toList());
+    }
 
-        return mergeClientListsDistinctively(globalClients, localClients);
+    private record SortableClient(ClientType client, String memberName, String encodedId) {
     }
 
     /**
@@ -935,5 +970,9 @@ public class ClientService {
          NOTE: parameter does not have an effect on whether local or global clients are searched
          */
         private Boolean hasValidLocalSignCert;
+        /** number of sorted results to skip, null = don't page the results */
+        private Integer offset;
+        /** maximum number of sorted results to return, null = don't page the results */
+        private Integer limit;
     }
 }
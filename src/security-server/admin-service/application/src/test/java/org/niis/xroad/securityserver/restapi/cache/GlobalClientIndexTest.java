@@ -0,0 +1,124 @@
+/*
+ * The MIT License
+ * Copyright (c) 2019- Nordic Institute for Interoperability Solutions (NIIS)
+ * Copyright (c) 2018 Estonian Information System Authority (RIA),
+ * Nordic Institute for Interoperability Solutions (NIIS), Population Register Centre (VRK)
+ * Copyright (c) 2015-2017 Estonian Information System Authority (RIA), Population Register Centre (VRK)
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package org.niis.xroad.securityserver.restapi.cache;
+
+import ee.ria.xroad.common.conf.globalconf.GlobalConfProvider;
+import ee.ria.xroad.common.conf.globalconf.MemberInfo;
+import ee.ria.xroad.common.conf.serverconf.model.ClientType;
+import ee.ria.xroad.common.identifier.ClientId;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+class GlobalClientIndexTest {
+
+    private static final ClientId.Conf FI_GOV_M1 = ClientId.Conf.create("FI", "GOV", "M1");
+    private static final ClientId.Conf FI_GOV_M1_SS1 = ClientId.Conf.create("FI", "GOV", "M1", "SS1");
+    private static final ClientId.Conf FI_COM_M2_SS2 = ClientId.Conf.create("FI", "COM", "M2", "SS2");
+    private static final ClientId.Conf EE_GOV_M3 = ClientId.Conf.create("EE", "GOV", "M3");
+
+    private final GlobalConfProvider globalConfProvider = mock(GlobalConfProvider.class);
+    private final GlobalClientIndex globalClientIndex = new GlobalClientIndex(globalConfProvider);
+
+    @BeforeEach
+    void setup() {
+        when(globalConfProvider.getMembers()).thenReturn(List.of(
+                new MemberInfo(FI_GOV_M1, "Ministry"),
+                new MemberInfo(FI_GOV_M1_SS1, "Ministry"),
+                new MemberInfo(FI_COM_M2_SS2, "Company"),
+                new MemberInfo(EE_GOV_M3, "Agency")));
+    }
+
+    @Test
+    void findBySearchTerms() {
+        assertEquals(List.of(FI_GOV_M1, FI_GOV_M1_SS1, FI_COM_M2_SS2),
+                ids(globalClientIndex.find(null, "fi", null, null, null, true)));
+        assertEquals(List.of(FI_GOV_M1_SS1, FI_COM_M2_SS2),
+                ids(globalClientIndex.find(null, null, null, null, null, false)));
+        assertEquals(List.of(FI_GOV_M1, FI_GOV_M1_SS1),
+                ids(globalClientIndex.find("INIS", null, "go", "m1", null, true)));
+        assertEquals(List.of(FI_COM_M2_SS2),
+                ids(globalClientIndex.find(null, null, null, null, "ss2", true)));
+        assertTrue(globalClientIndex.find(null, "F", null, null, null, true).isEmpty());
+    }
+
+    @Test
+    void findByClientId() {
+        assertEquals(FI_GOV_M1_SS1, globalClientIndex.find(ClientId.Conf.create("FI", "GOV", "M1", "SS1"))
+                .map(ClientType::getIdentifier)
+                .orElseThrow());
+        assertFalse(globalClientIndex.find(ClientId.Conf.create("FI", "GOV", "M1", "SS3")).isPresent());
+    }
+
+    @Test
+    void getMemberName() {
+        assertEquals("Ministry", globalClientIndex.getMemberName(ClientId.Conf.create("FI", "GOV", "M1", "UNKNOWN")));
+        assertEquals("Agency", globalClientIndex.getMemberName(EE_GOV_M3));
+        assertNull(globalClientIndex.getMemberName(ClientId.Conf.create("EE", "GOV", "M4")));
+    }
+
+    @Test
+    void rebuildWhenMembersChange() {
+        assertEquals(4, globalClientIndex.find(null, null, null, null, null, true).size());
+        when(globalConfProvider.getMembers()).thenReturn(List.of(new MemberInfo(EE_GOV_M3, "Renamed agency")));
+        globalClientIndex.refresh();
+
+        assertEquals(List.of(EE_GOV_M3), ids(globalClientIndex.find(null, null, null, null, null, true)));
+        assertEquals("Renamed agency", globalClientIndex.getMemberName(EE_GOV_M3));
+        assertFalse(globalClientIndex.find(FI_GOV_M1).isPresent());
+    }
+
+    @Test
+    void readGlobalConfOnlyWhenRefreshed() {
+        globalClientIndex.find(null, null, null, null, null, true);
+        globalClientIndex.find(FI_GOV_M1);
+        globalClientIndex.getMemberName(EE_GOV_M3);
+        globalClientIndex.getSnapshot().getMemberName(FI_GOV_M1_SS1);
+        verify(globalConfProvider, times(1)).getMembers();
+
+        globalClientIndex.refresh();
+        assertEquals("Agency", globalClientIndex.getMemberName(EE_GOV_M3));
+        verify(globalConfProvider, times(2)).getMembers();
+    }
+
+    private static List<ClientId> ids(List<ClientType> clients) {
+        return clients.stream()
+                .map(ClientType::getIdentifier)
+                .map(ClientId.class::cast)
+                .toList();
+    }
+}
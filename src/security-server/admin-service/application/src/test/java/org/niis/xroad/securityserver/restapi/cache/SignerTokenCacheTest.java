@@ -0,0 +1,125 @@
+/*
+ * The MIT License
+ * Copyright (c) 2019- Nordic Institute for Interoperability Solutions (NIIS)
+ * Copyright (c) 2018 Estonian Information System Authority (RIA),
+ * Nordic Institute for Interoperability Solutions (NIIS), Population Register Centre (VRK)
+ * Copyright (c) 2015-2017 Estonian Information System Authority (RIA), Population Register Centre (VRK)
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package org.niis.xroad.securityserver.restapi.cache;
+
+import ee.ria.xroad.signer.protocol.dto.TokenInfo;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.niis.xroad.securityserver.restapi.util.TokenTestUtils;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Consumer;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class SignerTokenCacheTest {
+
+    private static final TokenInfo LOADED_TOKEN = new TokenTestUtils.TokenInfoBuilder().id("loaded").build();
+    private static final TokenInfo PUSHED_TOKEN = new TokenTestUtils.TokenInfoBuilder().id("pushed").build();
+
+    private final AtomicInteger loads = new AtomicInteger();
+    private final AtomicInteger subscriptions = new AtomicInteger();
+    private final AtomicLong clock = new AtomicLong();
+    private Consumer<List<TokenInfo>> listener;
+    private Consumer<Throwable> completionListener;
+    private boolean closed;
+
+    private SignerTokenCache tokenCache;
+
+    @BeforeEach
+    void setup() {
+        tokenCache = new SignerTokenCache(() -> {
+            loads.incrementAndGet();
+            return List.of(LOADED_TOKEN);
+        }, (tokenListener, tokenCompletionListener) -> {
+            subscriptions.incrementAndGet();
+            listener = tokenListener;
+            completionListener = tokenCompletionListener;
+            return () -> closed = true;
+        }, clock::get);
+        tokenCache.start();
+    }
+
+    @AfterEach
+    void tearDown() {
+        tokenCache.stop();
+    }
+
+    @Test
+    void loadsFromSignerUntilTokensArePushed() {
+        assertEquals(List.of(LOADED_TOKEN), tokenCache.getTokens());
+        assertFalse(tokenCache.getToken("loaded").isPresent());
+
+        listener.accept(List.of(PUSHED_TOKEN));
+
+        assertEquals(List.of(PUSHED_TOKEN), tokenCache.getTokens());
+        assertEquals(List.of(PUSHED_TOKEN), tokenCache.getTokens());
+        assertEquals(PUSHED_TOKEN, tokenCache.getToken("pushed").orElseThrow());
+        assertEquals(1, loads.get());
+    }
+
+    @Test
+    void loadsFromSignerAfterInvalidation() {
+        listener.accept(List.of(PUSHED_TOKEN));
+        tokenCache.invalidate();
+
+        assertEquals(List.of(LOADED_TOKEN), tokenCache.getTokens());
+
+        clock.addAndGet(TimeUnit.MILLISECONDS.toNanos(SignerTokenCache.INVALIDATION_PERIOD_MS));
+        assertEquals(List.of(PUSHED_TOKEN), tokenCache.getTokens());
+        assertEquals(1, loads.get());
+    }
+
+    @Test
+    void resubscribesWhenWatchEnds() throws Exception {
+        listener.accept(List.of(PUSHED_TOKEN));
+        completionListener.accept(new RuntimeException("signer restarted"));
+
+        assertEquals(List.of(LOADED_TOKEN), tokenCache.getTokens());
+
+        long deadline = System.currentTimeMillis() + 5 * SignerTokenCache.RESUBSCRIBE_DELAY_MS;
+        while (subscriptions.get() < 2 && System.currentTimeMillis() < deadline) {
+            Thread.sleep(10);
+        }
+        assertEquals(2, subscriptions.get());
+    }
+
+    @Test
+    void stopClosesSubscription() {
+        listener.accept(List.of(PUSHED_TOKEN));
+        tokenCache.stop();
+
+        assertTrue(closed);
+        assertEquals(List.of(LOADED_TOKEN), tokenCache.getTokens());
+    }
+}
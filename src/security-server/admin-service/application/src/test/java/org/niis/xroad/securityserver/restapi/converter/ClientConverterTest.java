@@ -27,6 +27,7 @@ package org.niis.xroad.securityserver.restapi.converter;
 
 import ee.ria.xroad.common.conf.globalconf.GlobalConfImpl;
 import ee.ria.xroad.common.conf.globalconf.GlobalConfProvider;
+import ee.ria.xroad.common.conf.globalconf.MemberInfo;
 import ee.ria.xroad.common.conf.serverconf.model.ClientType;
 import ee.ria.xroad.common.identifier.ClientId;
 import ee.ria.xroad.common.identifier.SecurityServerId;
@@ -35,11 +36,13 @@ import org.junit.Before;
 import org.junit.Test;
 import org.niis.xroad.securityserver.restapi.cache.CurrentSecurityServerId;
 import org.niis.xroad.securityserver.restapi.cache.CurrentSecurityServerSignCertificates;
+import org.niis.xroad.securityserver.restapi.cache.GlobalClientIndex;
 import org.niis.xroad.securityserver.restapi.converter.comparator.ClientSortingComparator;
 import org.niis.xroad.securityserver.restapi.openapi.model.Client;
 import org.niis.xroad.securityserver.restapi.openapi.model.ClientStatus;
 
 import java.util.ArrayList;
+import java.util.List;
 
 import static org.junit.Assert.assertEquals;
 
@@ -56,14 +59,16 @@ public class ClientConverterTest {
     public void setup() {
         GlobalConfProvider globalConfFacade = new GlobalConfImpl(null) {
             @Override
-            public String getMemberName(ClientId identifier) {
-                return MEMBER_NAME_PREFIX + identifier.getMemberCode();
+            public List<MemberInfo> getMembers(String... instanceIdentifiers) {
+                return List.of(
+                        new MemberInfo(ClientId.Conf.create("XRD2", "GOV", "M4"), MEMBER_NAME_PREFIX + "M4"),
+                        new MemberInfo(ClientId.Conf.create("XRD2", "GOV", "M4", "SS1"), MEMBER_NAME_PREFIX + "M4"));
             }
         };
         ClientId.Conf ownerId = ClientId.Conf.create("XRD2", "GOV", "M4");
         SecurityServerId.Conf ownerSsId = SecurityServerId.Conf.create(ownerId, "CS");
 
-        clientConverter = new ClientConverter(globalConfFacade, new CurrentSecurityServerId(ownerSsId),
+        clientConverter = new ClientConverter(new GlobalClientIndex(globalConfFacade), new CurrentSecurityServerId(ownerSsId),
                 new CurrentSecurityServerSignCertificates(new ArrayList<>()), clientSortingComparator);
     }
 
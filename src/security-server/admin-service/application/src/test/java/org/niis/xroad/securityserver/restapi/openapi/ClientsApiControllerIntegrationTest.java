@@ -43,6 +43,7 @@ import org.niis.xroad.restapi.exceptions.DeviationCodes;
 import org.niis.xroad.restapi.openapi.BadRequestException;
 import org.niis.xroad.restapi.openapi.ConflictException;
 import org.niis.xroad.restapi.openapi.ResourceNotFoundException;
+import org.niis.xroad.securityserver.restapi.cache.GlobalClientIndex;
 import org.niis.xroad.securityserver.restapi.converter.comparator.ClientSortingComparator;
 import org.niis.xroad.securityserver.restapi.converter.comparator.ServiceClientSortingComparator;
 import org.niis.xroad.securityserver.restapi.openapi.model.AccessRight;
@@ -112,6 +113,8 @@ public class ClientsApiControllerIntegrationTest extends AbstractApiControllerTe
     ClientSortingComparator clientSortingComparator;
     @Autowired
     ServiceClientSortingComparator serviceClientSortingComparator;
+    @Autowired
+    GlobalClientIndex globalClientIndex;
 
     private static final SecurityServerId.Conf OWNER_SERVER_ID = SecurityServerId.Conf.create(TestUtils.getM1Ss1ClientId(),
             "owner");
@@ -143,6 +146,7 @@ public class ClientsApiControllerIntegrationTest extends AbstractApiControllerTe
                 TestUtils.getMemberInfo(TestUtils.INSTANCE_EE, TestUtils.MEMBER_CLASS_PRO, TestUtils.MEMBER_CODE_M2, null)
         );
         when(globalConfProvider.getMembers()).thenReturn(new ArrayList<>(members));
+        globalClientIndex.refresh();
         List<TokenInfo> mockTokens = createMockTokenInfos();
         doReturn(mockTokens).when(tokenService).getAllTokens();
         when(wsdlValidator.getWsdlValidatorCommand()).thenReturn("src/test/resources/validator/mock-wsdlvalidator.sh");
@@ -166,18 +170,41 @@ public class ClientsApiControllerIntegrationTest extends AbstractApiControllerTe
     @WithMockUser(authorities = "VIEW_CLIENTS")
     public void getAllClients() {
         ResponseEntity<Set<Client>> response =
-                clientsApiController.findClients(null, null, null, null, null, true, false, null, false);
+                clientsApiController.findClients(null, null, null, null, null, true, false, null, false, null, null);
         assertEquals(HttpStatus.OK, response.getStatusCode());
         assertEquals(11, response.getBody().size());
         // Test sorting order
         assertEquals(true, TestUtils.isSortOrderCorrect(response.getBody(), clientSortingComparator));
     }
 
+    @Test
+    @WithMockUser(authorities = "VIEW_CLIENTS")
+    public void getAllClientsPaged() {
+        Set<Client> firstPage = clientsApiController.findClients(null, null, null, null, null, true, false, null,
+                false, 0, 5).getBody();
+        Set<Client> secondPage = clientsApiController.findClients(null, null, null, null, null, true, false, null,
+                false, 5, 5).getBody();
+        Set<Client> lastPage = clientsApiController.findClients(null, null, null, null, null, true, false, null,
+                false, 10, 5).getBody();
+        assertEquals(5, firstPage.size());
+        assertEquals(5, secondPage.size());
+        assertEquals(1, lastPage.size());
+        Set<String> pagedIds = new HashSet<>();
+        firstPage.forEach(client -> pagedIds.add(client.getId()));
+        secondPage.forEach(client -> pagedIds.add(client.getId()));
+        lastPage.forEach(client -> pagedIds.add(client.getId()));
+        Set<String> allIds = clientsApiController.findClients(null, null, null, null, null, true, false, null,
+                false, null, null).getBody().stream()
+                .map(Client::getId)
+                .collect(Collectors.toSet());
+        assertEquals(allIds, pagedIds);
+    }
+
     @Test
     @WithMockUser(authorities = "VIEW_CLIENTS")
     public void ownerMemberFlag() {
         ResponseEntity<Set<Client>> response =
-                clientsApiController.findClients(null, null, null, null, null, true, false, null, false);
+                clientsApiController.findClients(null, null, null, null, null, true, false, null, false, null, null);
         assertEquals(11, response.getBody().size());
         List<Client> owners = response.getBody().stream()
                 .filter(Client::getOwner)
@@ -190,16 +217,16 @@ public class ClientsApiControllerIntegrationTest extends AbstractApiControllerTe
     @WithMockUser(authorities = "VIEW_CLIENTS")
     public void getAllLocalClients() {
         ResponseEntity<Set<Client>> response = clientsApiController.findClients(null, null, null, null, null, true,
-                true, null, false);
+                true, null, false, null, null);
         assertEquals(HttpStatus.OK, response.getStatusCode());
         assertEquals(7, response.getBody().size());
         Client client = response
                 .getBody()
                 .stream()
-                .filter(item -> item.getMemberName().equals(TestUtils.NAME_FOR + "SS1"))
+                .filter(item -> "SS1".equals(item.getSubsystemCode()))
                 .findFirst()
                 .orElse(null);
-        assertEquals(TestUtils.NAME_FOR + "SS1", client.getMemberName());
+        assertEquals(TestUtils.NAME_FOR + "M1", client.getMemberName());
         assertEquals("M1", client.getMemberCode());
     }
 
@@ -212,7 +239,7 @@ public class ClientsApiControllerIntegrationTest extends AbstractApiControllerTe
         Client client = response.getBody();
         assertEquals(ConnectionType.HTTP, client.getConnectionType());
         assertEquals(ClientStatus.REGISTERED, client.getStatus());
-        assertEquals(TestUtils.NAME_FOR + "test-member", client.getMemberName());
+        assertEquals(TestUtils.NAME_FOR + "M1", client.getMemberName());
         assertEquals("GOV", client.getMemberClass());
         assertEquals("M1", client.getMemberCode());
         assertEquals("FI:GOV:M1", client.getId());
@@ -222,7 +249,7 @@ public class ClientsApiControllerIntegrationTest extends AbstractApiControllerTe
         client = response.getBody();
         assertEquals(ConnectionType.HTTPS_NO_AUTH, client.getConnectionType());
         assertEquals(ClientStatus.REGISTERED, client.getStatus());
-        assertEquals(TestUtils.NAME_FOR + "SS1", client.getMemberName());
+        assertEquals(TestUtils.NAME_FOR + "M1", client.getMemberName());
         assertEquals("GOV", client.getMemberClass());
         assertEquals("M1", client.getMemberCode());
         assertEquals("FI:GOV:M1:SS1", client.getId());
@@ -302,7 +329,7 @@ public class ClientsApiControllerIntegrationTest extends AbstractApiControllerTe
     public void forbidden() {
         try {
             ResponseEntity<Set<Client>> response = clientsApiController.findClients(null, null, null, null, null, null,
-                    null, null, false);
+                    null, null, false, null, null);
             fail("should throw AccessDeniedException");
         } catch (AccessDeniedException expected) {
         }
@@ -450,7 +477,7 @@ public class ClientsApiControllerIntegrationTest extends AbstractApiControllerTe
         ResponseEntity<Set<Client>> clientsResponse = clientsApiController.findClients(
                 TestUtils.NAME_FOR + TestUtils.SUBSYSTEM1,
                 TestUtils.INSTANCE_FI, TestUtils.MEMBER_CLASS_GOV, TestUtils.MEMBER_CODE_M1, TestUtils.SUBSYSTEM1,
-                false, false, null, false);
+                false, false, null, false, null, null);
         assertEquals(HttpStatus.OK, clientsResponse.getStatusCode());
         assertEquals(1, clientsResponse.getBody().size());
         Set<Client> clients = clientsResponse.getBody();
@@ -458,7 +485,7 @@ public class ClientsApiControllerIntegrationTest extends AbstractApiControllerTe
                 .stream()
                 .findFirst()
                 .orElse(null);
-        assertEquals(TestUtils.NAME_FOR + TestUtils.SUBSYSTEM1, client.getMemberName());
+        assertEquals(TestUtils.NAME_FOR + TestUtils.MEMBER_CODE_M1, client.getMemberName());
         assertEquals(TestUtils.MEMBER_CLASS_GOV, client.getMemberClass());
         assertEquals(TestUtils.MEMBER_CODE_M1, client.getMemberCode());
         assertEquals(TestUtils.SUBSYSTEM1, client.getSubsystemCode());
@@ -470,7 +497,7 @@ public class ClientsApiControllerIntegrationTest extends AbstractApiControllerTe
     @WithMockUser(authorities = "VIEW_CLIENTS")
     public void findAllClients() {
         ResponseEntity<Set<Client>> clientsResponse = clientsApiController.findClients(null, null, null, null, null,
-                true, false, null, false);
+                true, false, null, false, null, null);
         assertEquals(HttpStatus.OK, clientsResponse.getStatusCode());
         assertEquals(11, clientsResponse.getBody().size());
     }
@@ -485,19 +512,19 @@ public class ClientsApiControllerIntegrationTest extends AbstractApiControllerTe
         int clientsWithValidSignCert = 3;
         // search all
         ResponseEntity<Set<Client>> clientsResponse = clientsApiController.findClients(null, null, null, null, null,
-                true, false, null, false);
+                true, false, null, false, null, null);
         assertEquals(HttpStatus.OK, clientsResponse.getStatusCode());
         assertEquals(clientsTotal, clientsResponse.getBody().size());
 
         // search ones with valid sign cert
         clientsResponse = clientsApiController.findClients(null, null, null, null, null,
-                true, false, true, false);
+                true, false, true, false, null, null);
         assertEquals(HttpStatus.OK, clientsResponse.getStatusCode());
         assertEquals(clientsWithValidSignCert, clientsResponse.getBody().size());
 
         // search ones without valid sign cert
         clientsResponse = clientsApiController.findClients(null, null, null, null, null,
-                true, false, false, false);
+                true, false, false, false, null, null);
         assertEquals(HttpStatus.OK, clientsResponse.getStatusCode());
         assertEquals((clientsTotal - clientsWithValidSignCert), clientsResponse.getBody().size());
     }
@@ -519,7 +546,7 @@ public class ClientsApiControllerIntegrationTest extends AbstractApiControllerTe
     @WithMockUser(authorities = "VIEW_CLIENTS")
     public void findAllClientsByMemberCodeIncludeMembers() {
         ResponseEntity<Set<Client>> clientsResponse = clientsApiController.findClients(null, null, null,
-                TestUtils.MEMBER_CODE_M1, null, true, false, null, false);
+                TestUtils.MEMBER_CODE_M1, null, true, false, null, false, null, null);
         assertEquals(HttpStatus.OK, clientsResponse.getStatusCode());
         assertEquals(5, clientsResponse.getBody().size());
     }
@@ -529,7 +556,7 @@ public class ClientsApiControllerIntegrationTest extends AbstractApiControllerTe
     public void findAllClientsByMemberClassIncludeMembers() {
         ResponseEntity<Set<Client>> clientsResponse = clientsApiController.findClients(null, null,
                 TestUtils.MEMBER_CLASS_PRO,
-                null, null, true, false, null, false);
+                null, null, true, false, null, false, null, null);
         assertEquals(HttpStatus.OK, clientsResponse.getStatusCode());
         assertEquals(3, clientsResponse.getBody().size());
     }
@@ -539,12 +566,12 @@ public class ClientsApiControllerIntegrationTest extends AbstractApiControllerTe
     public void findAllClientsByNameIncludeMembers() {
         ResponseEntity<Set<Client>> clientsResponse = clientsApiController.findClients(
                 TestUtils.NAME_FOR + TestUtils.SUBSYSTEM2,
-                null, null, null, null, false, true, null, false);
+                null, null, null, null, false, true, null, false, null, null);
         assertEquals(HttpStatus.OK, clientsResponse.getStatusCode());
         assertEquals(1, clientsResponse.getBody().size());
         // not found
         clientsResponse = clientsApiController.findClients("DOES_NOT_EXIST", null, null, null, null, true, false,
-                null, false);
+                null, false, null, null);
         assertEquals(0, clientsResponse.getBody().size());
     }
 
@@ -554,7 +581,7 @@ public class ClientsApiControllerIntegrationTest extends AbstractApiControllerTe
         ResponseEntity<Set<Client>> clientsResponse = clientsApiController.findClients(
                 TestUtils.NAME_FOR + TestUtils.SUBSYSTEM1,
                 TestUtils.INSTANCE_FI, TestUtils.MEMBER_CLASS_GOV, TestUtils.MEMBER_CODE_M1, TestUtils.SUBSYSTEM1,
-                false, true, null, false);
+                false, true, null, false, null, null);
         assertEquals(HttpStatus.OK, clientsResponse.getStatusCode());
         assertEquals(1, clientsResponse.getBody().size());
     }
@@ -563,12 +590,12 @@ public class ClientsApiControllerIntegrationTest extends AbstractApiControllerTe
     @WithMockUser(authorities = "VIEW_CLIENTS")
     public void findInternalClientsBySubsystemExcludeMembers() {
         ResponseEntity<Set<Client>> clientsResponse = clientsApiController.findClients(null, null, null, null,
-                TestUtils.SUBSYSTEM2, false, true, null, false);
+                TestUtils.SUBSYSTEM2, false, true, null, false, null, null);
         assertEquals(HttpStatus.OK, clientsResponse.getStatusCode());
         assertEquals(1, clientsResponse.getBody().size());
         // not found
         clientsResponse = clientsApiController.findClients(null, null, null, null, TestUtils.SUBSYSTEM3, false, true,
-                null, false);
+                null, false, null, null);
         assertEquals(0, clientsResponse.getBody().size());
     }
 
@@ -636,7 +663,7 @@ public class ClientsApiControllerIntegrationTest extends AbstractApiControllerTe
     @WithMockUser(authorities = {"VIEW_CLIENTS"})
     public void findAllClientsByPartialNameIncludeMembers() {
         ResponseEntity<Set<Client>> clientsResponse = clientsApiController.findClients(TestUtils.SUBSYSTEM3, null,
-                null, null, null, false, false, null, false);
+                null, null, null, false, false, null, false, null, null);
         assertEquals(HttpStatus.OK, clientsResponse.getStatusCode());
         assertEquals(1, clientsResponse.getBody().size());
     }
@@ -645,7 +672,7 @@ public class ClientsApiControllerIntegrationTest extends AbstractApiControllerTe
     @WithMockUser(authorities = {"VIEW_CLIENTS"})
     public void findAllClientsByPartialSearchTermsIncludeMembers() {
         ResponseEntity<Set<Client>> clientsResponse = clientsApiController.findClients(null, "FI",
-                "OV", "1", "1", false, true, null, false);
+                "OV", "1", "1", false, true, null, false, null, null);
         assertEquals(HttpStatus.OK, clientsResponse.getStatusCode());
         assertEquals(1, clientsResponse.getBody().size());
     }
@@ -654,7 +681,7 @@ public class ClientsApiControllerIntegrationTest extends AbstractApiControllerTe
     @WithMockUser(authorities = {"VIEW_CLIENTS"})
     public void findAllClientsShouldNotFindByPartialInstance() {
         ResponseEntity<Set<Client>> clientsResponse = clientsApiController.findClients(null, "F",
-                "OV", "1", "1", false, true, null, false);
+                "OV", "1", "1", false, true, null, false, null, null);
         assertEquals(HttpStatus.OK, clientsResponse.getStatusCode());
         assertEquals(0, clientsResponse.getBody().size());
     }
@@ -45,6 +45,8 @@ import ee.ria.xroad.signer.protocol.mapper.ClientIdMapper;
 import ee.ria.xroad.signer.protocol.mapper.SecurityServerIdMapper;
 
 import com.google.protobuf.ByteString;
+import io.grpc.Context;
+import io.grpc.stub.StreamObserver;
 import lombok.AccessLevel;
 import lombok.NoArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
@@ -72,6 +74,7 @@ import org.niis.xroad.signer.proto.GetTokenByIdReq;
 import org.niis.xroad.signer.proto.GetTokenByKeyIdReq;
 import org.niis.xroad.signer.proto.ImportCertReq;
 import org.niis.xroad.signer.proto.InitSoftwareTokenReq;
+import org.niis.xroad.signer.proto.ListTokensResp;
 import org.niis.xroad.signer.proto.RegenerateCertRequestReq;
 import org.niis.xroad.signer.proto.SetCertStatusReq;
 import org.niis.xroad.signer.proto.SetKeyFriendlyNameReq;
@@ -85,6 +88,7 @@ import org.niis.xroad.signer.proto.SignReq;
 import org.niis.xroad.signer.proto.UpdateSoftwareTokenPinReq;
 import org.niis.xroad.signer.protocol.dto.Empty;
 
+import java.io.Closeable;
 import java.security.PublicKey;
 import java.security.cert.X509Certificate;
 import java.time.Instant;
@@ -92,6 +96,7 @@ import java.util.Arrays;
 import java.util.Date;
 import java.util.List;
 import java.util.Map;
+import java.util.function.Consumer;
 import java.util.function.Function;
 import java.util.stream.Collectors;
 
@@ -167,6 +172,43 @@ public final class SignerProxy {
         );
     }
 
+    /**
+     * Subscribes to changes of the token list. The listener receives the complete token list once after
+     * subscribing and again every time the tokens, keys or certificates change in signer. The completion
+     * listener is called when the subscription ends for any reason other than being closed by the caller.
+     *
+     * @param listener receives the current token list
+     * @param completionListener receives the error that ended the subscription, or null if signer completed it
+     * @return handle for closing the subscription
+     */
+    public static Closeable watchTokens(Consumer<List<TokenInfo>> listener, Consumer<Throwable> completionListener) {
+        Context.CancellableContext context = Context.current().withCancellation();
+        context.run(() -> RpcSignerClient.executeAsync(ctx -> ctx.getTokenService()
+                .watchTokens(Empty.newBuilder().build(), new StreamObserver<>() {
+                    @Override
+                    public void onNext(ListTokensResp value) {
+                        listener.accept(value.getTokensList().stream()
+                                .map(TokenInfo::new)
+                                .toList());
+                    }
+
+                    @Override
+                    public void onError(Throwable t) {
+                        if (!context.isCancelled()) {
+                            completionListener.accept(t);
+                        }
+                    }
+
+                    @Override
+                    public void onCompleted() {
+                        if (!context.isCancelled()) {
+                            completionListener.accept(null);
+                        }
+                    }
+                })));
+        return () -> context.cancel(null);
+    }
+
     /**
      * Gets information about the token with the specified token ID.
      *
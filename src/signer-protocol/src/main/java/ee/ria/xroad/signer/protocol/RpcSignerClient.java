@@ -80,12 +80,14 @@ public final class RpcSignerClient implements DisposableBean {
 
     @Getter
     public static class SignerRpcExecutionContext implements RpcClient.ExecutionContext {
+        private final TokenServiceGrpc.TokenServiceStub tokenService;
         private final TokenServiceGrpc.TokenServiceBlockingStub blockingTokenService;
         private final CertificateServiceGrpc.CertificateServiceBlockingStub blockingCertificateService;
         private final KeyServiceGrpc.KeyServiceBlockingStub blockingKeyService;
         private final OcspServiceGrpc.OcspServiceBlockingStub blockingOcspService;
 
         public SignerRpcExecutionContext(Channel channel) {
+            tokenService = TokenServiceGrpc.newStub(channel).withWaitForReady();
             blockingTokenService = TokenServiceGrpc.newBlockingStub(channel).withWaitForReady();
             blockingCertificateService = CertificateServiceGrpc.newBlockingStub(channel).withWaitForReady();
             blockingKeyService = KeyServiceGrpc.newBlockingStub(channel).withWaitForReady();
@@ -97,6 +99,10 @@ public final class RpcSignerClient implements DisposableBean {
         return getInstance().client.execute(grpcCall);
     }
 
+    public static void executeAsync(RpcClient.AsyncRpcExecution<SignerRpcExecutionContext> grpcCall) {
+        getInstance().client.executeAsync(grpcCall);
+    }
+
 
     public static RpcSignerClient getInstance() {
         if (instance == null) {
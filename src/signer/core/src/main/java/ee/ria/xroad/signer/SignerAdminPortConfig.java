@@ -33,6 +33,7 @@ import ee.ria.xroad.common.util.RequestWrapper;
 import ee.ria.xroad.common.util.ResponseWrapper;
 import ee.ria.xroad.signer.certmanager.OcspClientWorker;
 import ee.ria.xroad.signer.job.OcspClientExecuteScheduler;
+import ee.ria.xroad.signer.tokenmanager.module.AbstractModuleManager;
 
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.context.annotation.Bean;
@@ -55,7 +56,8 @@ public class SignerAdminPortConfig {
     @Bean
     AdminPort createAdminPort(final CertificationServiceDiagnostics diagnosticsDefault,
                               final OcspClientWorker ocspClientWorker,
-                              final Optional<OcspClientExecuteScheduler> ocspClientExecuteScheduler) {
+                              final Optional<OcspClientExecuteScheduler> ocspClientExecuteScheduler,
+                              final AbstractModuleManager moduleManager) {
         var port = new AdminPort(SystemProperties.getSignerAdminPort());
 
         port.addHandler("/execute", new AdminPort.SynchronousCallback() {
@@ -65,7 +67,7 @@ public class SignerAdminPortConfig {
                     if (ocspClientExecuteScheduler.isPresent()) {
                         ocspClientExecuteScheduler.get().execute();
                     } else {
-                        ocspClientWorker.execute(null);
+                        ocspClientWorker.execute(null, true);
                     }
                 } catch (Exception ex) {
                     log.error("error occurred in execute handler", ex);
@@ -99,6 +101,19 @@ public class SignerAdminPortConfig {
             }
         });
 
+        port.addHandler("/sign-statistics", new AdminPort.SynchronousCallback() {
+            @Override
+            public void handle(RequestWrapper request, ResponseWrapper response) {
+                try (var responseOut = response.getOutputStream()) {
+                    response.setContentType(APPLICATION_JSON_UTF_8);
+                    JsonUtils.getObjectWriter()
+                            .writeValue(responseOut, moduleManager.getSignRequestStatistics());
+                } catch (IOException e) {
+                    log.error("Error writing response", e);
+                }
+            }
+        });
+
         return port;
     }
 
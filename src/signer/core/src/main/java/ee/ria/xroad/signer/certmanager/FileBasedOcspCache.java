@@ -29,35 +29,51 @@ import ee.ria.xroad.common.conf.globalconf.GlobalConfProvider;
 import ee.ria.xroad.common.ocsp.OcspCache;
 
 import lombok.extern.slf4j.Slf4j;
-import org.apache.commons.io.IOUtils;
 import org.bouncycastle.cert.ocsp.OCSPResp;
 
-import java.io.File;
-import java.io.FileInputStream;
-import java.io.FileOutputStream;
 import java.io.IOException;
-import java.io.InputStream;
-import java.io.OutputStream;
+import java.nio.ByteBuffer;
 import java.nio.file.DirectoryStream;
 import java.nio.file.Files;
 import java.nio.file.Path;
 import java.nio.file.Paths;
+import java.util.ArrayList;
 import java.util.Date;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
 
 import static ee.ria.xroad.common.ErrorCodes.translateException;
 import static ee.ria.xroad.common.SystemProperties.getOcspCachePath;
 
 /**
  * OCSP cache that holds the OCSP responses on disk.
+ * <p>
+ * The responses are kept in a single {@link OcspResponseStore} file in the OCSP cache directory.
+ * Response files of earlier versions (one file per response) are imported into the store and deleted
+ * when the cache is reloaded from disk.
  */
 @Slf4j
 public class FileBasedOcspCache extends OcspCache {
 
-    /** The OCSP response file extension. */
+    /** The OCSP response store file name. */
+    static final String STORE_FILE_NAME = "ocsp-responses.store";
+
+    /** The OCSP response file extension of earlier versions. */
     private static final String OCSP_FILE_EXTENSION = ".ocsp";
 
+    private final Path cachePath;
+    private final OcspResponseStore store;
+
     public FileBasedOcspCache(GlobalConfProvider globalConfProvider) {
+        this(globalConfProvider, Paths.get(getOcspCachePath()));
+    }
+
+    FileBasedOcspCache(GlobalConfProvider globalConfProvider, Path cachePath) {
         super(globalConfProvider);
+        this.cachePath = cachePath;
+        this.store = new OcspResponseStore(cachePath.resolve(STORE_FILE_NAME));
     }
 
     /**
@@ -76,11 +92,10 @@ public class FileBasedOcspCache extends OcspCache {
             }
         }
 
-        File file = getOcspResponseFile(getOcspCachePath(), key);
         try {
-            response = loadResponseFromFileIfNotExpired(file, atDate);
+            response = loadResponseIfNotExpired(key.toString(), atDate);
         } catch (Exception e) {
-            // Failed to load OCSP response from file
+            // Failed to load OCSP response from the store
             throw translateException(e);
         }
 
@@ -91,24 +106,47 @@ public class FileBasedOcspCache extends OcspCache {
     public OCSPResp put(String key, OCSPResp value) {
         OCSPResp response = super.put(key, value);
         try {
-            File file = getOcspResponseFile(getOcspCachePath(), key);
-            saveResponseToFile(file, value);
+            saveResponses(Map.of(key, value));
         } catch (IOException e) {
-            // Failed to save OCSP response to file
+            // Failed to save OCSP response to the store
             throw translateException(e);
         }
 
         return response;
     }
 
+    /**
+     * Associates the keys with the OCSP responses. The responses are synced to disk once for all of them.
+     * @param responses the OCSP responses by key
+     */
+    public void putAll(Map<String, OCSPResp> responses) {
+        responses.forEach(super::put);
+        try {
+            saveResponses(responses);
+        } catch (IOException e) {
+            // Failed to save OCSP responses to the store
+            throw translateException(e);
+        }
+    }
+
+    /**
+     * Returns the DER encoding of the OCSP response as it is stored on disk, without copying it.
+     * The caller should check that the response is available and not expired with {@link #get(Object)} first.
+     * @param key the key
+     * @return read-only view of the encoded response or null if the response is not stored
+     */
+    public ByteBuffer getEncoded(String key) {
+        return store.get(key);
+    }
+
     void reloadFromDisk() throws Exception {
-        Path path = Paths.get(getOcspCachePath());
+        store.open();
 
-        try (DirectoryStream<Path> stream =
-                     Files.newDirectoryStream(path, this::isOcspFile)) {
-            for (Path entry : stream) {
-                loadResponseFromFileIfNotExpired(entry.toFile(), new Date());
-            }
+        importResponseFiles();
+
+        Date now = new Date();
+        for (String key : new ArrayList<>(store.keys())) {
+            loadResponseIfNotExpired(key, now);
         }
     }
 
@@ -117,76 +155,85 @@ public class FileBasedOcspCache extends OcspCache {
                 && p.toString().endsWith(OCSP_FILE_EXTENSION);
     }
 
-    void saveResponseToFile(File file, OCSPResp ocspResponse)
-            throws IOException {
-        createIntermediateDirectories(file);
-
-        try (OutputStream os = new FileOutputStream(file)) {
-            os.write(ocspResponse.getEncoded());
+    void saveResponses(Map<String, OCSPResp> responses) throws IOException {
+        Map<String, byte[]> encoded = new LinkedHashMap<>();
+        for (Map.Entry<String, OCSPResp> e : responses.entrySet()) {
+            encoded.put(e.getKey(), e.getValue().getEncoded());
         }
 
-        log.trace("Saved OCSP response to file '{}'", file);
-    }
+        store.open();
+        store.putAll(encoded);
 
-    OCSPResp loadResponseFromFileIfNotExpired(File file, Date atDate)
-            throws Exception {
-        OCSPResp response = loadResponseFromFile(file);
-        if (response != null) {
-            String key = getFileNameWithoutExtension(file);
-            if (!isExpired(response, atDate)) {
-                log.trace("Loaded OCSP response for cert hash {}", key);
-
-                super.put(key, response); // store in memory
-            } else {
-                log.trace("Cached OCSP response for certificate '{}' "
-                        + "has expired, deleting the file '{}'", key, file);
-                delete(file);
-                return null;
-            }
-        }
-
-        return response;
+        log.trace("Saved {} OCSP responses to store", encoded.size());
     }
 
-    OCSPResp loadResponseFromFile(File file) throws IOException {
-        if (!file.exists()) {
+    OCSPResp loadResponseIfNotExpired(String key, Date atDate) throws Exception {
+        store.open();
+
+        ByteBuffer encoded = store.get(key);
+        if (encoded == null) {
             return null;
         }
 
-        if (file.length() == 0L) {
-            log.error("Cannot load OCSP response from file '{}': "
-                    + "file is empty", file);
-            delete(file);
+        OCSPResp response;
+        try {
+            byte[] bytes = new byte[encoded.remaining()];
+            encoded.get(bytes);
+            response = new OCSPResp(bytes);
+        } catch (IOException e) {
+            log.error("Cannot load OCSP response for cert hash {}: {}", key, e.getMessage());
+            store.remove(key);
             return null;
         }
 
-        log.trace("Retrieving OCSP response from file '{}'", file);
-        try (InputStream is = new FileInputStream(file)) {
-            return new OCSPResp(IOUtils.toByteArray(is));
+        if (!isExpired(response, atDate)) {
+            log.trace("Loaded OCSP response for cert hash {}", key);
+
+            super.put(key, response); // store in memory
+            return response;
         }
+
+        log.trace("Cached OCSP response for certificate '{}' has expired, removing it from the store", key);
+        store.remove(key);
+        return null;
     }
 
-    private static void createIntermediateDirectories(File file)
-            throws IOException {
-        File path = file.getParentFile();
-        if (!path.exists() && !path.mkdirs()) {
-            throw new IOException("Could not create path " + path);
+    /**
+     * Imports the response files of earlier versions into the store and deletes them.
+     */
+    private void importResponseFiles() throws IOException {
+        Map<String, byte[]> responses = new HashMap<>();
+        List<Path> files = new ArrayList<>();
+
+        try (DirectoryStream<Path> stream = Files.newDirectoryStream(cachePath, this::isOcspFile)) {
+            for (Path entry : stream) {
+                files.add(entry);
+
+                byte[] bytes = Files.readAllBytes(entry);
+                String key = getFileNameWithoutExtension(entry);
+                if (bytes.length > 0 && store.get(key) == null) {
+                    responses.put(key, bytes);
+                }
+            }
+        }
+
+        if (!responses.isEmpty()) {
+            store.putAll(responses);
+            log.info("Imported {} OCSP response files into the OCSP response store", responses.size());
         }
-    }
 
-    private static File getOcspResponseFile(String path, Object certHash) {
-        return new File(path, certHash + OCSP_FILE_EXTENSION);
+        files.forEach(FileBasedOcspCache::delete);
     }
 
-    private static void delete(File file) {
+    private static void delete(Path file) {
         try {
-            Files.delete(file.toPath());
+            Files.delete(file);
         } catch (Exception e) {
             log.warn("Failed to delete {}: {}", file, e);
         }
     }
 
-    private static String getFileNameWithoutExtension(File file) {
-        return file.getName().split("[.]")[0];
+    private static String getFileNameWithoutExtension(Path file) {
+        return file.getFileName().toString().split("[.]")[0];
     }
 }
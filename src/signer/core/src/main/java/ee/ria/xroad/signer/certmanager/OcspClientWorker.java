@@ -30,8 +30,10 @@ import ee.ria.xroad.common.CertificationServiceStatus;
 import ee.ria.xroad.common.CodedException;
 import ee.ria.xroad.common.DiagnosticsErrorCodes;
 import ee.ria.xroad.common.OcspResponderStatus;
+import ee.ria.xroad.common.SystemProperties;
 import ee.ria.xroad.common.cert.CertChain;
 import ee.ria.xroad.common.conf.globalconf.GlobalConfProvider;
+import ee.ria.xroad.common.conf.globalconfextension.OcspFetchInterval;
 import ee.ria.xroad.common.crypto.identifier.SignAlgorithm;
 import ee.ria.xroad.common.ocsp.OcspVerifier;
 import ee.ria.xroad.common.ocsp.OcspVerifierOptions;
@@ -53,16 +55,26 @@ import java.net.ConnectException;
 import java.security.Principal;
 import java.security.PrivateKey;
 import java.security.cert.X509Certificate;
+import java.time.Duration;
+import java.time.Instant;
 import java.time.OffsetDateTime;
 import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Collection;
 import java.util.HashMap;
 import java.util.HashSet;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.Map.Entry;
+import java.util.Optional;
 import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.Semaphore;
 import java.util.stream.Collectors;
 
 import static ee.ria.xroad.common.util.CryptoUtils.calculateCertSha1HexHash;
@@ -73,7 +85,9 @@ import static java.util.Collections.emptyList;
  * This class is responsible for retrieving the OCSP responses from the OCSP
  * server and providing the responses to the message signer.
  * <p>
- * The certificate status is queried from the server at a fixed interval.
+ * The status of each certificate is queried when its planned refresh time is reached (see
+ * {@link OcspRefreshPlan}). The statuses are queried concurrently, with a limited number of concurrent
+ * requests per OCSP responder.
  */
 @Slf4j
 @RequiredArgsConstructor
@@ -90,6 +104,14 @@ public class OcspClientWorker {
 
     private final CertificationServiceDiagnostics certServDiagnostics = new CertificationServiceDiagnostics();
 
+    private final OcspRefreshPlan refreshPlan =
+            new OcspRefreshPlan(Duration.ofSeconds(OcspFetchInterval.OCSP_FETCH_INTERVAL_MIN));
+
+    /**
+     * Limits the number of concurrent requests per OCSP responder URI.
+     */
+    private final Map<String, Semaphore> responderPermits = new ConcurrentHashMap<>();
+
     public CertificationServiceDiagnostics getDiagnostics() {
         return certServDiagnostics;
     }
@@ -106,7 +128,9 @@ public class OcspClientWorker {
             return;
         }
 
-        initializeDiagnostics();
+        synchronized (certServDiagnostics) {
+            initializeDiagnostics();
+        }
 
         boolean sendReschedule = false;
         boolean sendExecute = false;
@@ -144,9 +168,20 @@ public class OcspClientWorker {
         }
     }
 
-    @SuppressWarnings("squid:S3776")
+    /**
+     * Fetches the OCSP responses of the certificates whose planned refresh time has been reached.
+     */
     public void execute(OcspClientExecuteScheduler ocspClientExecuteScheduler) {
-        log.trace("execute()");
+        execute(ocspClientExecuteScheduler, false);
+    }
+
+    /**
+     * Fetches the OCSP responses of the certificates whose planned refresh time has been reached,
+     * or of all certificates if requested.
+     */
+    @SuppressWarnings("squid:S3776")
+    public void execute(OcspClientExecuteScheduler ocspClientExecuteScheduler, boolean refreshAll) {
+        log.trace("execute({})", refreshAll);
         log.info("OCSP-response refresh cycle started");
 
         if (!globalConfProvider.isValid()) {
@@ -161,31 +196,48 @@ public class OcspClientWorker {
 
         if (certs == null || certs.isEmpty()) {
             log.debug("Found no certificates that need OCSP responses");
+            refreshPlan.retainAll(Set.of());
 
             return;
         }
 
-        log.info("Fetching OCSP responses for {} certificates", certs.size());
+        final boolean verifyNextUpdate = globalConfProvider.getGlobalConfExtensions().shouldVerifyOcspNextUpdate();
+        final Duration fetchInterval = getOcspFetchInterval();
+        final Instant now = TimeUtils.now();
 
         boolean failed = false;
-        Map<String, OCSPResp> statuses = new HashMap<>();
+        Set<String> certHashes = new HashSet<>();
+        Map<String, X509Certificate> dueCerts = new LinkedHashMap<>();
 
         for (X509Certificate subject : certs) {
             try {
-                OCSPResp status = queryCertStatus(subject, new OcspVerifierOptions(
-                        globalConfProvider.getGlobalConfExtensions().shouldVerifyOcspNextUpdate()));
-                if (status != null) {
-                    String subjectHash = calculateCertSha1HexHash(subject);
-                    statuses.put(subjectHash, status);
-                } else {
-                    failed = true;
+                String subjectHash = calculateCertSha1HexHash(subject);
+                certHashes.add(subjectHash);
+
+                refreshPlan.planIfAbsent(subjectHash, ocspResponseManager.getCachedOcspResponse(subjectHash),
+                        fetchInterval, verifyNextUpdate);
+
+                if (refreshAll || refreshPlan.isDue(subjectHash, now)) {
+                    dueCerts.put(subjectHash, subject);
                 }
             } catch (Exception e) {
                 failed = true;
 
-                log.error("Error when querying certificate '{}'", subject.getSerialNumber(), e);
+                log.error("Error when planning OCSP refresh of certificate '{}'", subject.getSerialNumber(), e);
             }
         }
+
+        refreshPlan.retainAll(certHashes);
+
+        log.info("Fetching OCSP responses for {} of {} certificates", dueCerts.size(), certs.size());
+
+        Map<String, OCSPResp> statuses = queryCertStatuses(dueCerts, new OcspVerifierOptions(verifyNextUpdate),
+                fetchInterval);
+
+        if (statuses.size() < dueCerts.size()) {
+            failed = true;
+        }
+
         if (ocspClientExecuteScheduler != null) {
             if (failed) {
                 ocspClientExecuteScheduler.failure();
@@ -194,6 +246,10 @@ public class OcspClientWorker {
             }
         }
 
+        if (statuses.isEmpty()) {
+            return;
+        }
+
         try {
             updateCertStatuses(statuses);
         } catch (Exception e) {
@@ -201,6 +257,68 @@ public class OcspClientWorker {
         }
     }
 
+    /**
+     * @return the earliest time an OCSP response is planned to be refreshed, or empty if nothing is planned
+     */
+    public Optional<Instant> getNextPlannedRefreshTime() {
+        return refreshPlan.getNextRefreshTime();
+    }
+
+    /**
+     * Queries the statuses of the given certificates concurrently. Certificates whose status could not be
+     * queried are planned to be retried after the OCSP retry delay.
+     */
+    private Map<String, OCSPResp> queryCertStatuses(Map<String, X509Certificate> subjects,
+                                                    OcspVerifierOptions verifierOptions, Duration fetchInterval) {
+        Map<String, OCSPResp> statuses = new HashMap<>();
+
+        if (subjects.isEmpty()) {
+            return statuses;
+        }
+
+        Duration retryDelay = Duration.ofSeconds(SystemProperties.getOcspResponseRetryDelay());
+        if (retryDelay.compareTo(fetchInterval) > 0) {
+            retryDelay = fetchInterval;
+        }
+
+        ExecutorService executor = Executors.newFixedThreadPool(
+                Math.min(SystemProperties.getOcspFetchParallelism(), subjects.size()));
+        try {
+            Map<String, Future<OCSPResp>> tasks = new LinkedHashMap<>();
+            subjects.forEach((subjectHash, subject) ->
+                    tasks.put(subjectHash, executor.submit(() -> queryCertStatus(subject, verifierOptions))));
+
+            for (Entry<String, Future<OCSPResp>> task : tasks.entrySet()) {
+                String subjectHash = task.getKey();
+                OCSPResp status = null;
+
+                try {
+                    status = task.getValue().get();
+                } catch (ExecutionException e) {
+                    log.error("Error when querying certificate '{}'",
+                            subjects.get(subjectHash).getSerialNumber(), e.getCause());
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    log.warn("Interrupted while querying OCSP responses");
+
+                    break;
+                }
+
+                if (status != null) {
+                    statuses.put(subjectHash, status);
+                    refreshPlan.fetched(subjectHash, status, TimeUtils.now(), fetchInterval,
+                            verifierOptions.isVerifyNextUpdate());
+                } else {
+                    refreshPlan.failed(subjectHash, TimeUtils.now().plus(retryDelay));
+                }
+            }
+        } finally {
+            executor.shutdownNow();
+        }
+
+        return statuses;
+    }
+
     List<X509Certificate> getCertsForOcsp() {
         Set<X509Certificate> certs = new HashSet<>();
 
@@ -267,8 +385,7 @@ public class OcspClientWorker {
 
             try {
                 log.debug("Fetching response from: {}", responderURI);
-                final OCSPResp response = ocspClient
-                        .fetchResponse(responderURI, subject, issuer, signerKey, signer, signAlgoId);
+                final OCSPResp response = fetchResponse(responderURI, subject, issuer, signerKey, signer, signAlgoId);
 
                 if (response != null) {
                     log.debug("Verifying response: {}", response);
@@ -289,6 +406,9 @@ public class OcspClientWorker {
             } catch (CodedException e) {
                 log.warn("Received OCSP response that failed verification", e);
                 errorCode = DiagnosticsErrorCodes.ERROR_CODE_OCSP_RESPONSE_UNVERIFIED;
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw e;
             } catch (Exception e) {
                 log.error("Unable to fetch response from responder at {}", responderURI, e);
                 errorCode = DiagnosticsErrorCodes.ERROR_CODE_OCSP_RESPONSE_INVALID;
@@ -300,8 +420,38 @@ public class OcspClientWorker {
         return null;
     }
 
+    /**
+     * Fetches the response from the responder, waiting if the maximum number of concurrent requests to
+     * the responder has been reached.
+     */
+    private OCSPResp fetchResponse(String responderURI, X509Certificate subject, X509Certificate issuer,
+                                   PrivateKey signerKey, X509Certificate signer, SignAlgorithm signAlgoId)
+            throws Exception {
+        Semaphore permits = responderPermits.computeIfAbsent(responderURI,
+                uri -> new Semaphore(SystemProperties.getOcspResponderMaxConcurrentRequests()));
+
+        permits.acquire();
+        try {
+            return ocspClient.fetchResponse(responderURI, subject, issuer, signerKey, signer, signAlgoId);
+        } finally {
+            permits.release();
+        }
+    }
+
+    private Duration getOcspFetchInterval() {
+        return Duration.ofSeconds(Math.max(OcspFetchInterval.OCSP_FETCH_INTERVAL_MIN,
+                globalConfProvider.getGlobalConfExtensions().getOcspFetchInterval()));
+    }
+
     private void reportOcspDiagnostics(X509Certificate issuer, String responderURI, int statusCode,
                                        OffsetDateTime prevUpdate, OffsetDateTime nextUpdate) {
+        synchronized (certServDiagnostics) {
+            doReportOcspDiagnostics(issuer, responderURI, statusCode, prevUpdate, nextUpdate);
+        }
+    }
+
+    private void doReportOcspDiagnostics(X509Certificate issuer, String responderURI, int statusCode,
+                                         OffsetDateTime prevUpdate, OffsetDateTime nextUpdate) {
 
         OcspResponderStatus responderStatus = new OcspResponderStatus(statusCode, responderURI, prevUpdate, nextUpdate);
 
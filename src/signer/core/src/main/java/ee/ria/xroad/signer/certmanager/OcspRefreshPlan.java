@@ -0,0 +1,167 @@
+/*
+ * The MIT License
+ * Copyright (c) 2019- Nordic Institute for Interoperability Solutions (NIIS)
+ * Copyright (c) 2018 Estonian Information System Authority (RIA),
+ * Nordic Institute for Interoperability Solutions (NIIS), Population Register Centre (VRK)
+ * Copyright (c) 2015-2017 Estonian Information System Authority (RIA), Population Register Centre (VRK)
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package ee.ria.xroad.signer.certmanager;
+
+import lombok.extern.slf4j.Slf4j;
+import org.bouncycastle.cert.ocsp.BasicOCSPResp;
+import org.bouncycastle.cert.ocsp.OCSPException;
+import org.bouncycastle.cert.ocsp.OCSPResp;
+import org.bouncycastle.cert.ocsp.SingleResp;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.Collection;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Keeps track of when the OCSP response of each certificate should be refreshed.
+ * <p>
+ * A response is refreshed when the OCSP fetch interval has passed since it was fetched. If the next update
+ * time of OCSP responses is verified, the response is refreshed earlier, once half of its validity period
+ * (from thisUpdate to nextUpdate) has passed, but never sooner than the minimum refresh interval after
+ * it was fetched.
+ * <p>
+ * Certificates are identified by their SHA-1 fingerprint calculated over the entire certificate.
+ */
+@Slf4j
+final class OcspRefreshPlan {
+
+    private final Duration minRefreshInterval;
+
+    private final Map<String, Instant> refreshTimes = new ConcurrentHashMap<>();
+
+    OcspRefreshPlan(Duration minRefreshInterval) {
+        this.minRefreshInterval = minRefreshInterval;
+    }
+
+    /**
+     * Plans the refresh of a certificate that is not yet in the plan from the response that is already
+     * available for it, as if the response had been fetched at its thisUpdate time.
+     * @param certHash the certificate hash
+     * @param response the available response or null if there is none
+     * @param fetchInterval the OCSP fetch interval
+     * @param useNextUpdate whether the next update time of the response is taken into account
+     */
+    void planIfAbsent(String certHash, OCSPResp response, Duration fetchInterval, boolean useNextUpdate) {
+        if (response == null || refreshTimes.containsKey(certHash)) {
+            return;
+        }
+
+        try {
+            SingleResp singleResp = getSingleResponse(response);
+
+            refreshTimes.putIfAbsent(certHash, refreshTime(singleResp.getThisUpdate().toInstant(), singleResp,
+                    fetchInterval, useNextUpdate));
+        } catch (Exception e) {
+            log.debug("Could not plan refresh of OCSP response for certificate {}", certHash, e);
+        }
+    }
+
+    /**
+     * Plans the next refresh of a certificate after its response has been fetched.
+     * @param certHash the certificate hash
+     * @param response the fetched response
+     * @param fetchedAt the time the response was fetched
+     * @param fetchInterval the OCSP fetch interval
+     * @param useNextUpdate whether the next update time of the response is taken into account
+     */
+    void fetched(String certHash, OCSPResp response, Instant fetchedAt, Duration fetchInterval,
+                 boolean useNextUpdate) {
+        Instant refreshTime;
+        try {
+            refreshTime = refreshTime(fetchedAt, getSingleResponse(response), fetchInterval, useNextUpdate);
+        } catch (Exception e) {
+            log.debug("Could not read validity of OCSP response for certificate {}", certHash, e);
+
+            refreshTime = fetchedAt.plus(fetchInterval);
+        }
+
+        log.trace("Next OCSP response refresh for certificate {} at {}", certHash, refreshTime);
+
+        refreshTimes.put(certHash, refreshTime);
+    }
+
+    /**
+     * Plans the retry of a certificate whose response could not be fetched.
+     * @param certHash the certificate hash
+     * @param retryAt the time of the retry
+     */
+    void failed(String certHash, Instant retryAt) {
+        refreshTimes.put(certHash, retryAt);
+    }
+
+    /**
+     * @param certHash the certificate hash
+     * @param now the current time
+     * @return true if the response of the certificate is not planned or its refresh time has been reached
+     */
+    boolean isDue(String certHash, Instant now) {
+        Instant refreshTime = refreshTimes.get(certHash);
+
+        return refreshTime == null || !refreshTime.isAfter(now);
+    }
+
+    /**
+     * Removes the certificates that no longer need OCSP responses from the plan.
+     * @param certHashes hashes of the certificates that still need OCSP responses
+     */
+    void retainAll(Collection<String> certHashes) {
+        refreshTimes.keySet().retainAll(certHashes);
+    }
+
+    /**
+     * @return the earliest planned refresh time or empty if nothing is planned
+     */
+    Optional<Instant> getNextRefreshTime() {
+        return refreshTimes.values().stream().min(Instant::compareTo);
+    }
+
+    private Instant refreshTime(Instant fetchedAt, SingleResp singleResp, Duration fetchInterval,
+                                boolean useNextUpdate) {
+        Instant refreshTime = fetchedAt.plus(fetchInterval);
+
+        if (useNextUpdate && singleResp.getNextUpdate() != null) {
+            Instant thisUpdate = singleResp.getThisUpdate().toInstant();
+            Instant nextUpdate = singleResp.getNextUpdate().toInstant();
+            Instant halfValidity = thisUpdate.plus(Duration.between(thisUpdate, nextUpdate).dividedBy(2));
+            Instant earliest = fetchedAt.plus(minRefreshInterval);
+
+            if (halfValidity.isBefore(refreshTime)) {
+                refreshTime = halfValidity.isAfter(earliest) ? halfValidity : earliest;
+            }
+        }
+
+        return refreshTime;
+    }
+
+    private static SingleResp getSingleResponse(OCSPResp response) throws OCSPException {
+        BasicOCSPResp basicResp = (BasicOCSPResp) response.getResponseObject();
+
+        return basicResp.getResponses()[0];
+    }
+}
@@ -37,8 +37,13 @@ import org.bouncycastle.operator.OperatorCreationException;
 import org.niis.xroad.signer.proto.SetOcspResponsesReq;
 
 import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
 import java.security.cert.CertificateEncodingException;
 import java.security.cert.X509Certificate;
+import java.util.Base64;
+import java.util.LinkedHashMap;
+import java.util.Map;
 import java.util.Map.Entry;
 
 import static ee.ria.xroad.common.util.CryptoUtils.calculateCertSha1HexHash;
@@ -138,7 +143,7 @@ public class OcspResponseManager {
 
             if (ocspResponse != null) {
                 log.debug("Acquired an OCSP response for certificate {}", message.getCertHash()[i]);
-                base64EncodedResponses[i] = encodeBase64(ocspResponse.getEncoded());
+                base64EncodedResponses[i] = encodeResponse(message.getCertHash()[i], ocspResponse);
             } else {
                 log.warn("Could not acquire an OCSP response for certificate {}", message.getCertHash()[i]);
             }
@@ -171,10 +176,28 @@ public class OcspResponseManager {
     public void handleSetOcspResponses(SetOcspResponsesReq message) throws Exception {
         log.trace("handleSetOcspResponses()");
 
+        Map<String, OCSPResp> responses = new LinkedHashMap<>();
         for (int i = 0; i < message.getCertHashesCount(); i++) {
-            setResponse(message.getCertHashes(i), new OCSPResp(
+            responses.put(message.getCertHashes(i), new OCSPResp(
                     decodeBase64(message.getBase64EncodedResponses(i))));
         }
+
+        log.debug("Setting {} new responses to cache", responses.size());
+        try {
+            responseCache.putAll(responses);
+        } finally {
+            responses.forEach(TokenManager::setOcspResponse);
+        }
+    }
+
+    /**
+     * Returns the cached OCSP response for a certificate hash without downloading it.
+     *
+     * @param certHash the certificate hash
+     * @return the cached response or null if there is none
+     */
+    public OCSPResp getCachedOcspResponse(String certHash) {
+        return getResponse(certHash);
     }
 
     public void removeOcspResponseFromTokenManagerIfExpiredOrNotInCache(String certHash) {
@@ -186,6 +209,18 @@ public class OcspResponseManager {
         return responseCache.get(certHash);
     }
 
+    /**
+     * Encodes the response from its stored DER bytes, falling back to re-encoding the response object.
+     */
+    private String encodeResponse(String certHash, OCSPResp response) throws IOException {
+        ByteBuffer encoded = responseCache.getEncoded(certHash);
+        if (encoded != null) {
+            return StandardCharsets.US_ASCII.decode(Base64.getEncoder().encode(encoded)).toString();
+        }
+
+        return encodeBase64(response.getEncoded());
+    }
+
     private void setResponse(String certHash, OCSPResp response) {
         log.debug("Setting a new response to cache for cert: {}", certHash);
         try {
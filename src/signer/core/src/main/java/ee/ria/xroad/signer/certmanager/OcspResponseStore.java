@@ -0,0 +1,393 @@
+/*
+ * The MIT License
+ * Copyright (c) 2019- Nordic Institute for Interoperability Solutions (NIIS)
+ * Copyright (c) 2018 Estonian Information System Authority (RIA),
+ * Nordic Institute for Interoperability Solutions (NIIS), Population Register Centre (VRK)
+ * Copyright (c) 2015-2017 Estonian Information System Authority (RIA), Population Register Centre (VRK)
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package ee.ria.xroad.signer.certmanager;
+
+import lombok.extern.slf4j.Slf4j;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.OpenOption;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.zip.CRC32;
+
+/**
+ * Single-file, append-structured store of encoded OCSP responses keyed by certificate hash.
+ * <p>
+ * Every update appends a record to the end of the file and the in-memory index then points to the new
+ * record, so a response is replaced atomically. Removals append a record without a value. The records
+ * are read through read-only memory mappings of the file, and {@link #get(String)} returns a view of the
+ * mapped bytes without copying them.
+ * <p>
+ * Each record is protected by a CRC32 checksum. When the store is opened, records are read until the end
+ * of the file or the first incomplete or corrupted record, which is truncated away (e.g. after a crash
+ * in the middle of a write). Records are always appended after the last valid record, and a write that
+ * fails is truncated away, so that valid records never follow a torn one.
+ * <p>
+ * When superseded records take up more space than live ones, the live records are copied into a new file
+ * that atomically replaces the old one.
+ * <p>
+ * Reads are lock-free, writes are serialized.
+ */
+@Slf4j
+final class OcspResponseStore implements Closeable {
+
+    private static final int MAGIC = 0x4f435350; // "OCSP"
+    private static final int VERSION = 1;
+    private static final int FILE_HEADER_LENGTH = 2 * Integer.BYTES;
+
+    // record: length (int, excluding itself), crc32 (int), key length (short), key, value
+    private static final int RECORD_HEADER_LENGTH = 2 * Integer.BYTES + Short.BYTES;
+
+    private static final long MIN_COMPACTION_GARBAGE_BYTES = 1024 * 1024;
+
+    private final Path file;
+    private final ChannelOpener channelOpener;
+
+    private final Map<String, ByteBuffer> index = new ConcurrentHashMap<>();
+
+    private FileChannel channel;
+    // end offset of the last valid record, the next records are written here
+    private long end;
+    private long liveBytes;
+    private long garbageBytes;
+
+    OcspResponseStore(Path file) {
+        this(file, FileChannel::open);
+    }
+
+    OcspResponseStore(Path file, ChannelOpener channelOpener) {
+        this.file = file;
+        this.channelOpener = channelOpener;
+    }
+
+    /**
+     * Opens the store file, creating it if it does not exist, and reads the index of the records.
+     * @throws IOException if an I/O error occurs
+     */
+    synchronized void open() throws IOException {
+        if (channel != null) {
+            return;
+        }
+
+        Files.createDirectories(file.toAbsolutePath().getParent());
+
+        channel = channelOpener.open(file, StandardOpenOption.CREATE, StandardOpenOption.READ,
+                StandardOpenOption.WRITE);
+
+        if (channel.size() < FILE_HEADER_LENGTH) {
+            writeFileHeader(channel);
+            end = FILE_HEADER_LENGTH;
+        } else {
+            readRecords();
+        }
+
+        log.debug("Opened OCSP response store '{}' with {} responses", file, index.size());
+    }
+
+    /**
+     * @param key the certificate hash
+     * @return read-only view of the encoded response or null if there is no response for the key
+     */
+    ByteBuffer get(String key) {
+        ByteBuffer value = index.get(key);
+
+        return value != null ? value.duplicate() : null;
+    }
+
+    /**
+     * @return keys of all responses in the store
+     */
+    Set<String> keys() {
+        return index.keySet();
+    }
+
+    /**
+     * Stores the encoded responses, replacing any existing responses for the same keys.
+     * The responses are synced to disk before returning.
+     * @param values the encoded responses by certificate hash
+     * @throws IOException if an I/O error occurs
+     */
+    synchronized void putAll(Map<String, byte[]> values) throws IOException {
+        write(values);
+    }
+
+    /**
+     * Removes the response from the store.
+     * @param key the certificate hash
+     * @throws IOException if an I/O error occurs
+     */
+    synchronized void remove(String key) throws IOException {
+        if (index.containsKey(key)) {
+            write(Map.of(key, new byte[0]));
+        }
+    }
+
+    @Override
+    public synchronized void close() throws IOException {
+        if (channel != null) {
+            channel.close();
+            channel = null;
+        }
+        index.clear();
+    }
+
+    /**
+     * @return the number of bytes taken by superseded and removed records
+     */
+    synchronized long getGarbageBytes() {
+        return garbageBytes;
+    }
+
+    private void write(Map<String, byte[]> values) throws IOException {
+        ensureOpen();
+
+        long start = end;
+        ByteBuffer records = encodeRecords(values);
+        int length = records.remaining();
+        MappedByteBuffer mapped;
+
+        try {
+            channel.position(start);
+            while (records.hasRemaining()) {
+                channel.write(records);
+            }
+            channel.force(false);
+
+            mapped = channel.map(FileChannel.MapMode.READ_ONLY, start, length);
+        } catch (IOException e) {
+            discardFailedWrite(start, e);
+            throw e;
+        }
+
+        indexRecords(mapped);
+        end = start + length;
+
+        if (garbageBytes > liveBytes && garbageBytes > MIN_COMPACTION_GARBAGE_BYTES) {
+            compact();
+        }
+    }
+
+    /**
+     * Truncates the bytes of a failed write. If that fails too, the next write overwrites them.
+     */
+    private void discardFailedWrite(long start, IOException writeFailure) {
+        log.warn("Failed to write to OCSP response store '{}', discarding the records written after offset {}",
+                file, start);
+
+        try {
+            channel.truncate(start);
+        } catch (IOException e) {
+            writeFailure.addSuppressed(e);
+        }
+    }
+
+    private void readRecords() throws IOException {
+        ByteBuffer header = ByteBuffer.allocate(FILE_HEADER_LENGTH);
+        channel.read(header, 0);
+        header.flip();
+
+        if (header.getInt() != MAGIC || header.getInt() != VERSION) {
+            throw new IOException("Unsupported OCSP response store file " + file);
+        }
+
+        long size = channel.size();
+        MappedByteBuffer mapped = channel.map(FileChannel.MapMode.READ_ONLY, FILE_HEADER_LENGTH,
+                size - FILE_HEADER_LENGTH);
+
+        int validLength = indexRecords(mapped);
+        end = FILE_HEADER_LENGTH + (long) validLength;
+
+        if (validLength < mapped.capacity()) {
+            log.warn("Truncating incomplete or corrupted records at offset {} of OCSP response store '{}'",
+                    FILE_HEADER_LENGTH + validLength, file);
+            channel.truncate(FILE_HEADER_LENGTH + (long) validLength);
+            channel.force(true);
+        }
+    }
+
+    /**
+     * Adds the records in the buffer to the index.
+     * @return the length of the valid records at the beginning of the buffer
+     */
+    private int indexRecords(ByteBuffer records) {
+        int position = 0;
+
+        while (records.capacity() - position >= RECORD_HEADER_LENGTH) {
+            int length = records.getInt(position);
+            int end = position + Integer.BYTES + length;
+
+            if (length < RECORD_HEADER_LENGTH - Integer.BYTES || end > records.capacity() || end < position) {
+                break;
+            }
+
+            int checksum = records.getInt(position + Integer.BYTES);
+            int bodyStart = position + 2 * Integer.BYTES;
+
+            if (checksum != crc(records.slice(bodyStart, end - bodyStart))) {
+                break;
+            }
+
+            int keyLength = records.getShort(bodyStart);
+            int keyStart = bodyStart + Short.BYTES;
+            int valueStart = keyStart + keyLength;
+
+            if (keyLength <= 0 || valueStart > end) {
+                break;
+            }
+
+            byte[] keyBytes = new byte[keyLength];
+            records.get(keyStart, keyBytes);
+            String key = new String(keyBytes, StandardCharsets.US_ASCII);
+
+            ByteBuffer previous = valueStart < end
+                    ? index.put(key, records.slice(valueStart, end - valueStart).asReadOnlyBuffer())
+                    : index.remove(key);
+
+            if (previous != null) {
+                long previousSize = recordSize(key, previous.capacity());
+                liveBytes -= previousSize;
+                garbageBytes += previousSize;
+            }
+
+            if (valueStart < end) {
+                liveBytes += end - position;
+            } else {
+                garbageBytes += end - position;
+            }
+
+            position = end;
+        }
+
+        return position;
+    }
+
+    private void compact() throws IOException {
+        Path tempFile = file.resolveSibling(file.getFileName() + ".tmp");
+
+        log.debug("Compacting OCSP response store '{}' ({} live bytes, {} garbage bytes)", file, liveBytes,
+                garbageBytes);
+
+        Map<String, byte[]> live = new HashMap<>();
+        index.forEach((key, value) -> {
+            byte[] bytes = new byte[value.capacity()];
+            value.duplicate().get(bytes);
+            live.put(key, bytes);
+        });
+
+        try (FileChannel out = FileChannel.open(tempFile, StandardOpenOption.CREATE,
+                StandardOpenOption.TRUNCATE_EXISTING, StandardOpenOption.WRITE)) {
+            writeFileHeader(out);
+
+            ByteBuffer records = encodeRecords(live);
+            out.position(FILE_HEADER_LENGTH);
+            while (records.hasRemaining()) {
+                out.write(records);
+            }
+            out.force(true);
+        }
+
+        Files.move(tempFile, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+
+        channel.close();
+        channel = channelOpener.open(file, StandardOpenOption.READ, StandardOpenOption.WRITE);
+
+        // Entries are replaced one by one, readers keep seeing a valid response for every key
+        readRecords();
+
+        liveBytes = channel.size() - FILE_HEADER_LENGTH;
+        garbageBytes = 0;
+    }
+
+    private void ensureOpen() throws IOException {
+        if (channel == null) {
+            throw new IOException("OCSP response store " + file + " is not open");
+        }
+    }
+
+    private static void writeFileHeader(FileChannel out) throws IOException {
+        ByteBuffer header = ByteBuffer.allocate(FILE_HEADER_LENGTH).putInt(MAGIC).putInt(VERSION).flip();
+
+        out.truncate(0);
+        out.write(header, 0);
+        out.force(true);
+    }
+
+    private static ByteBuffer encodeRecords(Map<String, byte[]> values) {
+        int total = 0;
+        for (Map.Entry<String, byte[]> entry : values.entrySet()) {
+            total += recordSize(entry.getKey(), entry.getValue().length);
+        }
+
+        ByteBuffer buffer = ByteBuffer.allocate(total);
+
+        for (Map.Entry<String, byte[]> entry : values.entrySet()) {
+            byte[] key = entry.getKey().getBytes(StandardCharsets.US_ASCII);
+            byte[] value = entry.getValue();
+            int start = buffer.position();
+
+            buffer.putInt(RECORD_HEADER_LENGTH - Integer.BYTES + key.length + value.length);
+            buffer.putInt(0); // checksum placeholder
+            buffer.putShort((short) key.length);
+            buffer.put(key);
+            buffer.put(value);
+
+            int bodyStart = start + 2 * Integer.BYTES;
+            buffer.putInt(start + Integer.BYTES, crc(buffer.slice(bodyStart, buffer.position() - bodyStart)));
+        }
+
+        return buffer.flip();
+    }
+
+    private static int recordSize(String key, int valueLength) {
+        return RECORD_HEADER_LENGTH + key.length() + valueLength;
+    }
+
+    private static int crc(ByteBuffer data) {
+        CRC32 crc = new CRC32();
+        crc.update(data);
+
+        return (int) crc.getValue();
+    }
+
+    /**
+     * Opens the channel of the store file.
+     */
+    @FunctionalInterface
+    interface ChannelOpener {
+        FileChannel open(Path path, OpenOption... options) throws IOException;
+    }
+}
@@ -36,6 +36,7 @@ import lombok.extern.slf4j.Slf4j;
 import org.springframework.scheduling.TaskScheduler;
 
 import java.time.Duration;
+import java.util.Optional;
 import java.util.concurrent.ScheduledFuture;
 
 import static java.time.temporal.ChronoUnit.SECONDS;
@@ -45,6 +46,8 @@ import static java.time.temporal.ChronoUnit.SECONDS;
 public class OcspClientExecuteScheduler {
     private static final Duration RECOVER_FROM_INVALID_GLOBALCONF_DELAY = Duration.of(60, SECONDS);
     private static final Duration INITIAL_DELAY = Duration.of(5, SECONDS);
+    private static final Duration MIN_PLANNED_REFRESH_DELAY =
+            Duration.of(OcspFetchInterval.OCSP_FETCH_INTERVAL_MIN, SECONDS);
 
     private final OcspClientWorker ocspClientWorker;
     private final TaskScheduler taskScheduler;
@@ -52,6 +55,7 @@ public class OcspClientExecuteScheduler {
 
     private ScheduledFuture<?> scheduledFuture;
     private boolean retryMode;
+    private volatile boolean refreshAllRequested;
 
     public void init() {
         reschedule(INITIAL_DELAY);
@@ -60,10 +64,23 @@ public class OcspClientExecuteScheduler {
     private Duration getNextDelay() {
         final int retryDelay = SystemProperties.getOcspResponseRetryDelay();
         int nextOcspFetchIntervalSeconds = getNextOcspFetchIntervalSeconds();
-        if (retryMode && retryDelay < nextOcspFetchIntervalSeconds) {
-            return Duration.of(retryDelay, SECONDS);
-        }
-        return Duration.of(nextOcspFetchIntervalSeconds, SECONDS);
+        final Duration delay = retryMode && retryDelay < nextOcspFetchIntervalSeconds
+                ? Duration.of(retryDelay, SECONDS)
+                : Duration.of(nextOcspFetchIntervalSeconds, SECONDS);
+        return getPlannedRefreshDelay()
+                .filter(plannedDelay -> plannedDelay.compareTo(delay) < 0)
+                .orElse(delay);
+    }
+
+    /**
+     * @return delay until the earliest planned refresh of a single OCSP response, but at least the minimum
+     * OCSP fetch interval
+     */
+    private Optional<Duration> getPlannedRefreshDelay() {
+        return ocspClientWorker.getNextPlannedRefreshTime()
+                .map(refreshTime -> Duration.between(taskScheduler.getClock().instant(), refreshTime))
+                .map(plannedDelay -> plannedDelay.compareTo(MIN_PLANNED_REFRESH_DELAY) < 0
+                        ? MIN_PLANNED_REFRESH_DELAY : plannedDelay);
     }
 
     public void success() {
@@ -90,13 +107,19 @@ public class OcspClientExecuteScheduler {
         retryMode = false;
     }
 
+    /**
+     * Refreshes the OCSP responses of all certificates immediately, regardless of their planned refresh times.
+     */
     public void execute() {
+        refreshAllRequested = true;
         reschedule(Duration.ZERO);
     }
 
     private void runJob() {
         try {
-            ocspClientWorker.execute(this);
+            boolean refreshAll = refreshAllRequested;
+            refreshAllRequested = false;
+            ocspClientWorker.execute(this, refreshAll);
         } finally {
             reschedule(getNextDelay());
         }
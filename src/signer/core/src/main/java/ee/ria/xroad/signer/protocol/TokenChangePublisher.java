@@ -0,0 +1,151 @@
+/*
+ * The MIT License
+ * Copyright (c) 2019- Nordic Institute for Interoperability Solutions (NIIS)
+ * Copyright (c) 2018 Estonian Information System Authority (RIA),
+ * Nordic Institute for Interoperability Solutions (NIIS), Population Register Centre (VRK)
+ * Copyright (c) 2015-2017 Estonian Information System Authority (RIA), Population Register Centre (VRK)
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package ee.ria.xroad.signer.protocol;
+
+import ee.ria.xroad.signer.protocol.dto.TokenInfo;
+import ee.ria.xroad.signer.tokenmanager.TokenManager;
+
+import io.grpc.stub.ServerCallStreamObserver;
+import io.grpc.stub.StreamObserver;
+import lombok.extern.slf4j.Slf4j;
+import org.niis.xroad.signer.proto.ListTokensResp;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.beans.factory.InitializingBean;
+import org.springframework.stereotype.Component;
+
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.function.Supplier;
+
+/**
+ * Publishes the token list to the subscribers of the token watch stream. A subscriber receives the complete
+ * token list when it subscribes and again every time {@link TokenManager} reports that the tokens, keys or
+ * certificates (including their runtime statuses) have changed.
+ * <p>
+ * Change notifications are only recorded on the thread that changed the tokens. The list is published on a
+ * separate thread, and changes made while a publication is pending are published together.
+ */
+@Slf4j
+@Component
+public class TokenChangePublisher implements InitializingBean, DisposableBean {
+
+    private final List<StreamObserver<ListTokensResp>> subscribers = new CopyOnWriteArrayList<>();
+    private final AtomicBoolean publishPending = new AtomicBoolean();
+
+    private final Supplier<List<TokenInfo>> tokens;
+    private final Executor executor;
+
+    public TokenChangePublisher() {
+        this(TokenManager::listTokens, Executors.newSingleThreadExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "token-change-publisher");
+            thread.setDaemon(true);
+            return thread;
+        }));
+    }
+
+    TokenChangePublisher(Supplier<List<TokenInfo>> tokens, Executor executor) {
+        this.tokens = tokens;
+        this.executor = executor;
+    }
+
+    @Override
+    public void afterPropertiesSet() {
+        TokenManager.setChangeListener(this::tokensChanged);
+    }
+
+    @Override
+    public void destroy() {
+        TokenManager.setChangeListener(null);
+        if (executor instanceof ExecutorService executorService) {
+            executorService.shutdownNow();
+        }
+    }
+
+    /**
+     * Adds a subscriber and sends the current token list to it.
+     * @param responseObserver subscriber stream
+     */
+    public void subscribe(StreamObserver<ListTokensResp> responseObserver) {
+        if (responseObserver instanceof ServerCallStreamObserver<ListTokensResp> serverCallObserver) {
+            serverCallObserver.setOnCancelHandler(() -> subscribers.remove(responseObserver));
+        }
+
+        synchronized (this) {
+            if (send(responseObserver, listTokens())) {
+                subscribers.add(responseObserver);
+                log.debug("Token watch subscribed, {} subscribers", subscribers.size());
+            }
+        }
+    }
+
+    /**
+     * Schedules publishing the token list to the subscribers, unless a publication is already pending.
+     */
+    void tokensChanged() {
+        if (!subscribers.isEmpty() && publishPending.compareAndSet(false, true)) {
+            executor.execute(this::publish);
+        }
+    }
+
+    private synchronized void publish() {
+        publishPending.set(false);
+
+        if (subscribers.isEmpty()) {
+            return;
+        }
+
+        ListTokensResp current = listTokens();
+
+        log.trace("Token list changed, publishing to {} subscribers", subscribers.size());
+        for (StreamObserver<ListTokensResp> subscriber : subscribers) {
+            if (!send(subscriber, current)) {
+                subscribers.remove(subscriber);
+            }
+        }
+    }
+
+    private ListTokensResp listTokens() {
+        final ListTokensResp.Builder builder = ListTokensResp.newBuilder();
+
+        tokens.get().forEach(tokenInfo -> builder.addTokens(tokenInfo.asMessage()));
+
+        return builder.build();
+    }
+
+    private static boolean send(StreamObserver<ListTokensResp> subscriber, ListTokensResp tokens) {
+        try {
+            subscriber.onNext(tokens);
+            return true;
+        } catch (RuntimeException e) {
+            log.debug("Failed to publish token list to subscriber", e);
+            return false;
+        }
+    }
+}
@@ -78,12 +78,18 @@ public class TokensService extends TokenServiceGrpc.TokenServiceImplBase {
     private final GetMemberSigningInfoReqHandler getMemberSigningInfoReqHandler;
     private final SetTokenFriendlyNameReqHandler setTokenFriendlyNameReqHandler;
     private final ListTokensReqHandler listTokensReqHandler;
+    private final TokenChangePublisher tokenChangePublisher;
 
     @Override
     public void listTokens(Empty request, StreamObserver<ListTokensResp> responseObserver) {
         listTokensReqHandler.processSingle(request, responseObserver);
     }
 
+    @Override
+    public void watchTokens(Empty request, StreamObserver<ListTokensResp> responseObserver) {
+        tokenChangePublisher.subscribe(responseObserver);
+    }
+
     @Override
     public void activateToken(ActivateTokenReq request, StreamObserver<Empty> responseObserver) {
         activateTokenReqHandler.processSingle(request, responseObserver);
@@ -149,17 +149,26 @@ public final class TokenConf extends AbstractXmlConf<KeyConfType> {
     }
 
     /**
-     * Saves the tokens to the XML file.
-     * @param tokens the tokens to save
+     * Converts the tokens to the configuration model. Only tokens which have keys with certificates or
+     * certificate requests are included.
+     * @param tokens the tokens to convert
+     * @return the devices to save
+     */
+    static List<DeviceType> toDevices(List<Token> tokens) {
+        return tokens.stream()
+                .filter(TokenConf::hasKeysWithCertsOfCertRequests)
+                .map(TokenConf::from)
+                .collect(Collectors.toList());
+    }
+
+    /**
+     * Saves the devices to the XML file.
+     * @param devices the devices to save
      * @throws Exception if an error occurs
      */
-    synchronized void save(List<Token> tokens) throws Exception {
+    synchronized void save(List<DeviceType> devices) throws Exception {
         confType.getDevice().clear();
-
-        // Only save the token if it has keys which have certificates or
-        // certificate requests
-        tokens.stream().filter(TokenConf::hasKeysWithCertsOfCertRequests)
-                .forEach(token -> confType.getDevice().add(from(token)));
+        confType.getDevice().addAll(devices);
 
         save();
     }
@@ -26,6 +26,7 @@
 package ee.ria.xroad.signer.tokenmanager;
 
 import ee.ria.xroad.common.CodedException;
+import ee.ria.xroad.common.conf.keyconf.DeviceType;
 import ee.ria.xroad.common.crypto.identifier.SignMechanism;
 import ee.ria.xroad.common.identifier.ClientId;
 import ee.ria.xroad.signer.model.Cert;
@@ -56,7 +57,9 @@ import java.time.Instant;
 import java.util.ArrayList;
 import java.util.List;
 import java.util.Map;
+import java.util.Objects;
 import java.util.Optional;
+import java.util.function.BiConsumer;
 import java.util.function.BiFunction;
 import java.util.function.Function;
 
@@ -70,14 +73,27 @@ import static java.util.Collections.unmodifiableList;
 
 /**
  * Manages the current state of tokens, their keys and certificates.
+ * <p>
+ * Changes to the state that is persisted in the key configuration are counted, so that
+ * {@link #saveToConf()} only writes the configuration when something has changed since the last save.
+ * All changes to the state, including runtime-only state such as token availability and OCSP responses,
+ * are reported to the change listener set with {@link #setChangeListener(Runnable)}.
  */
 @Slf4j
 public final class TokenManager {
 
+    private static final Object SAVE_LOCK = new Object();
+
     private static volatile List<Token> currentTokens = new ArrayList<>();
 
     private static boolean initialized;
 
+    // Guarded by TokenManager.class
+    private static long modificationCount;
+    private static long savedModificationCount;
+
+    private static volatile Runnable changeListener;
+
     // configure the implementation somewhere else if multiple implementations created
     private static TokenMergeStrategy mergeStrategy = new MergeOntoFileTokensStrategy();
 
@@ -96,21 +112,48 @@ public final class TokenManager {
             log.error("Failed to load token conf", e);
         }
 
-        currentTokens = new ArrayList<>(TokenConf.getInstance().getTokens());
+        synchronized (TokenManager.class) {
+            currentTokens = new ArrayList<>(TokenConf.getInstance().getTokens());
+            // write the loaded configuration once, so that e.g. generated ids get persisted
+            markChanged();
+        }
 
         initialized = true;
     }
 
     /**
-     * Saves the current tokens to the configuration.
+     * Saves the current tokens to the configuration, if they have changed since the last save. The tokens are
+     * converted to the configuration model while holding the manager lock, the configuration itself is written
+     * without it.
      *
      * @throws Exception if an error occurs
      */
-    public static synchronized void saveToConf() throws Exception {
+    public static void saveToConf() throws Exception {
         log.trace("persist()");
 
-        if (initialized) {
-            TokenConf.getInstance().save(currentTokens);
+        if (!initialized) {
+            return;
+        }
+
+        synchronized (SAVE_LOCK) {
+            List<DeviceType> devices;
+            long snapshotModificationCount;
+
+            synchronized (TokenManager.class) {
+                if (modificationCount == savedModificationCount) {
+                    log.trace("Tokens have not changed, skipping save");
+                    return;
+                }
+
+                devices = TokenConf.toDevices(currentTokens);
+                snapshotModificationCount = modificationCount;
+            }
+
+            TokenConf.getInstance().save(devices);
+
+            synchronized (TokenManager.class) {
+                savedModificationCount = snapshotModificationCount;
+            }
         }
     }
 
@@ -138,6 +181,7 @@ public final class TokenManager {
             synchronized (TokenManager.class) {
                 result = mergeStrategy.merge(fileTokens, currentTokens);
                 currentTokens = result.getResultTokens();
+                markChanged();
             }
             if (listener != null) {
                 listener.mergeDone(result.getAddedCertificates());
@@ -151,6 +195,16 @@ public final class TokenManager {
         }
     }
 
+    /**
+     * Sets the listener that is notified after the state of the tokens, keys or certificates has changed. The
+     * listener is called while holding the manager lock, so it must only schedule the handling of the change.
+     *
+     * @param listener the listener, or null to remove the current listener
+     */
+    public static void setChangeListener(Runnable listener) {
+        changeListener = listener;
+    }
+
     // ------------------------------------------------------------------------
 
     /**
@@ -188,6 +242,7 @@ public final class TokenManager {
         token.setAvailable(true);
 
         currentTokens.add(token);
+        markChanged();
 
         return token.toDTO();
     }
@@ -430,7 +485,7 @@ public final class TokenManager {
         log.trace("setOcspResponse({})", certSha1Hash);
 
         forCert((k, c) -> certSha1Hash.equals(c.getSha1hash()), (k, c) -> {
-            c.setOcspResponse(response);
+            setStateIfChanged(c, Cert::getOcspResponse, Cert::setOcspResponse, response);
             return null;
         });
     }
@@ -527,8 +582,8 @@ public final class TokenManager {
         log.trace("setTokenAvailable({}, {})", tokenId, available);
 
         Token token = findToken(tokenId);
-        token.setAvailable(available);
-        token.setModuleId(tokenType.getModuleType());
+        setStateIfChanged(token, Token::isAvailable, Token::setAvailable, available);
+        setStateIfChanged(token, Token::getModuleId, Token::setModuleId, tokenType.getModuleType());
     }
 
     /**
@@ -540,7 +595,7 @@ public final class TokenManager {
     public static synchronized void setTokenAvailable(String tokenId, boolean available) {
         log.trace("setTokenAvailable({}, {})", tokenId, available);
 
-        findToken(tokenId).setAvailable(available);
+        setStateIfChanged(findToken(tokenId), Token::isAvailable, Token::setAvailable, available);
     }
 
     /**
@@ -553,7 +608,7 @@ public final class TokenManager {
                                                    boolean active) {
         log.trace("setTokenActive({}, {})", tokenId, active);
 
-        findToken(tokenId).setActive(active);
+        setStateIfChanged(findToken(tokenId), Token::isActive, Token::setActive, active);
     }
 
     /**
@@ -566,7 +621,7 @@ public final class TokenManager {
                                                          String friendlyName) {
         log.trace("setTokenFriendlyName({}, {})", tokenId, friendlyName);
 
-        findToken(tokenId).setFriendlyName(friendlyName);
+        setIfChanged(findToken(tokenId), Token::getFriendlyName, Token::setFriendlyName, friendlyName);
     }
 
     /**
@@ -589,7 +644,7 @@ public final class TokenManager {
                                                    TokenStatusInfo status) {
         log.trace("setTokenStatus({}, {})", tokenId, status);
 
-        findToken(tokenId).setStatus(status);
+        setStateIfChanged(findToken(tokenId), Token::getStatus, Token::setStatus, status);
     }
 
     /**
@@ -602,7 +657,7 @@ public final class TokenManager {
                                                     boolean available) {
         log.trace("setKeyAvailable({}, {})", keyId, available);
 
-        findKey(keyId).setAvailable(available);
+        setStateIfChanged(findKey(keyId), Key::isAvailable, Key::setAvailable, available);
     }
 
     /**
@@ -625,7 +680,7 @@ public final class TokenManager {
                                                        String friendlyName) {
         log.trace("setKeyFriendlyName({}, {})", keyId, friendlyName);
 
-        findKey(keyId).setFriendlyName(friendlyName);
+        setIfChanged(findKey(keyId), Key::getFriendlyName, Key::setFriendlyName, friendlyName);
     }
 
     /**
@@ -637,7 +692,7 @@ public final class TokenManager {
     public static synchronized void setKeyLabel(String keyId, String label) {
         log.trace("setKeyLabel({}, {})", keyId, label);
 
-        findKey(keyId).setLabel(label);
+        setIfChanged(findKey(keyId), Key::getLabel, Key::setLabel, label);
     }
 
     /**
@@ -650,7 +705,7 @@ public final class TokenManager {
                                                 KeyUsageInfo keyUsage) {
         log.trace("setKeyUsage({}, {})", keyId, keyUsage);
 
-        findKey(keyId).setUsage(keyUsage);
+        setIfChanged(findKey(keyId), Key::getUsage, Key::setUsage, keyUsage);
     }
 
     /**
@@ -670,6 +725,7 @@ public final class TokenManager {
         key.setPublicKey(publicKeyBase64);
 
         token.addKey(key);
+        markChanged();
 
         return key.toDTO();
     }
@@ -683,8 +739,8 @@ public final class TokenManager {
     public static synchronized boolean removeKey(String keyId) {
         log.trace("removeKey({})", keyId);
 
-        return forKey((t, k) -> k.getId().equals(keyId),
-                (t, k) -> t.getKeys().remove(k)).orElse(false);
+        return markChangedIf(forKey((t, k) -> k.getId().equals(keyId),
+                (t, k) -> t.getKeys().remove(k)).orElse(false));
     }
 
     /**
@@ -697,7 +753,7 @@ public final class TokenManager {
                                                  String publicKeyBase64) {
         log.trace("setPublicKey({}, {})", keyId, publicKeyBase64);
 
-        findKey(keyId).setPublicKey(publicKeyBase64);
+        setIfChanged(findKey(keyId), Key::getPublicKey, Key::setPublicKey, publicKeyBase64);
     }
 
     /**
@@ -715,6 +771,7 @@ public final class TokenManager {
         cert.setCertificate(certBytes);
 
         key.addCert(cert);
+        markChanged();
     }
 
     /**
@@ -734,6 +791,7 @@ public final class TokenManager {
         cert.setStatus(initialStatus);
 
         key.addCert(cert);
+        markChanged();
     }
 
     /**
@@ -746,7 +804,7 @@ public final class TokenManager {
                                                   boolean active) {
         log.trace("setCertActive({}, {})", certId, active);
 
-        findCert(certId).setActive(active);
+        setIfChanged(findCert(certId), Cert::isActive, Cert::setActive, active);
     }
 
     /**
@@ -759,7 +817,7 @@ public final class TokenManager {
                                                   String status) {
         log.trace("setCertStatus({}, {})", certId, status);
 
-        findCert(certId).setStatus(status);
+        setIfChanged(findCert(certId), Cert::getStatus, Cert::setStatus, status);
     }
 
     /**
@@ -772,7 +830,7 @@ public final class TokenManager {
                                                        String hash) {
         log.trace("setRenewedCertHash({}, {})", certId, hash);
 
-        findCert(certId).setRenewedCertHash(hash);
+        setIfChanged(findCert(certId), Cert::getRenewedCertHash, Cert::setRenewedCertHash, hash);
     }
 
     /**
@@ -785,7 +843,7 @@ public final class TokenManager {
                                                     String errorMessage) {
         log.trace("setRenewalError({}, {})", certId, errorMessage);
 
-        findCert(certId).setRenewalError(errorMessage);
+        setIfChanged(findCert(certId), Cert::getRenewalError, Cert::setRenewalError, errorMessage);
     }
 
     /**
@@ -798,7 +856,8 @@ public final class TokenManager {
                                                           Instant nextRenewalTime) {
         log.trace("setNextPlannedRenewal({}, {})", certId, nextRenewalTime);
 
-        findCert(certId).setNextAutomaticRenewalTime(nextRenewalTime);
+        setIfChanged(findCert(certId), Cert::getNextAutomaticRenewalTime, Cert::setNextAutomaticRenewalTime,
+                nextRenewalTime);
     }
 
     /**
@@ -810,8 +869,8 @@ public final class TokenManager {
     public static synchronized boolean removeCert(String certId) {
         log.trace("removeCert({})", certId);
 
-        return forCert((k, c) -> c.getId().equals(certId),
-                (k, c) -> k.getCerts().remove(c)).orElse(false);
+        return markChangedIf(forCert((k, c) -> c.getId().equals(certId),
+                (k, c) -> k.getCerts().remove(c)).orElse(false));
     }
 
     /**
@@ -840,7 +899,7 @@ public final class TokenManager {
                     key.getUsage());
         }
 
-        key.setUsage(keyUsage);
+        setIfChanged(key, Key::getUsage, Key::setUsage, keyUsage);
 
         for (CertRequest certRequest : key.getCertRequests()) {
             ClientId crMember = certRequest.getMemberId();
@@ -858,6 +917,7 @@ public final class TokenManager {
 
         String certId = SignerUtil.randomId();
         key.addCertRequest(new CertRequest(certId, memberId, subjectName, subjectAltName, certificateProfile));
+        markChanged();
 
         log.info("Added new certificate request (memberId: {}, "
                         + "subjectId: {}) under key {}",
@@ -881,6 +941,8 @@ public final class TokenManager {
                         return null;
                     }
 
+                    markChanged();
+
                     return k.getId();
                 }).orElse(null);
     }
@@ -892,7 +954,7 @@ public final class TokenManager {
      * @param info    the token info
      */
     public static synchronized void setTokenInfo(String tokenId, Map<String, String> info) {
-        findToken(tokenId).setInfo(info);
+        setStateIfChanged(findToken(tokenId), Token::getTokenInfo, Token::setInfo, info);
     }
 
     /**
@@ -907,6 +969,41 @@ public final class TokenManager {
 
     // ------------------------------------------------------------------------
 
+    private static void markChanged() {
+        modificationCount++;
+        notifyChanged();
+    }
+
+    private static void notifyChanged() {
+        Runnable listener = changeListener;
+        if (listener != null) {
+            listener.run();
+        }
+    }
+
+    private static boolean markChangedIf(boolean changed) {
+        if (changed) {
+            markChanged();
+        }
+
+        return changed;
+    }
+
+    private static <T, V> void setIfChanged(T target, Function<T, V> getter, BiConsumer<T, V> setter, V value) {
+        if (!Objects.equals(getter.apply(target), value)) {
+            setter.accept(target, value);
+            markChanged();
+        }
+    }
+
+    private static <T, V> void setStateIfChanged(T target, Function<T, V> getter, BiConsumer<T, V> setter,
+                                                 V value) {
+        if (!Objects.equals(getter.apply(target), value)) {
+            setter.accept(target, value);
+            notifyChanged();
+        }
+    }
+
     private static <T> Optional<T> forToken(Function<Token, Boolean> tester, Function<Token, T> mapper) {
         for (Token token : currentTokens) {
             if (tester.apply(token)) {
@@ -32,6 +32,7 @@ import ee.ria.xroad.signer.certmanager.OcspResponseManager;
 import ee.ria.xroad.signer.model.Cert;
 import ee.ria.xroad.signer.protocol.message.GetOcspResponses;
 import ee.ria.xroad.signer.tokenmanager.TokenManager;
+import ee.ria.xroad.signer.tokenmanager.token.SignRequestStatistics;
 import ee.ria.xroad.signer.tokenmanager.token.TokenWorker;
 import ee.ria.xroad.signer.tokenmanager.token.TokenWorkerProvider;
 import ee.ria.xroad.signer.tokenmanager.token.WorkerWithLifecycle;
@@ -50,6 +51,7 @@ import java.util.Map;
 import java.util.Objects;
 import java.util.Optional;
 import java.util.Set;
+import java.util.TreeMap;
 import java.util.stream.Collectors;
 
 import static ee.ria.xroad.common.SystemProperties.NodeType.SLAVE;
@@ -146,6 +148,15 @@ public abstract class AbstractModuleManager implements WorkerWithLifecycle, Toke
         return Optional.empty();
     }
 
+    /**
+     * @return statistics of the coalesced sign requests by token id
+     */
+    public Map<String, SignRequestStatistics> getSignRequestStatistics() {
+        Map<String, SignRequestStatistics> statistics = new TreeMap<>();
+        moduleWorkers.values().forEach(worker -> statistics.putAll(worker.getSignRequestStatistics()));
+        return statistics;
+    }
+
     protected abstract AbstractModuleWorker createModuleWorker(ModuleType module) throws Exception;
 
     /**
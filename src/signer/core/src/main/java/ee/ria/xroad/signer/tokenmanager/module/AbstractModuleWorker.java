@@ -29,6 +29,7 @@ import ee.ria.xroad.signer.protocol.dto.TokenInfo;
 import ee.ria.xroad.signer.tokenmanager.TokenManager;
 import ee.ria.xroad.signer.tokenmanager.token.AbstractTokenWorker;
 import ee.ria.xroad.signer.tokenmanager.token.BlockingTokenWorker;
+import ee.ria.xroad.signer.tokenmanager.token.SignRequestStatistics;
 import ee.ria.xroad.signer.tokenmanager.token.TokenType;
 import ee.ria.xroad.signer.tokenmanager.token.TokenWorker;
 import ee.ria.xroad.signer.tokenmanager.token.WorkerWithLifecycle;
@@ -64,6 +65,16 @@ public abstract class AbstractModuleWorker implements WorkerWithLifecycle {
         return Optional.ofNullable(tokenWorkers.get(tokenId));
     }
 
+    /**
+     * @return statistics of the coalesced sign requests by token id, for tokens that do not sign concurrently
+     */
+    public Map<String, SignRequestStatistics> getSignRequestStatistics() {
+        Map<String, SignRequestStatistics> statistics = new HashMap<>();
+        tokenWorkers.forEach((tokenId, worker) -> worker.getSignRequestStatistics()
+                .ifPresent(s -> statistics.put(tokenId, s)));
+        return statistics;
+    }
+
     @Override
     public void reload() {
         log.warn("Reloading {}.. ", getClass().getSimpleName());
@@ -188,6 +188,31 @@ public abstract class AbstractTokenWorker implements TokenWorker, WorkerWithLife
         return workerId;
     }
 
+    /**
+     * Whether {@link #handleSign(SignReq)} is thread safe and may run concurrently with other
+     * operations of the token. Other operations are always serialized.
+     * @return true if signing can be done concurrently
+     */
+    protected boolean isConcurrentSignSupported() {
+        return false;
+    }
+
+    /**
+     * Called before the requests of a sign batch are signed one by one with {@link #handleSign(SignReq)}.
+     * Token workers may prepare work that is shared by all signatures of the batch.
+     * @throws Exception if the batch cannot be signed
+     */
+    protected void beginSignBatch() throws Exception {
+        // no shared work by default
+    }
+
+    /**
+     * Called after the requests of a sign batch have been signed, also when signing failed.
+     */
+    protected void endSignBatch() {
+        // no shared work by default
+    }
+
     /**
      * Execute additional code post every token worker action.
      */
@@ -25,6 +25,8 @@
  */
 package ee.ria.xroad.signer.tokenmanager.token;
 
+import ee.ria.xroad.common.CodedException;
+import ee.ria.xroad.common.SystemProperties;
 import ee.ria.xroad.signer.protocol.dto.KeyInfo;
 
 import lombok.RequiredArgsConstructor;
@@ -34,16 +36,25 @@ import org.niis.xroad.signer.proto.GenerateKeyReq;
 import org.niis.xroad.signer.proto.SignCertificateReq;
 import org.niis.xroad.signer.proto.SignReq;
 
+import java.util.List;
+import java.util.Optional;
+
+import static ee.ria.xroad.common.ErrorCodes.X_CANNOT_SIGN;
 import static ee.ria.xroad.common.ErrorCodes.translateException;
 
 /**
  * A blocking (calls to token are synchronized) token worker.
+ * Signing is not synchronized for token workers that support concurrent signing. For other token workers
+ * concurrent sign requests are coalesced into batches that are signed under a single lock acquisition.
  */
 @Slf4j
 @RequiredArgsConstructor
 public class BlockingTokenWorker implements TokenWorker, WorkerWithLifecycle {
     private final AbstractTokenWorker tokenWorker;
 
+    private final SignRequestCoalescer signRequestCoalescer =
+            new SignRequestCoalescer(this, this::signBatch, SystemProperties.getSignBatchMaxSize());
+
     @Override
     public void handleActivateToken(ActivateTokenReq message) {
         synchronizedAction(() -> tokenWorker.handleActivateToken(message));
@@ -66,7 +77,10 @@ public class BlockingTokenWorker implements TokenWorker, WorkerWithLifecycle {
 
     @Override
     public byte[] handleSign(SignReq request) {
-        return synchronizedAction(() -> tokenWorker.handleSign(request));
+        if (tokenWorker.isConcurrentSignSupported()) {
+            return concurrentAction(() -> tokenWorker.handleSign(request));
+        }
+        return signRequestCoalescer.sign(request);
     }
 
     @Override
@@ -89,6 +103,16 @@ public class BlockingTokenWorker implements TokenWorker, WorkerWithLifecycle {
         return tokenWorker.isSoftwareToken();
     }
 
+    /**
+     * @return statistics of the coalesced sign requests or empty if the token signs concurrently
+     */
+    public Optional<SignRequestStatistics> getSignRequestStatistics() {
+        if (tokenWorker.isConcurrentSignSupported()) {
+            return Optional.empty();
+        }
+        return Optional.of(signRequestCoalescer.getStatistics());
+    }
+
     @Override
     public void start() {
         synchronizedAction(tokenWorker::start);
@@ -120,6 +144,52 @@ public class BlockingTokenWorker implements TokenWorker, WorkerWithLifecycle {
     }
 
 
+    /**
+     * Signs a batch of coalesced sign requests, called while holding the worker lock.
+     */
+    private void signBatch(List<SignRequestCoalescer.PendingSign> batch) {
+        try {
+            tokenWorker.beginSignBatch();
+            try {
+                for (SignRequestCoalescer.PendingSign pending : batch) {
+                    try {
+                        pending.complete(tokenWorker.handleSign(pending.getRequest()));
+                    } catch (Exception e) {
+                        pending.fail(translateException(e));
+                    }
+                }
+            } finally {
+                tokenWorker.endSignBatch();
+            }
+        } catch (Exception e) {
+            log.error("Error while preparing to sign a batch of {} requests", batch.size(), e);
+
+            batch.forEach(pending -> pending.fail(signBatchFailed(e)));
+        } finally {
+            tokenWorker.onActionHandled();
+        }
+    }
+
+    /**
+     * Each request of a failed batch gets its own exception, as the exceptions are thrown by different threads.
+     */
+    private static CodedException signBatchFailed(Exception e) {
+        CodedException error = translateException(e);
+
+        return CodedException.tr(error.getFaultCode(), e, error.getTranslationCode(), "%s", error.getFaultString())
+                .withPrefix(X_CANNOT_SIGN);
+    }
+
+    private <T> T concurrentAction(ThrowingSupplier<T, Exception> action) {
+        try {
+            return action.get();
+        } catch (Exception e) {
+            throw translateException(e);
+        } finally {
+            tokenWorker.onActionHandled();
+        }
+    }
+
     private synchronized <T> T synchronizedAction(ThrowingSupplier<T, Exception> action) {
         try {
             return action.get();
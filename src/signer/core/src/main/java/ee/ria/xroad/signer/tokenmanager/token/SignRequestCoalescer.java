@@ -0,0 +1,220 @@
+/*
+ * The MIT License
+ * Copyright (c) 2019- Nordic Institute for Interoperability Solutions (NIIS)
+ * Copyright (c) 2018 Estonian Information System Authority (RIA),
+ * Nordic Institute for Interoperability Solutions (NIIS), Population Register Centre (VRK)
+ * Copyright (c) 2015-2017 Estonian Information System Authority (RIA), Population Register Centre (VRK)
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package ee.ria.xroad.signer.tokenmanager.token;
+
+import ee.ria.xroad.common.CodedException;
+
+import lombok.extern.slf4j.Slf4j;
+import org.niis.xroad.signer.proto.SignReq;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.LockSupport;
+import java.util.function.Consumer;
+
+import static ee.ria.xroad.common.ErrorCodes.X_INTERNAL_ERROR;
+
+/**
+ * Coalesces concurrent sign requests to a token into micro-batches.
+ * <p>
+ * Callers queue their requests. One caller at a time leads: it takes the token lock and signs the queued
+ * requests of all callers as one batch. The other callers wait for their own request to complete and return
+ * as soon as it has been signed, without taking the token lock. When the leader's own request has been
+ * signed, it hands leading over to the caller of the oldest queued request. Requests that arrive while a
+ * batch is being signed form the next batch, no request waits for a batch to fill up.
+ */
+@Slf4j
+final class SignRequestCoalescer {
+
+    private final Object lock;
+    private final Consumer<List<PendingSign>> batchSigner;
+    private final int maxBatchSize;
+
+    private final Queue<PendingSign> queue = new ConcurrentLinkedQueue<>();
+    private final AtomicInteger queueDepth = new AtomicInteger();
+    private final AtomicBoolean leading = new AtomicBoolean();
+
+    private final AtomicInteger maxQueueDepth = new AtomicInteger();
+    private final AtomicLong batches = new AtomicLong();
+    private final AtomicLong requests = new AtomicLong();
+    private final AtomicLong totalWaitNanos = new AtomicLong();
+    private final AtomicLong maxWaitNanos = new AtomicLong();
+
+    /**
+     * @param lock the lock that serializes the operations of the token
+     * @param batchSigner signs the requests of a batch, called while holding the lock
+     * @param maxBatchSize the maximum number of requests in a batch
+     */
+    SignRequestCoalescer(Object lock, Consumer<List<PendingSign>> batchSigner, int maxBatchSize) {
+        this.lock = lock;
+        this.batchSigner = batchSigner;
+        this.maxBatchSize = maxBatchSize;
+    }
+
+    /**
+     * Signs the request as part of a batch.
+     * @param request the sign request
+     * @return the signature
+     */
+    byte[] sign(SignReq request) {
+        PendingSign pending = new PendingSign(request, System.nanoTime());
+
+        queue.add(pending);
+        maxQueueDepth.accumulateAndGet(queueDepth.incrementAndGet(), Math::max);
+
+        boolean interrupted = false;
+        while (!pending.isDone()) {
+            if (leading.compareAndSet(false, true)) {
+                lead(pending);
+            } else {
+                LockSupport.park(this);
+                // the request is already queued and will be signed, keep waiting for it
+                interrupted |= Thread.interrupted();
+            }
+        }
+
+        if (interrupted) {
+            Thread.currentThread().interrupt();
+        }
+
+        return pending.getSignature();
+    }
+
+    private void lead(PendingSign pending) {
+        try {
+            synchronized (lock) {
+                while (!pending.isDone() && !queue.isEmpty()) {
+                    signBatch();
+                }
+            }
+        } finally {
+            leading.set(false);
+
+            // the caller of the oldest request leads next, unless a new caller has already taken over
+            PendingSign next = queue.peek();
+            if (next != null) {
+                LockSupport.unpark(next.caller);
+            }
+        }
+    }
+
+    /**
+     * @return statistics of the coalesced sign requests
+     */
+    SignRequestStatistics getStatistics() {
+        long requestCount = requests.get();
+
+        return new SignRequestStatistics(queueDepth.get(), maxQueueDepth.get(), batches.get(), requestCount,
+                requestCount > 0 ? toMillis(totalWaitNanos.get()) / requestCount : 0,
+                toMillis(maxWaitNanos.get()));
+    }
+
+    private void signBatch() {
+        List<PendingSign> batch = new ArrayList<>();
+        long now = System.nanoTime();
+
+        PendingSign next;
+        while (batch.size() < maxBatchSize && (next = queue.poll()) != null) {
+            batch.add(next);
+
+            long waitNanos = now - next.enqueuedAt;
+            totalWaitNanos.addAndGet(waitNanos);
+            maxWaitNanos.accumulateAndGet(waitNanos, Math::max);
+        }
+
+        queueDepth.addAndGet(-batch.size());
+        batches.incrementAndGet();
+        requests.addAndGet(batch.size());
+
+        log.trace("Signing batch of {} requests", batch.size());
+
+        try {
+            batchSigner.accept(batch);
+        } finally {
+            for (PendingSign pending : batch) {
+                if (!pending.isDone()) {
+                    pending.fail(new CodedException(X_INTERNAL_ERROR, "Sign request was not processed"));
+                }
+            }
+        }
+    }
+
+    private static double toMillis(long nanos) {
+        return (double) nanos / TimeUnit.MILLISECONDS.toNanos(1);
+    }
+
+    /**
+     * A queued sign request.
+     */
+    static final class PendingSign {
+        private final SignReq request;
+        private final long enqueuedAt;
+        private final Thread caller = Thread.currentThread();
+
+        private volatile boolean done;
+        private volatile byte[] signature;
+        private volatile RuntimeException error;
+
+        private PendingSign(SignReq request, long enqueuedAt) {
+            this.request = request;
+            this.enqueuedAt = enqueuedAt;
+        }
+
+        SignReq getRequest() {
+            return request;
+        }
+
+        void complete(byte[] result) {
+            signature = result;
+            done = true;
+            LockSupport.unpark(caller);
+        }
+
+        void fail(RuntimeException e) {
+            error = e;
+            done = true;
+            LockSupport.unpark(caller);
+        }
+
+        private boolean isDone() {
+            return done;
+        }
+
+        private byte[] getSignature() {
+            if (error != null) {
+                throw error;
+            }
+
+            return signature;
+        }
+    }
+}
@@ -0,0 +1,121 @@
+/*
+ * The MIT License
+ * Copyright (c) 2019- Nordic Institute for Interoperability Solutions (NIIS)
+ * Copyright (c) 2018 Estonian Information System Authority (RIA),
+ * Nordic Institute for Interoperability Solutions (NIIS), Population Register Centre (VRK)
+ * Copyright (c) 2015-2017 Estonian Information System Authority (RIA), Population Register Centre (VRK)
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package ee.ria.xroad.signer.tokenmanager.token;
+
+import ee.ria.xroad.common.crypto.identifier.SignAlgorithm;
+
+import lombok.extern.slf4j.Slf4j;
+
+import java.security.GeneralSecurityException;
+import java.security.PrivateKey;
+import java.security.Signature;
+import java.util.Map;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+
+import static ee.ria.xroad.common.crypto.identifier.Providers.BOUNCY_CASTLE;
+
+/**
+ * Signs data with software token private keys.
+ * <p>
+ * Signature contexts are initialised for signing once per key and signature algorithm and kept in a pool,
+ * so that signing does not look up the provider or initialise the key for every signature. A context is
+ * used by one thread at a time, concurrent signing requests use separate contexts.
+ */
+@Slf4j
+final class SoftwareSignatureEngine {
+
+    private static final int MAX_POOLED_CONTEXTS = Runtime.getRuntime().availableProcessors();
+
+    private final Map<ContextKey, BlockingQueue<PooledSignature>> pools = new ConcurrentHashMap<>();
+
+    /**
+     * Signs the data.
+     * @param keyId id of the key
+     * @param key the private key
+     * @param algorithm the signature algorithm
+     * @param data the data to be signed
+     * @return the signature
+     * @throws GeneralSecurityException if signing fails
+     */
+    byte[] sign(String keyId, PrivateKey key, SignAlgorithm algorithm, byte[] data) throws GeneralSecurityException {
+        ContextKey contextKey = new ContextKey(keyId, algorithm);
+        BlockingQueue<PooledSignature> pool = pools.computeIfAbsent(contextKey,
+                k -> new ArrayBlockingQueue<>(MAX_POOLED_CONTEXTS));
+
+        PooledSignature context = acquire(pool, key, algorithm);
+
+        context.signature().update(data);
+        byte[] result = context.signature().sign(); // resets the context for the next signature
+
+        // a context that failed is not returned, its state is unknown
+        if (pools.get(contextKey) == pool) {
+            pool.offer(context);
+        }
+
+        return result;
+    }
+
+    /**
+     * Discards the signature contexts of the key.
+     * @param keyId id of the key
+     */
+    void invalidate(String keyId) {
+        pools.keySet().removeIf(contextKey -> contextKey.keyId().equals(keyId));
+    }
+
+    /**
+     * Discards all signature contexts.
+     */
+    void clear() {
+        pools.clear();
+    }
+
+    private static PooledSignature acquire(BlockingQueue<PooledSignature> pool, PrivateKey key,
+                                           SignAlgorithm algorithm) throws GeneralSecurityException {
+        PooledSignature context;
+        while ((context = pool.poll()) != null) {
+            if (context.key() == key) {
+                return context;
+            }
+            // the key has been reloaded, contexts of the previous key instance are dropped
+        }
+
+        log.trace("Initialising signature context for algorithm '{}'", algorithm.name());
+
+        Signature signature = Signature.getInstance(algorithm.name(), BOUNCY_CASTLE);
+        signature.initSign(key);
+
+        return new PooledSignature(key, signature);
+    }
+
+    private record ContextKey(String keyId, SignAlgorithm algorithm) {
+    }
+
+    private record PooledSignature(PrivateKey key, Signature signature) {
+    }
+}
@@ -65,16 +65,17 @@ import java.security.KeyPair;
 import java.security.KeyStore;
 import java.security.PrivateKey;
 import java.security.PublicKey;
-import java.security.Signature;
 import java.security.cert.CertPath;
 import java.security.cert.Certificate;
 import java.security.cert.CertificateFactory;
 import java.security.cert.X509Certificate;
 import java.util.Arrays;
-import java.util.HashMap;
 import java.util.Map;
 import java.util.Optional;
 import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
 
 import static ee.ria.xroad.common.ErrorCodes.X_INTERNAL_ERROR;
 import static ee.ria.xroad.common.ErrorCodes.X_TOKEN_PIN_POLICY_FAILURE;
@@ -131,10 +132,13 @@ public class SoftwareTokenWorker extends AbstractTokenWorker {
     );
     private static final String UNSUPPORTED_SIGN_ALGORITHM = "unsupported_sign_algorithm";
 
-    private final Map<String, PrivateKey> privateKeys = new HashMap<>();
+    private final Map<String, PrivateKey> privateKeys = new ConcurrentHashMap<>();
+    // Signing runs concurrently in read mode, deactivating the token clears the loaded keys in write mode.
+    private final ReadWriteLock keyLock = new ReentrantReadWriteLock();
+    private final SoftwareSignatureEngine signatureEngine = new SoftwareSignatureEngine();
     private final TokenType tokenType;
 
-    private boolean isTokenLoginAllowed = true;
+    private volatile boolean isTokenLoginAllowed = true;
 
     /**
      * Creates new worker.
@@ -209,7 +213,15 @@ public class SoftwareTokenWorker extends AbstractTokenWorker {
 
         log.info("Deleting key file {}", path);
 
-        Files.deleteIfExists(path);
+        keyLock.writeLock().lock();
+        try {
+            Files.deleteIfExists(path);
+
+            privateKeys.remove(keyId);
+            signatureEngine.invalidate(keyId);
+        } finally {
+            keyLock.writeLock().unlock();
+        }
     }
 
     @Override
@@ -221,6 +233,15 @@ public class SoftwareTokenWorker extends AbstractTokenWorker {
     protected byte[] sign(String keyId, SignAlgorithm signatureAlgorithmId, byte[] data) throws Exception {
         log.trace("sign({}, {})", keyId, signatureAlgorithmId);
 
+        keyLock.readLock().lock();
+        try {
+            return signWithLoadedKey(keyId, signatureAlgorithmId, data);
+        } finally {
+            keyLock.readLock().unlock();
+        }
+    }
+
+    private byte[] signWithLoadedKey(String keyId, SignAlgorithm signatureAlgorithmId, byte[] data) throws Exception {
         assertTokenAvailable();
 
         assertKeyAvailable(keyId);
@@ -242,11 +263,13 @@ public class SoftwareTokenWorker extends AbstractTokenWorker {
 
 
         SignAlgorithm signAlgorithm = KeyManagers.getFor(keyAlgorithm).getSoftwareTokenSignAlgorithm();
-        Signature signature = Signature.getInstance(signAlgorithm.name(), BOUNCY_CASTLE);
-        signature.initSign(key);
-        signature.update(data);
 
-        return signature.sign();
+        return signatureEngine.sign(keyId, key, signAlgorithm, data);
+    }
+
+    @Override
+    protected boolean isConcurrentSignSupported() {
+        return true;
     }
 
     private static void checkSignatureAlgorithm(SignAlgorithm signatureAlgorithmId, KeyAlgorithm algorithm) throws CodedException {
@@ -511,9 +534,16 @@ public class SoftwareTokenWorker extends AbstractTokenWorker {
     }
 
     private void deactivateToken() {
-        privateKeys.clear();
+        keyLock.writeLock().lock();
+        try {
+            // Marked inactive first, so that no sign request loads the keys again once they have been cleared.
+            setTokenActive(tokenId, false);
 
-        setTokenActive(tokenId, false);
+            privateKeys.clear();
+            signatureEngine.clear();
+        } finally {
+            keyLock.writeLock().unlock();
+        }
     }
 
     private PrivateKey loadPrivateKey(String keyId) throws Exception {
@@ -34,19 +34,25 @@ import ee.ria.xroad.common.util.TimeUtils;
 import org.bouncycastle.cert.ocsp.CertificateStatus;
 import org.bouncycastle.cert.ocsp.OCSPResp;
 import org.junit.BeforeClass;
+import org.junit.Rule;
 import org.junit.Test;
-import org.mockito.Mockito;
+import org.junit.rules.TemporaryFolder;
 
-import java.io.File;
+import java.nio.ByteBuffer;
+import java.nio.file.Files;
+import java.nio.file.Path;
 import java.security.PrivateKey;
 import java.security.cert.X509Certificate;
+import java.time.Instant;
 import java.time.temporal.ChronoUnit;
 import java.util.Date;
+import java.util.Map;
 
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertFalse;
 import static org.junit.Assert.assertNotNull;
 import static org.junit.Assert.assertNull;
-import static org.mockito.Mockito.mock;
-import static org.mockito.Mockito.when;
+import static org.junit.Assert.assertTrue;
 
 /**
  * Tests the file based OCSP cache.
@@ -59,6 +65,9 @@ public class FileBasedOcspCacheTest {
     static X509Certificate signer;
     static PrivateKey signerKey;
 
+    @Rule
+    public TemporaryFolder tempFolder = new TemporaryFolder();
+
     /**
      * Test.
      *
@@ -66,22 +75,13 @@ public class FileBasedOcspCacheTest {
      */
     @Test
     public void putGet() throws Exception {
-        Date thisUpdate = Date.from(TimeUtils.now().plus(1, ChronoUnit.DAYS));
-        OCSPResp ocsp = OcspTestUtils.createOCSPResponse(subject, issuer,
-                signer, signerKey, CertificateStatus.GOOD, thisUpdate, null);
-
-        FileBasedOcspCache cache = new FileBasedOcspCache(globalConfProvider);
-        FileBasedOcspCache spy = Mockito.spy(cache);
-
-        Mockito.doNothing().when(spy).saveResponseToFile(
-                Mockito.any(File.class), Mockito.any(OCSPResp.class));
+        OCSPResp ocsp = createResponse(TimeUtils.now().plus(1, ChronoUnit.DAYS));
 
-        spy.put("foo", ocsp);
-
-        Mockito.verify(spy).saveResponseToFile(Mockito.any(File.class),
-                Mockito.any(OCSPResp.class));
+        FileBasedOcspCache cache = createCache();
+        cache.put("foo", ocsp);
 
         assertNotNull(cache.get("foo"));
+        assertArrayEquals(ocsp.getEncoded(), toBytes(cache.getEncoded("foo")));
     }
 
     /**
@@ -91,21 +91,13 @@ public class FileBasedOcspCacheTest {
      */
     @Test
     public void expiredResponse() throws Exception {
-        Date thisUpdate = Date.from(TimeUtils.now().minus(1, ChronoUnit.DAYS));
-        OCSPResp ocsp = OcspTestUtils.createOCSPResponse(subject, issuer,
-                signer, signerKey, CertificateStatus.GOOD, thisUpdate, null);
-
-        FileBasedOcspCache cache = new FileBasedOcspCache(globalConfProvider);
-        FileBasedOcspCache spy = Mockito.spy(cache);
+        OCSPResp ocsp = createResponse(TimeUtils.now().minus(1, ChronoUnit.DAYS));
 
-        Mockito.doNothing().when(spy).saveResponseToFile(
-                Mockito.any(File.class), Mockito.any(OCSPResp.class));
+        FileBasedOcspCache cache = createCache();
 
-        Mockito.doReturn(ocsp).when(spy).loadResponseFromFile(
-                Mockito.any(File.class));
-
-        assertNull(spy.put("foo", ocsp));
-        assertNull(spy.get("foo"));
+        assertNull(cache.put("foo", ocsp));
+        assertNull(cache.get("foo"));
+        assertNull(cache.getEncoded("foo"));
     }
 
     /**
@@ -114,28 +106,20 @@ public class FileBasedOcspCacheTest {
      * @throws Exception if an error occurs
      */
     @Test
-    public void saveLoadOcspResponseToFile() throws Exception {
-        Date thisUpdate = Date.from(TimeUtils.now().plus(1, ChronoUnit.DAYS));
-        OCSPResp ocsp = OcspTestUtils.createOCSPResponse(subject, issuer,
-                signer, signerKey, CertificateStatus.GOOD, thisUpdate, null);
-
-        FileBasedOcspCache cache = new FileBasedOcspCache(globalConfProvider);
-        FileBasedOcspCache spy = Mockito.spy(cache);
-
-        Mockito.doNothing().when(spy).saveResponseToFile(
-                Mockito.any(File.class), Mockito.any(OCSPResp.class));
-
-        spy.put("foo", ocsp);
+    public void saveLoadOcspResponseToStore() throws Exception {
+        OCSPResp ocsp = createResponse(TimeUtils.now().plus(1, ChronoUnit.DAYS));
 
-        Mockito.verify(spy).saveResponseToFile(Mockito.any(File.class),
-                Mockito.any(OCSPResp.class));
+        FileBasedOcspCache cache = createCache();
+        cache.putAll(Map.of("foo", ocsp, "bar", ocsp));
 
-        spy.clear();
+        cache.clear();
+        assertNotNull(cache.get("foo"));
 
-        Mockito.doReturn(ocsp).when(spy).loadResponseFromFile(
-                Mockito.any(File.class));
+        FileBasedOcspCache reloaded = createCache();
+        reloaded.reloadFromDisk();
 
-        assertNotNull(spy.get("foo"));
+        assertNotNull(reloaded.get("foo"));
+        assertNotNull(reloaded.get("bar"));
     }
 
     /**
@@ -144,15 +128,36 @@ public class FileBasedOcspCacheTest {
      * @throws Exception if an error occurs
      */
     @Test
-    public void readOcspFromEmptyFile() throws Exception {
-        FileBasedOcspCache cache = new FileBasedOcspCache(globalConfProvider);
+    public void importOcspResponseFiles() throws Exception {
+        OCSPResp ocsp = createResponse(TimeUtils.now().plus(1, ChronoUnit.DAYS));
+
+        Path dir = tempFolder.getRoot().toPath();
+        Files.write(dir.resolve("foo.ocsp"), ocsp.getEncoded());
+        Files.write(dir.resolve("empty.ocsp"), new byte[0]);
+
+        FileBasedOcspCache cache = createCache();
+        cache.reloadFromDisk();
 
-        File f = mock(File.class);
-        when(f.exists()).thenReturn(true);
-        when(f.length()).thenReturn(0L);
-        when(f.delete()).thenReturn(true);
+        assertNotNull(cache.get("foo"));
+        assertNull(cache.get("empty"));
+        assertFalse(Files.exists(dir.resolve("foo.ocsp")));
+        assertFalse(Files.exists(dir.resolve("empty.ocsp")));
+        assertTrue(Files.exists(dir.resolve(FileBasedOcspCache.STORE_FILE_NAME)));
+    }
+
+    private FileBasedOcspCache createCache() {
+        return new FileBasedOcspCache(globalConfProvider, tempFolder.getRoot().toPath());
+    }
+
+    private static OCSPResp createResponse(Instant thisUpdate) throws Exception {
+        return OcspTestUtils.createOCSPResponse(subject, issuer,
+                signer, signerKey, CertificateStatus.GOOD, Date.from(thisUpdate), null);
+    }
 
-        assertNull(cache.loadResponseFromFile(f));
+    private static byte[] toBytes(ByteBuffer buffer) {
+        byte[] bytes = new byte[buffer.remaining()];
+        buffer.get(bytes);
+        return bytes;
     }
 
     /**
@@ -0,0 +1,158 @@
+/*
+ * The MIT License
+ * Copyright (c) 2019- Nordic Institute for Interoperability Solutions (NIIS)
+ * Copyright (c) 2018 Estonian Information System Authority (RIA),
+ * Nordic Institute for Interoperability Solutions (NIIS), Population Register Centre (VRK)
+ * Copyright (c) 2015-2017 Estonian Information System Authority (RIA), Population Register Centre (VRK)
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package ee.ria.xroad.signer.certmanager;
+
+import ee.ria.xroad.common.OcspTestUtils;
+import ee.ria.xroad.common.TestCertUtil;
+
+import org.bouncycastle.cert.ocsp.CertificateStatus;
+import org.bouncycastle.cert.ocsp.OCSPResp;
+import org.junit.Test;
+
+import java.security.cert.X509Certificate;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.Date;
+import java.util.Optional;
+import java.util.Set;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Tests for planning OCSP response refreshes.
+ */
+public class OcspRefreshPlanTest {
+
+    private static final String CERT_HASH = "hash1";
+    private static final String OTHER_CERT_HASH = "hash2";
+
+    private static final Duration MIN_INTERVAL = Duration.ofSeconds(60);
+    private static final Duration FETCH_INTERVAL = Duration.ofMinutes(20);
+
+    private static final Instant NOW = Instant.parse("2026-10-19T12:00:00Z");
+
+    private final OcspRefreshPlan plan = new OcspRefreshPlan(MIN_INTERVAL);
+
+    /**
+     * Unknown certificates are due immediately.
+     */
+    @Test
+    public void unplannedCertificateIsDue() {
+        assertTrue(plan.isDue(CERT_HASH, NOW));
+        assertEquals(Optional.empty(), plan.getNextRefreshTime());
+    }
+
+    /**
+     * Without next update, the response is refreshed after the fetch interval.
+     */
+    @Test
+    public void refreshAfterFetchInterval() throws Exception {
+        plan.fetched(CERT_HASH, response(NOW, null), NOW, FETCH_INTERVAL, true);
+
+        assertFalse(plan.isDue(CERT_HASH, NOW.plus(FETCH_INTERVAL).minusSeconds(1)));
+        assertTrue(plan.isDue(CERT_HASH, NOW.plus(FETCH_INTERVAL)));
+        assertEquals(Optional.of(NOW.plus(FETCH_INTERVAL)), plan.getNextRefreshTime());
+    }
+
+    /**
+     * Short-lived responses are refreshed at half of their validity period.
+     */
+    @Test
+    public void refreshAtHalfValidity() throws Exception {
+        OCSPResp response = response(NOW, NOW.plus(Duration.ofMinutes(10)));
+
+        plan.fetched(CERT_HASH, response, NOW, FETCH_INTERVAL, true);
+
+        assertEquals(Optional.of(NOW.plus(Duration.ofMinutes(5))), plan.getNextRefreshTime());
+    }
+
+    /**
+     * Next update is ignored when it is not verified.
+     */
+    @Test
+    public void nextUpdateIgnoredWhenNotVerified() throws Exception {
+        OCSPResp response = response(NOW, NOW.plus(Duration.ofMinutes(10)));
+
+        plan.fetched(CERT_HASH, response, NOW, FETCH_INTERVAL, false);
+
+        assertEquals(Optional.of(NOW.plus(FETCH_INTERVAL)), plan.getNextRefreshTime());
+    }
+
+    /**
+     * Pre-produced responses whose half validity has already passed are not refreshed more often
+     * than the minimum interval.
+     */
+    @Test
+    public void refreshNotSoonerThanMinimumInterval() throws Exception {
+        OCSPResp response = response(NOW.minus(Duration.ofMinutes(30)), NOW.plus(Duration.ofMinutes(10)));
+
+        plan.fetched(CERT_HASH, response, NOW, FETCH_INTERVAL, true);
+
+        assertEquals(Optional.of(NOW.plus(MIN_INTERVAL)), plan.getNextRefreshTime());
+    }
+
+    /**
+     * Cached responses are planned from their thisUpdate and do not override existing plans.
+     */
+    @Test
+    public void planFromCachedResponse() throws Exception {
+        Instant thisUpdate = NOW.minus(Duration.ofMinutes(5));
+
+        plan.planIfAbsent(CERT_HASH, response(thisUpdate, null), FETCH_INTERVAL, true);
+        plan.planIfAbsent(CERT_HASH, response(NOW, null), FETCH_INTERVAL, true);
+        plan.planIfAbsent(OTHER_CERT_HASH, null, FETCH_INTERVAL, true);
+
+        assertEquals(Optional.of(thisUpdate.plus(FETCH_INTERVAL)), plan.getNextRefreshTime());
+        assertFalse(plan.isDue(CERT_HASH, NOW));
+        assertTrue(plan.isDue(OTHER_CERT_HASH, NOW));
+    }
+
+    /**
+     * Failed certificates are retried at the given time and removed certificates are dropped.
+     */
+    @Test
+    public void failedAndRemovedCertificates() throws Exception {
+        plan.fetched(CERT_HASH, response(NOW, null), NOW, FETCH_INTERVAL, true);
+        plan.failed(OTHER_CERT_HASH, NOW.plus(MIN_INTERVAL));
+
+        assertEquals(Optional.of(NOW.plus(MIN_INTERVAL)), plan.getNextRefreshTime());
+
+        plan.retainAll(Set.of(CERT_HASH));
+
+        assertEquals(Optional.of(NOW.plus(FETCH_INTERVAL)), plan.getNextRefreshTime());
+        assertTrue(plan.isDue(OTHER_CERT_HASH, NOW));
+    }
+
+    private static OCSPResp response(Instant thisUpdate, Instant nextUpdate) throws Exception {
+        X509Certificate subject = TestCertUtil.getConsumer().certChain[0];
+
+        return OcspTestUtils.createOCSPResponse(subject, TestCertUtil.getCaCert(),
+                TestCertUtil.getOcspSigner().certChain[0], TestCertUtil.getOcspSigner().key, CertificateStatus.GOOD,
+                Date.from(thisUpdate), nextUpdate != null ? Date.from(nextUpdate) : null);
+    }
+}
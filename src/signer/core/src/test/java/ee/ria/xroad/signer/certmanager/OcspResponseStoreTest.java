@@ -0,0 +1,325 @@
+/*
+ * The MIT License
+ * Copyright (c) 2019- Nordic Institute for Interoperability Solutions (NIIS)
+ * Copyright (c) 2018 Estonian Information System Authority (RIA),
+ * Nordic Institute for Interoperability Solutions (NIIS), Population Register Centre (VRK)
+ * Copyright (c) 2015-2017 Estonian Information System Authority (RIA), Population Register Centre (VRK)
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package ee.ria.xroad.signer.certmanager;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.channels.FileLock;
+import java.nio.channels.ReadableByteChannel;
+import java.nio.channels.WritableByteChannel;
+import java.nio.file.Files;
+import java.nio.file.OpenOption;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Map;
+import java.util.Set;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertThrows;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Tests the OCSP response store.
+ */
+public class OcspResponseStoreTest {
+
+    @Rule
+    public TemporaryFolder tempFolder = new TemporaryFolder();
+
+    private FailingFileChannel failingChannel;
+
+    @Test
+    public void putReplaceRemove() throws Exception {
+        try (OcspResponseStore store = openStore()) {
+            store.putAll(Map.of("foo", bytes(1, 2, 3), "bar", bytes(4)));
+            store.putAll(Map.of("foo", bytes(5, 6)));
+
+            assertArrayEquals(bytes(5, 6), toBytes(store.get("foo")));
+            assertArrayEquals(bytes(4), toBytes(store.get("bar")));
+
+            store.remove("bar");
+
+            assertNull(store.get("bar"));
+            assertEquals(Set.of("foo"), store.keys());
+            assertTrue(store.getGarbageBytes() > 0);
+        }
+    }
+
+    @Test
+    public void reopen() throws Exception {
+        try (OcspResponseStore store = openStore()) {
+            store.putAll(Map.of("foo", bytes(1, 2, 3), "bar", bytes(4)));
+            store.remove("bar");
+        }
+
+        try (OcspResponseStore store = openStore()) {
+            assertArrayEquals(bytes(1, 2, 3), toBytes(store.get("foo")));
+            assertNull(store.get("bar"));
+        }
+    }
+
+    @Test
+    public void truncatesCorruptedTail() throws Exception {
+        try (OcspResponseStore store = openStore()) {
+            store.putAll(Map.of("foo", bytes(1, 2, 3)));
+            store.putAll(Map.of("bar", bytes(4, 5, 6)));
+        }
+
+        long size = Files.size(storeFile());
+        try (FileChannel channel = FileChannel.open(storeFile(), StandardOpenOption.WRITE)) {
+            // corrupt the last byte of the second record
+            channel.write(ByteBuffer.wrap(bytes(0)), size - 1);
+        }
+
+        try (OcspResponseStore store = openStore()) {
+            assertArrayEquals(bytes(1, 2, 3), toBytes(store.get("foo")));
+            assertNull(store.get("bar"));
+
+            store.putAll(Map.of("bar", bytes(7)));
+        }
+
+        try (OcspResponseStore store = openStore()) {
+            assertArrayEquals(bytes(7), toBytes(store.get("bar")));
+        }
+    }
+
+    @Test
+    public void compactsWhenMostlyGarbage() throws Exception {
+        byte[] value = new byte[64 * 1024];
+
+        try (OcspResponseStore store = openStore()) {
+            store.putAll(Map.of("bar", bytes(1)));
+            for (int i = 0; i < 40; i++) {
+                value[0] = (byte) i;
+                store.putAll(Map.of("foo", value));
+            }
+
+            // 40 records of the value were written, compaction keeps at most ~17 of them (1 MiB of garbage)
+            assertTrue(Files.size(storeFile()) < 20L * value.length);
+            assertTrue(store.getGarbageBytes() < 20L * value.length);
+            assertArrayEquals(value, toBytes(store.get("foo")));
+            assertArrayEquals(bytes(1), toBytes(store.get("bar")));
+        }
+
+        try (OcspResponseStore store = openStore()) {
+            assertArrayEquals(value, toBytes(store.get("foo")));
+            assertArrayEquals(bytes(1), toBytes(store.get("bar")));
+        }
+    }
+
+    @Test
+    public void discardsFailedWrite() throws Exception {
+        try (OcspResponseStore store = new OcspResponseStore(storeFile(), this::openFailingChannel)) {
+            store.open();
+            store.putAll(Map.of("foo", bytes(1, 2, 3)));
+            long size = Files.size(storeFile());
+
+            failingChannel.failWrites = true;
+            assertThrows(IOException.class, () -> store.putAll(Map.of("bar", bytes(4, 5, 6))));
+            failingChannel.failWrites = false;
+
+            assertNull(store.get("bar"));
+            assertEquals(size, Files.size(storeFile()));
+
+            store.putAll(Map.of("baz", bytes(7)));
+        }
+
+        try (OcspResponseStore store = openStore()) {
+            assertArrayEquals(bytes(1, 2, 3), toBytes(store.get("foo")));
+            assertNull(store.get("bar"));
+            assertArrayEquals(bytes(7), toBytes(store.get("baz")));
+        }
+    }
+
+    @Test
+    public void overwritesFailedWriteThatCannotBeTruncated() throws Exception {
+        try (OcspResponseStore store = new OcspResponseStore(storeFile(), this::openFailingChannel)) {
+            store.open();
+            store.putAll(Map.of("foo", bytes(1, 2, 3)));
+
+            failingChannel.failWrites = true;
+            failingChannel.failTruncates = true;
+            assertThrows(IOException.class, () -> store.putAll(Map.of("bar", bytes(4, 5, 6))));
+            failingChannel.failWrites = false;
+            failingChannel.failTruncates = false;
+
+            // the torn record is left in the file, the next records replace it
+            store.putAll(Map.of("baz", bytes(7)));
+        }
+
+        try (OcspResponseStore store = openStore()) {
+            assertArrayEquals(bytes(1, 2, 3), toBytes(store.get("foo")));
+            assertNull(store.get("bar"));
+            assertArrayEquals(bytes(7), toBytes(store.get("baz")));
+        }
+    }
+
+    private OcspResponseStore openStore() throws Exception {
+        OcspResponseStore store = new OcspResponseStore(storeFile());
+        store.open();
+        return store;
+    }
+
+    private FileChannel openFailingChannel(Path path, OpenOption... options) throws IOException {
+        failingChannel = new FailingFileChannel(FileChannel.open(path, options));
+        return failingChannel;
+    }
+
+    private Path storeFile() {
+        return tempFolder.getRoot().toPath().resolve("ocsp-responses.store");
+    }
+
+    private static byte[] bytes(int... values) {
+        byte[] bytes = new byte[values.length];
+        for (int i = 0; i < values.length; i++) {
+            bytes[i] = (byte) values[i];
+        }
+        return bytes;
+    }
+
+    private static byte[] toBytes(ByteBuffer buffer) {
+        byte[] bytes = new byte[buffer.remaining()];
+        buffer.get(bytes);
+        return bytes;
+    }
+
+    /**
+     * File channel that fails writes half way through and, optionally, truncates.
+     */
+    private static final class FailingFileChannel extends FileChannel {
+        private final FileChannel delegate;
+
+        private volatile boolean failWrites;
+        private volatile boolean failTruncates;
+
+        FailingFileChannel(FileChannel delegate) {
+            this.delegate = delegate;
+        }
+
+        @Override
+        public int write(ByteBuffer src) throws IOException {
+            if (failWrites) {
+                ByteBuffer half = src.slice(src.position(), src.remaining() / 2);
+                delegate.write(half);
+                throw new IOException("No space left on device");
+            }
+            return delegate.write(src);
+        }
+
+        @Override
+        public FileChannel truncate(long size) throws IOException {
+            if (failTruncates) {
+                throw new IOException("Truncate failed");
+            }
+            delegate.truncate(size);
+            return this;
+        }
+
+        @Override
+        public int read(ByteBuffer dst) throws IOException {
+            return delegate.read(dst);
+        }
+
+        @Override
+        public long read(ByteBuffer[] dsts, int offset, int length) throws IOException {
+            return delegate.read(dsts, offset, length);
+        }
+
+        @Override
+        public long write(ByteBuffer[] srcs, int offset, int length) throws IOException {
+            return delegate.write(srcs, offset, length);
+        }
+
+        @Override
+        public long position() throws IOException {
+            return delegate.position();
+        }
+
+        @Override
+        public FileChannel position(long newPosition) throws IOException {
+            delegate.position(newPosition);
+            return this;
+        }
+
+        @Override
+        public long size() throws IOException {
+            return delegate.size();
+        }
+
+        @Override
+        public void force(boolean metaData) throws IOException {
+            delegate.force(metaData);
+        }
+
+        @Override
+        public long transferTo(long position, long count, WritableByteChannel target) throws IOException {
+            return delegate.transferTo(position, count, target);
+        }
+
+        @Override
+        public long transferFrom(ReadableByteChannel src, long position, long count) throws IOException {
+            return delegate.transferFrom(src, position, count);
+        }
+
+        @Override
+        public int read(ByteBuffer dst, long position) throws IOException {
+            return delegate.read(dst, position);
+        }
+
+        @Override
+        public int write(ByteBuffer src, long position) throws IOException {
+            return delegate.write(src, position);
+        }
+
+        @Override
+        public MappedByteBuffer map(MapMode mode, long position, long size) throws IOException {
+            return delegate.map(mode, position, size);
+        }
+
+        @Override
+        public FileLock lock(long position, long size, boolean shared) throws IOException {
+            return delegate.lock(position, size, shared);
+        }
+
+        @Override
+        public FileLock tryLock(long position, long size, boolean shared) throws IOException {
+            return delegate.tryLock(position, size, shared);
+        }
+
+        @Override
+        protected void implCloseChannel() throws IOException {
+            delegate.close();
+        }
+    }
+}
@@ -0,0 +1,169 @@
+/*
+ * The MIT License
+ * Copyright (c) 2019- Nordic Institute for Interoperability Solutions (NIIS)
+ * Copyright (c) 2018 Estonian Information System Authority (RIA),
+ * Nordic Institute for Interoperability Solutions (NIIS), Population Register Centre (VRK)
+ * Copyright (c) 2015-2017 Estonian Information System Authority (RIA), Population Register Centre (VRK)
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package ee.ria.xroad.signer.protocol;
+
+import ee.ria.xroad.signer.model.Token;
+import ee.ria.xroad.signer.protocol.dto.TokenInfo;
+import ee.ria.xroad.signer.tokenmanager.TokenManager;
+import ee.ria.xroad.signer.tokenmanager.module.SoftwareModuleType;
+import ee.ria.xroad.signer.tokenmanager.token.TokenType;
+
+import io.grpc.stub.StreamObserver;
+import org.junit.After;
+import org.junit.Test;
+import org.niis.xroad.signer.proto.ListTokensResp;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+/**
+ * Tests publishing the token list to the token watch subscribers.
+ */
+public class TokenChangePublisherTest {
+
+    private static final String TEST_TOKEN_ID = "token-change-publisher-test";
+
+    private final List<Runnable> pendingTasks = new ArrayList<>();
+    private final AtomicInteger listings = new AtomicInteger();
+    private List<TokenInfo> tokens = List.of(token("1"));
+
+    private final TokenChangePublisher publisher =
+            new TokenChangePublisher(() -> {
+                listings.incrementAndGet();
+                return tokens;
+            }, pendingTasks::add);
+
+    @After
+    public void cleanup() {
+        TokenManager.setChangeListener(null);
+    }
+
+    @Test
+    public void publishTokensOnSubscribeAndOnChange() {
+        RecordingObserver subscriber = new RecordingObserver(Integer.MAX_VALUE);
+        publisher.subscribe(subscriber);
+
+        assertEquals(List.of(List.of("1")), subscriber.received);
+
+        tokens = List.of(token("1"), token("2"));
+        publisher.tokensChanged();
+        publisher.tokensChanged();
+
+        // changes made while a publication is pending are published together
+        assertEquals(1, pendingTasks.size());
+        runPendingTasks();
+
+        assertEquals(List.of(List.of("1"), List.of("1", "2")), subscriber.received);
+    }
+
+    @Test
+    public void doNotListTokensWithoutSubscribers() {
+        publisher.tokensChanged();
+
+        assertTrue(pendingTasks.isEmpty());
+        assertEquals(0, listings.get());
+    }
+
+    @Test
+    public void removeFailedSubscriber() {
+        RecordingObserver failing = new RecordingObserver(1);
+        RecordingObserver working = new RecordingObserver(Integer.MAX_VALUE);
+        publisher.subscribe(failing);
+        publisher.subscribe(working);
+
+        publisher.tokensChanged();
+        runPendingTasks();
+        publisher.tokensChanged();
+        runPendingTasks();
+
+        assertEquals(1, failing.received.size());
+        assertEquals(3, working.received.size());
+    }
+
+    @Test
+    public void notifyTokenManagerChanges() {
+        AtomicInteger changes = new AtomicInteger();
+        TokenManager.setChangeListener(changes::incrementAndGet);
+
+        TokenType tokenType = mock(TokenType.class);
+        when(tokenType.getId()).thenReturn(TEST_TOKEN_ID);
+        when(tokenType.getModuleType()).thenReturn(SoftwareModuleType.TYPE);
+
+        TokenManager.createToken(tokenType);
+        assertEquals(1, changes.get());
+
+        // setting the current value again is not a change
+        TokenManager.setTokenActive(TEST_TOKEN_ID, false);
+        assertEquals(1, changes.get());
+
+        TokenManager.setTokenActive(TEST_TOKEN_ID, true);
+        TokenManager.setTokenAvailable(TEST_TOKEN_ID, false);
+        assertEquals(3, changes.get());
+    }
+
+    private void runPendingTasks() {
+        List<Runnable> tasks = new ArrayList<>(pendingTasks);
+        pendingTasks.clear();
+        tasks.forEach(Runnable::run);
+    }
+
+    private static TokenInfo token(String id) {
+        return new Token(SoftwareModuleType.TYPE, id).toDTO();
+    }
+
+    private static final class RecordingObserver implements StreamObserver<ListTokensResp> {
+        private final List<List<String>> received = new ArrayList<>();
+        private final int capacity;
+
+        private RecordingObserver(int capacity) {
+            this.capacity = capacity;
+        }
+
+        @Override
+        public void onNext(ListTokensResp value) {
+            if (received.size() == capacity) {
+                throw new IllegalStateException("Stream closed");
+            }
+            received.add(value.getTokensList().stream()
+                    .map(tokenInfo -> tokenInfo.getId())
+                    .toList());
+        }
+
+        @Override
+        public void onError(Throwable t) {
+        }
+
+        @Override
+        public void onCompleted() {
+        }
+    }
+}
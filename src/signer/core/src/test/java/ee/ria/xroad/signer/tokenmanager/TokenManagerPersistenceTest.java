@@ -0,0 +1,113 @@
+/*
+ * The MIT License
+ * Copyright (c) 2019- Nordic Institute for Interoperability Solutions (NIIS)
+ * Copyright (c) 2018 Estonian Information System Authority (RIA),
+ * Nordic Institute for Interoperability Solutions (NIIS), Population Register Centre (VRK)
+ * Copyright (c) 2015-2017 Estonian Information System Authority (RIA), Population Register Centre (VRK)
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package ee.ria.xroad.signer.tokenmanager;
+
+import ee.ria.xroad.common.SystemProperties;
+
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.contrib.java.lang.system.RestoreSystemProperties;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.File;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotEquals;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Class for testing that {@link TokenManager} persists the key configuration only when it has changed
+ */
+public class TokenManagerPersistenceTest {
+
+    private static final String ROOT = "./build/resources/test/mergetesting/";
+    private static final Path ORIGINAL_FILE_PATH = Paths.get(ROOT + "keyconf_base_no_duplicate_keyIds.xml");
+
+    private static final String KEY_ID = "636f6e73756d6574";
+    private static final String NOT_SAVED = "not saved";
+
+    @Rule
+    public TemporaryFolder temporaryFolder = new TemporaryFolder();
+
+    @Rule
+    public final RestoreSystemProperties restoreSystemProperties = new RestoreSystemProperties();
+
+    private File testingFile;
+
+    @Before
+    public void setUp() throws Exception {
+        testingFile = temporaryFolder.newFile("keyconf-testing.xml");
+        System.setProperty(SystemProperties.KEY_CONFIGURATION_FILE, testingFile.getPath());
+
+        Files.copy(ORIGINAL_FILE_PATH, testingFile.toPath(), StandardCopyOption.REPLACE_EXISTING);
+
+        TokenManager.init();
+        TokenManager.saveToConf();
+    }
+
+    @Test
+    public void shouldNotSaveWhenNothingHasChanged() throws Exception {
+        Files.writeString(testingFile.toPath(), NOT_SAVED);
+
+        TokenManager.setKeyAvailable(KEY_ID, true);
+        TokenManager.saveToConf();
+
+        assertEquals(NOT_SAVED, Files.readString(testingFile.toPath()));
+    }
+
+    @Test
+    public void shouldNotSaveWhenValueIsSetToSameValue() throws Exception {
+        String friendlyName = TokenManager.getKeyInfo(KEY_ID).getFriendlyName();
+        Files.writeString(testingFile.toPath(), NOT_SAVED);
+
+        TokenManager.setKeyFriendlyName(KEY_ID, friendlyName);
+        TokenManager.saveToConf();
+
+        assertEquals(NOT_SAVED, Files.readString(testingFile.toPath()));
+    }
+
+    @Test
+    public void shouldSaveWhenPersistedValueHasChanged() throws Exception {
+        Files.writeString(testingFile.toPath(), NOT_SAVED);
+
+        TokenManager.setKeyFriendlyName(KEY_ID, "changed-friendly-name");
+        TokenManager.saveToConf();
+
+        String saved = Files.readString(testingFile.toPath());
+        assertNotEquals(NOT_SAVED, saved);
+        assertTrue(saved.contains("changed-friendly-name"));
+
+        Files.writeString(testingFile.toPath(), NOT_SAVED);
+        TokenManager.saveToConf();
+
+        assertEquals(NOT_SAVED, Files.readString(testingFile.toPath()));
+    }
+}
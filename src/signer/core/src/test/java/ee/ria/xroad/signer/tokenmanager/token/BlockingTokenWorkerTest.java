@@ -0,0 +1,231 @@
+/*
+ * The MIT License
+ * Copyright (c) 2019- Nordic Institute for Interoperability Solutions (NIIS)
+ * Copyright (c) 2018 Estonian Information System Authority (RIA),
+ * Nordic Institute for Interoperability Solutions (NIIS), Population Register Centre (VRK)
+ * Copyright (c) 2015-2017 Estonian Information System Authority (RIA), Population Register Centre (VRK)
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package ee.ria.xroad.signer.tokenmanager.token;
+
+import ee.ria.xroad.common.CodedException;
+import ee.ria.xroad.common.crypto.identifier.KeyAlgorithm;
+import ee.ria.xroad.common.crypto.identifier.SignAlgorithm;
+import ee.ria.xroad.common.crypto.identifier.SignMechanism;
+import ee.ria.xroad.signer.protocol.dto.TokenInfo;
+import ee.ria.xroad.signer.protocol.dto.TokenInfoProto;
+
+import com.google.protobuf.ByteString;
+import org.junit.Test;
+import org.niis.xroad.signer.proto.ActivateTokenReq;
+import org.niis.xroad.signer.proto.GenerateKeyReq;
+import org.niis.xroad.signer.proto.SignReq;
+
+import java.security.PublicKey;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static ee.ria.xroad.common.ErrorCodes.X_CANNOT_SIGN;
+import static ee.ria.xroad.common.ErrorCodes.X_INTERNAL_ERROR;
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+/**
+ * Tests signing batches of coalesced sign requests with a blocking token worker.
+ */
+public class BlockingTokenWorkerTest {
+
+    private final List<String> events = new CopyOnWriteArrayList<>();
+    private final CountDownLatch firstSignStarted = new CountDownLatch(1);
+    private final CountDownLatch releaseFirstSign = new CountDownLatch(1);
+    private final AtomicInteger batches = new AtomicInteger();
+
+    private volatile boolean failSecondBatch;
+
+    private final BlockingTokenWorker worker = new BlockingTokenWorker(new TestTokenWorker());
+
+    @Test
+    public void signBatchWithinBeginAndEnd() throws Exception {
+        List<Future<byte[]>> results = signQueuedBehindFirstRequest();
+
+        for (int i = 0; i < results.size(); i++) {
+            assertArrayEquals(new byte[] {(byte) i}, results.get(i).get(10, TimeUnit.SECONDS));
+        }
+
+        // the queued requests are signed as one batch, preparing the token once for all of them
+        assertEquals(List.of("begin", "sign", "end", "handled", "begin", "sign", "sign", "sign", "end", "handled"),
+                events);
+    }
+
+    @Test
+    public void failEveryRequestOfFailedBatch() throws Exception {
+        failSecondBatch = true;
+
+        List<Future<byte[]>> results = signQueuedBehindFirstRequest();
+        assertArrayEquals(new byte[] {0}, results.get(0).get(10, TimeUnit.SECONDS));
+
+        List<CodedException> errors = new ArrayList<>();
+        for (Future<byte[]> result : results.subList(1, results.size())) {
+            try {
+                result.get(10, TimeUnit.SECONDS);
+                fail("Sign request of a failed batch must fail");
+            } catch (ExecutionException e) {
+                errors.add((CodedException) e.getCause());
+            }
+        }
+
+        for (CodedException error : errors) {
+            assertEquals(X_CANNOT_SIGN + "." + X_INTERNAL_ERROR, error.getFaultCode());
+        }
+        assertNotSame(errors.get(0), errors.get(1));
+        assertNotSame(errors.get(1), errors.get(2));
+        assertEquals(List.of("begin", "sign", "end", "handled", "begin", "handled"), events);
+    }
+
+    private List<Future<byte[]>> signQueuedBehindFirstRequest() throws Exception {
+        ExecutorService executor = Executors.newFixedThreadPool(4);
+        try {
+            List<Future<byte[]>> results = new ArrayList<>();
+            results.add(executor.submit(() -> worker.handleSign(request(0))));
+            assertTrue(firstSignStarted.await(10, TimeUnit.SECONDS));
+
+            for (int i = 1; i < 4; i++) {
+                int digest = i;
+                results.add(executor.submit(() -> worker.handleSign(request(digest))));
+            }
+            while (worker.getSignRequestStatistics().orElseThrow().queueDepth() < 3) {
+                Thread.sleep(1);
+            }
+            releaseFirstSign.countDown();
+
+            for (Future<byte[]> result : results) {
+                try {
+                    result.get(10, TimeUnit.SECONDS);
+                } catch (ExecutionException e) {
+                    // checked by the tests
+                }
+            }
+            return results;
+        } finally {
+            releaseFirstSign.countDown();
+            executor.shutdownNow();
+        }
+    }
+
+    private static SignReq request(int digest) {
+        return SignReq.newBuilder()
+                .setKeyId("key")
+                .setSignatureAlgorithmId(SignAlgorithm.SHA256_WITH_ECDSA.name())
+                .setDigest(ByteString.copyFrom(new byte[] {(byte) digest}))
+                .build();
+    }
+
+    private final class TestTokenWorker extends AbstractTokenWorker {
+
+        TestTokenWorker() {
+            super(new TokenInfo(TokenInfoProto.newBuilder().setId("test").setType("test").build()));
+        }
+
+        @Override
+        protected void beginSignBatch() {
+            events.add("begin");
+            if (batches.incrementAndGet() == 2 && failSecondBatch) {
+                throw new CodedException(X_INTERNAL_ERROR, "Login failed");
+            }
+        }
+
+        @Override
+        protected void endSignBatch() {
+            events.add("end");
+        }
+
+        @Override
+        public void onActionHandled() {
+            events.add("handled");
+        }
+
+        @Override
+        protected byte[] sign(String keyId, SignAlgorithm signatureAlgorithmId, byte[] data) throws Exception {
+            events.add("sign");
+            if (firstSignStarted.getCount() > 0) {
+                firstSignStarted.countDown();
+                releaseFirstSign.await(10, TimeUnit.SECONDS);
+            }
+            return data;
+        }
+
+        @Override
+        protected void activateToken(ActivateTokenReq message) {
+            throw new UnsupportedOperationException();
+        }
+
+        @Override
+        protected GenerateKeyResult generateKey(GenerateKeyReq message) {
+            throw new UnsupportedOperationException();
+        }
+
+        @Override
+        protected void deleteKey(String keyId) {
+            throw new UnsupportedOperationException();
+        }
+
+        @Override
+        protected void deleteCert(String certId) {
+            throw new UnsupportedOperationException();
+        }
+
+        @Override
+        protected byte[] signCertificate(String keyId, SignAlgorithm signatureAlgorithmId, String subjectName,
+                                         PublicKey publicKey) {
+            throw new UnsupportedOperationException();
+        }
+
+        @Override
+        protected SignMechanism resolveSignMechanism(KeyAlgorithm algorithm) {
+            return SignMechanism.CKM_ECDSA;
+        }
+
+        @Override
+        public void initializeToken(char[] pin) {
+            throw new UnsupportedOperationException();
+        }
+
+        @Override
+        public void handleUpdateTokenPin(char[] oldPin, char[] newPin) {
+            throw new UnsupportedOperationException();
+        }
+
+        @Override
+        public boolean isSoftwareToken() {
+            return false;
+        }
+    }
+}
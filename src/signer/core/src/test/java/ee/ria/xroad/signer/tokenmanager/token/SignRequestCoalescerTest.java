@@ -0,0 +1,181 @@
+/*
+ * The MIT License
+ * Copyright (c) 2019- Nordic Institute for Interoperability Solutions (NIIS)
+ * Copyright (c) 2018 Estonian Information System Authority (RIA),
+ * Nordic Institute for Interoperability Solutions (NIIS), Population Register Centre (VRK)
+ * Copyright (c) 2015-2017 Estonian Information System Authority (RIA), Population Register Centre (VRK)
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package ee.ria.xroad.signer.tokenmanager.token;
+
+import ee.ria.xroad.common.CodedException;
+
+import com.google.protobuf.ByteString;
+import org.junit.Test;
+import org.niis.xroad.signer.proto.SignReq;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertThrows;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Tests coalescing sign requests into batches.
+ */
+public class SignRequestCoalescerTest {
+
+    private final Object lock = new Object();
+    private final List<Integer> batchSizes = new ArrayList<>();
+
+    @Test
+    public void coalesceConcurrentRequests() throws Exception {
+        CountDownLatch firstBatchStarted = new CountDownLatch(1);
+        CountDownLatch releaseFirstBatch = new CountDownLatch(1);
+
+        SignRequestCoalescer coalescer = new SignRequestCoalescer(lock, batch -> {
+            batchSizes.add(batch.size());
+            if (batchSizes.size() == 1) {
+                firstBatchStarted.countDown();
+                await(releaseFirstBatch);
+            }
+            batch.forEach(pending -> pending.complete(pending.getRequest().getDigest().toByteArray()));
+        }, 4);
+
+        ExecutorService executor = Executors.newFixedThreadPool(10);
+        try {
+            List<Future<byte[]>> results = new ArrayList<>();
+            results.add(executor.submit(() -> coalescer.sign(request(0))));
+            assertTrue(firstBatchStarted.await(10, TimeUnit.SECONDS));
+
+            // queued while the first batch is being signed
+            for (int i = 1; i < 10; i++) {
+                int digest = i;
+                results.add(executor.submit(() -> coalescer.sign(request(digest))));
+            }
+            while (coalescer.getStatistics().queueDepth() < 9) {
+                Thread.sleep(1);
+            }
+            releaseFirstBatch.countDown();
+
+            for (int i = 0; i < 10; i++) {
+                assertArrayEquals(new byte[] {(byte) i}, results.get(i).get(10, TimeUnit.SECONDS));
+            }
+        } finally {
+            executor.shutdownNow();
+        }
+
+        // the first request alone, then the queued requests in batches of at most 4
+        assertEquals(List.of(1, 4, 4, 1), batchSizes);
+
+        SignRequestStatistics statistics = coalescer.getStatistics();
+        assertEquals(0, statistics.queueDepth());
+        assertEquals(9, statistics.maxQueueDepth());
+        assertEquals(4, statistics.batches());
+        assertEquals(10, statistics.requests());
+    }
+
+    @Test
+    public void completedRequestReturnsWhileBatchIsSigned() throws Exception {
+        CountDownLatch firstBatchStarted = new CountDownLatch(1);
+        CountDownLatch releaseFirstBatch = new CountDownLatch(1);
+        CountDownLatch releaseSecondBatch = new CountDownLatch(1);
+
+        SignRequestCoalescer coalescer = new SignRequestCoalescer(lock, batch -> {
+            batchSizes.add(batch.size());
+            if (batchSizes.size() == 1) {
+                firstBatchStarted.countDown();
+                await(releaseFirstBatch);
+            }
+            batch.forEach(pending -> pending.complete(pending.getRequest().getDigest().toByteArray()));
+            if (batchSizes.size() == 2) {
+                // the leader keeps holding the lock after the requests of the batch have been completed
+                await(releaseSecondBatch);
+            }
+        }, 4);
+
+        ExecutorService executor = Executors.newFixedThreadPool(3);
+        try {
+            Future<byte[]> first = executor.submit(() -> coalescer.sign(request(0)));
+            assertTrue(firstBatchStarted.await(10, TimeUnit.SECONDS));
+
+            List<Future<byte[]>> queued = List.of(
+                    executor.submit(() -> coalescer.sign(request(1))),
+                    executor.submit(() -> coalescer.sign(request(2))));
+            while (coalescer.getStatistics().queueDepth() < 2) {
+                Thread.sleep(1);
+            }
+            releaseFirstBatch.countDown();
+            assertArrayEquals(new byte[] {0}, first.get(10, TimeUnit.SECONDS));
+
+            // the caller that does not lead the second batch returns without waiting for the lock
+            long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(10);
+            while (queued.stream().noneMatch(Future::isDone) && System.nanoTime() < deadline) {
+                Thread.sleep(1);
+            }
+            assertEquals(1, queued.stream().filter(Future::isDone).count());
+
+            releaseSecondBatch.countDown();
+            assertArrayEquals(new byte[] {1}, queued.get(0).get(10, TimeUnit.SECONDS));
+            assertArrayEquals(new byte[] {2}, queued.get(1).get(10, TimeUnit.SECONDS));
+        } finally {
+            releaseFirstBatch.countDown();
+            releaseSecondBatch.countDown();
+            executor.shutdownNow();
+        }
+
+        assertEquals(List.of(1, 2), batchSizes);
+    }
+
+    @Test
+    public void failedRequest() {
+        SignRequestCoalescer coalescer = new SignRequestCoalescer(lock, batch -> { }, 4);
+
+        assertThrows(CodedException.class, () -> coalescer.sign(request(1)));
+
+        CodedException error = new CodedException("Signer.CannotSign");
+        SignRequestCoalescer failing = new SignRequestCoalescer(lock,
+                batch -> batch.forEach(pending -> pending.fail(error)), 4);
+
+        assertEquals(error, assertThrows(CodedException.class, () -> failing.sign(request(1))));
+    }
+
+    private static SignReq request(int digest) {
+        return SignReq.newBuilder()
+                .setKeyId("key")
+                .setDigest(ByteString.copyFrom(new byte[] {(byte) digest}))
+                .build();
+    }
+
+    private static void await(CountDownLatch latch) {
+        try {
+            latch.await(10, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
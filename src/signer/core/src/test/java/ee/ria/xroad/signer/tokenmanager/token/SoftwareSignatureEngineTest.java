@@ -0,0 +1,117 @@
+/*
+ * The MIT License
+ * Copyright (c) 2019- Nordic Institute for Interoperability Solutions (NIIS)
+ * Copyright (c) 2018 Estonian Information System Authority (RIA),
+ * Nordic Institute for Interoperability Solutions (NIIS), Population Register Centre (VRK)
+ * Copyright (c) 2015-2017 Estonian Information System Authority (RIA), Population Register Centre (VRK)
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package ee.ria.xroad.signer.tokenmanager.token;
+
+import ee.ria.xroad.common.crypto.identifier.SignAlgorithm;
+
+import org.bouncycastle.jce.provider.BouncyCastleProvider;
+import org.junit.BeforeClass;
+import org.junit.Test;
+
+import java.nio.charset.StandardCharsets;
+import java.security.KeyPair;
+import java.security.KeyPairGenerator;
+import java.security.Security;
+import java.security.Signature;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Tests the software token signature engine.
+ */
+public class SoftwareSignatureEngineTest {
+
+    private static KeyPair keyPair;
+
+    @BeforeClass
+    public static void generateKey() throws Exception {
+        Security.addProvider(new BouncyCastleProvider());
+
+        KeyPairGenerator generator = KeyPairGenerator.getInstance("RSA");
+        generator.initialize(2048);
+        keyPair = generator.generateKeyPair();
+    }
+
+    @Test
+    public void signConcurrently() throws Exception {
+        SoftwareSignatureEngine engine = new SoftwareSignatureEngine();
+        ExecutorService executor = Executors.newFixedThreadPool(4);
+
+        try {
+            List<Future<Boolean>> results = new ArrayList<>();
+            for (int i = 0; i < 100; i++) {
+                byte[] data = ("data" + i).getBytes(StandardCharsets.UTF_8);
+                Callable<Boolean> task = () -> verify(data,
+                        engine.sign("key", keyPair.getPrivate(), SignAlgorithm.SHA256_WITH_RSA, data), keyPair);
+                results.add(executor.submit(task));
+            }
+
+            for (Future<Boolean> result : results) {
+                assertTrue(result.get());
+            }
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    @Test
+    public void signWithReloadedOrInvalidatedKey() throws Exception {
+        SoftwareSignatureEngine engine = new SoftwareSignatureEngine();
+        byte[] data = "data".getBytes(StandardCharsets.UTF_8);
+
+        assertTrue(verify(data, engine.sign("key", keyPair.getPrivate(), SignAlgorithm.SHA256_WITH_RSA, data),
+                keyPair));
+
+        KeyPairGenerator generator = KeyPairGenerator.getInstance("RSA");
+        generator.initialize(2048);
+        KeyPair newKeyPair = generator.generateKeyPair();
+
+        // pooled context of the previous key instance must not be used
+        assertTrue(verify(data, engine.sign("key", newKeyPair.getPrivate(), SignAlgorithm.SHA256_WITH_RSA, data),
+                newKeyPair));
+
+        engine.invalidate("key");
+        assertTrue(verify(data, engine.sign("key", keyPair.getPrivate(), SignAlgorithm.SHA256_WITH_RSA, data),
+                keyPair));
+
+        engine.clear();
+        assertTrue(verify(data, engine.sign("key", keyPair.getPrivate(), SignAlgorithm.SHA256_WITH_RSA, data),
+                keyPair));
+    }
+
+    private static boolean verify(byte[] data, byte[] signature, KeyPair keys) throws Exception {
+        Signature verifier = Signature.getInstance(SignAlgorithm.SHA256_WITH_RSA.name());
+        verifier.initVerify(keys.getPublic());
+        verifier.update(data);
+        return verifier.verify(signature);
+    }
+}